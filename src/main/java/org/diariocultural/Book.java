@@ -3,6 +3,7 @@ package org.diariocultural;
 import com.fasterxml.jackson.annotation.JsonCreator; // Import para desserialização
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty; // Import para desserialização
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects; // Para null check
@@ -128,7 +129,7 @@ public class Book extends Media {
      *
      * @param loadedBooks A lista de livros carregada do arquivo de persistência.
      */
-    public static void updateBookCounterBasedOnLoadedData(List<Book> loadedBooks) {
+    public static void updateBookCounterBasedOnLoadedData(Collection<Book> loadedBooks) {
         if (loadedBooks != null && !loadedBooks.isEmpty()) {
             // Encontra o maior bookId na lista carregada usando Streams API
             int maxId = loadedBooks.stream()
@@ -182,17 +183,18 @@ public class Book extends Media {
 
 
     // Setters (usados para atualização)
-    public void setOriginalTitle(String originalTitle) { this.originalTitle = originalTitle; }
-    public void setAuthor(String author) { this.author = author; }
+    public void setOriginalTitle(String originalTitle) { this.originalTitle = originalTitle; changed(ORIGINAL_TITLE); }
+    public void setAuthor(String author) { this.author = author; changed(AUTHOR); }
     public void setPublisher(String publisher) { this.publisher = publisher; }
-    public void setISBN(String ISBN) { this.ISBN = ISBN; }
-    public void setHasCopy(boolean hasCopy) { this.hasCopy = hasCopy; }
+    public void setISBN(String ISBN) { this.ISBN = ISBN; changed(ISBN_CODE); }
+    public void setHasCopy(boolean hasCopy) { this.hasCopy = hasCopy; changed(HAS_COPY); }
     public void setReadStatus(boolean readStatus) {
         this.readStatus = readStatus;
         // Se marcar como não lido, talvez limpar a data?
         if (!readStatus) {
             this.readDate = null;
         }
+        changed(READ_STATUS);
     }
 
     public void setReadDate(Date readDate) {
@@ -207,6 +209,7 @@ public class Book extends Media {
 
     public void setReviewInfo(ReviewInfo reviewInfo) {
         this.reviewInfo = reviewInfo;
+        changed(RATING);
     }
 
     /**
@@ -217,6 +220,43 @@ public class Book extends Media {
     @Override // Sobrescreve o de Media, se existir
     public void addReview(int rating, String comment) {
         getReviewInfo().evaluate(rating, comment); // Usa o getter seguro
+        changed(RATING);
+    }
+
+    /** Além dos campos de {@link Media}, a busca cobre autor, ISBN e título original. */
+    @Override
+    protected void collectSearchFields(List<String> fields) {
+        super.collectSearchFields(fields);
+        fields.add(author);
+        fields.add(ISBN);
+        fields.add(originalTitle);
+    }
+
+    @Override
+    protected void collectCompletionTerms(List<String> terms) {
+        super.collectCompletionTerms(terms);
+        terms.add(originalTitle);
+        terms.add(author);
+    }
+
+    @Override
+    protected void collectFieldValues(String field, List<String> values) {
+        super.collectFieldValues(field, values);
+        switch (field) {
+            case TITLE, ORIGINAL_TITLE -> values.add(originalTitle);
+            case AUTHOR, CREATOR -> values.add(author);
+            default -> { }
+        }
+    }
+
+    @Override
+    protected void collectStatusFlags(List<String> flags) {
+        if (readStatus) {
+            flags.add(READ_STATUS);
+        }
+        if (hasCopy) {
+            flags.add(HAS_COPY);
+        }
     }
 
     // toString para facilitar depuração
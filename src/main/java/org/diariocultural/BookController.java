@@ -1,14 +1,23 @@
 package org.diariocultural;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.databind.DeserializationFeature;
+import org.diariocultural.index.Bm25;
+import org.diariocultural.index.FuzzyMatch;
+import org.diariocultural.index.IdIndexedStore;
+import org.diariocultural.index.MediaFilter;
+import org.diariocultural.index.MediaSearchIndex;
+import org.diariocultural.index.MediaSort;
+import org.diariocultural.index.PrefixIndex;
+import org.diariocultural.index.RoaringBitmap;
+import org.diariocultural.index.ScoredMatch;
+import org.diariocultural.persistence.MediaRepository;
+import org.diariocultural.query.Query;
+import org.diariocultural.query.QueryPlanner;
+import org.diariocultural.query.QueryTrace;
+import org.diariocultural.persistence.WriteBehindPersister;
 
-import java.io.File;
-import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*; // Para Comparator, Collections, Date, Optional, etc.
-import java.util.stream.Collectors;
 
 /**
  * Controlador responsável por gerenciar as operações CRUD (Criar, Ler, Atualizar, Deletar),
@@ -22,27 +31,37 @@ import java.util.stream.Collectors;
  */
 public class BookController {
 
-    private List<Book> books;
+    /** Livros por ID, na ordem de cadastro */
+    private final IdIndexedStore<Book> books = new IdIndexedStore<>();
     private final BookView bookView;
+    private final MediaRepository<Book> repository;
+    private final WriteBehindPersister<Book> persister;
+    private final CatalogWriter<Book> writer;
+    private final MediaSearchIndex<Book> searchIndex = new MediaSearchIndex<>(Book::getBookId, books::get, Book::getOriginalTitle);
     private static final String DATA_DIRECTORY = "data";
-    private static final String FILE_NAME = "books.json";
-    private static final String FILE_PATH = DATA_DIRECTORY + File.separator + FILE_NAME;
+    private static final String FILE_NAME = "books";
 
     public BookController() {
+        this(Paths.get(DATA_DIRECTORY));
+    }
+
+    /**
+     * @param dataDirectory diretório de onde o catálogo é lido e onde as alterações são gravadas
+     */
+    public BookController(Path dataDirectory) {
         this.bookView = new BookView();
+        this.repository = new MediaRepository<>(dataDirectory, FILE_NAME, Book.class, Book::getBookId);
+        this.persister = new WriteBehindPersister<>(repository, FILE_NAME, WriteBehindPersister.maxDelayFromSystemProperties());
+        this.writer = new CatalogWriter<>(books, searchIndex, persister, Book::getBookId);
         loadData();
-        if (this.books == null) {
-            this.books = new ArrayList<>();
-        }
-        Book.updateBookCounterBasedOnLoadedData(this.books);
+        Book.updateBookCounterBasedOnLoadedData(this.books.values());
     }
 
     public void addBook() {
         Book book = bookView.getBookDetails();
         if (book != null) {
-            books.add(book);
+            writer.add(book);
             System.out.println(" Livro '" + book.getTitle() + "' adicionado com sucesso!");
-            saveData();
         } else {
             System.out.println(" Cadastro de livro cancelado ou falhou.");
         }
@@ -53,9 +72,8 @@ public class BookController {
             // Validação opcional: Verificar se um livro com o mesmo ID ou título/autor já existe
             // para evitar duplicatas, dependendo da sua regra de negócio.
             // Por simplicidade, vamos apenas adicionar.
-            this.books.add(book);
+            writer.add(book); // Indexa e persiste a adição
             System.out.println("📖 Livro '" + book.getTitle() + "' adicionado via UI/Objeto!");
-            saveData(); // Persiste a adição
         } else {
             System.out.println("❌ Tentativa de adicionar um objeto Book nulo.");
             // Ou lançar uma exceção, ou registrar um log.
@@ -63,14 +81,9 @@ public class BookController {
     }
 
     public void updateBook(Book updatedBook) {
-        // A lógica de encontrar e substituir pode variar, mas esta é uma abordagem simples
-        for (int i = 0; i < books.size(); i++) {
-            if (books.get(i).getBookId() == updatedBook.getBookId()) {
-                books.set(i, updatedBook); // Substitui o livro antigo pelo novo
-                saveData();
-                System.out.println("Livro '" + updatedBook.getTitle() + "' atualizado.");
-                return;
-            }
+        // Só atualiza livros já cadastrados; o livro antigo com o mesmo ID é substituído
+        if (writer.update(updatedBook)) {
+            System.out.println("Livro '" + updatedBook.getTitle() + "' atualizado.");
         }
     }
 
@@ -97,34 +110,23 @@ public class BookController {
     }
 
     public void removeBook(Book bookToRemove) {
-        if (bookToRemove != null && books.contains(bookToRemove)) {
-            books.remove(bookToRemove);
+        if (bookToRemove != null && writer.remove(bookToRemove)) {
             System.out.println("Livro '" + bookToRemove.getTitle() + "' removido com sucesso!");
-            saveData();
         } else {
             System.err.println("Tentativa de remover um livro nulo ou que não existe na lista.");
         }
     }
 
+    /**
+     * Busca um livro pelo título exato (ou, se nenhum tiver esse título, pelo título
+     * original), sem diferença de maiúsculas nem de acentos. Consulta o índice de
+     * títulos em tempo constante.
+     */
     public Optional<Book> findBookByTitle(String title) {
-        return findBookByTitleInternal(title);
-    }
-
-    private Optional<Book> findBookByTitleInternal(String title) {
-        // (Seu método findBookByTitleInternal, como já definido antes)
         if (title == null || title.isBlank()) {
             return Optional.empty();
         }
-        String lowerTitle = title.toLowerCase().trim();
-        Optional<Book> found = books.stream()
-                .filter(b -> b.getTitle().equalsIgnoreCase(lowerTitle))
-                .findFirst();
-        if (found.isEmpty()) {
-            found = books.stream()
-                    .filter(b -> b.getOriginalTitle() != null && b.getOriginalTitle().equalsIgnoreCase(lowerTitle))
-                    .findFirst();
-        }
-        return found;
+        return searchIndex.findByTitle(title);
     }
 
     public void listAllBooks() {
@@ -133,7 +135,7 @@ public class BookController {
             bookView.displayMessage(" Nenhum livro cadastrado no momento.");
             return;
         }
-        List<Book> displayList = new ArrayList<>(this.books);
+        List<Book> displayList = books.toList();
         boolean wasFilteredOrSorted = false;
 
         List<Book> filteredList = applyBookFilters(displayList);
@@ -170,36 +172,104 @@ public class BookController {
         }
     }
 
+    /**
+     * Pergunta os filtros de gênero e ano e os resolve pelos índices de bitmap: as
+     * contagens intermediárias saem dos índices, restritas aos livros da lista atual
+     * (que pode ser o resultado de uma busca), e a lista só é percorrida no final.
+     */
     private List<Book> applyBookFilters(List<Book> currentList) {
-        // (Seu método applyBookFilters, como já definido antes)
-        List<Book> filteredList = new ArrayList<>(currentList);
+        RoaringBitmap listed = new RoaringBitmap();
+        for (Book book : currentList) {
+            listed.add(book.getBookId());
+        }
+        MediaFilter filter = MediaFilter.ALL;
+        int count = currentList.size();
         if (bookView.askToFilterByGenre()) {
             String genreFilter = bookView.getGenreFilterInput();
             if (genreFilter != null && !genreFilter.isBlank()) {
-                String lowerGenreFilter = genreFilter.toLowerCase().trim();
-                filteredList = filteredList.stream()
-                        .filter(book -> book.getGenre() != null && book.getGenre().stream()
-                                .anyMatch(g -> g.toLowerCase().contains(lowerGenreFilter)))
-                        .collect(Collectors.toList());
-                if (filteredList.isEmpty()) {
+                filter = filter.withGenres(genreFilter);
+                count = searchIndex.count(filter, listed);
+                if (count == 0) {
                     bookView.displayMessage("Nenhum livro encontrado para o gênero: '" + genreFilter + "'.");
                 }
             }
         }
-        if (!filteredList.isEmpty() && bookView.askToFilterByYear()) {
+        if (count > 0 && bookView.askToFilterByYear()) {
             int yearFilter = bookView.getYearFilterInput();
             if (yearFilter > 0) {
-                filteredList = filteredList.stream()
-                        .filter(book -> book.getReleaseYear() == yearFilter)
-                        .collect(Collectors.toList());
-                if (filteredList.isEmpty()) {
+                filter = filter.withYears(yearFilter, yearFilter);
+                count = searchIndex.count(filter, listed);
+                if (count == 0) {
                     bookView.displayMessage("Nenhum livro encontrado para o ano: " + yearFilter + ".");
                 }
             }
         }
+        return filter.isEmpty() ? currentList : filterBooks(currentList, filter);
+    }
+
+    /**
+     * Filtra uma lista de livros (ex: o resultado de uma busca) pelos índices de bitmap.
+     * @return livros da lista aceitos pelo filtro, na ordem da lista
+     */
+    public List<Book> filterBooks(List<Book> currentList, MediaFilter filter) {
+        RoaringBitmap accepted = searchIndex.facets().select(filter);
+        List<Book> filteredList = new ArrayList<>();
+        for (Book book : currentList) {
+            if (accepted.contains(book.getBookId())) {
+                filteredList.add(book);
+            }
+        }
         return filteredList;
     }
 
+    /**
+     * Filtra os livros por gênero, ano e situação ({@link Media#READ_STATUS}, {@link Media#HAS_COPY}).
+     * @return livros aceitos, em ordem de cadastro
+     */
+    public List<Book> filterBooks(MediaFilter filter) {
+        return searchIndex.filter(filter);
+    }
+
+    /** @return quantos livros o filtro aceita, sem montar a lista */
+    public int countBooks(MediaFilter filter) {
+        return searchIndex.count(filter);
+    }
+
+    /** @return quantos livros aceitos pelo filtro têm cada gênero (normalizado), sem montar a lista */
+    public Map<String, Integer> countBooksByGenre(MediaFilter filter) {
+        return searchIndex.genreCounts(filter);
+    }
+
+    /**
+     * Executa uma consulta estruturada pelos índices do catálogo (ver {@link QueryPlanner}).
+     * @param trace registro dos passos executados, para o modo explain
+     */
+    public List<Book> queryBooks(Query query, QueryTrace trace) {
+        return QueryPlanner.execute(searchIndex, query, trace);
+    }
+
+    /**
+     * Os livros avaliados com a maior (ou a menor) média, sem ordenar o catálogo.
+     * @param k quantos livros devolver (no máximo)
+     * @param best dos mais bem avaliados (senão, dos piores)
+     * @param filter restrição por gênero, ano e situação ({@link MediaFilter#ALL} = nenhuma)
+     * @see MediaSearchIndex#topRated
+     */
+    public List<Book> topRatedBooks(int k, boolean best, MediaFilter filter) {
+        return searchIndex.topRated(k, best, filter);
+    }
+
+    /**
+     * Janela da listagem ordenada dos livros, a partir de uma posição e sem copiar o catálogo.
+     * @see MediaSearchIndex#page
+     */
+    public List<MediaSearchIndex.Positioned<Book>> pageBooks(MediaSort sort, Object fromKey, int fromId, int limit) {
+        return searchIndex.page(sort, fromKey, fromId, limit);
+    }
+
+    /**
+     * Pergunta a ordenação por avaliação e a aplica com {@link #sortBooksByRating}.
+     */
     private List<Book> applyBookSorting(List<Book> currentList) {
         // (Seu método applyBookSorting, ajustado para as opções da BookView, como já definido antes)
         if (currentList.isEmpty()) {
@@ -211,98 +281,149 @@ public class BookController {
             return currentList;
         }
 
-        List<Book> sortedList = new ArrayList<>(currentList);
-        Comparator<Book> comparator; // Declarado fora do switch para ser acessível depois
-
+        boolean best;
         switch (sortOption) {
             case 1: // Melhor Avaliados
-                comparator = Comparator.comparingDouble(
-                        (Book b) -> b.isReadStatus() && b.getReviewInfo() != null ? b.getAverageRating() : -1.0
-                ).reversed();
+                best = true;
                 break;
             case 2: // Pior Avaliados
-                comparator = Comparator.comparingDouble(
-                        (Book b) -> b.isReadStatus() && b.getReviewInfo() != null ? b.getAverageRating() : Double.MAX_VALUE
-                );
+                best = false;
                 break;
             default:
                 bookView.displayMessage("Opção de ordenação não aplicada ou inválida.");
                 return currentList;
         }
-        // Removido 'if (comparator != null)' pois o default já retorna. Se chegar aqui, comparator foi setado.
-        sortedList.sort(comparator);
+        return sortBooksByRating(currentList, best);
+    }
+
+    /**
+     * Ordena por avaliação pelo índice ordenado por média (ver {@link MediaSearchIndex#topRated}),
+     * sem ordenar a lista nem recalcular médias: primeiro os livros lidos, do melhor para
+     * o pior (ou o contrário), e depois os não lidos na ordem em que estavam. Um livro
+     * lido sem avaliações conta como nota 0.0 e empata, na ordem da lista, com as
+     * médias 0.0: vem no começo dos piores e depois das notas positivas nos melhores.
+     * @param currentList livros na ordem de cadastro
+     */
+    public List<Book> sortBooksByRating(List<Book> currentList, boolean best) {
+        RoaringBitmap positive = new RoaringBitmap();
+        List<Book> zero = new ArrayList<>();
+        for (Book book : currentList) {
+            if (!book.isReadStatus()) {
+                continue;
+            }
+            if (book.getAverageRating() > 0) {
+                positive.add(book.getBookId());
+            } else {
+                zero.add(book);
+            }
+        }
+        List<Book> sortedList = new ArrayList<>(currentList.size());
+        if (!best) {
+            sortedList.addAll(zero);
+        }
+        sortedList.addAll(searchIndex.topRated(positive.cardinality(), best, positive));
+        if (best) {
+            sortedList.addAll(zero);
+        }
+        for (Book book : currentList) {
+            if (!book.isReadStatus()) {
+                sortedList.add(book);
+            }
+        }
         return sortedList;
     }
 
+    /**
+     * Contador de alterações do catálogo: cresce a cada adição, atualização e remoção
+     * e a cada setter chamado num dos livros cadastrados. Dois valores iguais
+     * garantem que nenhuma busca sobre os livros mudou de resultado entre eles.
+     */
+    public long modificationCount() {
+        return writer.modificationCount();
+    }
+
     // Adicione este método ao seu BookController/BookService
     public List<Book> getAllBooks() {
-        return new ArrayList<>(this.books); // Retorna uma cópia da lista
+        return books.toList(); // Retorna uma cópia, na ordem de cadastro
     }
 
     public List<Book> searchBooks(String criteria) {
         if (criteria == null || criteria.isBlank()) {
-            return new ArrayList<>(this.books); // Retorna todos os livros
+            return books.toList(); // Retorna todos os livros
         }
 
-        String lowerCriteria = criteria.toLowerCase().trim();
-        List<Book> results = books.stream()
-                .filter(book ->
-                        book.getTitle().toLowerCase().contains(lowerCriteria) ||
-                                book.getAuthor().toLowerCase().contains(lowerCriteria) ||
-                                book.getISBN().toLowerCase().contains(lowerCriteria) ||
-                                (book.getOriginalTitle() != null && book.getOriginalTitle().toLowerCase().contains(lowerCriteria)) ||
-                                book.getGenre().stream().anyMatch(genre -> genre.toLowerCase().contains(lowerCriteria)) ||
-                                String.valueOf(book.getReleaseYear()).contains(lowerCriteria)
-                )
-                .collect(Collectors.toList());
-
         // A lógica de imprimir no console foi removida, pois agora é responsabilidade da GUI
-        return results;
+        return searchIndex.search(criteria);
+    }
+
+    /**
+     * A mesma busca de {@link #searchBooks}, com a relevância de cada resultado.
+     * @param scorer pontuação preparada com as estatísticas de todos os catálogos
+     * @return resultados em ordem de cadastro, cada um com a sua pontuação
+     */
+    public List<ScoredMatch<Book>> searchBooksRanked(String criteria, Bm25 scorer) {
+        return searchIndex.searchRanked(criteria, scorer);
+    }
+
+    /** @return estatísticas dos livros para pontuar uma consulta (ver {@link Bm25}) */
+    public Bm25.Statistics bookRelevanceStatistics(List<String> queryTokens) {
+        return searchIndex.relevanceStatistics(queryTokens);
+    }
+
+    /**
+     * Busca tolerante a erros de digitação, por palavras inteiras.
+     * @return resultados com a distância de edição, dos mais próximos para os mais distantes
+     */
+    public List<FuzzyMatch<Book>> searchBooksFuzzy(String criteria) {
+        return searchIndex.searchFuzzy(criteria);
+    }
+
+    /**
+     * Autocompletar: títulos, títulos originais e pessoas que começam com o texto digitado.
+     * @return até {@code limit} sugestões, das mais bem avaliadas
+     */
+    public List<PrefixIndex.Completion> completeBooks(String prefix, int limit) {
+        return searchIndex.complete(prefix, limit);
     }
 
+    /**
+     * Grava um snapshot completo do catálogo de livros e descarta o diário de alterações.
+     * As operações do dia a dia (adicionar/atualizar/remover) apenas acrescentam ao diário,
+     * em lotes gravados em segundo plano pelo {@link WriteBehindPersister}.
+     */
     public void saveData() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
-        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-
-        try {
-            File dataDir = new File(DATA_DIRECTORY);
-            if (!dataDir.exists()) {
-                if (!dataDir.mkdirs()) {
-                    System.err.println(" Falha ao criar diretório: " + dataDir.getAbsolutePath());
-                    return;
-                }
-            }
-            objectMapper.writeValue(new File(FILE_PATH), books);
-        } catch (IOException e) {
-            System.err.println("Erro crítico ao salvar dados de livros em " + FILE_PATH + ": " + e.getMessage());
-            e.printStackTrace();
-        }
+        persister.flush();
+        repository.writeSnapshot(books.values());
+    }
+
+    /**
+     * Grava imediatamente as alterações ainda pendentes no write-behind.
+     */
+    public void flush() {
+        persister.flush();
+    }
+
+    /**
+     * Grava as alterações pendentes e encerra a thread de gravação em segundo plano.
+     * Alterações feitas depois disso são gravadas de forma síncrona.
+     */
+    public void shutdown() {
+        persister.shutdown();
     }
 
+    /**
+     * Carrega o catálogo em streaming: cada item lido do snapshot (com o diário aplicado)
+     * vai direto para a lista e para o índice de busca, sem uma cópia intermediária
+     * do arquivo inteiro.
+     */
     private void loadData() {
-        // (Seu método loadData, como já definido antes)
-        // ...
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        File file = new File(FILE_PATH);
-
-        if (file.exists() && file.isFile() && file.length() > 0) {
-            try {
-                this.books = objectMapper.readValue(file, new TypeReference<List<Book>>() {});
-                System.out.println("Dados de livros carregados com sucesso de " + FILE_PATH);
-            } catch (IOException e) {
-                System.err.println("Erro ao ler ou desserializar o arquivo " + FILE_PATH + ": " + e.getMessage());
-                e.printStackTrace();
-                this.books = new ArrayList<>();
-            }
-        } else {
-            if (!file.exists()) {
-                System.out.println("Arquivo " + FILE_PATH + " não encontrado. Será criado ao salvar.");
-            } else {
-                System.out.println("Arquivo " + FILE_PATH + " vazio ou inválido. Iniciando com catálogo vazio.");
-            }
-            this.books = new ArrayList<>();
-        }
+        repository.load(book -> {
+            writer.store(book);
+        });
+    }
+
+    /** @return repositório do catálogo (usado para agendar a compactação do diário) */
+    public MediaRepository<Book> getRepository() {
+        return repository;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,89 @@
+package org.diariocultural;
+
+import org.diariocultural.index.IdIndexedStore;
+import org.diariocultural.index.MediaSearchIndex;
+import org.diariocultural.persistence.WriteBehindPersister;
+
+import java.util.concurrent.locks.Lock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Alterações de um catálogo, comuns aos três controladores: o armazenamento por ID
+ * e o índice de busca mudam juntos, sob a trava de escrita do índice (uma busca em
+ * outra thread, ver {@link org.diariocultural.fx.LibraryService#searchAllMedia},
+ * nunca vê um sem o outro), e só o que de fato mudou o catálogo vai para o
+ * write-behind.
+ *
+ * @param <T> tipo das entidades do catálogo
+ */
+final class CatalogWriter<T extends Media> {
+
+    private final IdIndexedStore<T> entities;
+    private final MediaSearchIndex<T> searchIndex;
+    private final WriteBehindPersister<T> persister;
+    private final ToIntFunction<T> idOf;
+
+    CatalogWriter(IdIndexedStore<T> entities, MediaSearchIndex<T> searchIndex,
+                  WriteBehindPersister<T> persister, ToIntFunction<T> idOf) {
+        this.entities = entities;
+        this.searchIndex = searchIndex;
+        this.persister = persister;
+        this.idOf = idOf;
+    }
+
+    /** Cadastra a entidade (ou substitui a de mesmo ID) e grava a adição. */
+    void add(T entity) {
+        store(entity);
+        persister.recordAdd(entity);
+    }
+
+    /** @return true se a entidade estava cadastrada (e foi substituída e gravada) */
+    boolean update(T entity) {
+        if (!entities.containsId(idOf.applyAsInt(entity))) {
+            return false;
+        }
+        store(entity);
+        persister.recordUpdate(entity);
+        return true;
+    }
+
+    /** @return true se a entidade estava cadastrada (e foi removida e a remoção gravada) */
+    boolean remove(T entity) {
+        if (!unstore(entity)) {
+            return false;
+        }
+        persister.recordRemove(entity);
+        return true;
+    }
+
+    /** Grava no armazenamento e no índice, sem passar pelo write-behind (ex: ao carregar do disco). */
+    void store(T entity) {
+        Lock write = searchIndex.writeLock();
+        write.lock();
+        try {
+            entities.put(idOf.applyAsInt(entity), entity);
+            searchIndex.add(entity);
+        } finally {
+            write.unlock();
+        }
+    }
+
+    private boolean unstore(T entity) {
+        Lock write = searchIndex.writeLock();
+        write.lock();
+        try {
+            boolean removed = entities.remove(idOf.applyAsInt(entity)) != null;
+            if (removed) {
+                searchIndex.remove(entity);
+            }
+            return removed;
+        } finally {
+            write.unlock();
+        }
+    }
+
+    /** @return adições, atualizações e remoções somadas aos setters avisados pelo índice */
+    long modificationCount() {
+        return (long) entities.modCount() + searchIndex.changeCount();
+    }
+}
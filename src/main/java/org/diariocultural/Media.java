@@ -1,11 +1,33 @@
 package org.diariocultural;
 
+import org.diariocultural.index.TextNormalizer;
+
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Representa mídia genérica com título, gêneros, ano de lançamento e avaliações.
  */
 public class Media {
+    // --- Nomes das propriedades informados aos MediaChangeListener ---
+    public static final String TITLE = "title";
+    public static final String ORIGINAL_TITLE = "originalTitle";
+    public static final String GENRE = "genre";
+    public static final String RELEASE_YEAR = "releaseYear";
+    public static final String AUTHOR = "author";
+    public static final String ISBN_CODE = "isbn";
+    public static final String DIRECTOR = "director";
+    public static final String CAST = "cast";
+    public static final String CREATOR = "creator";
+    public static final String READ_STATUS = "readStatus";
+    public static final String HAS_COPY = "hasCopy";
+    public static final String WATCHED_STATUS = "watchedStatus";
+    /** Média das avaliações (nova avaliação, avaliações ou temporadas substituídas) */
+    public static final String RATING = "averageRating";
+    /** Período no ar de uma série (ano final ou temporadas) */
+    public static final String AIRING = "airing";
+
     /** Título principal da mídia */
     private String title;
     /** Lista de gêneros associados */
@@ -14,6 +36,10 @@ public class Media {
     private int releaseYear;
     /** Informações de avaliação (criada ao instanciar) */
     private final ReviewInfo reviewInfo;
+    /** Chaves de busca normalizadas, calculadas no primeiro uso (null = recalcular) */
+    private transient volatile String[] searchKeys;
+    /** Interessados em alterações (criada no primeiro registro) */
+    private transient volatile List<MediaChangeListener> changeListeners;
 
     /**
      * Constrói mídia com dados básicos e inicializa avaliações.
@@ -30,17 +56,135 @@ public class Media {
 
     // --- Getters e Setters básicos ---
     public String getTitle()                         { return title; }
-    public void setTitle(String title)               { this.title = title; }
+    public void setTitle(String title)               { this.title = title; changed(TITLE); }
     public List<String> getGenre()                   { return genre; }
-    public void setGenre(List<String> genre)         { this.genre = genre; }
+    public void setGenre(List<String> genre)         { this.genre = genre; changed(GENRE); }
     public int getReleaseYear()                      { return releaseYear; }
-    public void setReleaseYear(int releaseYear)      { this.releaseYear = releaseYear; }
+    public void setReleaseYear(int releaseYear)      { this.releaseYear = releaseYear; changed(RELEASE_YEAR); }
+
+    // --- Avisos de alteração ---
+    /** Registra um interessado nas alterações feitas pelos setters. */
+    public void addChangeListener(MediaChangeListener listener) {
+        List<MediaChangeListener> listeners = changeListeners;
+        if (listeners == null) {
+            synchronized (this) {
+                if (changeListeners == null) {
+                    changeListeners = new CopyOnWriteArrayList<>();
+                }
+                listeners = changeListeners;
+            }
+        }
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(MediaChangeListener listener) {
+        List<MediaChangeListener> listeners = changeListeners;
+        if (listeners != null) {
+            listeners.remove(listener);
+        }
+    }
+
+    /**
+     * Chamado pelos setters depois de gravar o novo valor: descarta as chaves de
+     * busca e avisa os interessados.
+     * @param property nome da propriedade alterada (ex: {@link #TITLE})
+     */
+    protected final void changed(String property) {
+        searchKeys = null;
+        List<MediaChangeListener> listeners = changeListeners;
+        if (listeners != null) {
+            for (MediaChangeListener listener : listeners) {
+                listener.mediaChanged(this, property);
+            }
+        }
+    }
+
+    // --- Chaves de busca ---
+    /**
+     * Valores dos campos pesquisáveis normalizados por {@link TextNormalizer#fold}
+     * (NFD, sem acentos, em minúsculas). São calculados uma vez e reaproveitados por
+     * todas as buscas até que um setter altere algum desses campos (ver {@link #changed}).
+     * @return as chaves (o array não deve ser modificado)
+     */
+    public final String[] searchKeys() {
+        String[] keys = searchKeys;
+        if (keys == null) {
+            List<String> fields = new ArrayList<>();
+            collectSearchFields(fields);
+            keys = fields.stream()
+                    .filter(field -> field != null && !field.isEmpty())
+                    .map(TextNormalizer::fold)
+                    .toArray(String[]::new);
+            searchKeys = keys;
+        }
+        return keys;
+    }
+
+    /** Acrescenta os campos pesquisáveis: título, gêneros e ano; subclasses incluem os seus. */
+    protected void collectSearchFields(List<String> fields) {
+        fields.add(title);
+        if (genre != null) {
+            fields.addAll(genre);
+        }
+        fields.add(String.valueOf(releaseYear));
+    }
+
+    /** @return textos oferecidos no autocompletar (título e, nas subclasses, título original e pessoas) */
+    public List<String> completionTerms() {
+        List<String> terms = new ArrayList<>();
+        collectCompletionTerms(terms);
+        return terms;
+    }
+
+    /** Acrescenta os textos sugeríveis: o título; subclasses incluem os seus. */
+    protected void collectCompletionTerms(List<String> terms) {
+        terms.add(title);
+    }
+
+    /**
+     * Valores de um campo consultável por nome, como nos filtros {@code cast:"joão"}
+     * da linguagem de consulta. {@link #TITLE} cobre título e título original, e
+     * {@link #ORIGINAL_TITLE} só o original; {@link #CREATOR} é quem aparece na coluna
+     * de criador (autor, diretor ou criador); {@link #GENRE} são os gêneros.
+     * @return os valores do campo (vazio se o tipo de mídia não tiver esse campo)
+     */
+    public final List<String> fieldValues(String field) {
+        List<String> values = new ArrayList<>(2);
+        collectFieldValues(field, values);
+        values.removeIf(value -> value == null || value.isEmpty());
+        return values;
+    }
+
+    /** Acrescenta os valores do campo: título e gêneros; subclasses incluem os seus. */
+    protected void collectFieldValues(String field, List<String> values) {
+        if (TITLE.equals(field)) {
+            values.add(title);
+        } else if (GENRE.equals(field) && genre != null) {
+            values.addAll(genre);
+        }
+    }
+
+    /**
+     * Situações ativas desta mídia, com os mesmos nomes das propriedades
+     * (ex: {@link #READ_STATUS}), usadas pelos índices de filtro.
+     */
+    public List<String> statusFlags() {
+        List<String> flags = new ArrayList<>(2);
+        collectStatusFlags(flags);
+        return flags;
+    }
+
+    /** Acrescenta as situações ativas; mídia genérica não tem nenhuma. */
+    protected void collectStatusFlags(List<String> flags) {
+    }
 
     // --- Métodos de avaliação ---
     /** @return objeto que gerencia avaliações desta mídia */
     public ReviewInfo getReviewInfo()                { return reviewInfo; }
     /** Adiciona nova avaliação com nota e comentário */
-    public void addReview(int rating, String comment){ reviewInfo.evaluate(rating, comment); }
-    /** Retorna média das avaliações registradas */
-    public double getAverageRating()                 { return reviewInfo.getAverageRating(); }
+    public void addReview(int rating, String comment){ getReviewInfo().evaluate(rating, comment); changed(RATING); }
+    /** Retorna média das avaliações registradas (pelo {@link #getReviewInfo()} da subclasse) */
+    public double getAverageRating()                 { return getReviewInfo().getAverageRating(); }
+    /** @return se a mídia tem alguma avaliação (só as avaliadas entram nos rankings por nota) */
+    public boolean isRated()                         { return getReviewInfo().getReviewCount() > 0; }
 }
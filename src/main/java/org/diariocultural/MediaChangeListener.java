@@ -0,0 +1,17 @@
+package org.diariocultural;
+
+/**
+ * Recebe avisos de alteração de uma {@link Media}. Os setters avisam depois de
+ * gravar o novo valor, com o nome da propriedade alterada (ex: {@link Media#TITLE}).
+ * Usado pelos índices dos controladores para se manterem atualizados quando uma
+ * entidade é alterada no lugar.
+ */
+@FunctionalInterface
+public interface MediaChangeListener {
+
+    /**
+     * @param media mídia alterada
+     * @param property nome da propriedade alterada
+     */
+    void mediaChanged(Media media, String property);
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Objects;
@@ -99,18 +100,19 @@ public class Movie extends Media {
     }
 
     // --- Setters (Usados para atualização e possivelmente por Jackson se não usar construtor anotado para tudo) ---
-    public void setOriginalTitle(String originalTitle) { this.originalTitle = originalTitle; }
+    public void setOriginalTitle(String originalTitle) { this.originalTitle = originalTitle; changed(ORIGINAL_TITLE); }
     public void setDuration(int duration) { this.duration = duration; }
-    public void setDirector(String director) { this.director = director; }
+    public void setDirector(String director) { this.director = director; changed(DIRECTOR); }
     public void setSynopsis(String synopsis) { this.synopsis = synopsis; }
-    public void setCast(List<String> cast) { this.cast = (cast != null) ? new ArrayList<>(cast) : new ArrayList<>();}
+    public void setCast(List<String> cast) { this.cast = (cast != null) ? new ArrayList<>(cast) : new ArrayList<>(); changed(CAST); }
     public void setWhereToWatch(List<String> whereToWatch) { this.whereToWatch = (whereToWatch != null) ? new ArrayList<>(whereToWatch) : new ArrayList<>();}
     public void setWatchedStatus(boolean watchedStatus) {
         this.watchedStatus = watchedStatus;
         if (!watchedStatus) this.watchDate = null;
+        changed(WATCHED_STATUS);
     }
     public void setWatchDate(Date watchDate) { this.watchDate = this.watchedStatus ? watchDate : null;}
-    public void setReviewInfo(ReviewInfo reviewInfo) { this.reviewInfo = reviewInfo;}
+    public void setReviewInfo(ReviewInfo reviewInfo) { this.reviewInfo = reviewInfo; changed(RATING); }
 
 
     /**
@@ -119,7 +121,7 @@ public class Movie extends Media {
      *
      * @param loadedMovies A lista de filmes carregada.
      */
-    public static void updateNextIdBasedOnLoadedData(List<Movie> loadedMovies) {
+    public static void updateNextIdBasedOnLoadedData(Collection<Movie> loadedMovies) {
         if (loadedMovies != null && !loadedMovies.isEmpty()) {
             int maxId = loadedMovies.stream()
                     .mapToInt(Movie::getMovieId)
@@ -144,6 +146,7 @@ public class Movie extends Media {
     @Override
     public void addReview(int rating, String comment) {
         getReviewInfo().evaluate(rating, comment);
+        changed(RATING);
     }
 
     @Override
@@ -151,6 +154,48 @@ public class Movie extends Media {
         return getReviewInfo().getAverageRating();
     }
 
+    /** Além dos campos de {@link Media}, a busca cobre diretor e elenco. */
+    @Override
+    protected void collectSearchFields(List<String> fields) {
+        super.collectSearchFields(fields);
+        fields.add(director);
+        if (cast != null) {
+            fields.addAll(cast);
+        }
+    }
+
+    @Override
+    protected void collectCompletionTerms(List<String> terms) {
+        super.collectCompletionTerms(terms);
+        terms.add(originalTitle);
+        terms.add(director);
+        if (cast != null) {
+            terms.addAll(cast);
+        }
+    }
+
+    @Override
+    protected void collectFieldValues(String field, List<String> values) {
+        super.collectFieldValues(field, values);
+        switch (field) {
+            case TITLE, ORIGINAL_TITLE -> values.add(originalTitle);
+            case DIRECTOR, CREATOR -> values.add(director);
+            case CAST -> {
+                if (cast != null) {
+                    values.addAll(cast);
+                }
+            }
+            default -> { }
+        }
+    }
+
+    @Override
+    protected void collectStatusFlags(List<String> flags) {
+        if (watchedStatus) {
+            flags.add(WATCHED_STATUS);
+        }
+    }
+
     @Override
     public String toString() {
         return "Movie [ID=" + movieId +
@@ -1,105 +1,214 @@
 package org.diariocultural;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-
-import java.io.File;
-import java.io.IOException;
-import java.util.ArrayList;
+import org.diariocultural.index.Bm25;
+import org.diariocultural.index.FuzzyMatch;
+import org.diariocultural.index.IdIndexedStore;
+import org.diariocultural.index.MediaFilter;
+import org.diariocultural.index.MediaSearchIndex;
+import org.diariocultural.index.MediaSort;
+import org.diariocultural.index.PrefixIndex;
+import org.diariocultural.index.ScoredMatch;
+import org.diariocultural.persistence.MediaRepository;
+import org.diariocultural.query.Query;
+import org.diariocultural.query.QueryPlanner;
+import org.diariocultural.query.QueryTrace;
+import org.diariocultural.persistence.WriteBehindPersister;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
 
 public class MovieController {
 
-    private List<Movie> movies;
+    /** Filmes por ID, na ordem de cadastro */
+    private final IdIndexedStore<Movie> movies = new IdIndexedStore<>();
+    private final MediaRepository<Movie> repository;
+    private final WriteBehindPersister<Movie> persister;
+    private final CatalogWriter<Movie> writer;
+    private final MediaSearchIndex<Movie> searchIndex = new MediaSearchIndex<>(Movie::getMovieId, movies::get, Movie::getOriginalTitle);
     private static final String DATA_DIRECTORY = "data";
-    private static final String FILE_NAME = "movies.json";
-    private static final String FILE_PATH = DATA_DIRECTORY + File.separator + FILE_NAME;
+    private static final String FILE_NAME = "movies";
 
     public MovieController() {
+        this(Paths.get(DATA_DIRECTORY));
+    }
+
+    /**
+     * @param dataDirectory diretório de onde o catálogo é lido e onde as alterações são gravadas
+     */
+    public MovieController(Path dataDirectory) {
+        this.repository = new MediaRepository<>(dataDirectory, FILE_NAME, Movie.class, Movie::getMovieId);
+        this.persister = new WriteBehindPersister<>(repository, FILE_NAME, WriteBehindPersister.maxDelayFromSystemProperties());
+        this.writer = new CatalogWriter<>(movies, searchIndex, persister, Movie::getMovieId);
         loadData();
-        if (this.movies == null) {
-            this.movies = new ArrayList<>();
-        }
-        Movie.updateNextIdBasedOnLoadedData(this.movies);
+        Movie.updateNextIdBasedOnLoadedData(this.movies.values());
     }
 
     // --- MÉTODOS PARA A GUI ---
 
     public void addMovieViaObject(Movie movie) {
         if (movie != null) {
-            this.movies.add(movie);
-            saveData();
+            writer.add(movie);
         }
     }
 
     public void removeMovie(Movie movieToRemove) {
         if (movieToRemove != null) {
-            movies.remove(movieToRemove);
-            saveData();
+            writer.remove(movieToRemove);
         }
     }
 
     public void updateMovie(Movie updatedMovie) {
-        for (int i = 0; i < movies.size(); i++) {
-            if (movies.get(i).getMovieId() == updatedMovie.getMovieId()) {
-                movies.set(i, updatedMovie);
-                saveData();
-                return;
-            }
-        }
+        writer.update(updatedMovie);
+    }
+
+    /**
+     * Contador de alterações do catálogo: cresce a cada adição, atualização e remoção
+     * e a cada setter chamado num dos filmes cadastrados. Dois valores iguais
+     * garantem que nenhuma busca sobre os filmes mudou de resultado entre eles.
+     */
+    public long modificationCount() {
+        return writer.modificationCount();
     }
 
     public List<Movie> getAllMovies() {
-        return new ArrayList<>(this.movies);
+        return movies.toList();
+    }
+
+    /**
+     * Busca um filme pelo título exato (ou, se nenhum tiver esse título, pelo título
+     * original), sem diferença de maiúsculas nem de acentos, em tempo constante.
+     */
+    public Optional<Movie> findMovieByTitle(String title) {
+        if (title == null || title.isBlank()) {
+            return Optional.empty();
+        }
+        return searchIndex.findByTitle(title);
+    }
+
+    /**
+     * Filtra os filmes por gênero, ano e situação ({@link Media#WATCHED_STATUS}).
+     * @return filmes aceitos, em ordem de cadastro
+     */
+    public List<Movie> filterMovies(MediaFilter filter) {
+        return searchIndex.filter(filter);
+    }
+
+    /** @return quantos filmes o filtro aceita, sem montar a lista */
+    public int countMovies(MediaFilter filter) {
+        return searchIndex.count(filter);
+    }
+
+    /** @return quantos filmes aceitos pelo filtro têm cada gênero (normalizado), sem montar a lista */
+    public Map<String, Integer> countMoviesByGenre(MediaFilter filter) {
+        return searchIndex.genreCounts(filter);
+    }
+
+    /**
+     * Executa uma consulta estruturada pelos índices do catálogo (ver {@link QueryPlanner}).
+     * @param trace registro dos passos executados, para o modo explain
+     */
+    public List<Movie> queryMovies(Query query, QueryTrace trace) {
+        return QueryPlanner.execute(searchIndex, query, trace);
+    }
+
+    /**
+     * Os filmes avaliados com a maior (ou a menor) média, sem ordenar o catálogo.
+     * @param k quantos filmes devolver (no máximo)
+     * @param best dos mais bem avaliados (senão, dos piores)
+     * @param filter restrição por gênero, ano e situação ({@link MediaFilter#ALL} = nenhuma)
+     * @see MediaSearchIndex#topRated
+     */
+    public List<Movie> topRatedMovies(int k, boolean best, MediaFilter filter) {
+        return searchIndex.topRated(k, best, filter);
+    }
+
+    /**
+     * Janela da listagem ordenada dos filmes, a partir de uma posição e sem copiar o catálogo.
+     * @see MediaSearchIndex#page
+     */
+    public List<MediaSearchIndex.Positioned<Movie>> pageMovies(MediaSort sort, Object fromKey, int fromId, int limit) {
+        return searchIndex.page(sort, fromKey, fromId, limit);
     }
 
     public List<Movie> searchMovies(String criteria) {
         if (criteria == null || criteria.isBlank()) {
             return getAllMovies();
         }
-        String lowerCriteria = criteria.toLowerCase().trim();
-        return movies.stream()
-                .filter(movie -> movie.getTitle().toLowerCase().contains(lowerCriteria) ||
-                        movie.getDirector().toLowerCase().contains(lowerCriteria) ||
-                        String.valueOf(movie.getReleaseYear()).contains(lowerCriteria) ||
-                        movie.getGenre().stream().anyMatch(g -> g.toLowerCase().contains(lowerCriteria)) ||
-                        movie.getCast().stream().anyMatch(a -> a.toLowerCase().contains(lowerCriteria)))
-                .collect(Collectors.toList());
-    }
-
-
-    // --- MÉTODOS DE PERSISTÊNCIA (sem alterações) ---
-
-    private void saveData() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
-        try {
-            File dataDir = new File(DATA_DIRECTORY);
-            if (!dataDir.exists()) {
-                dataDir.mkdirs();
-            }
-            objectMapper.writeValue(new File(FILE_PATH), movies);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+        return searchIndex.search(criteria);
+    }
+
+    /**
+     * A mesma busca de {@link #searchMovies}, com a relevância de cada resultado.
+     * @param scorer pontuação preparada com as estatísticas de todos os catálogos
+     * @return resultados em ordem de cadastro, cada um com a sua pontuação
+     */
+    public List<ScoredMatch<Movie>> searchMoviesRanked(String criteria, Bm25 scorer) {
+        return searchIndex.searchRanked(criteria, scorer);
+    }
+
+    /** @return estatísticas dos filmes para pontuar uma consulta (ver {@link Bm25}) */
+    public Bm25.Statistics movieRelevanceStatistics(List<String> queryTokens) {
+        return searchIndex.relevanceStatistics(queryTokens);
     }
 
+    /**
+     * Busca tolerante a erros de digitação, por palavras inteiras.
+     * @return resultados com a distância de edição, dos mais próximos para os mais distantes
+     */
+    public List<FuzzyMatch<Movie>> searchMoviesFuzzy(String criteria) {
+        return searchIndex.searchFuzzy(criteria);
+    }
+
+    /**
+     * Autocompletar: títulos, títulos originais e pessoas que começam com o texto digitado.
+     * @return até {@code limit} sugestões, das mais bem avaliadas
+     */
+    public List<PrefixIndex.Completion> completeMovies(String prefix, int limit) {
+        return searchIndex.complete(prefix, limit);
+    }
+
+
+    // --- Persistência (snapshot + diário de alterações) ---
+
+    /**
+     * Grava um snapshot completo do catálogo e descarta o diário de alterações.
+     */
+    public void saveData() {
+        persister.flush();
+        repository.writeSnapshot(movies.values());
+    }
+
+    /**
+     * Grava imediatamente as alterações ainda pendentes no write-behind.
+     */
+    public void flush() {
+        persister.flush();
+    }
+
+    /**
+     * Grava as alterações pendentes e encerra a thread de gravação em segundo plano.
+     * Alterações feitas depois disso são gravadas de forma síncrona.
+     */
+    public void shutdown() {
+        persister.shutdown();
+    }
+
+    /**
+     * Carrega o catálogo em streaming: cada item lido do snapshot (com o diário aplicado)
+     * vai direto para a lista e para o índice de busca, sem uma cópia intermediária
+     * do arquivo inteiro.
+     */
     private void loadData() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        File file = new File(FILE_PATH);
-        if (file.exists() && file.length() > 0) {
-            try {
-                this.movies = objectMapper.readValue(file, new TypeReference<>() {});
-            } catch (IOException e) {
-                this.movies = new ArrayList<>();
-                e.printStackTrace();
-            }
-        } else {
-            this.movies = new ArrayList<>();
-        }
+        repository.load(movie -> {
+            writer.store(movie);
+        });
+    }
+
+    /** @return repositório do catálogo (usado para agendar a compactação do diário) */
+    public MediaRepository<Movie> getRepository() {
+        return repository;
     }
-}
\ No newline at end of file
+}
@@ -16,6 +16,8 @@ public class ReviewInfo {
 
     /** Lista interna para armazenar as avaliações. */
     private List<Review> reviews;
+    /** Soma das notas de {@link #reviews}, mantida a cada alteração para a média sair em O(1). */
+    private long ratingTotal;
 
     /**
      * Construtor padrão que inicializa a lista de avaliações.
@@ -56,6 +58,7 @@ public class ReviewInfo {
         Date currentDate = new Date();
         Review newReview = new Review(rating, comment, currentDate);
         this.reviews.add(newReview);
+        ratingTotal += rating;
     }
 
     /**
@@ -76,6 +79,10 @@ public class ReviewInfo {
      */
     public void setReviews(List<Review> reviews) {
         this.reviews = (reviews != null) ? new ArrayList<>(reviews) : new ArrayList<>();
+        ratingTotal = 0;
+        for (Review review : this.reviews) {
+            ratingTotal += review.rating();
+        }
     }
 
 
@@ -138,11 +145,13 @@ public class ReviewInfo {
         }
         if (review != null) {
             reviews.add(review);
+            ratingTotal += review.rating();
         }
     }
 
     /**
-     * Calcula e retorna a média das notas (avaliações) de todas as avaliações.
+     * Retorna a média das notas (avaliações) de todas as avaliações, a partir
+     * da soma mantida a cada avaliação adicionada (sem percorrer a lista).
      * Você mencionou que usa isso para séries. Isso não é um problema.
      *
      * @return Valor médio das notas, ou {@code 0.0} se não houver avaliações.
@@ -151,12 +160,6 @@ public class ReviewInfo {
         if (reviews == null || reviews.isEmpty()) {
             return 0.0;
         }
-
-        double total = 0;
-        for (Review r : reviews) {
-            total += r.rating();
-        }
-
-        return total / reviews.size();
+        return (double) ratingTotal / reviews.size();
     }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 
@@ -83,14 +84,16 @@ public class Series extends Media {
     public String getCreator() { return creator; }
 
     // --- Setters (Jackson usa para DESSERIALIZAR, e para atualizações) ---
-    public void setOriginalTitle(String originalTitle) { this.originalTitle = originalTitle; }
-    public void setEndYear(int endYear) { this.endYear = (endYear != 0 && endYear < getReleaseYear()) ? getReleaseYear() : endYear;}
+    public void setOriginalTitle(String originalTitle) { this.originalTitle = originalTitle; changed(ORIGINAL_TITLE); }
+    public void setEndYear(int endYear) { this.endYear = (endYear != 0 && endYear < getReleaseYear()) ? getReleaseYear() : endYear; changed(AIRING); }
     public void setWhereToWatch(List<String> whereToWatch) { this.whereToWatch = (whereToWatch != null) ? new ArrayList<>(whereToWatch) : new ArrayList<>(); }
-    public void setCast(List<String> cast) { this.cast = (cast != null) ? new ArrayList<>(cast) : new ArrayList<>(); }
-    public void setCreator(String creator) { this.creator = creator; }
-    public void setWatchedStatus(boolean watchedStatus) { this.watchedStatus = watchedStatus; }
+    public void setCast(List<String> cast) { this.cast = (cast != null) ? new ArrayList<>(cast) : new ArrayList<>(); changed(CAST); }
+    public void setCreator(String creator) { this.creator = creator; changed(CREATOR); }
+    public void setWatchedStatus(boolean watchedStatus) { this.watchedStatus = watchedStatus; changed(WATCHED_STATUS); }
     public void setSeasons(List<Season> seasons) {
         this.seasons = (seasons != null) ? new ArrayList<>(seasons) : new ArrayList<>();
+        changed(RATING);
+        changed(AIRING);
     }
 
 
@@ -105,6 +108,8 @@ public class Series extends Media {
         }
         if (season != null) {
             this.seasons.add(season);
+            changed(RATING);
+            changed(AIRING);
         }
     }
 
@@ -128,6 +133,12 @@ public class Series extends Media {
         return totalRatingSum / ratedSeasons.size();
     }
 
+    /** A série conta como avaliada quando alguma temporada tem avaliação. */
+    @Override
+    public boolean isRated() {
+        return getRatedSeasonsCount() > 0;
+    }
+
     /**
      * Conta quantas temporadas desta série possuem pelo menos uma avaliação.
      */
@@ -142,7 +153,7 @@ public class Series extends Media {
      * Atualiza o contador estático 'nextId' da classe Series.
      * Deve ser chamado após carregar a lista de séries da persistência (ex: JSON).
      */
-    public static void updateNextIdBasedOnLoadedData(List<Series> loadedSeries) {
+    public static void updateNextIdBasedOnLoadedData(Collection<Series> loadedSeries) {
         if (loadedSeries != null && !loadedSeries.isEmpty()) {
             int maxId = loadedSeries.stream()
                     .mapToInt(Series::getSeriesId)
@@ -158,6 +169,47 @@ public class Series extends Media {
         }
     }
 
+    /** Além dos campos de {@link Media}, a busca cobre o elenco. */
+    @Override
+    protected void collectSearchFields(List<String> fields) {
+        super.collectSearchFields(fields);
+        if (cast != null) {
+            fields.addAll(cast);
+        }
+    }
+
+    @Override
+    protected void collectCompletionTerms(List<String> terms) {
+        super.collectCompletionTerms(terms);
+        terms.add(originalTitle);
+        terms.add(creator);
+        if (cast != null) {
+            terms.addAll(cast);
+        }
+    }
+
+    @Override
+    protected void collectFieldValues(String field, List<String> values) {
+        super.collectFieldValues(field, values);
+        switch (field) {
+            case TITLE, ORIGINAL_TITLE -> values.add(originalTitle);
+            case CREATOR -> values.add(creator);
+            case CAST -> {
+                if (cast != null) {
+                    values.addAll(cast);
+                }
+            }
+            default -> { }
+        }
+    }
+
+    @Override
+    protected void collectStatusFlags(List<String> flags) {
+        if (watchedStatus) {
+            flags.add(WATCHED_STATUS);
+        }
+    }
+
     @Override
     public String toString() {
         return String.format("Series [ID=%d, Title='%s', Year=%d, Seasons=%d, AvgRating=%.1f]",
@@ -1,116 +1,253 @@
 package org.diariocultural;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-
-import java.io.File;
-import java.io.IOException;
+import org.diariocultural.index.Bm25;
+import org.diariocultural.index.FuzzyMatch;
+import org.diariocultural.index.IdIndexedStore;
+import org.diariocultural.index.IntervalIndex;
+import org.diariocultural.index.MediaFilter;
+import org.diariocultural.index.MediaSearchIndex;
+import org.diariocultural.index.MediaSort;
+import org.diariocultural.index.PrefixIndex;
+import org.diariocultural.index.ScoredMatch;
+import org.diariocultural.persistence.MediaRepository;
+import org.diariocultural.query.Query;
+import org.diariocultural.query.QueryPlanner;
+import org.diariocultural.query.QueryTrace;
+import org.diariocultural.persistence.WriteBehindPersister;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Optional;
 
 public class SeriesController {
 
-    private List<Series> seriesList;
+    /** Séries por ID, na ordem de cadastro */
+    private final IdIndexedStore<Series> seriesList = new IdIndexedStore<>();
+    private final MediaRepository<Series> repository;
+    private final WriteBehindPersister<Series> persister;
+    private final CatalogWriter<Series> writer;
+    private final MediaSearchIndex<Series> searchIndex = new MediaSearchIndex<>(Series::getSeriesId, seriesList::get,
+            Series::getOriginalTitle, SeriesController::airingIntervals);
     private static final String DATA_DIRECTORY = "data";
-    private static final String FILE_NAME = "series.json";
-    private static final String FILE_PATH = DATA_DIRECTORY + File.separator + FILE_NAME;
+    private static final String FILE_NAME = "series";
 
     public SeriesController() {
+        this(Paths.get(DATA_DIRECTORY));
+    }
+
+    /**
+     * @param dataDirectory diretório de onde o catálogo é lido e onde as alterações são gravadas
+     */
+    public SeriesController(Path dataDirectory) {
+        this.repository = new MediaRepository<>(dataDirectory, FILE_NAME, Series.class, Series::getSeriesId);
+        this.persister = new WriteBehindPersister<>(repository, FILE_NAME, WriteBehindPersister.maxDelayFromSystemProperties());
+        this.writer = new CatalogWriter<>(seriesList, searchIndex, persister, Series::getSeriesId);
         loadData();
-        if (this.seriesList == null) {
-            this.seriesList = new ArrayList<>();
-        }
-        Series.updateNextIdBasedOnLoadedData(this.seriesList);
+        Series.updateNextIdBasedOnLoadedData(this.seriesList.values());
     }
 
     // --- MÉTODOS PARA A GUI ---
 
     public void addSeriesViaObject(Series series) {
         if (series != null) {
-            this.seriesList.add(series);
-            saveData();
+            writer.add(series);
         }
     }
 
     public void removeSeries(Series seriesToRemove) {
         if (seriesToRemove != null) {
-            seriesList.remove(seriesToRemove);
-            saveData();
+            writer.remove(seriesToRemove);
         }
     }
 
     public void updateSeries(Series updatedSeries) {
-        for (int i = 0; i < seriesList.size(); i++) {
-            if (seriesList.get(i).getSeriesId() == updatedSeries.getSeriesId()) {
-                seriesList.set(i, updatedSeries);
-                saveData();
-                return;
+        writer.update(updatedSeries);
+    }
+
+    /**
+     * Contador de alterações do catálogo: cresce a cada adição, atualização e remoção
+     * e a cada setter chamado numa das séries cadastradas. Dois valores iguais
+     * garantem que nenhuma busca sobre as séries mudou de resultado entre eles.
+     */
+    public long modificationCount() {
+        return writer.modificationCount();
+    }
+
+    public List<Series> getAllSeries() {
+        return seriesList.toList();
+    }
+
+    /**
+     * Busca uma série pelo título exato (ou, se nenhum tiver esse título, pelo título
+     * original), sem diferença de maiúsculas nem de acentos, em tempo constante.
+     */
+    public Optional<Series> findSeriesByTitle(String title) {
+        if (title == null || title.isBlank()) {
+            return Optional.empty();
+        }
+        return searchIndex.findByTitle(title);
+    }
+
+    /**
+     * Filtra as séries por gênero, ano e situação ({@link Media#WATCHED_STATUS}).
+     * @return séries aceitas, em ordem de cadastro
+     */
+    public List<Series> filterSeries(MediaFilter filter) {
+        return searchIndex.filter(filter);
+    }
+
+    /** @return quantas séries o filtro aceita, sem montar a lista */
+    public int countSeries(MediaFilter filter) {
+        return searchIndex.count(filter);
+    }
+
+    /** @return quantas séries aceitas pelo filtro têm cada gênero (normalizado), sem montar a lista */
+    public Map<String, Integer> countSeriesByGenre(MediaFilter filter) {
+        return searchIndex.genreCounts(filter);
+    }
+
+    /**
+     * Executa uma consulta estruturada pelos índices do catálogo (ver {@link QueryPlanner}).
+     * @param trace registro dos passos executados, para o modo explain
+     */
+    public List<Series> querySeries(Query query, QueryTrace trace) {
+        return QueryPlanner.execute(searchIndex, query, trace);
+    }
+
+    /**
+     * As séries avaliadas com a maior (ou a menor) média, sem ordenar o catálogo.
+     * @param k quantas séries devolver (no máximo)
+     * @param best das mais bem avaliadas (senão, das piores)
+     * @param filter restrição por gênero, ano e situação ({@link MediaFilter#ALL} = nenhuma)
+     * @see MediaSearchIndex#topRated
+     */
+    public List<Series> topRatedSeries(int k, boolean best, MediaFilter filter) {
+        return searchIndex.topRated(k, best, filter);
+    }
+
+    /** @return séries que estavam no ar no ano ({@link #findSeriesAiring(int, int)}) */
+    public List<Series> findSeriesAiring(int year) {
+        return findSeriesAiring(year, year);
+    }
+
+    /**
+     * Séries no ar em algum ano de {@code [fromYear, toYear]}: o período de exibição
+     * (do ano de lançamento ao ano final, ou sem fim se o ano final for 0) ou o ano de
+     * alguma temporada cruza o intervalo. Responde pela árvore de intervalos do índice,
+     * atualizada pelos avisos de {@link Series#addSeason}, {@link Series#setSeasons},
+     * {@link Series#setEndYear} e do ano de lançamento; uma {@link Season} alterada no
+     * lugar precisa de {@link #updateSeries} para ser reindexada.
+     * @return séries encontradas, em ordem de cadastro
+     */
+    public List<Series> findSeriesAiring(int fromYear, int toYear) {
+        return searchIndex.overlapping(fromYear, toYear);
+    }
+
+    /**
+     * Períodos de uma série na árvore de intervalos: o de exibição e o ano de cada
+     * temporada. Anos não informados (0) ficam de fora.
+     */
+    private static List<IntervalIndex.Interval> airingIntervals(Series series) {
+        List<IntervalIndex.Interval> intervals = new ArrayList<>();
+        int start = series.getReleaseYear();
+        if (start > 0) {
+            int end = series.getEndYear() == 0 ? Integer.MAX_VALUE : Math.max(start, series.getEndYear());
+            intervals.add(new IntervalIndex.Interval(start, end));
+        }
+        for (Season season : series.getSeasons()) {
+            if (season != null && season.getReleaseYear() > 0) {
+                intervals.add(IntervalIndex.Interval.of(season.getReleaseYear()));
             }
         }
+        return intervals;
     }
 
-    public List<Series> getAllSeries() {
-        return new ArrayList<>(this.seriesList);
+    /**
+     * Janela da listagem ordenada das séries, a partir de uma posição e sem copiar o catálogo.
+     * @see MediaSearchIndex#page
+     */
+    public List<MediaSearchIndex.Positioned<Series>> pageSeries(MediaSort sort, Object fromKey, int fromId, int limit) {
+        return searchIndex.page(sort, fromKey, fromId, limit);
     }
 
     public List<Series> searchSeries(String criteria) {
         if (criteria == null || criteria.isBlank()) {
             return getAllSeries();
         }
-        String lowerCriteria = criteria.toLowerCase().trim();
-        return seriesList.stream()
-                .filter(series -> series.getTitle().toLowerCase().contains(lowerCriteria) ||
-                        String.valueOf(series.getReleaseYear()).contains(lowerCriteria) ||
-                        series.getGenre().stream().anyMatch(g -> g.toLowerCase().contains(lowerCriteria)) ||
-                        series.getCast().stream().anyMatch(a -> a.toLowerCase().contains(lowerCriteria)))
-                .collect(Collectors.toList());
-    }
-
-    // --- Métodos de Persistência JSON ---
-
-    private void saveData() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.enable(SerializationFeature.INDENT_OUTPUT); // JSON formatado
-        // objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS); // Se tiver Datas
-
-        try {
-            File dataDir = new File(DATA_DIRECTORY);
-            if (!dataDir.exists()) {
-                if (!dataDir.mkdirs()) {
-                    System.err.println(" Falha ao criar diretório de dados: " + dataDir.getAbsolutePath());
-                    return;
-                }
-            }
-            objectMapper.writeValue(new File(FILE_PATH), seriesList);
-            // System.out.println("Dados de séries salvos em " + FILE_PATH);
-        } catch (IOException e) {
-            System.err.println(" Erro ao salvar dados de séries: " + e.getMessage());
-            e.printStackTrace();
-        }
+        return searchIndex.search(criteria);
     }
 
+    /**
+     * A mesma busca de {@link #searchSeries}, com a relevância de cada resultado.
+     * @param scorer pontuação preparada com as estatísticas de todos os catálogos
+     * @return resultados em ordem de cadastro, cada um com a sua pontuação
+     */
+    public List<ScoredMatch<Series>> searchSeriesRanked(String criteria, Bm25 scorer) {
+        return searchIndex.searchRanked(criteria, scorer);
+    }
+
+    /** @return estatísticas das séries para pontuar uma consulta (ver {@link Bm25}) */
+    public Bm25.Statistics seriesRelevanceStatistics(List<String> queryTokens) {
+        return searchIndex.relevanceStatistics(queryTokens);
+    }
+
+    /**
+     * Busca tolerante a erros de digitação, por palavras inteiras.
+     * @return resultados com a distância de edição, dos mais próximos para os mais distantes
+     */
+    public List<FuzzyMatch<Series>> searchSeriesFuzzy(String criteria) {
+        return searchIndex.searchFuzzy(criteria);
+    }
+
+    /**
+     * Autocompletar: títulos, títulos originais e pessoas que começam com o texto digitado.
+     * @return até {@code limit} sugestões, das mais bem avaliadas
+     */
+    public List<PrefixIndex.Completion> completeSeries(String prefix, int limit) {
+        return searchIndex.complete(prefix, limit);
+    }
+
+    // --- Persistência (snapshot + diário de alterações) ---
+
+    /**
+     * Grava um snapshot completo do catálogo e descarta o diário de alterações.
+     */
+    public void saveData() {
+        persister.flush();
+        repository.writeSnapshot(seriesList.values());
+    }
+
+    /**
+     * Grava imediatamente as alterações ainda pendentes no write-behind.
+     */
+    public void flush() {
+        persister.flush();
+    }
+
+    /**
+     * Grava as alterações pendentes e encerra a thread de gravação em segundo plano.
+     * Alterações feitas depois disso são gravadas de forma síncrona.
+     */
+    public void shutdown() {
+        persister.shutdown();
+    }
+
+    /**
+     * Carrega o catálogo em streaming: cada item lido do snapshot (com o diário aplicado)
+     * vai direto para a lista e para o índice de busca, sem uma cópia intermediária
+     * do arquivo inteiro.
+     */
     private void loadData() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false); // Ignora campos extras
-        // objectMapper.setDateFormat(new java.text.SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ")); // Se usar datas
-
-        File file = new File(FILE_PATH);
-        if (file.exists() && file.isFile() && file.length() > 0) {
-            try {
-                this.seriesList = objectMapper.readValue(file, new TypeReference<List<Series>>() {});
-                System.out.println(" Dados de séries carregados de " + FILE_PATH);
-            } catch (IOException e) {
-                System.err.println(" Erro ao carregar dados de séries: " + e.getMessage());
-                e.printStackTrace();
-                this.seriesList = new ArrayList<>(); // Começa vazio se houver erro
-            }
-        } else {
-            if (!file.exists()) System.out.println("Arquivo " + FILE_PATH + " não encontrado. Será criado ao salvar.");
-            else System.out.println("Arquivo " + FILE_PATH + " vazio ou é um diretório. Iniciando com lista vazia.");
-            this.seriesList = new ArrayList<>(); // Lista vazia se arquivo não existe/vazio
-        }
+        repository.load(series -> {
+            writer.store(series);
+        });
+    }
+
+    /** @return repositório do catálogo (usado para agendar a compactação do diário) */
+    public MediaRepository<Series> getRepository() {
+        return repository;
     }
-}
\ No newline at end of file
+}
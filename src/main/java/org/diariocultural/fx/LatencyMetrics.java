@@ -0,0 +1,81 @@
+package org.diariocultural.fx;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latência das buscas de um catálogo no {@link LibraryService}: quantidade, média,
+ * máxima e percentis, e quantas não terminaram dentro do prazo da consulta.
+ * <p>
+ * Os percentis vêm de um histograma de faixas em potências de 2 de microssegundos,
+ * então são aproximados (o limite superior da faixa, no máximo o dobro do real);
+ * registrar custa alguns incrementos atômicos e nenhuma alocação, e pode ser feito
+ * de várias threads ao mesmo tempo.
+ */
+public final class LatencyMetrics {
+
+    /**
+     * Métricas acumuladas desde a criação.
+     * @param searches buscas que terminaram (inclusive depois do prazo)
+     * @param timeouts buscas que não terminaram dentro do prazo (o resultado ficou sem o catálogo)
+     * @param meanMillis tempo médio das buscas que terminaram
+     * @param p50Millis mediana (aproximada)
+     * @param p99Millis percentil 99 (aproximado)
+     * @param maxMillis maior tempo registrado
+     */
+    public record Snapshot(long searches, long timeouts, double meanMillis, double p50Millis,
+                           double p99Millis, double maxMillis) { }
+
+    /** Faixa i: até 2^i microssegundos (a última recebe todo o resto) */
+    private static final int BUCKETS = 40;
+
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /** Registra uma busca que terminou em {@code nanos}. */
+    void record(long nanos) {
+        long micros = Math.max(1, (nanos + 999) / 1_000);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros - 1));
+        histogram.incrementAndGet(bucket);
+        searches.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /** Registra uma busca que não terminou dentro do prazo. */
+    void recordTimeout() {
+        timeouts.increment();
+    }
+
+    public Snapshot snapshot() {
+        long count = searches.sum();
+        double mean = count == 0 ? 0 : totalNanos.sum() / 1e6 / count;
+        return new Snapshot(count, timeouts.sum(), mean, percentile(0.50), percentile(0.99), maxNanos.get() / 1e6);
+    }
+
+    /** @return limite superior, em ms, da faixa que contém o percentil (0 sem registros) */
+    private double percentile(double fraction) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = histogram.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(fraction * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min((1L << i) / 1e3, maxNanos.get() / 1e6);
+            }
+        }
+        return maxNanos.get() / 1e6;
+    }
+}
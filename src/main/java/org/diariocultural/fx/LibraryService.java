@@ -1,57 +1,728 @@
 package org.diariocultural.fx;
 
 import org.diariocultural.*;
+import org.diariocultural.index.Bm25;
+import org.diariocultural.index.FuzzyMatch;
+import org.diariocultural.index.MediaFilter;
+import org.diariocultural.index.MediaSearchIndex;
+import org.diariocultural.index.MediaSort;
+import org.diariocultural.index.PrefixIndex;
+import org.diariocultural.index.ScoredMatch;
+import org.diariocultural.index.TextNormalizer;
+import org.diariocultural.index.TopK;
+import org.diariocultural.query.Catalogs;
+import org.diariocultural.query.Clause;
+import org.diariocultural.query.Query;
+import org.diariocultural.query.QueryParseException;
+import org.diariocultural.query.QueryParser;
+import org.diariocultural.query.QueryResult;
+import org.diariocultural.query.QueryTrace;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * Serviço responsável por unificar as operações de busca e listagem
  * entre diferentes tipos de mídia (Livros, Filmes, etc.).
+ * <p>
+ * Os catálogos podem ser carregados em segundo plano com {@link #loadAsync(Path)}:
+ * o serviço existe de imediato e as consultas aguardam até que os controladores
+ * de que dependem estejam prontos.
  */
 public class LibraryService {
 
-    private final BookController bookController;
-    private final MovieController movieController;
-    private final SeriesController seriesController;
+    /** Nomes dos catálogos, na ordem usada nas notificações de progresso. */
+    public static final String BOOKS = Catalogs.BOOKS;
+    public static final String MOVIES = Catalogs.MOVIES;
+    public static final String SERIES = Catalogs.SERIES;
+    /** Catálogos na ordem da listagem; a posição é o {@link Cursor#catalog} */
+    private static final List<String> CATALOGS = List.of(BOOKS, MOVIES, SERIES);
+    private static final int ALL_CATALOGS = (1 << CATALOGS.size()) - 1;
+
+    /**
+     * Posição numa listagem paginada: o último item entregue. Guarda a chave de
+     * ordenação, então continua válido mesmo que esse item mude ou seja removido.
+     * @param sort ordem da listagem
+     * @param key chave de ordenação do item (null na ordem de cadastro)
+     * @param catalog posição do catálogo do item ({@link #BOOKS}, {@link #MOVIES}, {@link #SERIES})
+     * @param id ID do item no seu catálogo
+     */
+    public record Cursor(MediaSort sort, Object key, int catalog, int id) { }
+
+    /**
+     * Uma janela da listagem.
+     * @param items mídias da janela, na ordem pedida
+     * @param next posição para pedir a próxima janela, ou null se esta foi a última
+     */
+    public record Page(List<Media> items, Cursor next) { }
+
+    /**
+     * Resultado de uma busca com prazo.
+     * @param results mídias encontradas, na ordem de {@link #searchAllMedia}
+     * @param timedOut catálogos que não responderam dentro do prazo e ficaram fora do resultado
+     */
+    public record SearchResult(List<Media> results, Set<String> timedOut) {
+
+        /** @return true se algum catálogo ficou de fora */
+        public boolean isPartial() {
+            return !timedOut.isEmpty();
+        }
+    }
+
+    /** As buscas de texto de um catálogo, com tipos comuns aos três controladores */
+    private record CatalogSearch(
+            Function<List<String>, Bm25.Statistics> statistics,
+            BiFunction<String, Bm25, List<? extends ScoredMatch<? extends Media>>> ranked,
+            Function<String, List<? extends FuzzyMatch<? extends Media>>> fuzzy) { }
+
+    /** Estatísticas de relevância de um catálogo e o tempo gasto para obtê-las */
+    private record TimedStatistics(Bm25.Statistics statistics, long nanos) { }
+
+    /** O que um catálogo encontrou */
+    private record CatalogMatches(List<? extends ScoredMatch<? extends Media>> ranked,
+                                  List<? extends FuzzyMatch<? extends Media>> fuzzy) { }
+
+    private final CompletableFuture<BookController> bookController;
+    private final CompletableFuture<MovieController> movieController;
+    private final CompletableFuture<SeriesController> seriesController;
+    /** Concluído quando os três controladores estiverem carregados */
+    private final CompletableFuture<Void> ready;
+    /** Resultados de busca e de filtro; o tamanho vem de {@code -Ddiario.queryCache.size} (0 desliga) */
+    private final QueryCache queryCache = new QueryCache(Integer.getInteger("diario.queryCache.size", 128));
+
+    /**
+     * Prazo padrão de {@link #searchAllMedia}; vem de {@code -Ddiario.search.deadlineMillis}.
+     * Um catálogo que não responder a tempo fica fora do resultado, em vez de travar a interface.
+     */
+    private final Duration searchDeadline = Duration.ofMillis(Long.getLong("diario.search.deadlineMillis", 1_000));
+    /** Uma thread virtual por busca de catálogo: bloquear esperando a carga ou a trava não custa uma thread do sistema */
+    private final ExecutorService searchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicBoolean shutDown = new AtomicBoolean();
+    /** Latência das buscas de cada catálogo, na ordem de {@link #CATALOGS} */
+    private final List<LatencyMetrics> searchLatency = List.of(new LatencyMetrics(), new LatencyMetrics(), new LatencyMetrics());
+
+    /** Chave de uma busca em texto livre no cache (não se confunde com uma {@link Query}) */
+    private record TextSearch(String normalizedText) { }
+
+    /** Chave de um filtro no cache */
+    private record FilterKey(MediaFilter filter, Set<String> types) { }
 
     // Atualize o construtor
     public LibraryService(BookController bookController, MovieController movieController, SeriesController seriesController) {
+        this(CompletableFuture.completedFuture(bookController),
+                CompletableFuture.completedFuture(movieController),
+                CompletableFuture.completedFuture(seriesController));
+    }
+
+    private LibraryService(CompletableFuture<BookController> bookController,
+                           CompletableFuture<MovieController> movieController,
+                           CompletableFuture<SeriesController> seriesController) {
         this.bookController = bookController;
         this.movieController = movieController;
-        this.seriesController = seriesController; // <-- Adicione esta linha
+        this.seriesController = seriesController;
+        this.ready = CompletableFuture.allOf(bookController, movieController, seriesController);
+    }
+
+    /**
+     * Cria o serviço e carrega os três catálogos em paralelo, cada um numa thread
+     * própria, sem bloquear quem chamou. O tempo até a primeira janela deixa de
+     * depender do tamanho dos catálogos.
+     * @param dataDirectory diretório dos arquivos de dados
+     * @return serviço cujas consultas aguardam o fim do carregamento
+     */
+    public static LibraryService loadAsync(Path dataDirectory) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService loader = Executors.newFixedThreadPool(3, runnable -> {
+            Thread thread = new Thread(runnable, "library-loader-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        LibraryService service = new LibraryService(
+                CompletableFuture.supplyAsync(() -> new BookController(dataDirectory), loader),
+                CompletableFuture.supplyAsync(() -> new MovieController(dataDirectory), loader),
+                CompletableFuture.supplyAsync(() -> new SeriesController(dataDirectory), loader));
+        service.ready.whenComplete((result, error) -> loader.shutdown());
+        return service;
+    }
+
+    /** @return futuro concluído quando os três catálogos estiverem carregados */
+    public CompletableFuture<LibraryService> whenReady() {
+        return ready.thenApply(done -> this);
+    }
+
+    /** @return true se todos os catálogos já foram carregados com sucesso */
+    public boolean isReady() {
+        return ready.isDone() && !ready.isCompletedExceptionally();
+    }
+
+    /**
+     * Registra um ouvinte chamado uma vez para cada catálogo carregado, com o nome
+     * ({@link #BOOKS}, {@link #MOVIES}, {@link #SERIES}) e a quantidade de itens.
+     * Catálogos já carregados são notificados na hora. O ouvinte roda na thread
+     * que concluiu o carregamento; interfaces gráficas devem repassar para a sua thread.
+     * @return futuro concluído depois das três notificações
+     */
+    public CompletableFuture<Void> whenStoreLoaded(BiConsumer<String, Integer> listener) {
+        return CompletableFuture.allOf(
+                bookController.thenAccept(controller -> listener.accept(BOOKS, controller.getAllBooks().size())),
+                movieController.thenAccept(controller -> listener.accept(MOVIES, controller.getAllMovies().size())),
+                seriesController.thenAccept(controller -> listener.accept(SERIES, controller.getAllSeries().size())));
     }
 
     // Atualize o getAllMedia
     public List<Media> getAllMedia() {
         return Stream.of(
-                bookController.getAllBooks().stream(),
-                movieController.getAllMovies().stream(),
-                seriesController.getAllSeries().stream() // <-- Adicione esta linha
+                getBookController().getAllBooks().stream(),
+                getMovieController().getAllMovies().stream(),
+                getSeriesController().getAllSeries().stream() // <-- Adicione esta linha
         ).flatMap(s -> s).collect(Collectors.toList());
     }
 
-    // Atualize o searchAllMedia
+    /**
+     * As mídias avaliadas com a maior (ou a menor) média nos três catálogos: cada
+     * catálogo devolve as suas K primeiras pelo índice ordenado por média, e um heap
+     * limitado escolhe as K primeiras entre elas (no empate, livros, filmes e séries,
+     * cada um em ordem de cadastro).
+     * @param best das mais bem avaliadas (senão, das piores)
+     */
+    public List<Media> topRated(int k, boolean best) {
+        Comparator<Media> byRating = Comparator.comparingDouble(Media::getAverageRating);
+        TopK<Media> top = new TopK<>(k, best ? byRating.reversed() : byRating);
+        getBookController().topRatedBooks(k, best, MediaFilter.ALL).forEach(top::offer);
+        getMovieController().topRatedMovies(k, best, MediaFilter.ALL).forEach(top::offer);
+        getSeriesController().topRatedSeries(k, best, MediaFilter.ALL).forEach(top::offer);
+        return top.toList();
+    }
+
+    /**
+     * Janela da listagem do acervo, sem copiar os catálogos: cada catálogo devolve
+     * só os itens seguintes à posição pelo seu índice ordenado, e as três janelas
+     * são intercaladas pela chave (no empate, pela ordem dos catálogos e pelo ID).
+     * @param cursor posição devolvida pela página anterior (null começa do início)
+     * @param limit tamanho máximo da janela
+     * @param sort ordem da listagem (a mesma em todas as páginas)
+     */
+    public Page page(Cursor cursor, int limit, MediaSort sort) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Tamanho de página inválido: " + limit);
+        }
+        if (cursor != null && !cursor.sort().equals(sort)) {
+            throw new IllegalArgumentException("O cursor é de outra ordenação: " + cursor.sort());
+        }
+        // Um item a mais por catálogo para saber se há próxima página
+        List<PageEntry> entries = new ArrayList<>();
+        addPageEntries(entries, 0, getBookController().pageBooks(sort, fromKey(cursor), fromId(cursor, 0, sort), limit + 1));
+        addPageEntries(entries, 1, getMovieController().pageMovies(sort, fromKey(cursor), fromId(cursor, 1, sort), limit + 1));
+        addPageEntries(entries, 2, getSeriesController().pageSeries(sort, fromKey(cursor), fromId(cursor, 2, sort), limit + 1));
+        entries.sort(sort.descending() ? PageEntry.ORDER.reversed() : PageEntry.ORDER);
+
+        List<Media> items = new ArrayList<>(Math.min(limit, entries.size()));
+        for (int i = 0; i < entries.size() && i < limit; i++) {
+            items.add(entries.get(i).positioned().entity());
+        }
+        Cursor next = null;
+        if (entries.size() > limit) {
+            PageEntry last = entries.get(limit - 1);
+            next = new Cursor(sort, last.positioned().key(), last.catalog(), last.positioned().id());
+        }
+        return new Page(items, next);
+    }
+
+    /** Item de uma página com o catálogo de onde veio. */
+    private record PageEntry(int catalog, MediaSearchIndex.Positioned<? extends Media> positioned) {
+        /** Pela chave de ordenação, depois pela ordem dos catálogos e pelo ID */
+        static final Comparator<PageEntry> ORDER = PageEntry::compare;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static int compare(PageEntry a, PageEntry b) {
+            Object keyA = a.positioned().key();
+            Object keyB = b.positioned().key();
+            if (keyA != null && keyB != null) {
+                int byKey = ((Comparable) keyA).compareTo(keyB);
+                if (byKey != 0) {
+                    return byKey;
+                }
+            }
+            int byCatalog = Integer.compare(a.catalog(), b.catalog());
+            return byCatalog != 0 ? byCatalog : Integer.compare(a.positioned().id(), b.positioned().id());
+        }
+    }
+
+    private static void addPageEntries(List<PageEntry> entries, int catalog,
+                                       List<? extends MediaSearchIndex.Positioned<? extends Media>> page) {
+        for (MediaSearchIndex.Positioned<? extends Media> positioned : page) {
+            entries.add(new PageEntry(catalog, positioned));
+        }
+    }
+
+    private static Object fromKey(Cursor cursor) {
+        return cursor == null ? null : cursor.key();
+    }
+
+    /**
+     * Onde cada catálogo retoma: o catálogo do cursor continua depois do ID; os que vêm
+     * depois dele na ordem incluem todos os itens com a mesma chave; os que vêm antes
+     * já entregaram os itens dessa chave.
+     */
+    private static int fromId(Cursor cursor, int catalog, MediaSort sort) {
+        int includeAll = sort.descending() ? Integer.MAX_VALUE : -1;
+        int skipAll = sort.descending() ? -1 : Integer.MAX_VALUE;
+        if (cursor == null) {
+            return includeAll;
+        }
+        if (catalog == cursor.catalog()) {
+            return cursor.id();
+        }
+        boolean comesAfter = sort.descending() ? catalog < cursor.catalog() : catalog > cursor.catalog();
+        return comesAfter ? includeAll : skipAll;
+    }
+
+    /**
+     * Séries no ar em algum ano do intervalo (período de exibição ou ano de uma
+     * temporada), pela árvore de intervalos do catálogo de séries.
+     * @see SeriesController#findSeriesAiring(int, int)
+     */
+    public List<Series> seriesAiring(int fromYear, int toYear) {
+        return getSeriesController().findSeriesAiring(fromYear, toYear);
+    }
+
+    /** @return séries no ar no ano */
+    public List<Series> seriesAiring(int year) {
+        return seriesAiring(year, year);
+    }
+
+    /**
+     * Busca nos três catálogos. Cada controlador responde pelo seu índice de busca,
+     * então o custo acompanha a quantidade de resultados e não o tamanho do acervo, e
+     * os três respondem ao mesmo tempo, cada um numa thread virtual. Um catálogo que
+     * não responder dentro do prazo padrão (ainda carregando, por exemplo) fica fora
+     * do resultado; {@link #search(String, Duration)} diz quais ficaram.
+     * <p>
+     * Primeiro vêm os resultados exatos (substring), numa única lista dos três catálogos
+     * ordenada por relevância ({@link Bm25}: um token no título vale mais que no elenco);
+     * no empate, livros, filmes e séries, cada um em ordem de cadastro. Depois vêm os que
+     * só aparecem na busca tolerante a erros de digitação ("Interstelar" encontra
+     * "Interestelar"), dos mais próximos para os mais distantes.
+     * <p>
+     * Um critério com campo válido ({@code type:movie genre:drama year:2000..2010 rating>=4})
+     * é uma consulta estruturada e vai para {@link #query(Query)}. Qualquer outro texto,
+     * inclusive um que a linguagem de consulta não aceita (aspas sem fechamento, "nota>"
+     * sem valor, "is:" com situação desconhecida), é busca em texto livre, como antes da
+     * linguagem existir: só o modo de explicação ({@link #query(String)}) aponta o erro.
+     * <p>
+     * O resultado fica no cache de consultas até um dos catálogos consultados mudar
+     * (ver {@link #queryCacheStats()}); por isso a lista devolvida não pode ser modificada.
+     */
     public List<Media> searchAllMedia(String criteria) {
+        return search(criteria, searchDeadline).results();
+    }
+
+    /**
+     * A busca de {@link #searchAllMedia}, numa thread virtual: quem chama (a thread da
+     * interface) não espera nem o prazo dos catálogos. O futuro termina com o resultado,
+     * possivelmente parcial, em até o prazo padrão.
+     */
+    public CompletableFuture<SearchResult> searchAsync(String criteria) {
+        return CompletableFuture.supplyAsync(() -> search(criteria, searchDeadline), searchExecutor);
+    }
+
+    /** {@link #query(String)} numa thread virtual, para o modo de explicação da interface. */
+    public CompletableFuture<QueryResult> queryAsync(String text) {
+        return CompletableFuture.supplyAsync(() -> query(text), searchExecutor);
+    }
+
+    /**
+     * A busca de {@link #searchAllMedia} com um prazo escolhido. Só resultados completos
+     * ficam no cache de consultas. Consultas estruturadas também rodam nos catálogos ao
+     * mesmo tempo, sob o mesmo prazo.
+     * @param deadline tempo máximo de espera pelos catálogos
+     */
+    public SearchResult search(String criteria, Duration deadline) {
         if (criteria == null || criteria.isBlank()) {
-            return getAllMedia();
+            return new SearchResult(getAllMedia(), Set.of());
         }
-        List<Book> booksFound = bookController.searchBooks(criteria);
-        List<Movie> moviesFound = movieController.searchMovies(criteria);
-        List<Series> seriesFound = seriesController.searchSeries(criteria); // <-- Adicione esta linha
+        Query query = parseLeniently(criteria);
+        if (query != null && !query.isPlainText()) {
+            return cached(query, catalogsOf(query), () -> structuredSearch(query, deadline));
+        }
+        // Texto que a linguagem não aceita é buscado como foi digitado
+        String text = query == null ? criteria.trim()
+                : query.clausesOf(Clause.Text.class).stream().map(Clause.Text::text).collect(Collectors.joining(" "));
+        // A relevância usa as estatísticas dos três catálogos: qualquer um deles invalida
+        return cached(new TextSearch(TextNormalizer.normalize(text)), ALL_CATALOGS, () -> rankedSearch(text, deadline));
+    }
 
-        return Stream.of(booksFound.stream(), moviesFound.stream(), seriesFound.stream())
-                .flatMap(s -> s).collect(Collectors.toList());
+    /** @return a consulta interpretada, ou null se o texto não for uma consulta válida */
+    private static Query parseLeniently(String criteria) {
+        try {
+            return QueryParser.parse(criteria);
+        } catch (QueryParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Busca em duas fases, cada uma nos catálogos ao mesmo tempo: primeiro as estatísticas
+     * de relevância (a escala comum do {@link Bm25}), depois a busca exata pontuada e a
+     * tolerante a erros. As duas dividem o mesmo prazo; um catálogo atrasado fica fora
+     * do resultado, e a busca dele termina em segundo plano sem ninguém esperar.
+     */
+    private SearchResult rankedSearch(String criteria, Duration deadline) {
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        List<String> tokens = TextNormalizer.tokenize(criteria);
+        List<CompletableFuture<CatalogSearch>> searches = catalogSearches();
+        Set<String> timedOut = new LinkedHashSet<>();
+
+        List<CompletableFuture<TimedStatistics>> statistics = new ArrayList<>();
+        for (CompletableFuture<CatalogSearch> search : searches) {
+            statistics.add(search.thenApplyAsync(catalog -> {
+                long start = System.nanoTime();
+                return new TimedStatistics(catalog.statistics().apply(tokens), System.nanoTime() - start);
+            }, searchExecutor));
+        }
+        TimedStatistics[] answered = new TimedStatistics[CATALOGS.size()];
+        List<Bm25.Statistics> known = new ArrayList<>();
+        for (int i = 0; i < CATALOGS.size(); i++) {
+            answered[i] = await(statistics.get(i), deadlineNanos);
+            if (answered[i] == null) {
+                timedOut(i, timedOut);
+                LatencyMetrics latency = searchLatency.get(i);
+                statistics.get(i).thenAccept(late -> latency.record(late.nanos()));
+            } else {
+                known.add(answered[i].statistics());
+            }
+        }
+        Bm25 scorer = Bm25.of(tokens, known);
+
+        List<CompletableFuture<CatalogMatches>> matches = new ArrayList<>();
+        for (int i = 0; i < CATALOGS.size(); i++) {
+            if (answered[i] == null) {
+                matches.add(null);
+                continue;
+            }
+            CatalogSearch catalog = searches.get(i).join();
+            long statisticsNanos = answered[i].nanos();
+            LatencyMetrics latency = searchLatency.get(i);
+            matches.add(CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                CatalogMatches found = new CatalogMatches(catalog.ranked().apply(criteria, scorer),
+                        catalog.fuzzy().apply(criteria));
+                latency.record(statisticsNanos + System.nanoTime() - start);
+                return found;
+            }, searchExecutor));
+        }
+        List<ScoredMatch<? extends Media>> ranked = new ArrayList<>();
+        List<FuzzyMatch<? extends Media>> fuzzy = new ArrayList<>();
+        for (int i = 0; i < CATALOGS.size(); i++) {
+            if (matches.get(i) == null) {
+                continue;
+            }
+            CatalogMatches found = await(matches.get(i), deadlineNanos);
+            if (found == null) {
+                timedOut(i, timedOut);
+            } else {
+                ranked.addAll(found.ranked());
+                fuzzy.addAll(found.fuzzy());
+            }
+        }
+        return new SearchResult(merge(ranked, fuzzy), Collections.unmodifiableSet(timedOut));
+    }
+
+    /**
+     * Consulta estruturada nos catálogos que o critério de tipo inclui, cada um numa
+     * thread virtual. Os resultados ficam na ordem de {@link #query(Query)}: livros,
+     * filmes e séries; um catálogo que não responder a tempo fica fora.
+     */
+    private SearchResult structuredSearch(Query query, Duration deadline) {
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        QueryTrace trace = new QueryTrace();
+        List<CompletableFuture<? extends List<? extends Media>>> catalogs = Arrays.asList(
+                includes(query, BOOKS, trace) ? bookController.thenApplyAsync(
+                        controller -> controller.queryBooks(query, trace.catalog(BOOKS)), searchExecutor) : null,
+                includes(query, MOVIES, trace) ? movieController.thenApplyAsync(
+                        controller -> controller.queryMovies(query, trace.catalog(MOVIES)), searchExecutor) : null,
+                includes(query, SERIES, trace) ? seriesController.thenApplyAsync(
+                        controller -> controller.querySeries(query, trace.catalog(SERIES)), searchExecutor) : null);
+        List<Media> results = new ArrayList<>();
+        Set<String> timedOut = new LinkedHashSet<>();
+        for (int i = 0; i < CATALOGS.size(); i++) {
+            if (catalogs.get(i) == null) {
+                continue;
+            }
+            List<? extends Media> found = await(catalogs.get(i), deadlineNanos);
+            if (found == null) {
+                timedOut.add(CATALOGS.get(i));
+            } else {
+                results.addAll(found);
+            }
+        }
+        return new SearchResult(results, Collections.unmodifiableSet(timedOut));
+    }
+
+    private List<CompletableFuture<CatalogSearch>> catalogSearches() {
+        return List.of(
+                bookController.thenApply(controller -> new CatalogSearch(controller::bookRelevanceStatistics,
+                        controller::searchBooksRanked, controller::searchBooksFuzzy)),
+                movieController.thenApply(controller -> new CatalogSearch(controller::movieRelevanceStatistics,
+                        controller::searchMoviesRanked, controller::searchMoviesFuzzy)),
+                seriesController.thenApply(controller -> new CatalogSearch(controller::seriesRelevanceStatistics,
+                        controller::searchSeriesRanked, controller::searchSeriesFuzzy)));
+    }
+
+    /** @return o valor do futuro, ou null se ele não terminar até {@code deadlineNanos} */
+    private static <T> T await(CompletableFuture<T> future, long deadlineNanos) {
+        try {
+            return future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new CompletionException(e.getCause());
+        }
+    }
+
+    private void timedOut(int catalog, Set<String> timedOut) {
+        timedOut.add(CATALOGS.get(catalog));
+        searchLatency.get(catalog).recordTimeout();
+    }
+
+    /**
+     * Primeiro os resultados exatos dos catálogos, do mais para o menos relevante (no
+     * empate fica a ordem dos catálogos), depois os que só a busca tolerante achou, por distância.
+     */
+    private static List<Media> merge(List<ScoredMatch<? extends Media>> ranked, List<FuzzyMatch<? extends Media>> fuzzy) {
+        // Ordenação estável: no empate fica a ordem dos catálogos
+        ranked.sort(Comparator.comparingDouble((ScoredMatch<? extends Media> match) -> match.score()).reversed());
+        List<Media> results = new ArrayList<>(ranked.size());
+        Set<Media> found = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ScoredMatch<? extends Media> match : ranked) {
+            results.add(match.entity());
+            found.add(match.entity());
+        }
+        fuzzy.sort(Comparator.comparingInt(FuzzyMatch::distance));
+        for (FuzzyMatch<? extends Media> match : fuzzy) {
+            if (found.add(match.entity())) {
+                results.add(match.entity());
+            }
+        }
+        return results;
+    }
+
+    /** @return latência das buscas de texto de cada catálogo ({@link #BOOKS}, {@link #MOVIES}, {@link #SERIES}) */
+    public Map<String, LatencyMetrics.Snapshot> searchLatency() {
+        Map<String, LatencyMetrics.Snapshot> snapshots = new LinkedHashMap<>();
+        for (int i = 0; i < CATALOGS.size(); i++) {
+            snapshots.put(CATALOGS.get(i), searchLatency.get(i).snapshot());
+        }
+        return snapshots;
+    }
+
+    /**
+     * Executa uma consulta estruturada ({@link QueryParser}) e devolve também o plano
+     * escolhido em cada catálogo e o tempo de cada passo.
+     * @throws org.diariocultural.query.QueryParseException se a consulta for inválida
+     */
+    public QueryResult query(String text) {
+        return query(QueryParser.parse(text));
+    }
+
+    public QueryResult query(Query query) {
+        long start = System.nanoTime();
+        QueryTrace trace = new QueryTrace();
+        List<Media> results = new ArrayList<>();
+        if (includes(query, BOOKS, trace)) results.addAll(getBookController().queryBooks(query, trace.catalog(BOOKS)));
+        if (includes(query, MOVIES, trace)) results.addAll(getMovieController().queryMovies(query, trace.catalog(MOVIES)));
+        if (includes(query, SERIES, trace)) results.addAll(getSeriesController().querySeries(query, trace.catalog(SERIES)));
+        return new QueryResult(query, results, trace.steps(), System.nanoTime() - start);
+    }
+
+    /** @return máscara dos catálogos que a consulta lê (um bit por posição em {@link #CATALOGS}) */
+    private static int catalogsOf(Query query) {
+        int catalogs = 0;
+        for (int i = 0; i < CATALOGS.size(); i++) {
+            String catalog = CATALOGS.get(i);
+            if (query.clausesOf(Clause.Type.class).stream().allMatch(type -> type.catalogs().contains(catalog))) {
+                catalogs |= 1 << i;
+            }
+        }
+        return catalogs;
+    }
+
+    /** O tipo de mídia escolhe os catálogos: os demais nem são consultados. */
+    private static boolean includes(Query query, String catalog, QueryTrace trace) {
+        for (Clause.Type type : query.clausesOf(Clause.Type.class)) {
+            if (!type.catalogs().contains(catalog)) {
+                trace.catalog(catalog).step("ignorado pelo critério de tipo", 0, trace.start());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Filtra os catálogos pelos índices de bitmap de cada controlador. O tipo de mídia
+     * escolhe os catálogos consultados (cada um tem seus próprios IDs); os demais
+     * critérios são E/OU de bitmaps dentro de cada catálogo.
+     * @param filter gêneros, anos e situações exigidos
+     * @param types catálogos incluídos ({@link #BOOKS}, {@link #MOVIES}, {@link #SERIES}); vazio = todos
+     * @return livros, depois filmes, depois séries, cada um em ordem de cadastro (lista do
+     *         cache de consultas, que não pode ser modificada)
+     */
+    public List<Media> filterAllMedia(MediaFilter filter, Set<String> types) {
+        int catalogs = 0;
+        for (int i = 0; i < CATALOGS.size(); i++) {
+            if (types.isEmpty() || types.contains(CATALOGS.get(i))) {
+                catalogs |= 1 << i;
+            }
+        }
+        return cached(new FilterKey(filter, Set.copyOf(types)), catalogs, () -> {
+            List<Media> results = new ArrayList<>();
+            if (types.isEmpty() || types.contains(BOOKS)) results.addAll(getBookController().filterBooks(filter));
+            if (types.isEmpty() || types.contains(MOVIES)) results.addAll(getMovieController().filterMovies(filter));
+            if (types.isEmpty() || types.contains(SERIES)) results.addAll(getSeriesController().filterSeries(filter));
+            return new SearchResult(results, Set.of());
+        }).results();
+    }
+
+    /**
+     * Devolve o resultado guardado se nenhum dos catálogos de que ele depende mudou;
+     * senão calcula, guarda (se estiver completo) e devolve. Os contadores são lidos
+     * antes do cálculo: uma alteração feita durante ele invalida o resultado na
+     * próxima consulta. Um catálogo ainda carregando conta como alterado.
+     * @param catalogs máscara dos catálogos lidos (um bit por posição em {@link #CATALOGS})
+     */
+    private SearchResult cached(Object key, int catalogs, Supplier<SearchResult> compute) {
+        long[] versions = {
+                modificationCount(bookController, BookController::modificationCount),
+                modificationCount(movieController, MovieController::modificationCount),
+                modificationCount(seriesController, SeriesController::modificationCount)};
+        List<Media> results = queryCache.get(key, catalogs, versions);
+        if (results != null) {
+            return new SearchResult(results, Set.of());
+        }
+        SearchResult computed = compute.get();
+        results = Collections.unmodifiableList(computed.results());
+        if (!computed.isPartial()) {
+            queryCache.put(key, catalogs, versions, results);
+        }
+        return new SearchResult(results, computed.timedOut());
+    }
+
+    /** @return o contador do controlador, ou -1 se ele ainda não foi carregado */
+    private static <C> long modificationCount(CompletableFuture<C> controller, ToLongFunction<C> count) {
+        C loaded = controller.getNow(null);
+        return loaded == null ? -1 : count.applyAsLong(loaded);
+    }
+
+    /** @return acertos, faltas, invalidações e descartes do cache de buscas e filtros */
+    public QueryCache.Stats queryCacheStats() {
+        return queryCache.stats();
+    }
+
+    /** @return quantas mídias de cada catálogo o filtro aceita, sem montar as listas */
+    public Map<String, Integer> countByType(MediaFilter filter) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        counts.put(BOOKS, getBookController().countBooks(filter));
+        counts.put(MOVIES, getMovieController().countMovies(filter));
+        counts.put(SERIES, getSeriesController().countSeries(filter));
+        return counts;
+    }
+
+    /** @return quantas mídias aceitas pelo filtro, somando os três catálogos, têm cada gênero (normalizado) */
+    public Map<String, Integer> countByGenre(MediaFilter filter) {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (Map<String, Integer> catalog : List.of(
+                getBookController().countBooksByGenre(filter),
+                getMovieController().countMoviesByGenre(filter),
+                getSeriesController().countSeriesByGenre(filter))) {
+            catalog.forEach((genre, count) -> counts.merge(genre, count, Integer::sum));
+        }
+        return counts;
+    }
+
+    /**
+     * Sugestões de autocompletar dos três catálogos. Um mesmo texto vindo de mais de
+     * um catálogo (ex: um autor que também dirigiu um filme) vira uma única sugestão,
+     * com as quantidades somadas e a média das notas ponderada.
+     * @param prefix texto digitado
+     * @param limit quantidade máxima de sugestões
+     */
+    public List<PrefixIndex.Completion> complete(String prefix, int limit) {
+        Map<String, PrefixIndex.Completion> merged = new LinkedHashMap<>();
+        for (List<PrefixIndex.Completion> completions : List.of(
+                getBookController().completeBooks(prefix, limit),
+                getMovieController().completeMovies(prefix, limit),
+                getSeriesController().completeSeries(prefix, limit))) {
+            for (PrefixIndex.Completion completion : completions) {
+                merged.merge(TextNormalizer.normalize(completion.text()), completion, (a, b) -> {
+                    int count = a.count() + b.count();
+                    double rating = (a.averageRating() * a.count() + b.averageRating() * b.count()) / count;
+                    return new PrefixIndex.Completion(a.text(), rating, count);
+                });
+            }
+        }
+        List<PrefixIndex.Completion> result = new ArrayList<>(merged.values());
+        result.sort(PrefixIndex.Completion.BY_RANK);
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * Grava as alterações pendentes de todos os catálogos e encerra as threads de gravação.
+     * Deve ser chamado ao fechar a aplicação para que nada se perca. Catálogos ainda
+     * em carregamento são aguardados; os que falharam ao carregar são ignorados.
+     * Só a primeira chamada tem efeito (a aplicação chama ao fechar a janela e o
+     * gancho de encerramento da JVM chama de novo).
+     */
+    public void shutdown() {
+        if (!shutDown.compareAndSet(false, true)) {
+            return;
+        }
+        searchExecutor.shutdown();
+        BookController books = bookController.handle((controller, error) -> controller).join();
+        MovieController movies = movieController.handle((controller, error) -> controller).join();
+        SeriesController series = seriesController.handle((controller, error) -> controller).join();
+        if (books != null) books.shutdown();
+        if (movies != null) movies.shutdown();
+        if (series != null) series.shutdown();
     }
 
-    public SeriesController getSeriesController(){ return seriesController;}
+    // Os getters aguardam o carregamento do catálogo, caso ainda esteja em andamento
+    public SeriesController getSeriesController(){ return seriesController.join();}
 
     public BookController getBookController() {
-        return bookController;
+        return bookController.join();
     }
 
     public MovieController getMovieController() {
-        return movieController;
+        return movieController.join();
     }
 }
\ No newline at end of file
@@ -1,18 +1,27 @@
 package org.diariocultural.fx;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
+import javafx.geometry.Side;
 import javafx.scene.Parent;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.util.Duration;
 import org.diariocultural.*;
+import org.diariocultural.index.MediaSort;
+import org.diariocultural.index.PrefixIndex;
+import org.diariocultural.query.QueryParseException;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletionException;
 
 /**
  * Controlador para a página do Acervo (LibraryView.fxml).
@@ -32,9 +41,39 @@ public class LibraryViewController implements Initializable {
     @FXML private TableColumn<Media, Integer> yearColumn;
     @FXML private TextField searchField;
 
+    /** Prefixo que mostra o plano escolhido para a consulta (ex: "explain genre:drama") */
+    private static final String EXPLAIN_PREFIX = "explain ";
+
+    //--- AUTOCOMPLETAR ---
+    /** Pausa depois da última tecla antes de consultar as sugestões, para não travar a digitação */
+    private static final Duration SUGGESTION_DELAY = Duration.millis(150);
+    private static final int SUGGESTION_LIMIT = 8;
+    private ContextMenu suggestionsPopup;
+    private PauseTransition suggestionDebounce;
+    private boolean applyingSuggestion;
+
+    //--- LISTAGEM PAGINADA ---
+    /** Itens carregados por vez; a próxima página vem quando a rolagem chega perto do fim */
+    private static final int PAGE_SIZE = 100;
+    /** Linhas antes do fim da lista a partir das quais a próxima página é pedida */
+    private static final int LOAD_AHEAD_ROWS = 10;
+    /** A tabela mostra a listagem paginada do acervo (e não o resultado de uma busca) */
+    private boolean paged;
+    private MediaSort pageSort = MediaSort.CATALOG;
+    private LibraryService.Cursor nextCursor;
+    /** A próxima página já foi pedida e ainda não entrou na tabela */
+    private boolean loadPending;
+
+    //--- BUSCA ---
+    /**
+     * Muda a cada busca e a cada troca do conteúdo da tabela: a resposta de uma busca
+     * que chega depois disso (outra busca, limpar, ordenar) é descartada.
+     */
+    private long tableGeneration;
+
     public void setLibraryService(LibraryService libraryService) {
         this.libraryService = libraryService;
-        refreshMediaTable(this.libraryService.getAllMedia());
+        showFirstPage();
     }
 
     public void setMainViewController(MainViewController mainViewController) {
@@ -46,6 +85,9 @@ public class LibraryViewController implements Initializable {
         titleColumn.setCellValueFactory(new PropertyValueFactory<>("title"));
         yearColumn.setCellValueFactory(new PropertyValueFactory<>("releaseYear"));
 
+        setUpSuggestions();
+        setUpPaging();
+
         mediaTableView.setOnMouseClicked(event -> {
             // Verifica se foi um duplo-clique e se uma linha foi selecionada
             if (event.getClickCount() == 2 && mediaTableView.getSelectionModel().getSelectedItem() != null) {
@@ -78,16 +120,189 @@ public class LibraryViewController implements Initializable {
         });
     }
 
+    /**
+     * Listagem paginada: carrega a próxima página quando uma linha perto do fim da lista
+     * aparece na tabela, e ordenar por título ou ano pede as páginas já nessa ordem aos
+     * índices. Ordenar por outra coluna carrega o acervo inteiro e ordena na tabela.
+     * <p>
+     * A tabela só cria linhas para o que está visível, então a linha que aparece é o
+     * sinal de rolagem, sem depender da estrutura interna do skin; se uma página não
+     * enche a tabela, a última linha dela já aparece e a próxima página vem em
+     * seguida, até encher a tabela ou acabar o acervo.
+     */
+    private void setUpPaging() {
+        mediaTableView.setRowFactory(table -> new TableRow<>() {
+            @Override
+            public void updateIndex(int index) {
+                super.updateIndex(index);
+                if (index >= 0 && index >= table.getItems().size() - LOAD_AHEAD_ROWS) {
+                    requestNextPage();
+                }
+            }
+        });
+        mediaTableView.setSortPolicy(table -> {
+            if (!paged) {
+                return TableView.DEFAULT_SORT_POLICY.call(table);
+            }
+            MediaSort sort = sortOf(table.getSortOrder());
+            if (sort == null) {
+                // Coluna sem índice de ordenação: sai da paginação
+                refreshMediaTable(libraryService.getAllMedia());
+                return TableView.DEFAULT_SORT_POLICY.call(table);
+            }
+            if (!sort.equals(pageSort)) {
+                pageSort = sort;
+                showFirstPage();
+            }
+            return true;
+        });
+    }
+
+    /** @return a ordem da listagem para as colunas ordenadas, ou null se não houver índice para ela */
+    private MediaSort sortOf(List<TableColumn<Media, ?>> sortOrder) {
+        if (sortOrder.isEmpty()) {
+            return MediaSort.CATALOG;
+        }
+        TableColumn<Media, ?> column = sortOrder.get(0);
+        MediaSort sort;
+        if (column == titleColumn) {
+            sort = MediaSort.TITLE;
+        } else if (column == yearColumn) {
+            sort = MediaSort.YEAR;
+        } else {
+            return null;
+        }
+        return column.getSortType() == TableColumn.SortType.DESCENDING ? sort.reversed() : sort;
+    }
+
+    private void showFirstPage() {
+        if (mediaTableView == null) {
+            return;
+        }
+        LibraryService.Page page = libraryService.page(null, PAGE_SIZE, pageSort);
+        tableGeneration++;
+        paged = true;
+        nextCursor = page.next();
+        mediaTableView.setItems(FXCollections.observableArrayList(page.items()));
+        mediaTableView.scrollTo(0);
+    }
+
+    /** Pede a próxima página fora do layout da tabela (que é quando as linhas mudam de índice). */
+    private void requestNextPage() {
+        if (!paged || nextCursor == null || loadPending) {
+            return;
+        }
+        loadPending = true;
+        Platform.runLater(() -> {
+            loadPending = false;
+            loadNextPage();
+        });
+    }
+
+    private void loadNextPage() {
+        if (!paged || nextCursor == null) {
+            return;
+        }
+        LibraryService.Page page = libraryService.page(nextCursor, PAGE_SIZE, pageSort);
+        nextCursor = page.next();
+        mediaTableView.getItems().addAll(page.items());
+    }
+
+    /**
+     * Sugestões enquanto o usuário digita: cada tecla reinicia a pausa e só a última
+     * consulta o índice de prefixos. Enter busca o texto digitado.
+     */
+    private void setUpSuggestions() {
+        suggestionsPopup = new ContextMenu();
+        suggestionDebounce = new PauseTransition(SUGGESTION_DELAY);
+        suggestionDebounce.setOnFinished(event -> showSuggestions(searchField.getText()));
+        searchField.textProperty().addListener((observable, oldText, newText) -> {
+            if (!applyingSuggestion) {
+                suggestionDebounce.playFromStart();
+            }
+        });
+        searchField.setOnAction(event -> onSearchButtonClick());
+    }
+
+    private void showSuggestions(String text) {
+        if (libraryService == null || !libraryService.isReady() || text == null || text.isBlank()) {
+            suggestionsPopup.hide();
+            return;
+        }
+        List<PrefixIndex.Completion> completions = libraryService.complete(text, SUGGESTION_LIMIT);
+        if (completions.isEmpty()) {
+            suggestionsPopup.hide();
+            return;
+        }
+        List<MenuItem> items = new ArrayList<>(completions.size());
+        for (PrefixIndex.Completion completion : completions) {
+            MenuItem item = new MenuItem(completion.text());
+            item.setMnemonicParsing(false);
+            item.setOnAction(event -> applySuggestion(completion.text()));
+            items.add(item);
+        }
+        suggestionsPopup.getItems().setAll(items);
+        if (!suggestionsPopup.isShowing()) {
+            suggestionsPopup.show(searchField, Side.BOTTOM, 0, 0);
+        }
+    }
+
+    private void applySuggestion(String text) {
+        applyingSuggestion = true;
+        searchField.setText(text);
+        searchField.positionCaret(text.length());
+        applyingSuggestion = false;
+        onSearchButtonClick();
+    }
+
     @FXML
     private void onSearchButtonClick() {
+        suggestionDebounce.stop();
+        suggestionsPopup.hide();
         String criteria = searchField.getText();
-        refreshMediaTable(libraryService.searchAllMedia(criteria));
+        // A busca roda fora da thread da interface; o resultado volta por Platform.runLater
+        long generation = ++tableGeneration;
+        if (criteria != null && criteria.startsWith(EXPLAIN_PREFIX)) {
+            // Só o modo de explicação aponta erros de sintaxe; a busca comum cai no texto livre
+            libraryService.queryAsync(criteria.substring(EXPLAIN_PREFIX.length()))
+                    .whenComplete((result, error) -> Platform.runLater(() -> {
+                        if (generation != tableGeneration) {
+                            return;
+                        }
+                        if (error != null) {
+                            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                            if (cause instanceof QueryParseException) {
+                                showAlert(Alert.AlertType.WARNING, "Consulta Inválida", cause.getMessage());
+                            } else {
+                                showAlert(Alert.AlertType.ERROR, "Erro na Busca", cause.getMessage());
+                            }
+                        } else {
+                            refreshMediaTable(result.results());
+                            showAlert(Alert.AlertType.INFORMATION, "Plano da Consulta", result.explain());
+                        }
+                    }));
+            return;
+        }
+        libraryService.searchAsync(criteria).whenComplete((result, error) -> Platform.runLater(() -> {
+            if (generation != tableGeneration) {
+                return;
+            }
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                showAlert(Alert.AlertType.ERROR, "Erro na Busca", cause.getMessage());
+            } else {
+                refreshMediaTable(result.results());
+            }
+        }));
     }
 
     @FXML
     private void onResetButtonClick() {
+        applyingSuggestion = true;
         searchField.clear();
-        refreshMediaTable(libraryService.getAllMedia());
+        applyingSuggestion = false;
+        suggestionsPopup.hide();
+        showFirstPage();
     }
 
     @FXML
@@ -129,7 +344,11 @@ public class LibraryViewController implements Initializable {
                 } else if (selectedMedia instanceof Series) {
                     libraryService.getSeriesController().removeSeries((Series) selectedMedia);
                 }
-                refreshMediaTable(libraryService.getAllMedia());
+                if (paged) {
+                    mediaTableView.getItems().remove(selectedMedia);
+                } else {
+                    refreshMediaTable(libraryService.getAllMedia());
+                }
             }
         });
     }
@@ -161,6 +380,9 @@ public class LibraryViewController implements Initializable {
     }
 
     private void refreshMediaTable(List<Media> mediaList) {
+        tableGeneration++;
+        paged = false;
+        nextCursor = null;
         if (mediaTableView != null) {
             mediaTableView.setItems(FXCollections.observableArrayList(mediaList));
         }
@@ -1,24 +1,43 @@
 package org.diariocultural.fx;
 
-import org.diariocultural.BookController;
-import org.diariocultural.MovieController;
-import org.diariocultural.SeriesController;
+import org.diariocultural.persistence.CompactionPolicy;
+import org.diariocultural.persistence.JournalCompactor;
+import org.diariocultural.persistence.PersistenceCodec;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class MainApp extends Application {
 
-    private static final LibraryService libraryService = new LibraryService(new BookController(), new MovieController(), new SeriesController());
+    static {
+        // Constrói os (de)serializadores JSON antes da primeira leitura dos catálogos
+        PersistenceCodec.shared().warmUp();
+    }
+
+    // Os catálogos carregam em paralelo, em segundo plano; a janela abre sem esperar por eles
+    private static final LibraryService libraryService = LibraryService.loadAsync(Paths.get("data"));
+    private final JournalCompactor journalCompactor = new JournalCompactor(CompactionPolicy.fromSystemProperties());
+    private final AtomicBoolean shutDown = new AtomicBoolean();
     private Stage primaryStage;
 
     @Override
     public void start(Stage primaryStage) {
         this.primaryStage = primaryStage;
+        // A compactação só começa depois que os repositórios existirem
+        libraryService.whenReady().thenAccept(service -> {
+            journalCompactor.register(service.getBookController().getRepository());
+            journalCompactor.register(service.getMovieController().getRepository());
+            journalCompactor.register(service.getSeriesController().getRepository());
+            journalCompactor.start();
+        });
+        // Rede de segurança caso a JVM seja encerrada sem passar por stop() (ex: Ctrl+C)
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "library-shutdown"));
         primaryStage.setTitle("Diário Cultural");
         showWelcomeScreen();
     }
@@ -35,6 +54,7 @@ public class MainApp extends Application {
 
             // A ação do botão "Acessar" chama o método para mostrar a tela principal
             controller.setOnAccessAction(this::showMainView);
+            controller.setLibraryService(libraryService);
 
             Scene scene = new Scene(page);
             primaryStage.setScene(scene);
@@ -63,6 +83,23 @@ public class MainApp extends Application {
         }
     }
 
+    @Override
+    public void stop() {
+        shutdown();
+    }
+
+    /**
+     * Encerra a compactação, as buscas e as gravações pendentes. Chamado por {@link #stop()}
+     * e pelo gancho de encerramento da JVM; só a primeira chamada tem efeito.
+     */
+    private void shutdown() {
+        if (!shutDown.compareAndSet(false, true)) {
+            return;
+        }
+        libraryService.shutdown();
+        journalCompactor.shutdown();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
@@ -0,0 +1,114 @@
+package org.diariocultural.fx;
+
+import org.diariocultural.Media;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache LRU dos resultados de busca e de filtro do {@link LibraryService}.
+ * <p>
+ * Cada resultado guarda os contadores de alteração dos catálogos de que depende,
+ * lidos antes de calculá-lo (ver {@link org.diariocultural.BookController#modificationCount()});
+ * se algum desses contadores mudou, o resultado é descartado na próxima consulta. Assim
+ * cadastrar um livro não descarta as buscas que só olham os filmes, e uma alteração
+ * feita durante o cálculo nunca deixa um resultado velho no cache.
+ */
+public final class QueryCache {
+
+    /**
+     * Métricas acumuladas desde a criação do cache.
+     * @param hits consultas respondidas pelo cache
+     * @param misses consultas calculadas (inclui as invalidadas)
+     * @param invalidations resultados descartados porque um catálogo mudou
+     * @param evictions resultados descartados por falta de espaço (os menos usados)
+     * @param size resultados guardados agora
+     * @param capacity máximo de resultados guardados
+     */
+    public record Stats(long hits, long misses, long invalidations, long evictions, int size, int capacity) {
+
+        /** @return fração das consultas respondidas pelo cache (0 se nenhuma foi feita) */
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+    }
+
+    private record Entry(List<Media> results, int catalogs, long[] versions) { }
+
+    private final int capacity;
+    private final LinkedHashMap<Object, Entry> entries;
+    private long hits;
+    private long misses;
+    private long invalidations;
+    private long evictions;
+
+    /** @param capacity máximo de resultados guardados (0 desliga o cache) */
+    QueryCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Capacidade inválida: " + capacity);
+        }
+        this.capacity = capacity;
+        // Ordem de acesso: o primeiro da iteração é o usado há mais tempo
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                if (size() > QueryCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param key consulta normalizada (ou filtro)
+     * @param catalogs catálogos de que o resultado depende (um bit por posição em {@code versions})
+     * @param versions contadores de alteração atuais dos catálogos
+     * @return o resultado guardado, ou null se não houver um válido
+     */
+    synchronized List<Media> get(Object key, int catalogs, long[] versions) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.catalogs() == catalogs && sameVersions(entry.versions(), versions, catalogs)) {
+            hits++;
+            return entry.results();
+        }
+        if (entry != null) {
+            entries.remove(key);
+            invalidations++;
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * @param versions contadores lidos antes de calcular o resultado
+     * @param results resultado calculado (não deve mais ser modificado)
+     */
+    synchronized void put(Object key, int catalogs, long[] versions, List<Media> results) {
+        if (capacity > 0) {
+            entries.put(key, new Entry(results, catalogs, Arrays.copyOf(versions, versions.length)));
+        }
+    }
+
+    /** Descarta todos os resultados guardados (as métricas continuam). */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, invalidations, evictions, entries.size(), capacity);
+    }
+
+    private static boolean sameVersions(long[] cached, long[] current, int catalogs) {
+        for (int i = 0; i < current.length; i++) {
+            if ((catalogs & (1 << i)) != 0 && cached[i] != current[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
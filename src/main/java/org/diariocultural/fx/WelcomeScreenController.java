@@ -1,24 +1,65 @@
 package org.diariocultural.fx;
 
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
 
 /**
  * Controlador para a tela de boas-vindas (WelcomeScreen.fxml).
+ * Enquanto os catálogos carregam em segundo plano, mostra o progresso
+ * e mantém o botão "Acessar" desabilitado.
  */
 // O nome da classe foi atualizado
 public class WelcomeScreenController {
 
+    private static final int STORE_COUNT = 3;
+
+    @FXML
+    private Button accessButton;
+    @FXML
+    private ProgressBar loadProgress;
+    @FXML
+    private Label loadStatus;
+
     private Runnable onAccessAction;
+    private int loadedStores;
 
     public void setOnAccessAction(Runnable onAccessAction) {
         this.onAccessAction = onAccessAction;
     }
 
+    /**
+     * Acompanha o carregamento dos catálogos do serviço. O botão "Acessar"
+     * só é habilitado quando todos estiverem prontos.
+     * @param libraryService serviço em carregamento (ou já carregado)
+     */
+    public void setLibraryService(LibraryService libraryService) {
+        accessButton.setDisable(true);
+        loadProgress.setProgress(0);
+        loadStatus.setText("Carregando catálogos...");
+        libraryService.whenStoreLoaded((store, count) -> Platform.runLater(() -> {
+            loadedStores++;
+            loadProgress.setProgress((double) loadedStores / STORE_COUNT);
+            loadStatus.setText("Carregados " + count + " " + store + " (" + loadedStores + "/" + STORE_COUNT + ")");
+        }));
+        libraryService.whenReady().whenComplete((service, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                loadStatus.setText("Erro ao carregar os catálogos: " + error.getMessage());
+                return;
+            }
+            loadProgress.setVisible(false);
+            loadStatus.setText("Catálogos prontos.");
+            accessButton.setDisable(false);
+        }));
+    }
+
     @FXML
     private void handleAccessAction(ActionEvent event) {
         if (onAccessAction != null) {
             onAccessAction.run();
         }
     }
-}
\ No newline at end of file
+}
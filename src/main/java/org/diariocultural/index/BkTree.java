@@ -0,0 +1,137 @@
+package org.diariocultural.index;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * BK-tree (Burkhard-Keller) de termos pela distância de Levenshtein. Encontra todos
+ * os termos a no máximo {@code k} edições da consulta visitando só os ramos que
+ * podem conter algum, pela desigualdade triangular: a partir de um nó a distância
+ * {@code d} da consulta, basta descer nos filhos ligados por arestas entre
+ * {@code d - k} e {@code d + k}.
+ * <p>
+ * Termos não são removidos (um termo que deixou de existir no catálogo apenas não
+ * tem mais entidades no índice invertido); adicionar um termo repetido não faz nada.
+ */
+public class BkTree {
+
+    /**
+     * Termo encontrado e a sua distância até a consulta.
+     */
+    public record Match(String term, int distance) { }
+
+    private static final class Node {
+        final String term;
+        int[] edges = new int[0];
+        Node[] children = new Node[0];
+
+        Node(String term) {
+            this.term = term;
+        }
+
+        Node child(int distance) {
+            for (int i = 0; i < edges.length; i++) {
+                if (edges[i] == distance) return children[i];
+            }
+            return null;
+        }
+
+        void addChild(int distance, Node child) {
+            edges = Arrays.copyOf(edges, edges.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            edges[edges.length - 1] = distance;
+            children[children.length - 1] = child;
+        }
+    }
+
+    private Node root;
+    private int size;
+
+    /** @return true se o termo ainda não estava na árvore */
+    public boolean add(String term) {
+        if (root == null) {
+            root = new Node(term);
+            size++;
+            return true;
+        }
+        Node node = root;
+        while (true) {
+            int distance = distance(term, node.term);
+            if (distance == 0) {
+                return false;
+            }
+            Node child = node.child(distance);
+            if (child == null) {
+                node.addChild(distance, new Node(term));
+                size++;
+                return true;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * @param query termo procurado
+     * @param maxDistance distância máxima aceita
+     * @return termos a até {@code maxDistance} edições, em ordem de distância
+     */
+    public List<Match> search(String query, int maxDistance) {
+        List<Match> matches = new ArrayList<>();
+        if (root == null) {
+            return matches;
+        }
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.pop();
+            int distance = distance(query, node.term);
+            if (distance <= maxDistance) {
+                matches.add(new Match(node.term, distance));
+            }
+            for (int i = 0; i < node.edges.length; i++) {
+                if (Math.abs(node.edges[i] - distance) <= maxDistance) {
+                    pending.push(node.children[i]);
+                }
+            }
+        }
+        matches.sort((a, b) -> Integer.compare(a.distance(), b.distance()));
+        return matches;
+    }
+
+    /** @return quantidade de termos */
+    public int size() {
+        return size;
+    }
+
+    /** Distância de Levenshtein (inserção, remoção e troca custam 1). */
+    public static int distance(String a, String b) {
+        if (a.equals(b)) {
+            return 0;
+        }
+        if (a.length() < b.length()) {
+            String swap = a;
+            a = b;
+            b = swap;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (ca == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,107 @@
+package org.diariocultural.index;
+
+import java.util.List;
+
+/**
+ * Pontuação de relevância BM25F dos resultados de uma busca: cada token da consulta
+ * vale mais quanto mais raro for no acervo (idf), e um token encontrado num campo
+ * vale o peso do campo ({@link RelevanceIndex.Field}) dividido pelo tamanho do campo
+ * em relação à média (entre as entidades com o campo preenchido), com saturação (encontrar o token dez vezes não vale dez).
+ * <p>
+ * As estatísticas (quantidade de entidades, tamanhos somados dos campos, frequência
+ * dos tokens) vêm prontas dos índices e são somadas entre os catálogos, então livros,
+ * filmes e séries ficam na mesma escala e podem ser intercalados por pontuação.
+ * Pontuar um resultado só percorre os tokens guardados dos seus campos.
+ */
+public final class Bm25 {
+
+    /** Saturação da frequência de um token */
+    static final double K1 = 1.2;
+    /** Quanto o tamanho do campo pesa na normalização */
+    static final double B = 0.75;
+    /** Peso de um token que contém o da consulta sem começar por ele ("atrix" em "matrix") */
+    static final double INFIX_WEIGHT = 0.5;
+
+    private static final RelevanceIndex.Field[] FIELDS = RelevanceIndex.Field.values();
+
+    /**
+     * Estatísticas de um catálogo para os tokens de uma consulta.
+     * @param documents entidades indexadas
+     * @param fieldLengths soma dos tamanhos de cada campo, na ordem de {@link RelevanceIndex.Field}
+     * @param filledCounts quantas entidades têm cada campo preenchido
+     * @param documentFrequencies para cada token da consulta, quantas entidades têm um token
+     *                            que começa com ele
+     */
+    public record Statistics(int documents, long[] fieldLengths, int[] filledCounts, int[] documentFrequencies) { }
+
+    private final String[] queryTokens;
+    private final double[] idf;
+    private final double[] averageLength;
+
+    private Bm25(String[] queryTokens, double[] idf, double[] averageLength) {
+        this.queryTokens = queryTokens;
+        this.idf = idf;
+        this.averageLength = averageLength;
+    }
+
+    /**
+     * @param queryTokens tokens da consulta ({@link TextNormalizer#tokenize})
+     * @param catalogs estatísticas de cada catálogo para esses tokens
+     */
+    public static Bm25 of(List<String> queryTokens, List<Statistics> catalogs) {
+        long documents = 0;
+        long[] lengths = new long[FIELDS.length];
+        long[] filled = new long[FIELDS.length];
+        long[] frequencies = new long[queryTokens.size()];
+        for (Statistics catalog : catalogs) {
+            documents += catalog.documents();
+            for (int f = 0; f < lengths.length; f++) {
+                lengths[f] += catalog.fieldLengths()[f];
+                filled[f] += catalog.filledCounts()[f];
+            }
+            for (int q = 0; q < frequencies.length; q++) {
+                frequencies[q] += catalog.documentFrequencies()[q];
+            }
+        }
+        double[] idf = new double[frequencies.length];
+        for (int q = 0; q < idf.length; q++) {
+            long df = Math.min(frequencies[q], documents);
+            idf[q] = Math.log(1 + (documents - df + 0.5) / (df + 0.5));
+        }
+        double[] averageLength = new double[lengths.length];
+        for (int f = 0; f < lengths.length; f++) {
+            averageLength[f] = filled[f] == 0 ? 0 : (double) lengths[f] / filled[f];
+        }
+        return new Bm25(queryTokens.toArray(new String[0]), idf, averageLength);
+    }
+
+    /** @return a relevância da entidade para a consulta (0 se nenhum campo ranqueado tiver os tokens) */
+    public double score(RelevanceIndex relevance, int id) {
+        String[][] fields = relevance.tokensOf(id);
+        if (fields == null) {
+            return 0;
+        }
+        double score = 0;
+        for (int q = 0; q < queryTokens.length; q++) {
+            String queryToken = queryTokens[q];
+            double weighted = 0;
+            for (int f = 0; f < fields.length; f++) {
+                String[] tokens = fields[f];
+                double frequency = 0;
+                for (String token : tokens) {
+                    if (token.startsWith(queryToken)) {
+                        frequency += 1;
+                    } else if (token.contains(queryToken)) {
+                        frequency += INFIX_WEIGHT;
+                    }
+                }
+                if (frequency > 0) {
+                    double norm = averageLength[f] > 0 ? 1 - B + B * tokens.length / averageLength[f] : 1;
+                    weighted += FIELDS[f].boost() * frequency / norm;
+                }
+            }
+            score += idf[q] * weighted / (K1 + weighted);
+        }
+        return score;
+    }
+}
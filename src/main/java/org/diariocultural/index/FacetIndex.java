@@ -0,0 +1,176 @@
+package org.diariocultural.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Índices de bitmap ({@link RoaringBitmap}) por gênero, ano de lançamento e
+ * situação (lido, assistido, possui cópia...). Um filtro combinado vira E/OU de
+ * bitmaps, e as contagens por gênero ou por ano dentro de um filtro saem de
+ * {@link RoaringBitmap#intersectCount}, sem materializar entidades.
+ * <p>
+ * Gêneros são guardados normalizados por {@link TextNormalizer#normalize}; o
+ * filtro por trecho de gênero percorre só o vocabulário de gêneros, que é pequeno.
+ */
+public final class FacetIndex {
+
+    private final Map<String, RoaringBitmap> byGenre = new HashMap<>();
+    private final NavigableMap<Integer, RoaringBitmap> byYear = new TreeMap<>();
+    private final Map<String, RoaringBitmap> byFlag = new HashMap<>();
+    private final RoaringBitmap all = new RoaringBitmap();
+    /** Valores com que cada ID está indexado, para a remoção. */
+    private final IdIndexedStore<Facets> facetsById = new IdIndexedStore<>();
+
+    private record Facets(String[] genres, int year, String[] flags) { }
+
+    /** Indexa (ou reindexa) um ID com os valores atuais da entidade. */
+    public void index(int id, List<String> genres, int year, List<String> flags) {
+        remove(id);
+        List<String> normalized = new ArrayList<>();
+        if (genres != null) {
+            for (String genre : genres) {
+                String key = TextNormalizer.normalize(genre);
+                if (!key.isEmpty() && !normalized.contains(key)) {
+                    normalized.add(key);
+                    byGenre.computeIfAbsent(key, k -> new RoaringBitmap()).add(id);
+                }
+            }
+        }
+        byYear.computeIfAbsent(year, k -> new RoaringBitmap()).add(id);
+        for (String flag : flags) {
+            byFlag.computeIfAbsent(flag, k -> new RoaringBitmap()).add(id);
+        }
+        all.add(id);
+        facetsById.put(id, new Facets(normalized.toArray(String[]::new), year, flags.toArray(String[]::new)));
+    }
+
+    public void remove(int id) {
+        Facets facets = facetsById.remove(id);
+        if (facets == null) {
+            return;
+        }
+        for (String genre : facets.genres()) {
+            removeFrom(byGenre, genre, id);
+        }
+        removeFrom(byYear, facets.year(), id);
+        for (String flag : facets.flags()) {
+            removeFrom(byFlag, flag, id);
+        }
+        all.remove(id);
+    }
+
+    private static <K> void removeFrom(Map<K, RoaringBitmap> map, K key, int id) {
+        RoaringBitmap bitmap = map.get(key);
+        if (bitmap != null) {
+            bitmap.remove(id);
+            if (bitmap.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    /** @return todos os IDs indexados (não deve ser modificado) */
+    public RoaringBitmap all() {
+        return all;
+    }
+
+    /** @return IDs com algum gênero que contém o trecho informado */
+    public RoaringBitmap genre(String fragment) {
+        String key = TextNormalizer.normalize(fragment);
+        List<RoaringBitmap> matches = new ArrayList<>();
+        for (Map.Entry<String, RoaringBitmap> entry : byGenre.entrySet()) {
+            if (entry.getKey().contains(key)) {
+                matches.add(entry.getValue());
+            }
+        }
+        return RoaringBitmap.unionAll(matches);
+    }
+
+    /** @return IDs lançados entre os anos informados, inclusive (0 = sem limite) */
+    public RoaringBitmap years(int from, int to) {
+        if (from != 0 && to != 0 && from > to) {
+            return new RoaringBitmap();
+        }
+        NavigableMap<Integer, RoaringBitmap> range = byYear;
+        if (from != 0) {
+            range = range.tailMap(from, true);
+        }
+        if (to != 0) {
+            range = range.headMap(to, true);
+        }
+        return RoaringBitmap.unionAll(range.values());
+    }
+
+    /** @return IDs com a situação informada */
+    public RoaringBitmap flag(String flag) {
+        RoaringBitmap bitmap = byFlag.get(flag);
+        return bitmap == null ? new RoaringBitmap() : bitmap.copy();
+    }
+
+    /**
+     * Combina os critérios do filtro: OU entre os gêneros e E entre gênero, faixa
+     * de anos e cada situação exigida. Os critérios mais seletivos são aplicados
+     * primeiro para que as interseções seguintes trabalhem com conjuntos menores.
+     * @return IDs aceitos pelo filtro (um conjunto novo)
+     */
+    public RoaringBitmap select(MediaFilter filter) {
+        List<RoaringBitmap> parts = new ArrayList<>();
+        for (String flag : filter.flags()) {
+            parts.add(byFlag.getOrDefault(flag, new RoaringBitmap()));
+        }
+        if (!filter.genres().isEmpty()) {
+            List<RoaringBitmap> genres = new ArrayList<>();
+            for (String genre : filter.genres()) {
+                genres.add(genre(genre));
+            }
+            parts.add(RoaringBitmap.unionAll(genres));
+        }
+        if (filter.fromYear() != 0 || filter.toYear() != 0) {
+            parts.add(years(filter.fromYear(), filter.toYear()));
+        }
+        if (parts.isEmpty()) {
+            return all.copy();
+        }
+        parts.sort((a, b) -> Integer.compare(a.cardinality(), b.cardinality()));
+        RoaringBitmap result = parts.get(0);
+        for (int i = 1; i < parts.size() && !result.isEmpty(); i++) {
+            result = RoaringBitmap.intersect(result, parts.get(i));
+        }
+        return result == parts.get(0) ? result.copy() : result;
+    }
+
+    /** @return quantos IDs de {@code within} têm cada gênero (normalizado), só gêneros com algum */
+    public Map<String, Integer> genreCounts(RoaringBitmap within) {
+        Map<String, Integer> counts = new HashMap<>();
+        byGenre.forEach((genre, bitmap) -> {
+            int count = RoaringBitmap.intersectCount(bitmap, within);
+            if (count > 0) {
+                counts.put(genre, count);
+            }
+        });
+        return counts;
+    }
+
+    /** @return quantos IDs de {@code within} foram lançados em cada ano, em ordem de ano */
+    public SortedMap<Integer, Integer> yearCounts(RoaringBitmap within) {
+        SortedMap<Integer, Integer> counts = new TreeMap<>();
+        byYear.forEach((year, bitmap) -> {
+            int count = RoaringBitmap.intersectCount(bitmap, within);
+            if (count > 0) {
+                counts.put(year, count);
+            }
+        });
+        return counts;
+    }
+
+    /** @return quantos IDs de {@code within} têm a situação informada */
+    public int flagCount(String flag, RoaringBitmap within) {
+        RoaringBitmap bitmap = byFlag.get(flag);
+        return bitmap == null ? 0 : RoaringBitmap.intersectCount(bitmap, within);
+    }
+}
@@ -0,0 +1,9 @@
+package org.diariocultural.index;
+
+/**
+ * Resultado da busca tolerante a erros de digitação.
+ * @param entity entidade encontrada
+ * @param distance soma das edições necessárias para os tokens da consulta (0 = exatos)
+ * @param <T> tipo da entidade
+ */
+public record FuzzyMatch<T>(T entity, int distance) { }
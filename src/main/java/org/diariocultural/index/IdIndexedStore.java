@@ -0,0 +1,263 @@
+package org.diariocultural.index;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Mapa de ID (int) para entidade com ordem de iteração estável (a ordem de inserção),
+ * sem encapsular os IDs em {@link Integer}.
+ * <p>
+ * Os valores ficam num array denso, na ordem em que foram inseridos; uma tabela de
+ * endereçamento aberto (sondagem linear) leva cada ID à sua posição nesse array.
+ * Inserção, substituição, remoção e consulta por ID são O(1) esperado: a remoção só
+ * deixa um buraco no array denso, e os buracos são compactados (mantendo a ordem)
+ * quando passam a ser maioria.
+ *
+ * @param <T> tipo dos valores (não nulos)
+ */
+public final class IdIndexedStore<T> {
+
+    private static final int FREE = -1;
+    private static final int MIN_TABLE_SIZE = 16;
+
+    /** Tabela de endereçamento aberto: ID e posição no array denso (FREE = balde vazio). */
+    private int[] tableIds;
+    private int[] tableSlots;
+    private int mask;
+
+    /** Array denso em ordem de inserção; null marca um item removido. */
+    private int[] ids;
+    private Object[] values;
+    private int end;
+    private int size;
+    private int modCount;
+
+    public IdIndexedStore() {
+        this(MIN_TABLE_SIZE);
+    }
+
+    /** @param expectedSize quantidade de itens esperada, para evitar redimensionamentos */
+    public IdIndexedStore(int expectedSize) {
+        int tableSize = Math.max(MIN_TABLE_SIZE, Integer.highestOneBit(Math.max(1, expectedSize) * 2 - 1) << 1);
+        allocateTable(tableSize);
+        ids = new int[Math.max(8, expectedSize)];
+        values = new Object[ids.length];
+    }
+
+    private void allocateTable(int tableSize) {
+        tableIds = new int[tableSize];
+        tableSlots = new int[tableSize];
+        Arrays.fill(tableSlots, FREE);
+        mask = tableSize - 1;
+    }
+
+    private int home(int id) {
+        int hash = id * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /** @return balde do ID, ou o balde vazio onde ele entraria */
+    private int bucketOf(int id) {
+        int bucket = home(id);
+        while (tableSlots[bucket] != FREE && tableIds[bucket] != id) {
+            bucket = (bucket + 1) & mask;
+        }
+        return bucket;
+    }
+
+    /** @return o valor do ID, ou null */
+    @SuppressWarnings("unchecked")
+    public T get(int id) {
+        int slot = tableSlots[bucketOf(id)];
+        return slot == FREE ? null : (T) values[slot];
+    }
+
+    public boolean containsId(int id) {
+        return tableSlots[bucketOf(id)] != FREE;
+    }
+
+    /**
+     * Insere ou substitui o valor de um ID. Um ID novo vai para o fim da ordem de
+     * iteração; um ID existente mantém a sua posição.
+     * @return o valor anterior, ou null
+     */
+    @SuppressWarnings("unchecked")
+    public T put(int id, T value) {
+        Objects.requireNonNull(value, "value");
+        modCount++;
+        int bucket = bucketOf(id);
+        int slot = tableSlots[bucket];
+        if (slot != FREE) {
+            T previous = (T) values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        if (end == values.length) {
+            if (end - size > size) {
+                compact();
+            } else {
+                ids = Arrays.copyOf(ids, end * 2);
+                values = Arrays.copyOf(values, end * 2);
+            }
+        }
+        ids[end] = id;
+        values[end] = value;
+        tableIds[bucket] = id;
+        tableSlots[bucket] = end++;
+        size++;
+        if (size * 2 > tableSlots.length) {
+            rehash(tableSlots.length * 2);
+        }
+        return null;
+    }
+
+    /** @return o valor removido, ou null se o ID não existia */
+    @SuppressWarnings("unchecked")
+    public T remove(int id) {
+        int bucket = bucketOf(id);
+        int slot = tableSlots[bucket];
+        if (slot == FREE) {
+            return null;
+        }
+        modCount++;
+        T previous = (T) values[slot];
+        values[slot] = null;
+        size--;
+        deleteBucket(bucket);
+        if (slot == end - 1) {
+            end--;
+        } else if (end - size > 16 && end - size > size) {
+            compact();
+        }
+        return previous;
+    }
+
+    /** Remove o balde puxando para trás os seguintes do mesmo agrupamento (sem lápides). */
+    private void deleteBucket(int bucket) {
+        int hole = bucket;
+        int next = bucket;
+        tableSlots[hole] = FREE;
+        while (true) {
+            next = (next + 1) & mask;
+            if (tableSlots[next] == FREE) {
+                return;
+            }
+            int wanted = home(tableIds[next]);
+            boolean stays = hole <= next ? (hole < wanted && wanted <= next) : (hole < wanted || wanted <= next);
+            if (!stays) {
+                tableIds[hole] = tableIds[next];
+                tableSlots[hole] = tableSlots[next];
+                tableSlots[next] = FREE;
+                hole = next;
+            }
+        }
+    }
+
+    /** Fecha os buracos do array denso, mantendo a ordem. */
+    private void compact() {
+        int write = 0;
+        for (int read = 0; read < end; read++) {
+            if (values[read] != null) {
+                ids[write] = ids[read];
+                values[write] = values[read];
+                tableSlots[bucketOf(ids[write])] = write;
+                write++;
+            }
+        }
+        Arrays.fill(values, write, end, null);
+        end = write;
+    }
+
+    private void rehash(int tableSize) {
+        allocateTable(tableSize);
+        for (int slot = 0; slot < end; slot++) {
+            if (values[slot] != null) {
+                int bucket = bucketOf(ids[slot]);
+                tableIds[bucket] = ids[slot];
+                tableSlots[bucket] = slot;
+            }
+        }
+    }
+
+    /** Remove todos os itens. */
+    public void clear() {
+        modCount++;
+        Arrays.fill(tableSlots, FREE);
+        Arrays.fill(values, 0, end, null);
+        end = 0;
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** @return contador de alterações (inserções, substituições e remoções) */
+    public int modCount() {
+        return modCount;
+    }
+
+    /** @return visão somente leitura dos valores, em ordem de inserção, que acompanha o mapa */
+    public Collection<T> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<T> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /** @return cópia dos valores, em ordem de inserção */
+    public List<T> toList() {
+        List<T> list = new ArrayList<>(size);
+        list.addAll(values());
+        return list;
+    }
+
+    private final class ValueIterator implements Iterator<T> {
+        private final int expectedModCount = modCount;
+        private int next = advance(0);
+
+        private int advance(int from) {
+            while (from < end && values[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < end;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= end) {
+                throw new NoSuchElementException();
+            }
+            T value = (T) values[next];
+            next = advance(next + 1);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package org.diariocultural.index;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.SplittableRandom;
+
+/**
+ * Árvore de intervalos de anos (fechados, {@code [start, end]}) de cada entidade,
+ * para perguntas como "quais séries estavam no ar em 2008" sem percorrer o catálogo.
+ * <p>
+ * É uma treap (árvore de busca balanceada por prioridades aleatórias) ordenada pelo
+ * início do intervalo, em que cada nó guarda o maior fim da sua subárvore: uma
+ * subárvore cujo maior fim é anterior ao período procurado é pulada inteira, e à
+ * direita de um nó que começa depois do período não há nada. Consultar custa
+ * O(log n + k) para k intervalos encontrados; trocar os intervalos de uma entidade
+ * custa O(m log n) para m intervalos dela.
+ */
+public final class IntervalIndex {
+
+    /**
+     * Intervalo fechado de anos.
+     * @param start primeiro ano
+     * @param end último ano ({@link Integer#MAX_VALUE} se ainda não terminou)
+     */
+    public record Interval(int start, int end) {
+
+        public Interval {
+            if (end < start) {
+                throw new IllegalArgumentException("Intervalo inválido: " + start + ".." + end);
+            }
+        }
+
+        /** @return intervalo de um único ano */
+        public static Interval of(int year) {
+            return new Interval(year, year);
+        }
+    }
+
+    private static final class Node {
+        final int start;
+        final int end;
+        final int id;
+        final int priority;
+        int maxEnd;
+        Node left;
+        Node right;
+
+        Node(int start, int end, int id, int priority) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+    }
+
+    private static final Interval[] NONE = new Interval[0];
+
+    /** Semente fixa: a forma da árvore (e o tempo das consultas) se repete entre execuções */
+    private final SplittableRandom priorities = new SplittableRandom(0x1D1A12L);
+    private final IdIndexedStore<Interval[]> intervalsById = new IdIndexedStore<>();
+    private Node root;
+    private int size;
+
+    /**
+     * Troca os intervalos de uma entidade. Intervalos repetidos contam uma vez;
+     * uma coleção vazia tira a entidade do índice.
+     */
+    public void put(int id, Collection<Interval> intervals) {
+        Interval[] sorted = intervals.stream().distinct()
+                .sorted((a, b) -> a.start() != b.start() ? Integer.compare(a.start(), b.start()) : Integer.compare(a.end(), b.end()))
+                .toArray(Interval[]::new);
+        Interval[] previous = intervalsById.get(id);
+        if (previous != null && Arrays.equals(previous, sorted)) {
+            return;
+        }
+        remove(id);
+        if (sorted.length > 0) {
+            intervalsById.put(id, sorted);
+            for (Interval interval : sorted) {
+                root = insert(root, new Node(interval.start(), interval.end(), id, priorities.nextInt()));
+                size++;
+            }
+        }
+    }
+
+    public void remove(int id) {
+        Interval[] previous = intervalsById.remove(id);
+        for (Interval interval : previous == null ? NONE : previous) {
+            root = delete(root, interval.start(), interval.end(), id);
+            size--;
+        }
+    }
+
+    /** @return IDs das entidades com algum intervalo que cruza {@code [from, to]} */
+    public RoaringBitmap overlapping(int from, int to) {
+        RoaringBitmap ids = new RoaringBitmap();
+        if (from <= to) {
+            collect(root, from, to, ids);
+        }
+        return ids;
+    }
+
+    /** @return os intervalos de uma entidade, por início (vazio se ela não tiver) */
+    public Interval[] intervalsOf(int id) {
+        Interval[] intervals = intervalsById.get(id);
+        return intervals == null ? NONE : intervals.clone();
+    }
+
+    /** @return quantidade de intervalos indexados (de todas as entidades) */
+    public int size() {
+        return size;
+    }
+
+    private static void collect(Node node, int from, int to, RoaringBitmap ids) {
+        while (node != null && node.maxEnd >= from) {
+            collect(node.left, from, to, ids);
+            if (node.start > to) {
+                // À direita todos começam ainda mais tarde
+                return;
+            }
+            if (node.end >= from) {
+                ids.add(node.id);
+            }
+            node = node.right;
+        }
+    }
+
+    private static int compare(int start, int end, int id, Node node) {
+        if (start != node.start) return Integer.compare(start, node.start);
+        if (end != node.end) return Integer.compare(end, node.end);
+        return Integer.compare(id, node.id);
+    }
+
+    private static Node insert(Node node, Node inserted) {
+        if (node == null) {
+            return inserted;
+        }
+        if (compare(inserted.start, inserted.end, inserted.id, node) < 0) {
+            node.left = insert(node.left, inserted);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, inserted);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node delete(Node node, int start, int end, int id) {
+        if (node == null) {
+            return null;
+        }
+        int order = compare(start, end, id, node);
+        if (order < 0) {
+            node.left = delete(node.left, start, end, id);
+        } else if (order > 0) {
+            node.right = delete(node.right, start, end, id);
+        } else {
+            if (node.left == null) return node.right;
+            if (node.right == null) return node.left;
+            // Desce o nó pelo filho de maior prioridade até virar folha
+            if (node.left.priority > node.right.priority) {
+                node = rotateRight(node);
+                node.right = delete(node.right, start, end, id);
+            } else {
+                node = rotateLeft(node);
+                node.left = delete(node.left, start, end, id);
+            }
+        }
+        update(node);
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        int max = node.end;
+        if (node.left != null && node.left.maxEnd > max) max = node.left.maxEnd;
+        if (node.right != null && node.right.maxEnd > max) max = node.right.maxEnd;
+        node.maxEnd = max;
+    }
+}
@@ -0,0 +1,227 @@
+package org.diariocultural.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Índice invertido de tokens normalizados (ver {@link TextNormalizer}) para IDs.
+ * <p>
+ * Os tokens ficam num mapa ordenado, então um token da consulta casa com todos os
+ * tokens indexados que começam com ele ("cora" encontra "coração"); tokens
+ * diferentes da consulta precisam aparecer todos na mesma entidade.
+ * <p>
+ * O vocabulário também fica numa {@link BkTree}, usada pela busca tolerante a
+ * erros de digitação ({@link #fuzzySearch}).
+ * <p>
+ * Guarda também os tokens de cada ID, para que reindexar uma entidade que foi
+ * alterada no lugar (pelos formulários) remova as entradas antigas sem precisar
+ * dos valores anteriores dos campos.
+ */
+public class InvertedIndex {
+
+    private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+    private final IdIndexedStore<String[]> tokensById = new IdIndexedStore<>();
+    private final BkTree vocabulary = new BkTree();
+
+    /**
+     * Resultado de {@link #fuzzySearch}: IDs em ordem crescente e, na mesma posição,
+     * a soma das menores distâncias de cada token da consulta.
+     */
+    public record FuzzyResult(int[] ids, int[] distances) { }
+
+    /**
+     * Indexa (ou reindexa) uma entidade.
+     * @param id ID da entidade
+     * @param fieldValues valores dos campos pesquisáveis (nulos são ignorados)
+     */
+    public void index(int id, Iterable<String> fieldValues) {
+        remove(id);
+        List<String> tokens = new ArrayList<>();
+        for (String value : fieldValues) {
+            for (String token : TextNormalizer.tokenize(value)) {
+                PostingList list = postings.get(token);
+                if (list == null) {
+                    list = new PostingList();
+                    postings.put(token, list);
+                    vocabulary.add(token);
+                }
+                if (list.add(id)) {
+                    tokens.add(token);
+                }
+            }
+        }
+        tokensById.put(id, tokens.toArray(new String[0]));
+    }
+
+    /** Remove todas as entradas de uma entidade. */
+    public void remove(int id) {
+        String[] tokens = tokensById.remove(id);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            PostingList list = postings.get(token);
+            if (list != null && list.remove(id) && list.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+    }
+
+    /**
+     * @return IDs (em ordem crescente) das entidades que têm, para cada token da
+     *         consulta, algum token que começa com ele; vazio se a consulta não tiver tokens
+     */
+    public int[] search(String query) {
+        List<String> queryTokens = TextNormalizer.tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return PostingList.EMPTY;
+        }
+        List<int[]> matches = new ArrayList<>(queryTokens.size());
+        for (String token : queryTokens) {
+            int[] ids = prefixMatches(token);
+            if (ids.length == 0) {
+                return PostingList.EMPTY;
+            }
+            matches.add(ids);
+        }
+        // Interseção começando pelas listas menores
+        matches.sort(Comparator.comparingInt(ids -> ids.length));
+        int[] result = matches.get(0);
+        for (int i = 1; i < matches.size() && result.length > 0; i++) {
+            result = PostingList.intersect(result, matches.get(i));
+        }
+        return result;
+    }
+
+    private int[] prefixMatches(String prefix) {
+        return PostingList.unionAll(postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values());
+    }
+
+    /**
+     * Edições toleradas num token da consulta: nenhuma até 3 caracteres (senão quase
+     * tudo casaria), uma até 6 e duas acima disso.
+     */
+    public static int maxTypos(String token) {
+        int length = token.length();
+        return length <= 3 ? 0 : length <= 6 ? 1 : 2;
+    }
+
+    /**
+     * Busca tolerante a erros de digitação: cada token da consulta casa com os tokens
+     * do vocabulário a até {@link #maxTypos} edições (procurados na BK-tree, sem
+     * calcular a distância contra cada entidade), e todos precisam casar.
+     */
+    public FuzzyResult fuzzySearch(String query) {
+        List<String> queryTokens = TextNormalizer.tokenize(query);
+        FuzzyResult result = null;
+        for (String token : queryTokens) {
+            FuzzyResult matches = fuzzyMatches(token);
+            result = result == null ? matches : intersectAddingDistances(result, matches);
+            if (result.ids().length == 0) {
+                break;
+            }
+        }
+        return result == null ? new FuzzyResult(PostingList.EMPTY, PostingList.EMPTY) : result;
+    }
+
+    /** IDs com algum token próximo do token da consulta, com a menor distância de cada um. */
+    private FuzzyResult fuzzyMatches(String token) {
+        int maxTypos = maxTypos(token);
+        List<List<PostingList>> byDistance = new ArrayList<>(maxTypos + 1);
+        for (int d = 0; d <= maxTypos; d++) {
+            byDistance.add(new ArrayList<>());
+        }
+        for (BkTree.Match match : vocabulary.search(token, maxTypos)) {
+            PostingList list = postings.get(match.term());
+            if (list != null) {
+                byDistance.get(match.distance()).add(list);
+            }
+        }
+        FuzzyResult result = new FuzzyResult(PostingList.EMPTY, PostingList.EMPTY);
+        for (int d = 0; d <= maxTypos; d++) {
+            if (!byDistance.get(d).isEmpty()) {
+                result = unionKeepingSmallerDistance(result, PostingList.unionAll(byDistance.get(d)), d);
+            }
+        }
+        return result;
+    }
+
+    /** Junta IDs a uma distância maior que todas as já presentes; os repetidos ficam com a menor. */
+    private static FuzzyResult unionKeepingSmallerDistance(FuzzyResult current, int[] ids, int distance) {
+        int[] currentIds = current.ids();
+        int[] resultIds = new int[currentIds.length + ids.length];
+        int[] resultDistances = new int[resultIds.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < currentIds.length || j < ids.length) {
+            if (j == ids.length || (i < currentIds.length && currentIds[i] <= ids[j])) {
+                if (j < ids.length && currentIds[i] == ids[j]) j++;
+                resultIds[count] = currentIds[i];
+                resultDistances[count++] = current.distances()[i++];
+            } else {
+                resultIds[count] = ids[j++];
+                resultDistances[count++] = distance;
+            }
+        }
+        return new FuzzyResult(Arrays.copyOf(resultIds, count), Arrays.copyOf(resultDistances, count));
+    }
+
+    private static FuzzyResult intersectAddingDistances(FuzzyResult a, FuzzyResult b) {
+        int[] ids = new int[Math.min(a.ids().length, b.ids().length)];
+        int[] distances = new int[ids.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.ids().length && j < b.ids().length) {
+            if (a.ids()[i] < b.ids()[j]) {
+                i++;
+            } else if (a.ids()[i] > b.ids()[j]) {
+                j++;
+            } else {
+                ids[count] = a.ids()[i];
+                distances[count++] = a.distances()[i++] + b.distances()[j++];
+            }
+        }
+        return new FuzzyResult(Arrays.copyOf(ids, count), Arrays.copyOf(distances, count));
+    }
+
+    /** @return quantidade de entidades que contêm exatamente o token (já normalizado) */
+    public int documentFrequency(String token) {
+        PostingList list = postings.get(token);
+        return list == null ? 0 : list.size();
+    }
+
+    /**
+     * Estimativa de quantas entidades têm algum token que começa com {@code prefix}:
+     * soma os tamanhos das listas dos tokens do intervalo (sem uni-las), limitada ao
+     * total de entidades. Exata quando só um token indexado começa com o prefixo.
+     */
+    public int prefixDocumentFrequency(String prefix) {
+        long total = 0;
+        for (PostingList list : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            total += list.size();
+        }
+        return (int) Math.min(total, size());
+    }
+
+    /** @return tokens indexados para o ID, ou um array vazio */
+    public String[] tokensOf(int id) {
+        String[] tokens = tokensById.get(id);
+        return tokens == null ? new String[0] : Arrays.copyOf(tokens, tokens.length);
+    }
+
+    /** @return quantidade de entidades indexadas */
+    public int size() {
+        return tokensById.size();
+    }
+
+    /** @return quantidade de tokens distintos */
+    public int tokenCount() {
+        return postings.size();
+    }
+}
@@ -0,0 +1,49 @@
+package org.diariocultural.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filtro de catálogo respondido pelos índices de bitmap ({@link FacetIndex}).
+ * Os critérios presentes se combinam com E; dentro de {@code genres} vale o OU.
+ *
+ * @param genres trechos de gênero aceitos (basta um gênero da mídia conter um deles,
+ *               sem diferença de maiúsculas nem de acentos); vazio = qualquer gênero
+ * @param fromYear primeiro ano aceito (0 = sem limite)
+ * @param toYear último ano aceito (0 = sem limite)
+ * @param flags situações exigidas, todas ao mesmo tempo (ex: {@link org.diariocultural.Media#WATCHED_STATUS})
+ */
+public record MediaFilter(List<String> genres, int fromYear, int toYear, List<String> flags) {
+
+    /** Filtro que aceita todo o catálogo. */
+    public static final MediaFilter ALL = new MediaFilter(List.of(), 0, 0, List.of());
+
+    public MediaFilter {
+        genres = List.copyOf(genres);
+        flags = List.copyOf(flags);
+    }
+
+    /** @return cópia que também aceita os gêneros informados */
+    public MediaFilter withGenres(String... more) {
+        List<String> all = new ArrayList<>(genres);
+        all.addAll(List.of(more));
+        return new MediaFilter(all, fromYear, toYear, flags);
+    }
+
+    /** @return cópia restrita aos anos entre {@code from} e {@code to}, inclusive (0 = sem limite) */
+    public MediaFilter withYears(int from, int to) {
+        return new MediaFilter(genres, from, to, flags);
+    }
+
+    /** @return cópia que também exige as situações informadas */
+    public MediaFilter withFlags(String... more) {
+        List<String> all = new ArrayList<>(flags);
+        all.addAll(List.of(more));
+        return new MediaFilter(genres, fromYear, toYear, all);
+    }
+
+    /** @return true se o filtro não restringe nada */
+    public boolean isEmpty() {
+        return genres.isEmpty() && fromYear == 0 && toYear == 0 && flags.isEmpty();
+    }
+}
@@ -0,0 +1,578 @@
+package org.diariocultural.index;
+
+import org.diariocultural.Media;
+import org.diariocultural.MediaChangeListener;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.RandomAccess;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Índices de busca de um catálogo (livros, filmes ou séries), mantidos pelo
+ * controlador correspondente a cada adição, atualização e remoção.
+ * <p>
+ * As buscas respondem a partir dos índices, em tempo proporcional à quantidade
+ * de resultados, e devolvem as entidades em ordem de ID (que é a ordem de cadastro).
+ * Os dois índices usam as chaves normalizadas que cada entidade guarda
+ * ({@link Media#searchKeys()}), então a busca ignora maiúsculas e acentos e não
+ * cria strings por entidade. {@link #search} mantém a semântica de substring da
+ * busca original (índice de trigramas); {@link #searchTokens} casa palavras
+ * inteiras ou seus prefixos.
+ * <p>
+ * Todos os índices também acompanham os setters: cada entidade indexada recebe um
+ * {@link MediaChangeListener} que a reindexa quando um campo pesquisável (título,
+ * título original, pessoas, gêneros, ano) ou a situação (lido, assistido...) muda,
+ * mesmo antes da atualização no controlador: a busca por texto, por tokens e
+ * aproximada, o autocompletar, o índice de títulos ({@link #findByTitle}) e os
+ * índices de filtro ({@link #filter}) já encontram o valor novo. O mesmo vale para
+ * a média das avaliações, que ordena o índice de {@link #topRated}, e para os
+ * períodos de {@link #overlapping}.
+ * <p>
+ * As alterações (inclusive as avisadas pelos setters) tomam a trava de escrita do
+ * índice, e as buscas de texto ({@link #search}, {@link #searchRanked},
+ * {@link #searchFuzzy} e {@link #relevanceStatistics}) a de leitura: elas podem rodar
+ * em outras threads enquanto a interface altera o catálogo. As demais consultas
+ * continuam restritas à thread que altera o catálogo.
+ *
+ * @param <T> tipo das entidades
+ */
+public final class MediaSearchIndex<T extends Media> {
+
+    private final ToIntFunction<T> idOf;
+    private final IntFunction<T> entityById;
+    private final InvertedIndex tokens = new InvertedIndex();
+    private final TrigramIndex trigrams = new TrigramIndex();
+    private final PrefixIndex completions = new PrefixIndex();
+    private final TitleIndex<T> titles;
+    private final FacetIndex facets = new FacetIndex();
+    private final RelevanceIndex relevance = new RelevanceIndex();
+    private final OrderIndex<String> titleOrder = new OrderIndex<>();
+    private final OrderIndex<Integer> yearOrder = new OrderIndex<>();
+    /** Média das entidades avaliadas ({@link Media#isRated()}); as demais ficam fora */
+    private final OrderIndex<Double> ratingOrder = new OrderIndex<>();
+    /** Períodos de cada entidade (o período no ar de uma série e os anos das temporadas) */
+    private final IntervalIndex intervals = new IntervalIndex();
+    private final Function<T, List<IntervalIndex.Interval>> intervalsOf;
+    /** Por campo de texto, as entidades com algum valor dele fora das chaves de busca */
+    private final Map<String, RoaringBitmap> outsideKeys = new HashMap<>();
+    /** Entidades que receberam o {@link #changeListener}, por ID. */
+    private final IdIndexedStore<T> listening = new IdIndexedStore<>();
+    private final MediaChangeListener changeListener = this::onMediaChanged;
+    /** Avisos de alteração recebidos das entidades indexadas */
+    private final AtomicLong changeCount = new AtomicLong();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     * Custo de um ID no heap de {@link #topRated} em relação a um ID lido (e talvez
+     * descartado) do índice ordenado por média.
+     */
+    private static final int HEAP_COST = 4;
+    /** Campos de texto das consultas estruturadas ({@link Media#fieldValues}) */
+    private static final List<String> TEXT_FIELDS =
+            List.of(Media.TITLE, Media.AUTHOR, Media.DIRECTOR, Media.CREATOR, Media.CAST);
+
+    /**
+     * @param idOf extrai o ID de uma entidade
+     * @param entityById devolve a entidade atual de um ID (o armazenamento do controlador)
+     * @param originalTitleOf extrai o título original de uma entidade
+     */
+    public MediaSearchIndex(ToIntFunction<T> idOf, IntFunction<T> entityById, Function<T, String> originalTitleOf) {
+        this(idOf, entityById, originalTitleOf, entity -> List.of());
+    }
+
+    /**
+     * @param intervalsOf períodos de anos de uma entidade, para {@link #overlapping};
+     *                    recalculados nos avisos de ano de lançamento e de {@link Media#AIRING}
+     */
+    public MediaSearchIndex(ToIntFunction<T> idOf, IntFunction<T> entityById, Function<T, String> originalTitleOf,
+                            Function<T, List<IntervalIndex.Interval>> intervalsOf) {
+        this.idOf = idOf;
+        this.entityById = entityById;
+        this.titles = new TitleIndex<>(idOf, Media::getTitle, originalTitleOf);
+        this.intervalsOf = intervalsOf;
+    }
+
+    /**
+     * Trava de escrita do índice (reentrante), para o controlador alterar o seu
+     * armazenamento e o índice juntos: uma busca em outra thread nunca vê um
+     * sem o outro.
+     */
+    public Lock writeLock() {
+        return lock.writeLock();
+    }
+
+    /** Indexa uma entidade nova ou reindexa uma já existente com o mesmo ID. */
+    public void add(T entity) {
+        lock.writeLock().lock();
+        try {
+            int id = idOf.applyAsInt(entity);
+            indexSearchKeys(id, entity);
+            completions.index(id, entity.completionTerms(), entity.getAverageRating());
+            titles.index(entity);
+            indexFacets(id, entity);
+            relevance.index(id, entity);
+            titleOrder.put(id, TextNormalizer.normalize(entity.getTitle()));
+            yearOrder.put(id, entity.getReleaseYear());
+            indexRating(id, entity);
+            intervals.put(id, intervalsOf.apply(entity));
+            T previous = listening.put(id, entity);
+            if (previous != entity) {
+                if (previous != null) {
+                    previous.removeChangeListener(changeListener);
+                }
+                entity.addChangeListener(changeListener);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Reindexa uma entidade alterada (inclusive se alterada no lugar). */
+    public void update(T entity) {
+        add(entity);
+    }
+
+    public void remove(T entity) {
+        lock.writeLock().lock();
+        try {
+            int id = idOf.applyAsInt(entity);
+            tokens.remove(id);
+            trigrams.remove(id);
+            completions.remove(id);
+            titles.remove(entity);
+            facets.remove(id);
+            relevance.remove(id);
+            titleOrder.remove(id);
+            yearOrder.remove(id);
+            ratingOrder.remove(id);
+            intervals.remove(id);
+            for (RoaringBitmap ids : outsideKeys.values()) {
+                ids.remove(id);
+            }
+            T previous = listening.remove(id);
+            if (previous != null) {
+                previous.removeChangeListener(changeListener);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void indexFacets(int id, T entity) {
+        facets.index(id, entity.getGenre(), entity.getReleaseYear(), entity.statusFlags());
+    }
+
+    /**
+     * Indexa as chaves de busca atuais nos índices de tokens (e no vocabulário da busca
+     * aproximada) e de trigramas; as entradas das chaves anteriores, que esses índices
+     * guardam por ID, saem antes.
+     */
+    private void indexSearchKeys(int id, T entity) {
+        String[] keys = entity.searchKeys();
+        tokens.index(id, Arrays.asList(keys));
+        trigrams.index(id, keys);
+        indexOutsideKeys(id, entity);
+    }
+
+    /**
+     * Marca os campos de texto da entidade cujos valores não estão todos contidos em
+     * alguma chave de busca (ex: o título original de um filme): para eles, o índice
+     * de trigramas não basta para achar a entidade.
+     */
+    private void indexOutsideKeys(int id, T entity) {
+        String[] keys = entity.searchKeys();
+        for (String field : TEXT_FIELDS) {
+            boolean outside = false;
+            for (String value : entity.fieldValues(field)) {
+                String folded = TextNormalizer.fold(value);
+                if (Arrays.stream(keys).noneMatch(key -> key.contains(folded))) {
+                    outside = true;
+                    break;
+                }
+            }
+            RoaringBitmap ids = outsideKeys.computeIfAbsent(field, f -> new RoaringBitmap());
+            if (outside) {
+                ids.add(id);
+            } else {
+                ids.remove(id);
+            }
+        }
+    }
+
+    private void indexRating(int id, T entity) {
+        if (entity.isRated()) {
+            ratingOrder.put(id, entity.getAverageRating());
+        } else {
+            ratingOrder.remove(id);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onMediaChanged(Media media, String property) {
+        lock.writeLock().lock();
+        try {
+            T entity = (T) media;
+            int id = idOf.applyAsInt(entity);
+            changeCount.incrementAndGet();
+            switch (property) {
+                case Media.TITLE -> {
+                    titles.index(entity);
+                    relevance.index(id, entity);
+                    titleOrder.put(id, TextNormalizer.normalize(entity.getTitle()));
+                    indexSearchKeys(id, entity);
+                    completions.index(id, entity.completionTerms(), entity.getAverageRating());
+                }
+                case Media.ORIGINAL_TITLE -> {
+                    titles.index(entity);
+                    relevance.index(id, entity);
+                    indexSearchKeys(id, entity);
+                    completions.index(id, entity.completionTerms(), entity.getAverageRating());
+                }
+                case Media.AUTHOR, Media.DIRECTOR, Media.CREATOR, Media.CAST -> {
+                    relevance.index(id, entity);
+                    indexSearchKeys(id, entity);
+                    completions.index(id, entity.completionTerms(), entity.getAverageRating());
+                }
+                case Media.RELEASE_YEAR -> {
+                    indexFacets(id, entity);
+                    yearOrder.put(id, entity.getReleaseYear());
+                    intervals.put(id, intervalsOf.apply(entity));
+                    // O ano também é uma chave de busca
+                    indexSearchKeys(id, entity);
+                }
+                case Media.AIRING -> intervals.put(id, intervalsOf.apply(entity));
+                case Media.RATING -> {
+                    indexRating(id, entity);
+                    // As sugestões do autocompletar também são ordenadas pela média (os textos não mudam)
+                    completions.updateRating(id, entity.getAverageRating());
+                }
+                case Media.GENRE -> {
+                    indexFacets(id, entity);
+                    relevance.index(id, entity);
+                    indexSearchKeys(id, entity);
+                }
+                case Media.READ_STATUS, Media.HAS_COPY, Media.WATCHED_STATUS -> indexFacets(id, entity);
+                default -> { }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Busca por título exato (sem diferença de maiúsculas nem de acentos), em tempo constante.
+     * @return a primeira entidade com esse título ou, se nenhuma tiver, com esse título original
+     */
+    public Optional<T> findByTitle(String title) {
+        return titles.find(title);
+    }
+
+    /**
+     * Entidades com algum período que cruza {@code [from, to]}, pela árvore de intervalos:
+     * O(log n + k), sem percorrer o catálogo.
+     * @return entidades encontradas, em ordem de ID
+     */
+    public List<T> overlapping(int from, int to) {
+        return resolve(intervals.overlapping(from, to).toArray());
+    }
+
+    /**
+     * Busca por substring: alguma chave de busca precisa conter a consulta normalizada
+     * (como {@code campo.toLowerCase().contains(consulta)}, mas também sem acentos).
+     * @return entidades encontradas, em ordem de ID
+     */
+    public List<T> search(String query) {
+        lock.readLock().lock();
+        try {
+            return resolve(trigrams.search(query));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Estatísticas do catálogo para pontuar uma consulta com {@link Bm25}: somadas às
+     * dos outros catálogos, dão a mesma escala de relevância para todos.
+     * @param queryTokens tokens da consulta ({@link TextNormalizer#tokenize})
+     */
+    public Bm25.Statistics relevanceStatistics(List<String> queryTokens) {
+        lock.readLock().lock();
+        try {
+            long[] lengths = new long[RelevanceIndex.Field.values().length];
+            int[] filled = new int[lengths.length];
+            for (RelevanceIndex.Field field : RelevanceIndex.Field.values()) {
+                lengths[field.ordinal()] = relevance.totalLength(field);
+                filled[field.ordinal()] = relevance.filledCount(field);
+            }
+            int[] frequencies = new int[queryTokens.size()];
+            for (int q = 0; q < frequencies.length; q++) {
+                frequencies[q] = tokens.prefixDocumentFrequency(queryTokens.get(q));
+            }
+            return new Bm25.Statistics(relevance.size(), lengths, filled, frequencies);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * A mesma busca de {@link #search}, com a relevância de cada resultado.
+     * @param scorer pontuação preparada para a consulta
+     * @return entidades encontradas com a pontuação, em ordem de ID
+     */
+    public List<ScoredMatch<T>> searchRanked(String query, Bm25 scorer) {
+        lock.readLock().lock();
+        try {
+            int[] ids = trigrams.search(query);
+            List<ScoredMatch<T>> matches = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                T entity = entityById.apply(id);
+                if (entity != null) {
+                    matches.add(new ScoredMatch<>(entity, scorer.score(relevance, id)));
+                }
+            }
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca por tokens: cada palavra da consulta precisa ser início de alguma palavra
+     * de um dos campos pesquisáveis.
+     * @return entidades encontradas, em ordem de ID
+     */
+    public List<T> searchTokens(String query) {
+        return resolve(tokens.search(query));
+    }
+
+    /**
+     * Autocompletar sobre títulos, títulos originais e pessoas (autores, diretores,
+     * criadores e elenco).
+     * @return até {@code limit} sugestões para o texto digitado, das mais bem avaliadas
+     */
+    public List<PrefixIndex.Completion> complete(String prefix, int limit) {
+        return completions.complete(prefix, limit);
+    }
+
+    /**
+     * Busca tolerante a erros de digitação ("sudekis" encontra "Sudeikis"): os tokens da
+     * consulta casam com palavras inteiras a poucas edições de distância.
+     * @return entidades encontradas, das mais próximas (distância 0 = exatas) para as
+     *         mais distantes e, no empate, em ordem de ID
+     */
+    public List<FuzzyMatch<T>> searchFuzzy(String query) {
+        lock.readLock().lock();
+        try {
+            InvertedIndex.FuzzyResult result = tokens.fuzzySearch(query);
+            List<FuzzyMatch<T>> matches = new ArrayList<>(result.ids().length);
+            for (int i = 0; i < result.ids().length; i++) {
+                T entity = entityById.apply(result.ids()[i]);
+                if (entity != null) {
+                    matches.add(new FuzzyMatch<>(entity, result.distances()[i]));
+                }
+            }
+            matches.sort(Comparator.comparingInt(FuzzyMatch::distance));
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Filtra o catálogo pelos índices de bitmap (E/OU de conjuntos de IDs).
+     * @return entidades aceitas, em ordem de ID; a lista é montada na hora, mas cada
+     *         entidade só é buscada no armazenamento quando acessada
+     */
+    public List<T> filter(MediaFilter filter) {
+        return new LazyEntityList<>(facets.select(filter).toArray(), entityById);
+    }
+
+    /** @return quantas entidades o filtro aceita, sem buscar nenhuma */
+    public int count(MediaFilter filter) {
+        return facets.select(filter).cardinality();
+    }
+
+    /**
+     * @param within IDs permitidos (ex: os de um resultado de busca)
+     * @return quantas entidades entre {@code within} o filtro aceita, sem buscar nenhuma
+     */
+    public int count(MediaFilter filter, RoaringBitmap within) {
+        return RoaringBitmap.intersectCount(facets.select(filter), within);
+    }
+
+    /** @return quantas entidades aceitas pelo filtro têm cada gênero (normalizado) */
+    public Map<String, Integer> genreCounts(MediaFilter filter) {
+        return facets.genreCounts(facets.select(filter));
+    }
+
+    /** @return quantas entidades aceitas pelo filtro foram lançadas em cada ano */
+    public SortedMap<Integer, Integer> yearCounts(MediaFilter filter) {
+        return facets.yearCounts(facets.select(filter));
+    }
+
+    /**
+     * As entidades avaliadas com a maior (ou a menor) média, no empate em ordem de ID,
+     * sem ordenar o catálogo. Em geral lê a ponta do índice ordenado por média, descartando
+     * os IDs fora da restrição (cerca de K dividido pela fração aceita); quando a restrição
+     * tem tão poucos IDs que é mais barato olhar todos, passa-os por um heap limitado
+     * ({@link TopK}) com as médias guardadas no índice.
+     * @param k quantas entidades devolver (no máximo)
+     * @param best das mais bem avaliadas (senão, das piores)
+     * @param within IDs permitidos (null = todos)
+     */
+    public List<T> topRated(int k, boolean best, RoaringBitmap within) {
+        if (within != null && (long) within.cardinality() * within.cardinality() * HEAP_COST
+                < (long) k * ratingOrder.size()) {
+            Comparator<Integer> byRating = Comparator.comparingDouble(ratingOrder::keyOf);
+            TopK<Integer> top = new TopK<>(k, best ? byRating.reversed() : byRating);
+            within.forEach(id -> {
+                if (ratingOrder.keyOf(id) != null) {
+                    top.offer(id);
+                }
+            });
+            return resolve(top.toList().stream().mapToInt(Integer::intValue).toArray());
+        }
+        List<OrderIndex.Entry<Double>> entries = ratingOrder.first(k, best, within == null ? null : within::contains);
+        int[] ids = new int[entries.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = entries.get(i).id();
+        }
+        return resolve(ids);
+    }
+
+    /** @see #topRated(int, boolean, RoaringBitmap) */
+    public List<T> topRated(int k, boolean best, MediaFilter filter) {
+        return topRated(k, best, filter.isEmpty() ? null : facets.select(filter));
+    }
+
+    /** @return os índices de filtro */
+    public FacetIndex facets() {
+        return facets;
+    }
+
+    private static final class LazyEntityList<T> extends AbstractList<T> implements RandomAccess {
+
+        private final int[] ids;
+        private final IntFunction<T> entityById;
+
+        LazyEntityList(int[] ids, IntFunction<T> entityById) {
+            this.ids = ids;
+            this.entityById = entityById;
+        }
+
+        @Override
+        public T get(int index) {
+            return entityById.apply(ids[index]);
+        }
+
+        @Override
+        public int size() {
+            return ids.length;
+        }
+    }
+
+    /**
+     * Uma entidade numa listagem ordenada.
+     * @param key chave de ordenação da entidade (null na ordem de cadastro)
+     * @param id ID da entidade
+     */
+    public record Positioned<T>(Object key, int id, T entity) { }
+
+    /**
+     * Janela de uma listagem ordenada, a partir de uma posição {@code (chave, ID)}
+     * e sem incluí-la, sem copiar nem ordenar o catálogo (ver {@link OrderIndex#page}).
+     * @param fromKey chave da posição (null começa do início)
+     * @param fromId ID da posição; -1 (ou {@link Integer#MAX_VALUE} em ordem
+     *               decrescente) inclui todos os IDs de {@code fromKey}
+     */
+    public List<Positioned<T>> page(MediaSort sort, Object fromKey, int fromId, int limit) {
+        List<Positioned<T>> page = new ArrayList<>(Math.min(limit, 256));
+        switch (sort.key()) {
+            case CATALOG -> {
+                RoaringBitmap all = facets.all();
+                int[] ids = sort.descending() ? all.before(fromId, limit) : all.after(fromId, limit);
+                for (int id : ids) {
+                    addPositioned(page, null, id);
+                }
+            }
+            case TITLE -> {
+                for (OrderIndex.Entry<String> entry : titleOrder.page((String) fromKey, fromId, sort.descending(), limit)) {
+                    addPositioned(page, entry.key(), entry.id());
+                }
+            }
+            case YEAR -> {
+                for (OrderIndex.Entry<Integer> entry : yearOrder.page((Integer) fromKey, fromId, sort.descending(), limit)) {
+                    addPositioned(page, entry.key(), entry.id());
+                }
+            }
+        }
+        return page;
+    }
+
+    private void addPositioned(List<Positioned<T>> page, Object key, int id) {
+        T entity = entityById.apply(id);
+        if (entity != null) {
+            page.add(new Positioned<>(key, id, entity));
+        }
+    }
+
+    /**
+     * @return quantos avisos de alteração as entidades indexadas já enviaram (cresce a
+     *         cada setter chamado numa entidade do catálogo, mesmo sem passar pelo controlador)
+     */
+    public long changeCount() {
+        return changeCount.get();
+    }
+
+    /** @return a entidade atual de um ID, ou null se ele não existir mais */
+    public T entity(int id) {
+        return entityById.apply(id);
+    }
+
+    private List<T> resolve(int[] ids) {
+        List<T> results = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            T entity = entityById.apply(id);
+            if (entity != null) {
+                results.add(entity);
+            }
+        }
+        return results;
+    }
+
+    /** @return quantidade de entidades indexadas */
+    public int size() {
+        return tokens.size();
+    }
+
+    /** @return o índice de trigramas */
+    public TrigramIndex trigrams() {
+        return trigrams;
+    }
+
+    /**
+     * @return IDs das entidades com algum valor do campo de texto fora das chaves de
+     *         busca, que o índice de trigramas não encontra por esse campo (não alterar)
+     */
+    public RoaringBitmap outsideSearchKeys(String field) {
+        RoaringBitmap ids = outsideKeys.get(field);
+        return ids == null ? new RoaringBitmap() : ids;
+    }
+
+    /** @return o índice invertido de tokens */
+    public InvertedIndex tokens() {
+        return tokens;
+    }
+}
@@ -0,0 +1,28 @@
+package org.diariocultural.index;
+
+/**
+ * Ordem de uma listagem paginada do acervo.
+ *
+ * @param key critério de ordenação
+ * @param descending do maior para o menor
+ */
+public record MediaSort(Key key, boolean descending) {
+
+    public enum Key {
+        /** Ordem de cadastro: livros, depois filmes, depois séries, cada um por ID */
+        CATALOG,
+        /** Título normalizado (sem maiúsculas nem acentos) */
+        TITLE,
+        /** Ano de lançamento */
+        YEAR
+    }
+
+    public static final MediaSort CATALOG = new MediaSort(Key.CATALOG, false);
+    public static final MediaSort TITLE = new MediaSort(Key.TITLE, false);
+    public static final MediaSort YEAR = new MediaSort(Key.YEAR, false);
+
+    /** @return a mesma ordem no sentido contrário */
+    public MediaSort reversed() {
+        return new MediaSort(key, !descending);
+    }
+}
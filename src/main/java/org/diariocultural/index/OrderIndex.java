@@ -0,0 +1,139 @@
+package org.diariocultural.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.IntPredicate;
+
+/**
+ * Índice ordenado por uma chave de ordenação (título normalizado, ano...), com
+ * os IDs de cada chave num {@link RoaringBitmap}. A ordem é a da chave e, no
+ * empate, a do ID.
+ * <p>
+ * {@link #page} devolve só a janela pedida, a partir de uma posição
+ * {@code (chave, ID)}: encontrar a posição custa O(log n) e cada item da janela
+ * custa O(1), independentemente do tamanho do catálogo.
+ *
+ * @param <K> tipo da chave de ordenação
+ */
+public final class OrderIndex<K extends Comparable<? super K>> {
+
+    /**
+     * Um item numa posição da ordem.
+     * @param key chave de ordenação
+     * @param id ID da entidade
+     */
+    public record Entry<K>(K key, int id) { }
+
+    /** IDs lidos por vez de uma chave em {@link #first} quando há filtro */
+    private static final int FIRST_BATCH = 256;
+
+    private final NavigableMap<K, RoaringBitmap> byKey = new TreeMap<>();
+    private final IdIndexedStore<K> keyById = new IdIndexedStore<>();
+
+    /** Indexa (ou reposiciona) um ID com a sua chave atual. */
+    public void put(int id, K key) {
+        K previous = keyById.put(id, key);
+        if (previous != null) {
+            if (previous.equals(key)) {
+                return;
+            }
+            removeFrom(previous, id);
+        }
+        byKey.computeIfAbsent(key, k -> new RoaringBitmap()).add(id);
+    }
+
+    public void remove(int id) {
+        K previous = keyById.remove(id);
+        if (previous != null) {
+            removeFrom(previous, id);
+        }
+    }
+
+    private void removeFrom(K key, int id) {
+        RoaringBitmap ids = byKey.get(key);
+        ids.remove(id);
+        if (ids.isEmpty()) {
+            byKey.remove(key);
+        }
+    }
+
+    /** @return a chave com que o ID está indexado, ou null */
+    public K keyOf(int id) {
+        return keyById.get(id);
+    }
+
+    public int size() {
+        return keyById.size();
+    }
+
+    /**
+     * Janela da ordem a partir de uma posição, sem incluí-la.
+     * @param fromKey chave da posição (null começa do início, ou do fim se decrescente)
+     * @param fromId ID da posição; em ordem crescente -1 inclui todos os IDs de
+     *               {@code fromKey}, em decrescente {@link Integer#MAX_VALUE} os inclui
+     * @param descending percorre da maior chave (e maior ID) para a menor
+     * @param limit tamanho máximo da janela
+     */
+    public List<Entry<K>> page(K fromKey, int fromId, boolean descending, int limit) {
+        List<Entry<K>> entries = new ArrayList<>(Math.min(limit, 256));
+        NavigableMap<K, RoaringBitmap> rest;
+        if (fromKey == null) {
+            rest = descending ? byKey.descendingMap() : byKey;
+        } else {
+            RoaringBitmap sameKey = byKey.get(fromKey);
+            if (sameKey != null) {
+                int[] ids = descending ? sameKey.before(fromId, limit) : sameKey.after(fromId, limit);
+                for (int id : ids) {
+                    entries.add(new Entry<>(fromKey, id));
+                }
+            }
+            rest = descending ? byKey.headMap(fromKey, false).descendingMap() : byKey.tailMap(fromKey, false);
+        }
+        for (Map.Entry<K, RoaringBitmap> entry : rest.entrySet()) {
+            if (entries.size() >= limit) {
+                break;
+            }
+            int remaining = limit - entries.size();
+            RoaringBitmap ids = entry.getValue();
+            int[] window = descending ? ids.before(Integer.MAX_VALUE, remaining) : ids.after(-1, remaining);
+            for (int id : window) {
+                entries.add(new Entry<>(entry.getKey(), id));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Os primeiros itens aceitos a partir de uma das pontas da ordem, com os IDs de cada
+     * chave em ordem crescente (como numa ordenação estável da ordem de cadastro).
+     * Custa O(log n) para achar a ponta mais o número de itens percorridos.
+     * @param descendingKeys começa pela maior chave
+     * @param accept filtro dos IDs (null aceita todos)
+     */
+    public List<Entry<K>> first(int limit, boolean descendingKeys, IntPredicate accept) {
+        List<Entry<K>> entries = new ArrayList<>(Math.min(limit, 256));
+        NavigableMap<K, RoaringBitmap> ordered = descendingKeys ? byKey.descendingMap() : byKey;
+        for (Map.Entry<K, RoaringBitmap> entry : ordered.entrySet()) {
+            int from = -1;
+            while (entries.size() < limit) {
+                int[] window = entry.getValue().after(from, accept == null ? limit - entries.size() : FIRST_BATCH);
+                if (window.length == 0) {
+                    break;
+                }
+                for (int i = 0; i < window.length && entries.size() < limit; i++) {
+                    if (accept == null || accept.test(window[i])) {
+                        entries.add(new Entry<>(entry.getKey(), window[i]));
+                    }
+                }
+                from = window[window.length - 1];
+            }
+            if (entries.size() >= limit) {
+                break;
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,165 @@
+package org.diariocultural.index;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+
+/**
+ * Lista de IDs ordenada e sem repetições, guardada num {@code int[]} que cresce
+ * conforme necessário. Como os IDs são atribuídos em ordem crescente, a inserção
+ * normalmente cai no final da lista.
+ */
+public final class PostingList {
+
+    static final int[] EMPTY = new int[0];
+
+    private int[] ids = new int[4];
+    private int size;
+
+    /** @return true se o ID não estava na lista */
+    public boolean add(int id) {
+        if (size > 0 && ids[size - 1] < id) {
+            ensureCapacity();
+            ids[size++] = id;
+            return true;
+        }
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0) {
+            return false;
+        }
+        int insertAt = -position - 1;
+        ensureCapacity();
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+        return true;
+    }
+
+    /** @return true se o ID estava na lista */
+    public boolean remove(int id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            return false;
+        }
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        size--;
+        return true;
+    }
+
+    public boolean contains(int id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** @return cópia dos IDs, em ordem crescente */
+    public int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    private void ensureCapacity() {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+    }
+
+    /** @return IDs do array ordenado que também estão nesta lista (sem copiar a lista) */
+    public int[] retainedFrom(int[] sorted) {
+        return intersect(sorted, sorted.length, ids, size);
+    }
+
+    /** @return IDs presentes nos dois arrays ordenados */
+    public static int[] intersect(int[] a, int[] b) {
+        return intersect(a, a.length, b, b.length);
+    }
+
+    private static int[] intersect(int[] a, int aLength, int[] b, int bLength) {
+        int[] result = new int[Math.min(aLength, bLength)];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < aLength && j < bLength) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /** @return IDs presentes em pelo menos um dos dois arrays ordenados */
+    public static int[] union(int[] a, int[] b) {
+        if (a.length == 0) return b;
+        if (b.length == 0) return a;
+        int[] result = new int[a.length + b.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                result[count++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                result[count++] = b[j++];
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * @return IDs presentes em pelo menos uma das listas, em ordem crescente. Com
+     *         muitas listas (prefixos e consultas curtas) marca os IDs num bitset em vez
+     *         de mesclar os arrays dois a dois.
+     */
+    public static int[] unionAll(Collection<PostingList> lists) {
+        if (lists.isEmpty()) {
+            return EMPTY;
+        }
+        if (lists.size() == 1) {
+            return lists.iterator().next().toArray();
+        }
+        BitSet marked = new BitSet();
+        for (PostingList list : lists) {
+            for (int i = 0; i < list.size; i++) {
+                if (list.ids[i] >= 0) {
+                    marked.set(list.ids[i]);
+                }
+            }
+        }
+        int[] negatives = negativeIds(lists);
+        int[] result = new int[negatives.length + marked.cardinality()];
+        System.arraycopy(negatives, 0, result, 0, negatives.length);
+        int count = negatives.length;
+        for (int id = marked.nextSetBit(0); id >= 0; id = marked.nextSetBit(id + 1)) {
+            result[count++] = id;
+        }
+        return result;
+    }
+
+    /** IDs negativos não cabem no bitset; não aparecem na prática, mas são mesclados à parte. */
+    private static int[] negativeIds(Collection<PostingList> lists) {
+        int[] result = EMPTY;
+        for (PostingList list : lists) {
+            if (list.size > 0 && list.ids[0] < 0) {
+                int end = 0;
+                while (end < list.size && list.ids[end] < 0) end++;
+                result = union(result, Arrays.copyOf(list.ids, end));
+            }
+        }
+        return result;
+    }
+}
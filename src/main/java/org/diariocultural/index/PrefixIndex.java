@@ -0,0 +1,340 @@
+package org.diariocultural.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Índice de prefixos para o autocompletar: cada texto sugerível (títulos e nomes
+ * de pessoas) pode ser encontrado pelo começo de qualquer uma das suas palavras
+ * ("nol" sugere "Christopher Nolan").
+ * <p>
+ * Textos iguais de entidades diferentes viram uma única sugestão, com a média das
+ * notas e a quantidade de entidades; as sugestões saem ordenadas por nota e, no
+ * empate, pela quantidade (popularidade).
+ * <p>
+ * As chaves ficam num mapa ordenado, copiado de tempos em tempos para um array
+ * ordenado com uma árvore de segmentos de máximos por cima. Assim, as k melhores
+ * sugestões de qualquer prefixo saem em O(k log n), sem percorrer todos os textos
+ * que começam com ele.
+ * <p>
+ * Uma alteração não refaz o array: a nota (ou a quantidade) de uma sugestão que já
+ * está nele é trocada nas suas folhas, subindo a árvore em O(log n); uma sugestão
+ * que some fica com nota -∞; e uma sugestão nova vai para um mapa de pendentes,
+ * consultado junto com o array. O array só é refeito quando os pendentes passam de
+ * uma fração do tamanho dele, então o custo da cópia se dilui entre muitas alterações
+ * e digitar depois de editar o acervo continua custando microssegundos.
+ */
+public class PrefixIndex {
+
+    /**
+     * Uma sugestão do autocompletar.
+     * @param text texto como cadastrado (com maiúsculas e acentos)
+     * @param averageRating média das notas das entidades com esse texto
+     * @param count quantidade de entidades com esse texto
+     */
+    public record Completion(String text, double averageRating, int count) {
+
+        /** Ordem das sugestões: maior nota primeiro, depois maior quantidade, depois texto. */
+        public static final Comparator<Completion> BY_RANK = Comparator
+                .comparingDouble(Completion::averageRating).reversed()
+                .thenComparing(Comparator.comparingInt(Completion::count).reversed())
+                .thenComparing(Completion::text);
+    }
+
+    private static final class Entry {
+        final String text;
+        int count;
+        double ratingSum;
+        /** Posições das chaves desta sugestão no snapshot atual (null se ela é mais nova que ele) */
+        int[] leaves;
+
+        Entry(String text) {
+            this.text = text;
+        }
+
+        double averageRating() {
+            return count == 0 ? 0 : ratingSum / count;
+        }
+
+        /** Nota (com duas casas) como critério principal e quantidade como desempate. */
+        double score() {
+            return Math.round(averageRating() * 100) * 1_000_000.0 + Math.min(count, 999_999);
+        }
+    }
+
+    private record Indexed(String[] phrases, double rating) { }
+
+    /** Sugestões por texto normalizado. */
+    private final Map<String, Entry> entries = new HashMap<>();
+    /** Início de cada palavra de cada texto normalizado -> sugestões. */
+    private final NavigableMap<String, List<Entry>> keys = new TreeMap<>();
+    private final IdIndexedStore<Indexed> indexedById = new IdIndexedStore<>();
+    private Snapshot snapshot;
+    /** Chaves das sugestões criadas depois do snapshot */
+    private final NavigableMap<String, List<Entry>> pending = new TreeMap<>();
+    private int pendingKeys;
+    /** Pendentes a partir dos quais o snapshot é refeito (no mínimo; ou 1/8 do snapshot) */
+    private static final int MIN_REBUILD_PENDING = 1_024;
+
+    /**
+     * Indexa (ou reindexa) os textos sugeríveis de uma entidade.
+     * @param id ID da entidade
+     * @param texts textos sugeríveis (nulos e vazios são ignorados)
+     * @param rating nota média da entidade
+     */
+    public void index(int id, Iterable<String> texts, double rating) {
+        remove(id);
+        Set<String> phrases = new LinkedHashSet<>();
+        for (String text : texts) {
+            String phrase = TextNormalizer.normalize(text);
+            if (phrase.isEmpty() || !phrases.add(phrase)) {
+                continue;
+            }
+            Entry entry = entries.get(phrase);
+            if (entry == null) {
+                entry = new Entry(text.trim());
+                entries.put(phrase, entry);
+                for (String key : wordStarts(phrase)) {
+                    keys.computeIfAbsent(key, k -> new ArrayList<>(1)).add(entry);
+                    pending.computeIfAbsent(key, k -> new ArrayList<>(1)).add(entry);
+                    pendingKeys++;
+                }
+            }
+            entry.count++;
+            entry.ratingSum += rating;
+            rescore(entry);
+        }
+        indexedById.put(id, new Indexed(phrases.toArray(new String[0]), rating));
+    }
+
+    /**
+     * Troca a nota de uma entidade já indexada, sem mexer nos seus textos (que não
+     * dependem da nota): só as folhas das suas sugestões mudam.
+     */
+    public void updateRating(int id, double rating) {
+        Indexed indexed = indexedById.get(id);
+        if (indexed == null || indexed.rating() == rating) {
+            return;
+        }
+        for (String phrase : indexed.phrases()) {
+            Entry entry = entries.get(phrase);
+            if (entry != null) {
+                entry.ratingSum += rating - indexed.rating();
+                rescore(entry);
+            }
+        }
+        indexedById.put(id, new Indexed(indexed.phrases(), rating));
+    }
+
+    /** Leva a nota atual da sugestão às suas folhas do snapshot (as pendentes não têm). */
+    private void rescore(Entry entry) {
+        if (entry.leaves != null && snapshot != null) {
+            snapshot.update(entry.leaves, entry.count == 0 ? Double.NEGATIVE_INFINITY : entry.score());
+        }
+    }
+
+    /** Remove os textos de uma entidade. */
+    public void remove(int id) {
+        Indexed indexed = indexedById.remove(id);
+        if (indexed == null) {
+            return;
+        }
+        for (String phrase : indexed.phrases()) {
+            Entry entry = entries.get(phrase);
+            if (entry == null) {
+                continue;
+            }
+            entry.count--;
+            entry.ratingSum -= indexed.rating();
+            if (entry.count == 0) {
+                entries.remove(phrase);
+                for (String key : wordStarts(phrase)) {
+                    removeKey(keys, key, entry);
+                    if (entry.leaves == null && removeKey(pending, key, entry)) {
+                        pendingKeys--;
+                    }
+                }
+            }
+            rescore(entry);
+        }
+    }
+
+    private static boolean removeKey(NavigableMap<String, List<Entry>> map, String key, Entry entry) {
+        List<Entry> list = map.get(key);
+        if (list == null || !list.remove(entry)) {
+            return false;
+        }
+        if (list.isEmpty()) {
+            map.remove(key);
+        }
+        return true;
+    }
+
+    /** @return o texto a partir do início de cada palavra */
+    private static List<String> wordStarts(String phrase) {
+        List<String> starts = new ArrayList<>(4);
+        for (int i = 0; i < phrase.length(); i++) {
+            if (Character.isLetterOrDigit(phrase.charAt(i))
+                    && (i == 0 || !Character.isLetterOrDigit(phrase.charAt(i - 1)))) {
+                starts.add(phrase.substring(i));
+            }
+        }
+        return starts;
+    }
+
+    /**
+     * @param prefix texto digitado (normalizado como nas buscas)
+     * @param limit quantidade máxima de sugestões
+     * @return as melhores sugestões cujo texto tem uma palavra que começa com o prefixo
+     */
+    public List<Completion> complete(String prefix, int limit) {
+        String normalized = TextNormalizer.normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        if (snapshot == null || pendingKeys > Math.max(MIN_REBUILD_PENDING, snapshot.keys.length / 8)) {
+            snapshot = new Snapshot(keys);
+            pending.clear();
+            pendingKeys = 0;
+        }
+        List<Entry> found = snapshot.top(normalized, limit);
+        if (!pending.isEmpty()) {
+            // As sugestões novas que casam entram na disputa pelas k melhores
+            Set<Entry> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            List<Entry> candidates = new ArrayList<>(found);
+            seen.addAll(found);
+            for (List<Entry> list : pending.subMap(normalized, true, normalized + Character.MAX_VALUE, false).values()) {
+                for (Entry entry : list) {
+                    if (seen.add(entry)) {
+                        candidates.add(entry);
+                    }
+                }
+            }
+            found = candidates.stream()
+                    .sorted(Comparator.comparingDouble(Entry::score).reversed())
+                    .limit(limit)
+                    .toList();
+        }
+        List<Completion> result = new ArrayList<>(found.size());
+        for (Entry entry : found) {
+            result.add(new Completion(entry.text, entry.averageRating(), entry.count));
+        }
+        return result;
+    }
+
+    /** @return quantidade de sugestões distintas */
+    public int size() {
+        return entries.size();
+    }
+
+    /** Cópia ordenada das chaves com uma árvore de segmentos (máximo) sobre as notas. */
+    private static final class Snapshot {
+        final String[] keys;
+        final Entry[] entries;
+        /** Árvore implícita: folhas em [leaves, 2 * leaves), nó i tem filhos 2i e 2i + 1. */
+        final double[] tree;
+        final int leaves;
+
+        Snapshot(NavigableMap<String, List<Entry>> source) {
+            int size = 0;
+            for (List<Entry> list : source.values()) {
+                size += list.size();
+            }
+            keys = new String[size];
+            entries = new Entry[size];
+            int position = 0;
+            for (Map.Entry<String, List<Entry>> key : source.entrySet()) {
+                for (Entry entry : key.getValue()) {
+                    keys[position] = key.getKey();
+                    entries[position++] = entry;
+                    entry.leaves = null;
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                int[] leaves = entries[i].leaves;
+                leaves = leaves == null ? new int[1] : Arrays.copyOf(leaves, leaves.length + 1);
+                leaves[leaves.length - 1] = i;
+                entries[i].leaves = leaves;
+            }
+            leaves = Math.max(1, Integer.highestOneBit(Math.max(1, size - 1)) << 1);
+            tree = new double[2 * leaves];
+            Arrays.fill(tree, Double.NEGATIVE_INFINITY);
+            for (int i = 0; i < size; i++) {
+                tree[leaves + i] = entries[i].score();
+            }
+            for (int node = leaves - 1; node >= 1; node--) {
+                tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+            }
+        }
+
+        /** Troca a nota das folhas e refaz os máximos acima delas. */
+        void update(int[] positions, double score) {
+            for (int position : positions) {
+                int node = leaves + position;
+                tree[node] = score;
+                for (node >>= 1; node >= 1; node >>= 1) {
+                    tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+                }
+            }
+        }
+
+        /** @return as melhores sugestões vivas do prefixo, da maior nota para a menor */
+        List<Entry> top(String prefix, int limit) {
+            int from = lowerBound(prefix);
+            int to = lowerBound(prefix + Character.MAX_VALUE);
+            if (from >= to) {
+                return Collections.emptyList();
+            }
+            // Fila de nós da árvore pelo máximo; folhas saem em ordem decrescente de nota
+            PriorityQueue<Integer> queue = new PriorityQueue<>((a, b) -> Double.compare(tree[b], tree[a]));
+            for (int lo = from + leaves, hi = to + leaves; lo < hi; lo >>= 1, hi >>= 1) {
+                if ((lo & 1) == 1) queue.add(lo++);
+                if ((hi & 1) == 1) queue.add(--hi);
+            }
+            List<Entry> result = new ArrayList<>(limit);
+            Map<Entry, Boolean> seen = new IdentityHashMap<>();
+            while (!queue.isEmpty() && result.size() < limit) {
+                int node = queue.poll();
+                if (tree[node] == Double.NEGATIVE_INFINITY) {
+                    // Daqui para baixo só sugestões que sumiram depois do snapshot
+                    break;
+                }
+                if (node >= leaves) {
+                    Entry entry = entries[node - leaves];
+                    if (seen.put(entry, Boolean.TRUE) == null) {
+                        result.add(entry);
+                    }
+                } else {
+                    queue.add(2 * node);
+                    queue.add(2 * node + 1);
+                }
+            }
+            return result;
+        }
+
+        private int lowerBound(String key) {
+            int lo = 0;
+            int hi = keys.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid].compareTo(key) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.diariocultural.index;
+
+import org.diariocultural.Media;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * O que a pontuação de relevância ({@link Bm25}) precisa de cada catálogo, calculado
+ * na indexação e não na busca: os tokens de cada campo ranqueado de cada entidade e
+ * a soma dos tamanhos (em tokens) de cada campo no catálogo e quantas entidades têm
+ * o campo preenchido, para o tamanho médio (só entre as que têm o campo, senão um
+ * campo quase sempre vazio, como o título original, puniria quem o preenche).
+ * <p>
+ * Um título original igual ao título não entra de novo, para não contar o mesmo
+ * texto duas vezes.
+ */
+public final class RelevanceIndex {
+
+    /** Campos ranqueados, com o peso de um token encontrado em cada um. */
+    public enum Field {
+        TITLE(5.0),
+        ORIGINAL_TITLE(3.0),
+        /** Autor, diretor ou criador */
+        CREATOR(2.0),
+        CAST(1.5),
+        GENRE(1.0);
+
+        private final double boost;
+
+        Field(double boost) {
+            this.boost = boost;
+        }
+
+        public double boost() {
+            return boost;
+        }
+    }
+
+    private static final Field[] FIELDS = Field.values();
+
+    /** Tokens de cada entidade, na ordem de {@link Field} */
+    private final IdIndexedStore<String[][]> tokensById = new IdIndexedStore<>();
+    private final long[] totalLength = new long[FIELDS.length];
+    private final int[] filled = new int[FIELDS.length];
+
+    /** Indexa (ou reindexa) os campos ranqueados de uma entidade. */
+    public void index(int id, Media entity) {
+        String[][] tokens = new String[FIELDS.length][];
+        String title = TextNormalizer.normalize(entity.getTitle());
+        for (Field field : FIELDS) {
+            List<String> values = switch (field) {
+                case TITLE -> List.of(entity.getTitle() == null ? "" : entity.getTitle());
+                case ORIGINAL_TITLE -> entity.fieldValues(Media.ORIGINAL_TITLE).stream()
+                        .filter(original -> !TextNormalizer.normalize(original).equals(title))
+                        .toList();
+                case CREATOR -> entity.fieldValues(Media.CREATOR);
+                case CAST -> entity.fieldValues(Media.CAST);
+                case GENRE -> entity.fieldValues(Media.GENRE);
+            };
+            List<String> fieldTokens = new ArrayList<>();
+            for (String value : values) {
+                fieldTokens.addAll(TextNormalizer.tokenize(value));
+            }
+            tokens[field.ordinal()] = fieldTokens.toArray(new String[0]);
+        }
+        String[][] previous = tokensById.put(id, tokens);
+        adjustLengths(previous, -1);
+        adjustLengths(tokens, 1);
+    }
+
+    public void remove(int id) {
+        adjustLengths(tokensById.remove(id), -1);
+    }
+
+    private void adjustLengths(String[][] tokens, int sign) {
+        if (tokens != null) {
+            for (int f = 0; f < tokens.length; f++) {
+                totalLength[f] += sign * tokens[f].length;
+                if (tokens[f].length > 0) {
+                    filled[f] += sign;
+                }
+            }
+        }
+    }
+
+    /** @return os tokens de cada campo (na ordem de {@link Field}), ou null; não devem ser modificados */
+    String[][] tokensOf(int id) {
+        return tokensById.get(id);
+    }
+
+    /** @return quantidade de entidades indexadas */
+    public int size() {
+        return tokensById.size();
+    }
+
+    /** @return soma dos tamanhos do campo em todas as entidades */
+    public long totalLength(Field field) {
+        return totalLength[field.ordinal()];
+    }
+
+    /** @return quantas entidades têm o campo preenchido */
+    public int filledCount(Field field) {
+        return filled[field.ordinal()];
+    }
+}
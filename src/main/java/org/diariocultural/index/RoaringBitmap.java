@@ -0,0 +1,648 @@
+package org.diariocultural.index;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.IntConsumer;
+
+/**
+ * Conjunto de IDs (inteiros não negativos) comprimido no estilo "roaring": os IDs
+ * são agrupados pelos 16 bits mais altos e cada grupo fica num contêiner próprio,
+ * escolhido pela densidade. Grupos com até {@value #ARRAY_LIMIT} IDs usam um
+ * array ordenado de {@code char} (2 bytes por ID); grupos maiores usam um mapa
+ * de bits fixo de 8 KB. Interseção e união trabalham contêiner a contêiner, sem
+ * expandir os IDs, e {@link #intersectCount} conta sem criar o resultado.
+ * <p>
+ * As operações estáticas sempre devolvem um conjunto novo.
+ */
+public final class RoaringBitmap {
+
+    /** Acima disso um contêiner de array ocupa mais que um mapa de bits. */
+    static final int ARRAY_LIMIT = 4096;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    /** @return true se o ID não estava no conjunto */
+    public boolean add(int id) {
+        checkId(id);
+        char key = (char) (id >>> 16);
+        int position = find(key);
+        if (position < 0) {
+            position = -position - 1;
+            insertContainer(position, key, new ArrayContainer());
+        }
+        Container container = containers[position];
+        int before = container.cardinality();
+        containers[position] = container.add((char) id);
+        return containers[position].cardinality() != before;
+    }
+
+    /** @return true se o ID estava no conjunto */
+    public boolean remove(int id) {
+        if (id < 0) {
+            return false;
+        }
+        int position = find((char) (id >>> 16));
+        if (position < 0) {
+            return false;
+        }
+        Container container = containers[position];
+        int before = container.cardinality();
+        container = container.remove((char) id);
+        if (container.cardinality() == 0) {
+            removeContainer(position);
+        } else {
+            containers[position] = container;
+        }
+        return container.cardinality() != before;
+    }
+
+    public boolean contains(int id) {
+        if (id < 0) {
+            return false;
+        }
+        int position = find((char) (id >>> 16));
+        return position >= 0 && containers[position].contains((char) id);
+    }
+
+    /** @return quantidade de IDs no conjunto */
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += containers[i].cardinality();
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Percorre os IDs em ordem crescente. */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    /** @return os IDs em ordem crescente */
+    public int[] toArray() {
+        int[] ids = new int[cardinality()];
+        int offset = 0;
+        for (int i = 0; i < size; i++) {
+            offset = containers[i].fill(keys[i] << 16, ids, offset);
+        }
+        return ids;
+    }
+
+    /**
+     * @return até {@code limit} IDs maiores que {@code id}, em ordem crescente
+     *         (-1 começa do primeiro)
+     */
+    public int[] after(int id, int limit) {
+        int[] ids = new int[Math.min(limit, cardinality())];
+        int count = 0;
+        int from = id + 1;
+        if (from < 0) {
+            return new int[0];
+        }
+        int position = find((char) (from >>> 16));
+        int first = position >= 0 ? position : -position - 1;
+        for (int i = first; i < size && count < ids.length; i++) {
+            int fromLow = keys[i] == from >>> 16 ? from & 0xFFFF : 0;
+            count = containers[i].fillAscending(keys[i] << 16, fromLow, ids, count);
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * @return até {@code limit} IDs menores que {@code id}, em ordem decrescente
+     *         ({@link Integer#MAX_VALUE} começa do último)
+     */
+    public int[] before(int id, int limit) {
+        int[] ids = new int[Math.min(limit, cardinality())];
+        int count = 0;
+        int to = id - 1;
+        if (to < 0) {
+            return new int[0];
+        }
+        int position = find((char) (to >>> 16));
+        int last = position >= 0 ? position : -position - 2;
+        for (int i = last; i >= 0 && count < ids.length; i--) {
+            int toLow = keys[i] == to >>> 16 ? to & 0xFFFF : 0xFFFF;
+            count = containers[i].fillDescending(keys[i] << 16, toLow, ids, count);
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    /** @return cópia independente deste conjunto */
+    public RoaringBitmap copy() {
+        RoaringBitmap copy = new RoaringBitmap();
+        copy.keys = Arrays.copyOf(keys, Math.max(size, 4));
+        copy.containers = new Container[copy.keys.length];
+        for (int i = 0; i < size; i++) {
+            copy.containers[i] = containers[i].copy();
+        }
+        copy.size = size;
+        return copy;
+    }
+
+    /** @return IDs presentes nos dois conjuntos */
+    public static RoaringBitmap intersect(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                Container container = a.containers[i].and(b.containers[j]);
+                if (container.cardinality() > 0) {
+                    result.appendContainer(a.keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /** @return quantos IDs estão nos dois conjuntos, sem montar a interseção */
+    public static int intersectCount(RoaringBitmap a, RoaringBitmap b) {
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                count += a.containers[i].andCardinality(b.containers[j]);
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /** @return IDs presentes em pelo menos um dos conjuntos */
+    public static RoaringBitmap union(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                result.appendContainer(a.keys[i], a.containers[i].copy());
+                i++;
+            } else if (i == a.size || a.keys[i] > b.keys[j]) {
+                result.appendContainer(b.keys[j], b.containers[j].copy());
+                j++;
+            } else {
+                result.appendContainer(a.keys[i], a.containers[i].or(b.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /** @return IDs presentes em pelo menos um dos conjuntos (vazio se não houver nenhum) */
+    public static RoaringBitmap unionAll(Collection<RoaringBitmap> bitmaps) {
+        RoaringBitmap result = new RoaringBitmap();
+        for (RoaringBitmap bitmap : bitmaps) {
+            result = union(result, bitmap);
+        }
+        return result;
+    }
+
+    private static void checkId(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("ID negativo: " + id);
+        }
+    }
+
+    private int find(char key) {
+        // Os IDs crescem, então o último contêiner é o mais provável
+        if (size > 0 && keys[size - 1] == key) {
+            return size - 1;
+        }
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertContainer(int position, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, position, keys, position + 1, size - position);
+        System.arraycopy(containers, position, containers, position + 1, size - position);
+        keys[position] = key;
+        containers[position] = container;
+        size++;
+    }
+
+    private void appendContainer(char key, Container container) {
+        insertContainer(size, key, container);
+    }
+
+    private void removeContainer(int position) {
+        System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+        System.arraycopy(containers, position + 1, containers, position, size - position - 1);
+        containers[--size] = null;
+    }
+
+    /** Os 16 bits mais baixos dos IDs de um grupo. */
+    private sealed interface Container permits ArrayContainer, BitmapContainer {
+
+        /** @return o próprio contêiner ou, se precisou trocar de formato, o novo */
+        Container add(char value);
+
+        /** @return o próprio contêiner ou, se precisou trocar de formato, o novo */
+        Container remove(char value);
+
+        boolean contains(char value);
+
+        int cardinality();
+
+        Container and(Container other);
+
+        Container or(Container other);
+
+        int andCardinality(Container other);
+
+        void forEach(int high, IntConsumer action);
+
+        /** @return posição seguinte ao último ID copiado */
+        int fill(int high, int[] target, int offset);
+
+        /** Copia, em ordem crescente, os valores a partir de {@code fromLow} até encher {@code target}. */
+        int fillAscending(int high, int fromLow, int[] target, int offset);
+
+        /** Copia, em ordem decrescente, os valores até {@code toLow} até encher {@code target}. */
+        int fillDescending(int high, int toLow, int[] target, int offset);
+
+        Container copy();
+    }
+
+    private static final class ArrayContainer implements Container {
+
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        public Container add(char value) {
+            int position = cardinality > 0 && values[cardinality - 1] < value
+                    ? -cardinality - 1
+                    : Arrays.binarySearch(values, 0, cardinality, value);
+            if (position >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_LIMIT) {
+                return toBitmap().add(value);
+            }
+            int insertAt = -position - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(cardinality * 2, ARRAY_LIMIT));
+            }
+            System.arraycopy(values, insertAt, values, insertAt + 1, cardinality - insertAt);
+            values[insertAt] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        public Container remove(char value) {
+            int position = Arrays.binarySearch(values, 0, cardinality, value);
+            if (position >= 0) {
+                System.arraycopy(values, position + 1, values, position, cardinality - position - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public Container and(Container other) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            if (other instanceof ArrayContainer array) {
+                int i = 0;
+                int j = 0;
+                while (i < cardinality && j < array.cardinality) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result[count++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        result[count++] = values[i];
+                    }
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        public Container or(Container other) {
+            if (other instanceof BitmapContainer bitmap) {
+                return bitmap.or(this);
+            }
+            ArrayContainer array = (ArrayContainer) other;
+            char[] result = new char[cardinality + array.cardinality];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < array.cardinality) {
+                if (j == array.cardinality || (i < cardinality && values[i] < array.values[j])) {
+                    result[count++] = values[i++];
+                } else if (i == cardinality || values[i] > array.values[j]) {
+                    result[count++] = array.values[j++];
+                } else {
+                    result[count++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            ArrayContainer union = new ArrayContainer(result, count);
+            return count > ARRAY_LIMIT ? union.toBitmap() : union;
+        }
+
+        @Override
+        public int andCardinality(Container other) {
+            int count = 0;
+            if (other instanceof ArrayContainer array) {
+                int i = 0;
+                int j = 0;
+                while (i < cardinality && j < array.cardinality) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        count++;
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < cardinality; i++) {
+                action.accept(high | values[i]);
+            }
+        }
+
+        @Override
+        public int fill(int high, int[] target, int offset) {
+            for (int i = 0; i < cardinality; i++) {
+                target[offset++] = high | values[i];
+            }
+            return offset;
+        }
+
+        @Override
+        public int fillAscending(int high, int fromLow, int[] target, int offset) {
+            int position = Arrays.binarySearch(values, 0, cardinality, (char) fromLow);
+            for (int i = position >= 0 ? position : -position - 1; i < cardinality && offset < target.length; i++) {
+                target[offset++] = high | values[i];
+            }
+            return offset;
+        }
+
+        @Override
+        public int fillDescending(int high, int toLow, int[] target, int offset) {
+            int position = Arrays.binarySearch(values, 0, cardinality, (char) toLow);
+            for (int i = position >= 0 ? position : -position - 2; i >= 0 && offset < target.length; i--) {
+                target[offset++] = high | values[i];
+            }
+            return offset;
+        }
+
+        @Override
+        public Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(cardinality, 4)), cardinality);
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.set(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer implements Container {
+
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer() {
+            this(new long[1024], 0);
+        }
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        void set(char value) {
+            long before = words[value >>> 6];
+            long after = before | (1L << value);
+            if (before != after) {
+                words[value >>> 6] = after;
+                cardinality++;
+            }
+        }
+
+        @Override
+        public Container add(char value) {
+            set(value);
+            return this;
+        }
+
+        @Override
+        public Container remove(char value) {
+            long before = words[value >>> 6];
+            long after = before & ~(1L << value);
+            if (before != after) {
+                words[value >>> 6] = after;
+                cardinality--;
+            }
+            return cardinality <= ARRAY_LIMIT ? toArrayContainer() : this;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public Container and(Container other) {
+            if (other instanceof ArrayContainer array) {
+                return array.and(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            long[] result = new long[1024];
+            int count = 0;
+            for (int i = 0; i < 1024; i++) {
+                result[i] = words[i] & otherWords[i];
+                count += Long.bitCount(result[i]);
+            }
+            BitmapContainer intersection = new BitmapContainer(result, count);
+            return count <= ARRAY_LIMIT ? intersection.toArrayContainer() : intersection;
+        }
+
+        @Override
+        public Container or(Container other) {
+            long[] result = words.clone();
+            BitmapContainer union = new BitmapContainer(result, cardinality);
+            if (other instanceof ArrayContainer array) {
+                for (int i = 0; i < array.cardinality; i++) {
+                    union.set(array.values[i]);
+                }
+                return union;
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            int count = 0;
+            for (int i = 0; i < 1024; i++) {
+                result[i] |= otherWords[i];
+                count += Long.bitCount(result[i]);
+            }
+            union.cardinality = count;
+            return union;
+        }
+
+        @Override
+        public int andCardinality(Container other) {
+            if (other instanceof ArrayContainer array) {
+                return array.andCardinality(this);
+            }
+            long[] otherWords = ((BitmapContainer) other).words;
+            int count = 0;
+            for (int i = 0; i < 1024; i++) {
+                count += Long.bitCount(words[i] & otherWords[i]);
+            }
+            return count;
+        }
+
+        @Override
+        public void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < 1024; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    action.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        public int fill(int high, int[] target, int offset) {
+            for (int i = 0; i < 1024; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    target[offset++] = high | (i << 6) | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return offset;
+        }
+
+        @Override
+        public int fillAscending(int high, int fromLow, int[] target, int offset) {
+            int index = fromLow >>> 6;
+            long word = words[index] & (-1L << fromLow);
+            while (offset < target.length) {
+                while (word == 0) {
+                    if (++index == 1024) {
+                        return offset;
+                    }
+                    word = words[index];
+                }
+                target[offset++] = high | (index << 6) | Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+            return offset;
+        }
+
+        @Override
+        public int fillDescending(int high, int toLow, int[] target, int offset) {
+            int index = toLow >>> 6;
+            long word = words[index] & (-1L >>> (63 - (toLow & 63)));
+            while (offset < target.length) {
+                while (word == 0) {
+                    if (--index < 0) {
+                        return offset;
+                    }
+                    word = words[index];
+                }
+                int bit = 63 - Long.numberOfLeadingZeros(word);
+                target[offset++] = high | (index << 6) | bit;
+                word &= ~(1L << bit);
+            }
+            return offset;
+        }
+
+        @Override
+        public Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        private ArrayContainer toArrayContainer() {
+            char[] values = new char[Math.max(cardinality, 4)];
+            int count = 0;
+            for (int i = 0; i < 1024; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[count++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package org.diariocultural.index;
+
+/**
+ * Resultado de uma busca com a sua relevância.
+ * @param entity entidade encontrada
+ * @param score pontuação {@link Bm25} (maior = mais relevante)
+ * @param <T> tipo da entidade
+ */
+public record ScoredMatch<T>(T entity, double score) { }
@@ -0,0 +1,76 @@
+package org.diariocultural.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Normalização de texto usada pelos índices de busca: a mesma regra é aplicada
+ * aos campos indexados e às consultas, para que as duas pontas se encontrem.
+ * Ignora maiúsculas e acentos, então "acao" encontra "Ação".
+ */
+public final class TextNormalizer {
+
+    private TextNormalizer() { }
+
+    /**
+     * @return o texto decomposto (Unicode NFD), sem os diacríticos e em minúsculas
+     *         ("" para null); textos só com ASCII apenas passam para minúsculas
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        if (isAscii(text)) {
+            return text.toLowerCase(Locale.ROOT);
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            int type = Character.getType(c);
+            if (type != Character.NON_SPACING_MARK && type != Character.COMBINING_SPACING_MARK
+                    && type != Character.ENCLOSING_MARK) {
+                folded.append(c);
+            }
+        }
+        return folded.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /** @return o texto como em {@link #fold}, sem espaços nas pontas (usado nas consultas) */
+    public static String normalize(String text) {
+        return fold(text).trim();
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Quebra o texto em tokens normalizados: sequências de letras ou dígitos,
+     * separadas por qualquer outro caractere (espaço, pontuação, hífen...).
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        String normalized = normalize(text);
+        int start = -1;
+        for (int i = 0; i < normalized.length(); i++) {
+            if (Character.isLetterOrDigit(normalized.charAt(i))) {
+                if (start < 0) start = i;
+            } else if (start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            tokens.add(normalized.substring(start));
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,87 @@
+package org.diariocultural.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Índice de hash do título e do título original, normalizados por
+ * {@link TextNormalizer#normalize} (sem diferença de maiúsculas nem de acentos),
+ * para a busca por título exato em tempo constante.
+ * <p>
+ * Guarda as chaves com que cada ID foi indexado, então reindexar depois de um
+ * {@code setTitle}/{@code setOriginalTitle} remove a entrada antiga sem precisar
+ * do valor anterior.
+ *
+ * @param <T> tipo das entidades
+ */
+public class TitleIndex<T> {
+
+    private final ToIntFunction<T> idOf;
+    private final Function<T, String> titleOf;
+    private final Function<T, String> originalTitleOf;
+    private final Map<String, List<T>> byTitle = new HashMap<>();
+    private final Map<String, List<T>> byOriginalTitle = new HashMap<>();
+    /** Título e título original normalizados com que cada ID está indexado. */
+    private final IdIndexedStore<String[]> keysById = new IdIndexedStore<>();
+
+    public TitleIndex(ToIntFunction<T> idOf, Function<T, String> titleOf, Function<T, String> originalTitleOf) {
+        this.idOf = idOf;
+        this.titleOf = titleOf;
+        this.originalTitleOf = originalTitleOf;
+    }
+
+    /** Indexa (ou reindexa) uma entidade pelos seus títulos atuais. */
+    public void index(T entity) {
+        int id = idOf.applyAsInt(entity);
+        remove(id);
+        String title = TextNormalizer.normalize(titleOf.apply(entity));
+        String originalTitle = TextNormalizer.normalize(originalTitleOf.apply(entity));
+        if (!title.isEmpty()) {
+            byTitle.computeIfAbsent(title, key -> new ArrayList<>(1)).add(entity);
+        }
+        if (!originalTitle.isEmpty()) {
+            byOriginalTitle.computeIfAbsent(originalTitle, key -> new ArrayList<>(1)).add(entity);
+        }
+        keysById.put(id, new String[]{title, originalTitle});
+    }
+
+    public void remove(T entity) {
+        remove(idOf.applyAsInt(entity));
+    }
+
+    private void remove(int id) {
+        String[] keys = keysById.remove(id);
+        if (keys != null) {
+            removeFrom(byTitle, keys[0], id);
+            removeFrom(byOriginalTitle, keys[1], id);
+        }
+    }
+
+    private void removeFrom(Map<String, List<T>> map, String key, int id) {
+        List<T> entities = map.get(key);
+        if (entities != null) {
+            entities.removeIf(entity -> idOf.applyAsInt(entity) == id);
+            if (entities.isEmpty()) {
+                map.remove(key);
+            }
+        }
+    }
+
+    /**
+     * @return a primeira entidade (em ordem de indexação) com esse título ou, se
+     *         nenhuma tiver, com esse título original
+     */
+    public Optional<T> find(String title) {
+        String key = TextNormalizer.normalize(title);
+        List<T> entities = byTitle.get(key);
+        if (entities == null) {
+            entities = byOriginalTitle.get(key);
+        }
+        return entities == null ? Optional.empty() : Optional.of(entities.get(0));
+    }
+}
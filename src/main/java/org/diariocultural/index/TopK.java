@@ -0,0 +1,74 @@
+package org.diariocultural.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Os K primeiros de uma sequência por um heap limitado: guarda só K itens (o pior
+ * deles no topo, para ser trocado), em O(n log K) e sem ordenar a sequência inteira.
+ * No empate, vence quem veio antes, como numa ordenação estável.
+ *
+ * @param <T> tipo dos itens
+ */
+public final class TopK<T> {
+
+    private record Ranked<T>(T item, long sequence) { }
+
+    private final int k;
+    private final Comparator<? super T> itemOrder;
+    private final Comparator<Ranked<T>> order;
+    /** Em ordem inversa: o topo é o pior dos K guardados */
+    private final PriorityQueue<Ranked<T>> heap;
+    private long sequence;
+
+    /**
+     * @param k quantos itens guardar
+     * @param order ordem desejada (os primeiros nessa ordem são os escolhidos)
+     */
+    public TopK(int k, Comparator<? super T> order) {
+        if (k < 0) {
+            throw new IllegalArgumentException("K inválido: " + k);
+        }
+        this.k = k;
+        this.itemOrder = order;
+        this.order = Comparator.<Ranked<T>, T>comparing(Ranked::item, order).thenComparingLong(Ranked::sequence);
+        this.heap = new PriorityQueue<>(Math.max(1, Math.min(k, 1024)) + 1, this.order.reversed());
+    }
+
+    /** Oferece um item; ele só é guardado se estiver entre os K primeiros até agora. */
+    public void offer(T item) {
+        if (k == 0) {
+            return;
+        }
+        long position = sequence++;
+        if (heap.size() < k) {
+            heap.add(new Ranked<>(item, position));
+        } else if (itemOrder.compare(item, heap.peek().item()) < 0) {
+            // Empate com o pior guardado não entra: ele chegou antes
+            heap.poll();
+            heap.add(new Ranked<>(item, position));
+        }
+    }
+
+    /** @return os itens guardados, do primeiro para o último */
+    public List<T> toList() {
+        List<Ranked<T>> ranked = new ArrayList<>(heap);
+        ranked.sort(order);
+        List<T> items = new ArrayList<>(ranked.size());
+        for (Ranked<T> entry : ranked) {
+            items.add(entry.item());
+        }
+        return items;
+    }
+
+    /** @return os {@code k} primeiros itens de {@code items} na ordem dada */
+    public static <T> List<T> of(Iterable<? extends T> items, int k, Comparator<? super T> order) {
+        TopK<T> top = new TopK<>(k, order);
+        for (T item : items) {
+            top.offer(item);
+        }
+        return top.toList();
+    }
+}
@@ -0,0 +1,181 @@
+package org.diariocultural.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Índice de trigramas (trechos de três caracteres) das chaves de busca, que
+ * responde buscas por substring: uma entidade casa se alguma das suas chaves
+ * contém a consulta normalizada por {@link TextNormalizer#normalize}. As chaves
+ * chegam já normalizadas ({@link TextNormalizer#fold}), como as de
+ * {@link org.diariocultural.Media#searchKeys()}.
+ * <p>
+ * A busca intersecta as listas de IDs dos trigramas da consulta para obter os
+ * candidatos e confere cada um contra os valores dos campos: dois trigramas
+ * presentes em lugares diferentes do campo não garantem a substring inteira.
+ * Valores com menos de três caracteres entram inteiros como chave, e consultas
+ * de um ou dois caracteres juntam as listas das chaves que as contêm.
+ */
+public class TrigramIndex {
+
+    private static final int GRAM = 3;
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    /**
+     * Chaves indexadas de cada ID, usadas na conferência e na remoção. É o próprio
+     * array recebido em {@link #index}, sem cópia.
+     */
+    private final IdIndexedStore<String[]> valuesById = new IdIndexedStore<>();
+
+    /**
+     * Indexa (ou reindexa) uma entidade.
+     * @param id ID da entidade
+     * @param keys chaves de busca já normalizadas; o array não deve mudar depois
+     */
+    public void index(int id, String[] keys) {
+        remove(id);
+        for (String key : keysOf(keys)) {
+            postings.computeIfAbsent(key, k -> new PostingList()).add(id);
+        }
+        valuesById.put(id, keys);
+    }
+
+    /** Remove todas as entradas de uma entidade. */
+    public void remove(int id) {
+        String[] values = valuesById.remove(id);
+        if (values == null) {
+            return;
+        }
+        for (String key : keysOf(values)) {
+            PostingList list = postings.get(key);
+            if (list != null && list.remove(id) && list.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+
+    private static Set<String> keysOf(String[] values) {
+        Set<String> keys = new HashSet<>();
+        for (String value : values) {
+            if (value.isEmpty()) {
+                continue;
+            }
+            if (value.length() < GRAM) {
+                keys.add(value);
+            } else {
+                for (int i = 0; i + GRAM <= value.length(); i++) {
+                    keys.add(value.substring(i, i + GRAM));
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * @return IDs (em ordem crescente) das entidades em que alguma chave contém a
+     *         consulta normalizada; vazio para consulta vazia
+     */
+    public int[] search(String query) {
+        String needle = TextNormalizer.normalize(query);
+        if (needle.isEmpty()) {
+            return PostingList.EMPTY;
+        }
+        int[] candidates = needle.length() >= GRAM ? trigramCandidates(needle) : shortCandidates(needle);
+        int[] matches = new int[candidates.length];
+        int count = 0;
+        for (int id : candidates) {
+            if (containsInAnyField(valuesById.get(id), needle)) {
+                matches[count++] = id;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * Estimativa barata (sem conferência) de quantas entidades {@link #search} devolve:
+     * o tamanho da menor lista entre os trigramas da consulta, ou a soma das listas
+     * das chaves que contêm uma consulta curta. Nunca é menor que o resultado real.
+     */
+    public int estimate(String query) {
+        String needle = TextNormalizer.normalize(query);
+        if (needle.isEmpty()) {
+            return 0;
+        }
+        if (needle.length() < GRAM) {
+            int total = 0;
+            for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+                if (entry.getKey().contains(needle)) {
+                    total += entry.getValue().size();
+                }
+            }
+            return Math.min(total, valuesById.size());
+        }
+        int smallest = Integer.MAX_VALUE;
+        for (int i = 0; i + GRAM <= needle.length(); i++) {
+            PostingList list = postings.get(needle.substring(i, i + GRAM));
+            smallest = Math.min(smallest, list == null ? 0 : list.size());
+        }
+        return smallest;
+    }
+
+    private int[] trigramCandidates(String needle) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= needle.length(); i++) {
+            grams.add(needle.substring(i, i + GRAM));
+        }
+        List<PostingList> lists = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            PostingList list = postings.get(gram);
+            if (list == null) {
+                return PostingList.EMPTY;
+            }
+            lists.add(list);
+        }
+        // Interseção começando pela lista mais seletiva
+        lists.sort(Comparator.comparingInt(PostingList::size));
+        int[] result = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = lists.get(i).retainedFrom(result);
+        }
+        return result;
+    }
+
+    /** Consultas curtas: qualquer campo que as contenha tem uma chave que as contém. */
+    private int[] shortCandidates(String needle) {
+        List<PostingList> lists = new ArrayList<>();
+        for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+            if (entry.getKey().contains(needle)) {
+                lists.add(entry.getValue());
+            }
+        }
+        return PostingList.unionAll(lists);
+    }
+
+    private static boolean containsInAnyField(String[] values, String needle) {
+        if (values == null) {
+            return false;
+        }
+        for (String value : values) {
+            if (value.contains(needle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** @return quantidade de entidades indexadas */
+    public int size() {
+        return valuesById.size();
+    }
+
+    /** @return quantidade de chaves (trigramas e valores curtos) distintas */
+    public int keyCount() {
+        return postings.size();
+    }
+}
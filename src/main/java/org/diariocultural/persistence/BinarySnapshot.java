@@ -0,0 +1,235 @@
+package org.diariocultural.persistence;
+
+import org.diariocultural.persistence.codec.BinaryCodec;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Cópia binária de um snapshot JSON (ex: data/books.bin ao lado de data/books.json),
+ * lida através de um {@link FileChannel} mapeado em memória.
+ * <p>
+ * Formato: cabeçalho fixo (assinatura, versão, tamanho, data de modificação e CRC32
+ * do JSON de origem, quantidade de registros e posição da tabela), os registros
+ * (tamanho em bytes seguido do conteúdo codificado por um {@link BinaryCodec})
+ * e, ao final, a tabela com a posição de cada registro. A tabela permite
+ * decodificar qualquer entidade sob demanda, sem percorrer as anteriores.
+ * <p>
+ * O JSON continua sendo o formato de intercâmbio: se ele mudar (tamanho, data ou
+ * conteúdo diferentes dos gravados no cabeçalho), a cópia binária é considerada
+ * vencida. O CRC32 pega a edição que mantém o tamanho dentro do mesmo instante
+ * de modificação; tamanho e data, mais baratos, são conferidos antes.
+ *
+ * @param <T> tipo das entidades
+ */
+public final class BinarySnapshot<T> {
+
+    private static final int MAGIC = 0x44434231; // "DCB1"
+    private static final int VERSION = 2;
+    /** magic + version + sourceSize + sourceModified (ns) + sourceCrc + count + tableOffset */
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 8 + 4 + 4 + 8;
+
+    private final ByteBuffer buffer;
+    private final BinaryCodec<T> codec;
+    private final int count;
+    private final int tableOffset;
+
+    private BinarySnapshot(ByteBuffer buffer, BinaryCodec<T> codec, int count, int tableOffset) {
+        this.buffer = buffer;
+        this.codec = codec;
+        this.count = count;
+        this.tableOffset = tableOffset;
+    }
+
+    /**
+     * Abre a cópia binária se ela existir e corresponder ao JSON atual.
+     * @param binaryPath arquivo binário
+     * @param sourcePath snapshot JSON de origem
+     * @return o snapshot mapeado, ou null se ausente, vencido ou inválido
+     */
+    public static <T> BinarySnapshot<T> openIfFresh(Path binaryPath, Path sourcePath, BinaryCodec<T> codec) {
+        try {
+            if (!Files.isRegularFile(binaryPath) || !Files.isRegularFile(sourcePath)) {
+                return null;
+            }
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(binaryPath, StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < HEADER_BYTES || size > Integer.MAX_VALUE) {
+                    return null;
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                    || buffer.getLong(8) != Files.size(sourcePath)
+                    || buffer.getLong(16) != modifiedNanos(sourcePath)
+                    || buffer.getInt(24) != checksum(sourcePath)) {
+                return null;
+            }
+            int count = buffer.getInt(28);
+            long tableOffset = buffer.getLong(32);
+            if (count < 0 || tableOffset < HEADER_BYTES || tableOffset + 8L * count != buffer.capacity()) {
+                return null;
+            }
+            return new BinarySnapshot<>(buffer, codec, count, (int) tableOffset);
+        } catch (IOException e) {
+            System.err.println("Snapshot binário " + binaryPath + " ignorado: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static long modifiedNanos(Path path) throws IOException {
+        return Files.getLastModifiedTime(path).to(TimeUnit.NANOSECONDS);
+    }
+
+    /** @return CRC32 do conteúdo do arquivo (um shard tem algumas centenas de KB) */
+    private static int checksum(Path path) throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > 0) {
+                crc.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            }
+        }
+        return (int) crc.getValue();
+    }
+
+    /** @return quantidade de entidades no snapshot */
+    public int size() {
+        return count;
+    }
+
+    /** Decodifica a entidade na posição indicada (cada chamada cria um novo objeto). */
+    public T get(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int offset = (int) buffer.getLong(tableOffset + 8 * index);
+        int length = buffer.getInt(offset);
+        return codec.read(buffer.slice(offset + 4, length));
+    }
+
+    /** Decodifica todas as entidades, na ordem do snapshot. */
+    public void forEach(Consumer<T> sink) {
+        for (int i = 0; i < count; i++) {
+            sink.accept(get(i));
+        }
+    }
+
+    /**
+     * Acesso aleatório sem decodificar o snapshot inteiro. A carga dos catálogos usa
+     * {@link #forEach}, porque os controladores indexam todas as entidades ao abrir.
+     * @return lista somente leitura que decodifica cada entidade no primeiro acesso
+     *         e devolve a mesma instância nos acessos seguintes
+     */
+    public List<T> asList() {
+        Object[] decoded = new Object[count];
+        return new AbstractList<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public T get(int index) {
+                Object entity = decoded[index];
+                if (entity == null) {
+                    entity = BinarySnapshot.this.get(index);
+                    decoded[index] = entity;
+                }
+                return (T) entity;
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    /**
+     * Grava uma nova cópia binária num arquivo temporário. Depois que o JSON de
+     * origem estiver no lugar, {@link #commit} registra a sua identificação no
+     * cabeçalho e move o arquivo para o destino.
+     */
+    public static final class Writer<T> implements AutoCloseable {
+
+        private final Path tempPath;
+        private final BinaryCodec<T> codec;
+        private final DataOutputStream out;
+        private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(512);
+        private final DataOutputStream record = new DataOutputStream(recordBytes);
+        private long[] offsets = new long[1024];
+        private int count;
+        private long position;
+        private boolean finished;
+
+        public Writer(Path directory, String name, BinaryCodec<T> codec) throws IOException {
+            this.tempPath = Files.createTempFile(directory, name, ".bin.tmp");
+            this.codec = codec;
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath)));
+            out.write(new byte[HEADER_BYTES]); // Preenchido no commit
+            position = HEADER_BYTES;
+        }
+
+        /** Acrescenta uma entidade ao final do snapshot. */
+        public void add(T entity) throws IOException {
+            recordBytes.reset();
+            codec.write(record, entity);
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+            offsets[count++] = position;
+            out.writeInt(recordBytes.size());
+            recordBytes.writeTo(out);
+            position += 4 + recordBytes.size();
+        }
+
+        /**
+         * Conclui o arquivo e o move atomicamente para {@code binaryPath}.
+         * @param binaryPath destino final
+         * @param sourcePath JSON de origem, já gravado, cuja identificação vai para o cabeçalho
+         */
+        public void commit(Path binaryPath, Path sourcePath) throws IOException {
+            for (int i = 0; i < count; i++) {
+                out.writeLong(offsets[i]);
+            }
+            out.close();
+            finished = true;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(Files.size(sourcePath))
+                    .putLong(modifiedNanos(sourcePath))
+                    .putInt(checksum(sourcePath))
+                    .putInt(count)
+                    .putLong(position)
+                    .flip();
+            try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE)) {
+                channel.write(header, 0);
+            }
+            Files.move(tempPath, binaryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        /** Descarta o arquivo temporário se o commit não aconteceu. */
+        @Override
+        public void close() throws IOException {
+            if (!finished) {
+                out.close();
+                finished = true;
+            }
+            Files.deleteIfExists(tempPath);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.diariocultural.persistence;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Leitor de catálogo que percorre o array JSON de um snapshot token a token e
+ * entrega cada entidade assim que ela é lida, sem montar a lista inteira em memória.
+ * Quem consome (o armazenamento do controlador) pode indexar cada item durante a leitura.
+ */
+public final class CatalogStreamReader {
+
+    private CatalogStreamReader() { }
+
+    /**
+     * Lê um arquivo no formato data/*.json ([ {...}, {...} ]).
+     * @param file arquivo de snapshot
+     * @param entityReader reader de uma única entidade (ver {@link PersistenceCodec#entityReader})
+     * @param sink recebe cada entidade, na ordem do arquivo
+     * @return quantidade de entidades lidas
+     */
+    public static <T> int read(Path file, ObjectReader entityReader, Consumer<T> sink) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) == 0) {
+            return 0;
+        }
+        try (JsonParser parser = entityReader.createParser(file.toFile())) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return 0;
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new IOException("Esperado um array JSON em " + file + ", encontrado " + token);
+            }
+            int count = 0;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new IOException("Fim inesperado do arquivo " + file + " após " + count + " entidades");
+                }
+                if (token == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                T entity = entityReader.readValue(parser);
+                sink.accept(entity);
+                count++;
+            }
+            return count;
+        }
+    }
+}
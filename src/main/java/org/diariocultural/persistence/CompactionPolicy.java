@@ -0,0 +1,46 @@
+package org.diariocultural.persistence;
+
+/**
+ * Limites que disparam a compactação do diário de um catálogo.
+ * A compactação ocorre quando qualquer um dos limites é atingido.
+ *
+ * @param maxJournalBytes tamanho máximo (em bytes) do arquivo de diário ativo
+ * @param maxJournalEntries quantidade máxima de registros no diário ativo
+ * @param idleMillis tempo sem novas alterações após o qual um diário não vazio é compactado
+ * @param checkIntervalMillis intervalo entre as verificações dos limites
+ */
+public record CompactionPolicy(long maxJournalBytes, int maxJournalEntries, long idleMillis, long checkIntervalMillis) {
+
+    /** Valores padrão: 4 MB, 5000 registros, 30 s ociosos, verificação a cada 2 s. */
+    public static CompactionPolicy defaults() {
+        return new CompactionPolicy(4L * 1024 * 1024, 5_000, 30_000, 2_000);
+    }
+
+    /**
+     * Lê os limites das propriedades de sistema (ex: -Ddiario.compaction.maxEntries=1000),
+     * usando os valores padrão para as que não foram informadas.
+     */
+    public static CompactionPolicy fromSystemProperties() {
+        CompactionPolicy defaults = defaults();
+        return new CompactionPolicy(
+                Long.getLong("diario.compaction.maxBytes", defaults.maxJournalBytes()),
+                Integer.getInteger("diario.compaction.maxEntries", defaults.maxJournalEntries()),
+                Long.getLong("diario.compaction.idleMillis", defaults.idleMillis()),
+                Long.getLong("diario.compaction.checkIntervalMillis", defaults.checkIntervalMillis()));
+    }
+
+    /**
+     * Verifica se o diário informado deve ser compactado agora.
+     * @param journal diário ativo do catálogo
+     * @param nowMillis instante atual (System.currentTimeMillis)
+     */
+    public boolean shouldCompact(MutationJournal<?> journal, long nowMillis) {
+        int entries = journal.getEntryCount();
+        if (entries == 0) {
+            return false;
+        }
+        return entries >= maxJournalEntries
+                || journal.getSizeBytes() >= maxJournalBytes
+                || nowMillis - journal.getLastAppendMillis() >= idleMillis;
+    }
+}
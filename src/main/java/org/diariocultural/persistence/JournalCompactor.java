@@ -0,0 +1,77 @@
+package org.diariocultural.persistence;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tarefa de segundo plano que incorpora periodicamente os diários de mutação
+ * aos snapshots, de acordo com uma {@link CompactionPolicy}.
+ * Roda numa única thread daemon própria, nunca na thread do JavaFX, e mantém
+ * limitado o tempo de reaplicação do diário na próxima inicialização.
+ */
+public class JournalCompactor {
+
+    private final CompactionPolicy policy;
+    private final List<MediaRepository<?>> repositories = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler;
+
+    public JournalCompactor(CompactionPolicy policy) {
+        this.policy = policy;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Inclui um catálogo na verificação periódica. */
+    public void register(MediaRepository<?> repository) {
+        repositories.add(repository);
+    }
+
+    /** Inicia as verificações periódicas. */
+    public void start() {
+        long interval = policy.checkIntervalMillis();
+        scheduler.scheduleWithFixedDelay(this::checkAll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void checkAll() {
+        long now = System.currentTimeMillis();
+        for (MediaRepository<?> repository : repositories) {
+            if (policy.shouldCompact(repository.getJournal(), now)) {
+                compact(repository);
+            }
+        }
+    }
+
+    private void compact(MediaRepository<?> repository) {
+        try {
+            long start = System.nanoTime();
+            if (repository.compact()) {
+                System.out.println("Diário compactado em " + repository.getStoreDirectory()
+                        + " (" + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms)");
+            }
+        } catch (IOException | RuntimeException e) {
+            // Os segmentos selados continuam em disco e serão reaplicados/compactados depois
+            System.err.println("Erro ao compactar " + repository.getStoreDirectory() + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /** Interrompe as verificações, aguardando uma compactação em andamento terminar. */
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(10, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
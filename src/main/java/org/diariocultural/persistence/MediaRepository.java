@@ -0,0 +1,561 @@
+package org.diariocultural.persistence;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.diariocultural.persistence.codec.BinaryCodec;
+import org.diariocultural.persistence.codec.BinaryModelCodecs;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Persistência de um catálogo de mídias composta por shards (arquivos JSON por
+ * faixa de ID em data/&lt;nome&gt;/, descritos por um {@link ShardManifest}) mais um
+ * {@link MutationJournal} com as alterações feitas desde a última compactação.
+ * Os controladores registram cada adição/atualização/remoção aqui em vez de
+ * reescrever o catálogo inteiro a cada clique.
+ * <p>
+ * O diário é incorporado aos shards por {@link #compact()}, normalmente chamado
+ * em segundo plano pelo {@link JournalCompactor}. A compactação só reescreve os
+ * shards que contêm entidades alteradas e trabalha apenas com o que está em disco,
+ * nunca com os objetos em memória dos controladores, por isso não bloqueia as
+ * operações de mutação.
+ * <p>
+ * Na leitura os shards são carregados em paralelo e entregues em ordem, com as
+ * alterações do diário aplicadas no caminho.
+ * <p>
+ * Opcionalmente (propriedade diario.snapshot.binary, ligada por padrão) cada
+ * shard ganha uma cópia {@link BinarySnapshot} (ex: data/books/shard-000000.bin),
+ * lida no lugar do JSON enquanto estiver atualizada e refeita quando estiver vencida.
+ * <p>
+ * Catálogos no formato antigo (um único data/&lt;nome&gt;.json e data/&lt;nome&gt;.journal)
+ * são migrados para shards na primeira leitura.
+ *
+ * @param <T> tipo da entidade persistida
+ */
+public class MediaRepository<T> {
+
+    /** Quantidade padrão de IDs por shard. */
+    public static final int DEFAULT_SHARD_SIZE = 1000;
+
+    private final Path dataDirectory;
+    private final Path storeDirectory;
+    private final Path manifestPath;
+    private final String name;
+    private final Class<T> type;
+    private final int shardSize;
+    /** Codec da cópia binária, ou null se ela estiver desligada para este tipo. */
+    private final BinaryCodec<T> binaryCodec;
+    private final ToIntFunction<T> idOf;
+    private final PersistenceCodec codec;
+    private final ObjectReader entityReader;
+    private final ObjectWriter elementWriter;
+    private final MutationJournal<T> journal;
+    /** Serializa leituras de shards, compactações e gravações completas (não é usado pelas mutações). */
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    /** Manifesto em disco, lido sob demanda; só é acessado com o snapshotLock. */
+    private ShardManifest manifest;
+
+    /**
+     * @param dataDirectory diretório onde ficam os arquivos (ex: "data")
+     * @param name nome do catálogo (ex: "books" -> data/books/manifest.json e data/books/books.journal)
+     * @param type classe da entidade
+     * @param idOf função que extrai o ID único da entidade
+     */
+    public MediaRepository(Path dataDirectory, String name, Class<T> type, ToIntFunction<T> idOf) {
+        this(dataDirectory, name, type, idOf, Integer.getInteger("diario.shard.size", DEFAULT_SHARD_SIZE));
+    }
+
+    /**
+     * @param shardSize quantidade de IDs por shard em catálogos novos ou regravados por completo;
+     *                  catálogos existentes mantêm o tamanho gravado no manifesto até a próxima gravação completa
+     */
+    public MediaRepository(Path dataDirectory, String name, Class<T> type, ToIntFunction<T> idOf, int shardSize) {
+        this.dataDirectory = dataDirectory;
+        this.storeDirectory = dataDirectory.resolve(name);
+        this.manifestPath = storeDirectory.resolve(ShardManifest.FILE_NAME);
+        this.name = name;
+        this.type = type;
+        this.shardSize = shardSize;
+        this.binaryCodec = binarySnapshotsEnabled() ? BinaryModelCodecs.forType(type) : null;
+        this.idOf = idOf;
+        this.codec = PersistenceCodec.shared();
+        this.entityReader = codec.entityReader(type);
+        this.elementWriter = codec.elementWriter(type);
+        this.journal = new MutationJournal<>(storeDirectory.resolve(name + ".journal"), type, idOf, codec);
+    }
+
+    /** @return true se as cópias binárias dos snapshots devem ser usadas (diario.snapshot.binary) */
+    public static boolean binarySnapshotsEnabled() {
+        return Boolean.parseBoolean(System.getProperty("diario.snapshot.binary", "true"));
+    }
+
+    /**
+     * Carrega o último snapshot e reaplica o diário por cima dele.
+     * @return lista de entidades na ordem do catálogo (nunca null)
+     */
+    public List<T> load() {
+        List<T> entities = new ArrayList<>();
+        load(entities::add);
+        return entities;
+    }
+
+    /**
+     * Carrega o catálogo, entregando cada entidade ao {@code sink} na ordem dos shards
+     * (já com as alterações do diário aplicadas). Os shards são lidos em paralelo.
+     * Entidades adicionadas pelo diário são entregues ao final, na ordem em que foram gravadas.
+     * @param sink destino de cada entidade (ex: o armazenamento do controlador)
+     * @return quantidade de entidades entregues
+     */
+    public int load(Consumer<T> sink) {
+        snapshotLock.lock();
+        try {
+            migrateLegacySnapshot();
+        } catch (IOException e) {
+            System.err.println("Erro ao migrar " + dataDirectory.resolve(name + ".json") + " para shards: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            snapshotLock.unlock();
+        }
+
+        Map<Integer, MutationJournal.Entry<T>> changes = new LinkedHashMap<>();
+        try {
+            int read = journal.collectChanges(changes);
+            if (read > 0) {
+                System.out.println(read + " alteração(ões) reaplicada(s) de " + journal.getJournalPath());
+            }
+        } catch (IOException e) {
+            System.err.println("Erro ao reaplicar o diário " + journal.getJournalPath() + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+        int[] delivered = {0};
+        Consumer<T> counting = entity -> {
+            sink.accept(entity);
+            delivered[0]++;
+        };
+        Consumer<T> merging = mergingSink(changes, counting);
+
+        snapshotLock.lock();
+        try {
+            ShardManifest current = currentManifest();
+            if (current == null) {
+                System.out.println("Manifesto " + manifestPath + " não encontrado. Será criado ao salvar.");
+            } else {
+                for (List<T> shard : readShardsInParallel(current)) {
+                    shard.forEach(merging);
+                }
+                System.out.println("Dados carregados com sucesso de " + storeDirectory
+                        + " (" + current.getCounts().size() + " shard(s))");
+            }
+        } catch (IOException e) {
+            System.err.println("Erro ao ler o manifesto " + manifestPath + ": " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            snapshotLock.unlock();
+        }
+        emitRemaining(changes, counting);
+        return delivered[0];
+    }
+
+    /**
+     * Lê todos os shards do manifesto em paralelo (no ForkJoinPool comum). Como cada
+     * shard tem no máximo algumas centenas de KB, o paralelismo fica entre os shards
+     * e cada um é lido de uma vez só, em streaming.
+     * Um shard ilegível é registrado no log e ignorado, sem impedir a leitura dos demais.
+     * @return entidades de cada shard, na ordem dos shards
+     */
+    private List<List<T>> readShardsInParallel(ShardManifest current) {
+        return current.getCounts().entrySet().parallelStream()
+                .map(shard -> {
+                    List<T> entities = new ArrayList<>(shard.getValue());
+                    try {
+                        readShard(shard.getKey(), entities::add, true);
+                    } catch (IOException e) {
+                        System.err.println("Erro ao ler ou desserializar o shard " + getShardPath(shard.getKey())
+                                + ": " + e.getMessage());
+                        e.printStackTrace();
+                    }
+                    return entities;
+                })
+                .toList();
+    }
+
+    /**
+     * Aplica as alterações do diário às entidades lidas do disco: atualizações mantêm
+     * a posição original e remoções somem. O mapa de alterações é consumido no processo.
+     */
+    private Consumer<T> mergingSink(Map<Integer, MutationJournal.Entry<T>> changes, Consumer<T> sink) {
+        return entity -> {
+            MutationJournal.Entry<T> change = changes.remove(idOf.applyAsInt(entity));
+            if (change == null) {
+                sink.accept(entity);
+            } else if (change.operation() != MutationJournal.Operation.REMOVE) {
+                sink.accept(change.entity()); // Atualização mantém a posição original
+            }
+        };
+    }
+
+    /** Entrega as entidades de um shard, sem o diário. */
+    private void readShard(int shard, Consumer<T> sink, boolean rebuildBinary) throws IOException {
+        Path shardPath = getShardPath(shard);
+        if (!Files.isRegularFile(shardPath)) {
+            throw new IOException("Shard listado no manifesto não existe: " + shardPath);
+        }
+        readSnapshot(shardPath, getBinaryShardPath(shard), sink, rebuildBinary);
+    }
+
+    /**
+     * Entrega as entidades de um arquivo de snapshot. Usa a cópia binária quando ela
+     * está atualizada; senão lê o JSON em streaming e, se pedido, grava uma nova cópia
+     * binária no caminho.
+     * <p>
+     * A cópia binária é decodificada inteira, e não pela lista preguiçosa de
+     * {@link BinarySnapshot#asList()}: cada controlador indexa todas as entidades ao
+     * carregar (busca, facetas, ordenação por nota), então todas seriam acessadas de
+     * qualquer forma. O ganho na abertura vem de trocar o JSON pelo formato binário.
+     */
+    private void readSnapshot(Path jsonPath, Path binaryPath, Consumer<T> sink, boolean rebuildBinary) throws IOException {
+        if (binaryCodec != null) {
+            BinarySnapshot<T> binary = BinarySnapshot.openIfFresh(binaryPath, jsonPath, binaryCodec);
+            if (binary != null) {
+                binary.forEach(sink);
+                return;
+            }
+        }
+        BinarySnapshot.Writer<T> binaryWriter = rebuildBinary ? openBinaryWriter(binaryPath) : null;
+        boolean[] binaryFailed = {false};
+        Consumer<T> reading = binaryWriter == null ? sink : entity -> {
+            if (!binaryFailed[0]) {
+                binaryFailed[0] = !addToBinary(binaryWriter, binaryPath, entity);
+            }
+            sink.accept(entity);
+        };
+        try {
+            CatalogStreamReader.read(jsonPath, entityReader, reading);
+            if (!binaryFailed[0]) {
+                commitBinary(binaryWriter, binaryPath, jsonPath);
+            }
+        } finally {
+            closeBinary(binaryWriter);
+        }
+    }
+
+    /** @return gravador de uma nova cópia binária, ou null se desligada ou impossível de criar */
+    private BinarySnapshot.Writer<T> openBinaryWriter(Path binaryPath) {
+        if (binaryCodec == null) {
+            return null;
+        }
+        try {
+            ensureStoreDirectory();
+            return new BinarySnapshot.Writer<>(binaryPath.getParent(), name, binaryCodec);
+        } catch (IOException e) {
+            System.err.println("Não foi possível criar o snapshot binário " + binaryPath + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Falhas na cópia binária nunca impedem a leitura ou gravação do JSON: ela só fica vencida.
+     * @return false se a entidade não pôde ser gravada
+     */
+    private boolean addToBinary(BinarySnapshot.Writer<T> binaryWriter, Path binaryPath, T entity) {
+        try {
+            binaryWriter.add(entity);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Erro ao gravar o snapshot binário " + binaryPath + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void commitBinary(BinarySnapshot.Writer<T> binaryWriter, Path binaryPath, Path jsonPath) {
+        if (binaryWriter == null) {
+            return;
+        }
+        try {
+            binaryWriter.commit(binaryPath, jsonPath);
+        } catch (IOException e) {
+            System.err.println("Erro ao gravar o snapshot binário " + binaryPath + ": " + e.getMessage());
+        }
+    }
+
+    private void closeBinary(BinarySnapshot.Writer<T> binaryWriter) {
+        if (binaryWriter == null) {
+            return;
+        }
+        try {
+            binaryWriter.close();
+        } catch (IOException e) {
+            System.err.println("Erro ao descartar o snapshot binário temporário: " + e.getMessage());
+        }
+    }
+
+    private void emitRemaining(Map<Integer, MutationJournal.Entry<T>> changes, Consumer<T> sink) {
+        for (MutationJournal.Entry<T> change : changes.values()) {
+            if (change.operation() != MutationJournal.Operation.REMOVE) {
+                sink.accept(change.entity());
+            }
+        }
+        changes.clear();
+    }
+
+    public void recordAdd(T entity)    { record(MutationJournal.Operation.ADD, entity); }
+    public void recordUpdate(T entity) { record(MutationJournal.Operation.UPDATE, entity); }
+    public void recordRemove(T entity) { record(MutationJournal.Operation.REMOVE, entity); }
+
+    private void record(MutationJournal.Operation operation, T entity) {
+        recordAll(List.of(new MutationJournal.Entry<>(operation, entity)));
+    }
+
+    /**
+     * Grava um lote de alterações no diário com uma única escrita.
+     * @param entries alterações na ordem em que ocorreram
+     */
+    public void recordAll(List<MutationJournal.Entry<T>> entries) {
+        try {
+            ensureStoreDirectory();
+            journal.appendAll(entries);
+        } catch (IOException e) {
+            System.err.println("Erro ao registrar alteração em " + journal.getJournalPath() + ": " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Serializa a entidade de uma alteração no estado atual, para gravar depois com
+     * {@link #appendEncoded}.
+     */
+    public MutationJournal.EncodedEntry encode(MutationJournal.Operation operation, T entity) throws IOException {
+        return journal.encode(operation, entity);
+    }
+
+    /**
+     * Grava um lote de alterações já serializadas no diário com uma única escrita.
+     * Ao contrário de {@link #recordAll}, uma falha chega a quem chamou, que pode
+     * tentar de novo.
+     * @param entries alterações na ordem em que ocorreram
+     */
+    public void appendEncoded(List<MutationJournal.EncodedEntry> entries) throws IOException {
+        ensureStoreDirectory();
+        journal.appendEncoded(entries);
+    }
+
+    /**
+     * Grava o catálogo completo, reescrevendo todos os shards, e descarta o diário.
+     * Cada shard é gravado num arquivo temporário e movido atomicamente, e o manifesto
+     * só é trocado no final; se o processo cair antes de limpar o diário, a reaplicação
+     * dos registros é idempotente.
+     * @param entities estado completo do catálogo
+     */
+    public void writeSnapshot(Collection<T> entities) {
+        snapshotLock.lock();
+        try {
+            writeAllShards(entities);
+            journal.clear();
+        } catch (IOException e) {
+            System.err.println("Erro crítico ao salvar dados em " + storeDirectory + ": " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /** Divide as entidades por shard, grava todos e remove os arquivos de shards que deixaram de existir. */
+    private void writeAllShards(Collection<T> entities) throws IOException {
+        ShardManifest next = new ShardManifest(shardSize);
+        Map<Integer, List<T>> shards = new TreeMap<>();
+        for (T entity : entities) {
+            shards.computeIfAbsent(next.shardOf(idOf.applyAsInt(entity)), shard -> new ArrayList<>()).add(entity);
+        }
+        for (Map.Entry<Integer, List<T>> shard : shards.entrySet()) {
+            writeShard(shard.getKey(), shard.getValue());
+            next.setCount(shard.getKey(), shard.getValue().size());
+        }
+        publishManifest(next);
+        deleteStrayShards(next);
+    }
+
+    /**
+     * Incorpora o diário aos shards: sela o arquivo ativo, aplica os segmentos selados
+     * apenas aos shards que contêm entidades alteradas, regrava o manifesto e apaga os
+     * segmentos. Alterações feitas durante a compactação vão para o novo arquivo ativo
+     * e não se perdem.
+     * @return true se algum segmento foi incorporado
+     */
+    public boolean compact() throws IOException {
+        snapshotLock.lock();
+        try {
+            journal.rotate();
+            List<Path> segments = journal.sealedSegments();
+            if (segments.isEmpty()) {
+                return false;
+            }
+            Map<Integer, MutationJournal.Entry<T>> changes = new LinkedHashMap<>();
+            for (Path segment : segments) {
+                journal.collectFile(segment, changes);
+            }
+            ShardManifest current = currentManifest();
+            if (current == null) {
+                current = new ShardManifest(shardSize);
+            }
+            // Agrupa as alterações por shard, mantendo a ordem em que foram gravadas
+            Map<Integer, Map<Integer, MutationJournal.Entry<T>>> changesByShard = new TreeMap<>();
+            for (Map.Entry<Integer, MutationJournal.Entry<T>> change : changes.entrySet()) {
+                changesByShard.computeIfAbsent(current.shardOf(change.getKey()), shard -> new LinkedHashMap<>())
+                        .put(change.getKey(), change.getValue());
+            }
+            for (Map.Entry<Integer, Map<Integer, MutationJournal.Entry<T>>> shard : changesByShard.entrySet()) {
+                List<T> merged = new ArrayList<>();
+                if (current.getCounts().containsKey(shard.getKey())) {
+                    readShard(shard.getKey(), mergingSink(shard.getValue(), merged::add), false);
+                }
+                emitRemaining(shard.getValue(), merged::add);
+                if (merged.isEmpty()) {
+                    deleteShardFiles(shard.getKey());
+                } else {
+                    writeShard(shard.getKey(), merged);
+                }
+                current.setCount(shard.getKey(), merged.size());
+            }
+            publishManifest(current);
+            for (Path segment : segments) {
+                Files.deleteIfExists(segment);
+            }
+            return true;
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    /**
+     * Converte o formato antigo (data/&lt;nome&gt;.json + data/&lt;nome&gt;.journal) em shards.
+     * O JSON antigo é renomeado para &lt;nome&gt;.json.migrated em vez de apagado. Como ele
+     * pode ter centenas de MB, é lido pelo {@link ParallelCatalogReader} quando grande.
+     */
+    private void migrateLegacySnapshot() throws IOException {
+        Path legacySnapshot = dataDirectory.resolve(name + ".json");
+        MutationJournal<T> legacyJournal = new MutationJournal<>(dataDirectory.resolve(name + ".journal"), type, idOf, codec);
+        boolean hasLegacyJournal = Files.isRegularFile(legacyJournal.getJournalPath())
+                || !legacyJournal.sealedSegments().isEmpty();
+        if (Files.isRegularFile(manifestPath) || (!Files.isRegularFile(legacySnapshot) && !hasLegacyJournal)) {
+            return;
+        }
+        Map<Integer, MutationJournal.Entry<T>> changes = new LinkedHashMap<>();
+        legacyJournal.collectChanges(changes);
+        List<T> entities = new ArrayList<>();
+        if (Files.isRegularFile(legacySnapshot)) {
+            // O arquivo antigo não tem shards: acima do limite, desserializa em blocos paralelos
+            if (ParallelCatalogReader.shouldUse(legacySnapshot)) {
+                ParallelCatalogReader.read(legacySnapshot, entityReader, mergingSink(changes, entities::add));
+            } else {
+                CatalogStreamReader.read(legacySnapshot, entityReader, mergingSink(changes, entities::add));
+            }
+        }
+        emitRemaining(changes, entities::add);
+        writeAllShards(entities);
+        legacyJournal.clear();
+        if (Files.isRegularFile(legacySnapshot)) {
+            Files.move(legacySnapshot, legacySnapshot.resolveSibling(name + ".json.migrated"),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.deleteIfExists(dataDirectory.resolve(name + ".bin"));
+        System.out.println("Catálogo " + legacySnapshot + " migrado para " + storeDirectory
+                + " (" + entities.size() + " itens)");
+    }
+
+    /** @return manifesto atual (lido do disco na primeira vez), ou null se ainda não existir */
+    private ShardManifest currentManifest() throws IOException {
+        if (manifest == null) {
+            manifest = ShardManifest.read(manifestPath, codec.mapper());
+        }
+        return manifest;
+    }
+
+    private void publishManifest(ShardManifest next) throws IOException {
+        ensureStoreDirectory();
+        next.write(manifestPath, codec.mapper());
+        manifest = next;
+    }
+
+    /** Remove arquivos de shard que não constam do manifesto (ex: shards que ficaram vazios). */
+    private void deleteStrayShards(ShardManifest current) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(storeDirectory, "shard-*.{json,bin}")) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                int shard = Integer.parseInt(fileName.substring("shard-".length(), fileName.indexOf('.')));
+                if (!current.getCounts().containsKey(shard)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Arquivo inesperado em " + storeDirectory + ": " + e.getMessage());
+        }
+    }
+
+    private void deleteShardFiles(int shard) throws IOException {
+        Files.deleteIfExists(getShardPath(shard));
+        Files.deleteIfExists(getBinaryShardPath(shard));
+    }
+
+    /**
+     * Grava um shard item a item num arquivo temporário e o move atomicamente
+     * para o lugar do antigo. A cópia binária é gravada na mesma passagem e só é
+     * publicada depois do JSON.
+     */
+    private void writeShard(int shard, List<T> entities) throws IOException {
+        ensureStoreDirectory();
+        Path shardPath = getShardPath(shard);
+        Path binaryPath = getBinaryShardPath(shard);
+        Path tempPath = shardPath.resolveSibling(shardPath.getFileName() + ".tmp");
+        BinarySnapshot.Writer<T> binaryWriter = openBinaryWriter(binaryPath);
+        boolean binaryFailed = binaryWriter == null;
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempPath));
+                 JsonGenerator generator = codec.createSnapshotGenerator(out)) {
+                generator.writeStartArray();
+                for (T entity : entities) {
+                    elementWriter.writeValue(generator, entity);
+                    if (!binaryFailed) {
+                        binaryFailed = !addToBinary(binaryWriter, binaryPath, entity);
+                    }
+                }
+                generator.writeEndArray();
+            }
+            Files.move(tempPath, shardPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (!binaryFailed) {
+                commitBinary(binaryWriter, binaryPath, shardPath);
+            }
+        } finally {
+            closeBinary(binaryWriter);
+        }
+    }
+
+    private void ensureStoreDirectory() throws IOException {
+        if (!Files.isDirectory(storeDirectory)) {
+            Files.createDirectories(storeDirectory);
+        }
+    }
+
+    public ToIntFunction<T> getIdFunction() { return idOf; }
+    public Path getStoreDirectory() { return storeDirectory; }
+    public Path getManifestPath()   { return manifestPath; }
+    public Path getShardPath(int shard)       { return storeDirectory.resolve(ShardManifest.fileName(shard, "json")); }
+    public Path getBinaryShardPath(int shard) { return storeDirectory.resolve(ShardManifest.fileName(shard, "bin")); }
+    public Path getJournalPath()  { return journal.getJournalPath(); }
+    public MutationJournal<T> getJournal() { return journal; }
+}
@@ -0,0 +1,251 @@
+package org.diariocultural.persistence;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+/**
+ * Diário de mutações (write-ahead log) append-only para um tipo de mídia.
+ * Cada linha do arquivo é um registro JSON independente com a operação,
+ * o ID da entidade e, para ADD/UPDATE, o estado completo da entidade alterada.
+ * Assim, salvar uma alteração custa O(1) em relação ao tamanho do catálogo.
+ * <p>
+ * Para a compactação, o arquivo ativo pode ser "selado" com {@link #rotate()}:
+ * ele é renomeado para um segmento numerado (ex: books.journal.3) e as próximas
+ * alterações vão para um arquivo ativo novo, sem esperar a compactação terminar.
+ *
+ * @param <T> tipo da entidade registrada (Book, Movie ou Series)
+ */
+public class MutationJournal<T> {
+
+    /** Tipos de registro gravados no diário. */
+    public enum Operation { ADD, UPDATE, REMOVE }
+
+    /** Uma alteração pendente de gravação: operação + entidade alterada. */
+    public record Entry<T>(Operation operation, T entity) { }
+
+    /**
+     * Uma alteração com a entidade já serializada ({@link #encode}): guarda o estado
+     * do momento em que foi registrada, mesmo que a entidade mude depois.
+     * @param entityJson JSON compacto da entidade (null para REMOVE)
+     */
+    public record EncodedEntry(Operation operation, int id, String entityJson) {
+
+        /** @return a mesma alteração com outra operação (ao fundir alterações pendentes) */
+        public EncodedEntry withOperation(Operation merged) {
+            return new EncodedEntry(merged, id, entityJson);
+        }
+    }
+
+    private final Path journalPath;
+    private final ToIntFunction<T> idOf;
+    private final PersistenceCodec codec;
+    private final ObjectReader entityReader;
+    private final ObjectWriter entityWriter;
+
+    /** Registros e bytes no arquivo ativo (usados pelos limites de compactação). */
+    private int entryCount;
+    private long sizeBytes;
+    /** Instante (System.currentTimeMillis) da última escrita no arquivo ativo. */
+    private volatile long lastAppendMillis = System.currentTimeMillis();
+
+    /**
+     * @param journalPath caminho do arquivo de diário (ex: data/books.journal)
+     * @param type classe da entidade, usada para desserializar os registros
+     * @param idOf função que extrai o ID único da entidade
+     * @param codec codec compartilhado com os readers/writers da entidade
+     */
+    public MutationJournal(Path journalPath, Class<T> type, ToIntFunction<T> idOf, PersistenceCodec codec) {
+        this.journalPath = journalPath;
+        this.idOf = idOf;
+        this.codec = codec;
+        this.entityReader = codec.entityReader(type);
+        this.entityWriter = codec.entityWriter(type);
+    }
+
+    /**
+     * Acrescenta um registro ao final do diário.
+     * @param operation operação realizada
+     * @param entity entidade alterada (para REMOVE apenas o ID é gravado)
+     */
+    public synchronized void append(Operation operation, T entity) throws IOException {
+        appendAll(List.of(new Entry<>(operation, entity)));
+    }
+
+    /**
+     * Acrescenta vários registros com uma única escrita no arquivo.
+     * @param entries alterações, na ordem em que devem ser reaplicadas
+     */
+    public synchronized void appendAll(List<Entry<T>> entries) throws IOException {
+        List<EncodedEntry> encoded = new ArrayList<>(entries.size());
+        for (Entry<T> entry : entries) {
+            encoded.add(encode(entry.operation(), entry.entity()));
+        }
+        appendEncoded(encoded);
+    }
+
+    /**
+     * Serializa a entidade de uma alteração, para gravar depois com {@link #appendEncoded}.
+     * @param entity entidade alterada (para REMOVE apenas o ID é guardado)
+     */
+    public EncodedEntry encode(Operation operation, T entity) throws IOException {
+        String json = operation == Operation.REMOVE ? null : entityWriter.writeValueAsString(entity);
+        return new EncodedEntry(operation, idOf.applyAsInt(entity), json);
+    }
+
+    /**
+     * Acrescenta alterações já serializadas com uma única escrita no arquivo.
+     * @param entries alterações, na ordem em que devem ser reaplicadas
+     */
+    public synchronized void appendEncoded(List<EncodedEntry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        StringWriter lines = new StringWriter();
+        for (EncodedEntry entry : entries) {
+            // Escreve o registro numa única passada, sem montar uma árvore intermediária
+            try (JsonGenerator generator = codec.mapper().getFactory().createGenerator(lines)) {
+                generator.writeStartObject();
+                generator.writeStringField("op", entry.operation().name());
+                generator.writeNumberField("id", entry.id());
+                if (entry.operation() != Operation.REMOVE) {
+                    generator.writeFieldName("entity");
+                    generator.writeRawValue(entry.entityJson());
+                }
+                generator.writeEndObject();
+            }
+            lines.write('\n');
+        }
+        byte[] bytes = lines.toString().getBytes(StandardCharsets.UTF_8);
+        Files.write(journalPath, bytes, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        entryCount += entries.size();
+        sizeBytes += bytes.length;
+        lastAppendMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Lê as alterações do diário: primeiro os segmentos selados (em ordem), depois o arquivo ativo.
+     * Para cada ID fica apenas a última alteração, na posição da primeira vez em que o ID apareceu.
+     * Como ADD/UPDATE substituem a entidade pelo ID e REMOVE a descarta, aplicar um
+     * registro já refletido no snapshot não altera o resultado.
+     *
+     * @param changes mapa ID -> última alteração, atualizado no lugar
+     * @return quantidade de registros lidos
+     */
+    public synchronized int collectChanges(Map<Integer, Entry<T>> changes) throws IOException {
+        int read = 0;
+        for (Path segment : sealedSegments()) {
+            read += collectFile(segment, changes);
+        }
+        entryCount = collectFile(journalPath, changes);
+        sizeBytes = Files.isRegularFile(journalPath) ? Files.size(journalPath) : 0;
+        return read + entryCount;
+    }
+
+    /**
+     * Lê um único arquivo de diário (ativo ou segmento) para o mapa de alterações.
+     * Uma linha inválida (ex: última linha truncada por queda durante a escrita) é ignorada.
+     */
+    int collectFile(Path file, Map<Integer, Entry<T>> changes) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return 0;
+        }
+        int read = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) continue;
+                JsonNode record;
+                try {
+                    record = codec.mapper().readTree(line);
+                } catch (IOException e) {
+                    System.err.println("Registro inválido ignorado em " + file + " (linha " + lineNumber + "): " + e.getMessage());
+                    continue;
+                }
+                Operation operation = Operation.valueOf(record.get("op").asText());
+                int id = record.get("id").asInt();
+                T entity = operation == Operation.REMOVE ? null : entityReader.readValue(record.get("entity"));
+                changes.put(id, new Entry<>(operation, entity));
+                read++;
+            }
+        }
+        return read;
+    }
+
+    /**
+     * Sela o arquivo ativo como um novo segmento numerado.
+     * É uma operação O(1) (apenas renomeia o arquivo); as próximas escritas criam um arquivo ativo novo.
+     * @return true se havia registros para selar
+     */
+    public synchronized boolean rotate() throws IOException {
+        if (!Files.isRegularFile(journalPath) || Files.size(journalPath) == 0) {
+            return false;
+        }
+        List<Path> segments = sealedSegments();
+        int nextSequence = segments.isEmpty() ? 1 : segmentSequence(segments.get(segments.size() - 1)) + 1;
+        Path segment = journalPath.resolveSibling(journalPath.getFileName() + "." + nextSequence);
+        Files.move(journalPath, segment, StandardCopyOption.ATOMIC_MOVE);
+        entryCount = 0;
+        sizeBytes = 0;
+        return true;
+    }
+
+    /**
+     * Lista os segmentos selados ainda não incorporados ao snapshot, em ordem de criação.
+     */
+    public List<Path> sealedSegments() throws IOException {
+        Path directory = journalPath.toAbsolutePath().getParent();
+        String prefix = journalPath.getFileName() + ".";
+        if (directory == null || !Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(f -> isSegmentName(f.getFileName().toString(), prefix))
+                    .sorted(Comparator.comparingInt(MutationJournal::segmentSequence))
+                    .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        }
+    }
+
+    private static boolean isSegmentName(String name, String prefix) {
+        return name.length() > prefix.length() && name.startsWith(prefix)
+                && name.substring(prefix.length()).chars().allMatch(Character::isDigit);
+    }
+
+    private static int segmentSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(name.lastIndexOf('.') + 1));
+    }
+
+    /** Descarta todos os registros, ativos e selados (chamado depois que um snapshot completo foi gravado). */
+    public synchronized void clear() throws IOException {
+        for (Path segment : sealedSegments()) {
+            Files.deleteIfExists(segment);
+        }
+        Files.deleteIfExists(journalPath);
+        entryCount = 0;
+        sizeBytes = 0;
+    }
+
+    public Path getJournalPath()          { return journalPath; }
+    public synchronized int getEntryCount() { return entryCount; }
+    public synchronized long getSizeBytes() { return sizeBytes; }
+    public long getLastAppendMillis()     { return lastAppendMillis; }
+}
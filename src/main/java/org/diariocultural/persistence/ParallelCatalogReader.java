@@ -0,0 +1,184 @@
+package org.diariocultural.persistence;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Leitor paralelo para o snapshot monolítico do formato antigo (data/&lt;nome&gt;.json),
+ * que pode ter centenas de MB e é lido uma única vez, na migração para shards.
+ * Uma varredura rápida dos bytes encontra os limites de cada elemento do array de
+ * nível superior; os elementos são então divididos em blocos desserializados em
+ * paralelo no {@link ForkJoinPool} comum.
+ * Os resultados são entregues ao consumidor na ordem original do arquivo, numa única thread.
+ * <p>
+ * Diferente do {@link CatalogStreamReader}, o arquivo inteiro fica em memória durante
+ * a leitura, por isso só vale a pena acima de {@link #parallelThresholdBytes()}.
+ */
+public final class ParallelCatalogReader {
+
+    /** Tamanho mínimo padrão (16 MB) para usar a leitura paralela. */
+    public static final long DEFAULT_PARALLEL_THRESHOLD_BYTES = 16L * 1024 * 1024;
+    /** Blocos por thread: ajuda a equilibrar blocos com elementos de tamanhos diferentes. */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private ParallelCatalogReader() { }
+
+    /**
+     * @return tamanho a partir do qual a leitura paralela é usada
+     *         (propriedade de sistema diario.load.parallelThresholdBytes)
+     */
+    public static long parallelThresholdBytes() {
+        return Long.getLong("diario.load.parallelThresholdBytes", DEFAULT_PARALLEL_THRESHOLD_BYTES);
+    }
+
+    /** @return true se o arquivo é grande o bastante e há mais de um núcleo disponível */
+    public static boolean shouldUse(Path file) throws IOException {
+        return ForkJoinPool.getCommonPoolParallelism() > 1 && Files.size(file) >= parallelThresholdBytes();
+    }
+
+    /**
+     * Lê um arquivo com um array JSON de entidades em paralelo.
+     * @param file arquivo de snapshot
+     * @param entityReader reader de uma única entidade (thread-safe)
+     * @param sink recebe cada entidade, na ordem do arquivo, na thread de quem chamou
+     * @return quantidade de entidades lidas
+     */
+    public static <T> int read(Path file, ObjectReader entityReader, Consumer<T> sink) throws IOException {
+        byte[] json = Files.readAllBytes(file);
+        int[] bounds = elementBounds(json, file);
+        int elementCount = bounds.length / 2;
+        if (elementCount == 0) {
+            return 0;
+        }
+        int chunkCount = Math.min(elementCount, Math.max(1, ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_THREAD));
+        int chunkSize = (elementCount + chunkCount - 1) / chunkCount;
+
+        List<List<T>> chunks;
+        try {
+            // A stream paralela roda no ForkJoinPool comum e preserva a ordem dos blocos no toList()
+            chunks = IntStream.range(0, chunkCount).parallel()
+                    .mapToObj(chunk -> ParallelCatalogReader.<T>parseChunk(json, bounds, entityReader,
+                            chunk * chunkSize, Math.min(elementCount, (chunk + 1) * chunkSize)))
+                    .toList();
+        } catch (UncheckedIOException e) {
+            throw new IOException("Erro ao desserializar " + file + ": " + e.getCause().getMessage(), e.getCause());
+        }
+        int count = 0;
+        for (List<T> chunk : chunks) {
+            for (T entity : chunk) {
+                sink.accept(entity);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Desserializa os elementos [from, to) com um único parser: o trecho do arquivo que
+     * os contém é copiado entre colchetes, formando um array JSON válido (criar um
+     * parser por elemento custaria mais do que a própria leitura).
+     */
+    private static <T> List<T> parseChunk(byte[] json, int[] bounds, ObjectReader entityReader, int from, int to) {
+        List<T> entities = new ArrayList<>(Math.max(0, to - from));
+        int start = bounds[2 * from];
+        int end = bounds[2 * (to - 1) + 1];
+        byte[] chunk = new byte[end - start + 2];
+        chunk[0] = '[';
+        System.arraycopy(json, start, chunk, 1, end - start);
+        chunk[chunk.length - 1] = ']';
+        try (JsonParser parser = entityReader.createParser(chunk)) {
+            parser.nextToken(); // START_ARRAY
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new IOException("Fim inesperado de um bloco após " + entities.size() + " entidades");
+                }
+                if (token != JsonToken.VALUE_NULL) {
+                    entities.add(entityReader.readValue(parser));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return entities;
+    }
+
+    /**
+     * Varre o array de nível superior e devolve os limites [início, fim) de cada elemento,
+     * intercalados (início0, fim0, início1, fim1, ...). Leva em conta strings e escapes,
+     * para que chaves e vírgulas dentro de textos não sejam confundidas com a estrutura.
+     */
+    static int[] elementBounds(byte[] json, Path file) throws IOException {
+        int position = skipWhitespace(json, 0);
+        if (position >= json.length) {
+            return new int[0];
+        }
+        if (json[position] != '[') {
+            throw new IOException("Esperado um array JSON em " + file + " (posição " + position + ")");
+        }
+        int[] bounds = new int[64];
+        int count = 0;
+        position++;
+        while (true) {
+            position = skipWhitespace(json, position);
+            if (position >= json.length) {
+                throw new IOException("Fim inesperado do arquivo " + file);
+            }
+            if (json[position] == ']') {
+                break;
+            }
+            int start = position;
+            int depth = 0;
+            boolean inString = false;
+            for (; position < json.length; position++) {
+                byte b = json[position];
+                if (inString) {
+                    if (b == '\\') position++;
+                    else if (b == '"') inString = false;
+                } else if (b == '"') {
+                    inString = true;
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    if (depth == 0) break; // ']' que fecha o array principal
+                    depth--;
+                } else if (b == ',' && depth == 0) {
+                    break;
+                }
+            }
+            if (position >= json.length) {
+                throw new IOException("Fim inesperado do arquivo " + file + " dentro de um elemento");
+            }
+            if (count * 2 + 2 > bounds.length) {
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            }
+            bounds[count * 2] = start;
+            bounds[count * 2 + 1] = position;
+            count++;
+            if (json[position] == ',') {
+                position++;
+            }
+        }
+        return Arrays.copyOf(bounds, count * 2);
+    }
+
+    private static int skipWhitespace(byte[] json, int position) {
+        while (position < json.length && (json[position] == ' ' || json[position] == '\n'
+                || json[position] == '\r' || json[position] == '\t')) {
+            position++;
+        }
+        return position;
+    }
+}
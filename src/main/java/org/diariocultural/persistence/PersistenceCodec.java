@@ -0,0 +1,108 @@
+package org.diariocultural.persistence;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.diariocultural.Book;
+import org.diariocultural.Movie;
+import org.diariocultural.Series;
+import org.diariocultural.persistence.codec.StreamingCodecModule;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Componente único de serialização JSON compartilhado por todos os catálogos.
+ * Mantém um {@link ObjectMapper} configurado uma só vez e, para cada tipo de
+ * entidade, {@link ObjectReader}/{@link ObjectWriter} imutáveis e pré-construídos.
+ * Como readers/writers são thread-safe e guardam os (de)serializadores já
+ * resolvidos, salvar não reconstrói mais os caches do Jackson a cada vez.
+ * <p>
+ * As classes do modelo são (de)serializadas pelos codecs de streaming do
+ * {@link StreamingCodecModule}, sem reflexão e sem os campos derivados.
+ */
+public final class PersistenceCodec {
+
+    private static final PersistenceCodec SHARED = new PersistenceCodec();
+
+    /** Readers/writers pré-construídos de um tipo de entidade. */
+    private record TypeCodecs(ObjectReader entityReader, ObjectReader listReader,
+                              ObjectWriter entityWriter, ObjectWriter elementWriter, ObjectWriter snapshotWriter) { }
+
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, TypeCodecs> codecs = new ConcurrentHashMap<>();
+
+    private PersistenceCodec() {
+        this.objectMapper = new ObjectMapper();
+        this.objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.objectMapper.registerModule(new StreamingCodecModule());
+        // Os tipos do catálogo são registrados de imediato; outros tipos são criados sob demanda
+        codecsFor(Book.class);
+        codecsFor(Movie.class);
+        codecsFor(Series.class);
+    }
+
+    /** @return a instância compartilhada por todos os controladores */
+    public static PersistenceCodec shared() {
+        return SHARED;
+    }
+
+    private TypeCodecs codecsFor(Class<?> type) {
+        return codecs.computeIfAbsent(type, t -> {
+            JavaType listType = objectMapper.getTypeFactory().constructCollectionType(List.class, t);
+            return new TypeCodecs(
+                    objectMapper.readerFor(t),
+                    objectMapper.readerFor(listType),
+                    objectMapper.writerFor(t),
+                    objectMapper.writerFor(t).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE),
+                    objectMapper.writerFor(listType).with(SerializationFeature.INDENT_OUTPUT));
+        });
+    }
+
+    /** Reader de uma única entidade (ex: registro do diário). */
+    public ObjectReader entityReader(Class<?> type)   { return codecsFor(type).entityReader(); }
+    /** Reader de uma lista de entidades (snapshot completo). */
+    public ObjectReader listReader(Class<?> type)     { return codecsFor(type).listReader(); }
+    /** Writer compacto (uma linha) de uma única entidade. */
+    public ObjectWriter entityWriter(Class<?> type)   { return codecsFor(type).entityWriter(); }
+    /** Writer de uma entidade dentro de um gerador já aberto (não força flush a cada item). */
+    public ObjectWriter elementWriter(Class<?> type)  { return codecsFor(type).elementWriter(); }
+    /** Writer indentado de uma lista de entidades, no formato dos arquivos data/*.json. */
+    public ObjectWriter snapshotWriter(Class<?> type) { return codecsFor(type).snapshotWriter(); }
+
+    /**
+     * Cria um gerador para gravar um snapshot item a item, com a mesma indentação
+     * de {@link #snapshotWriter}. Os itens devem ser escritos com {@link #elementWriter}.
+     */
+    public JsonGenerator createSnapshotGenerator(OutputStream out) throws IOException {
+        return objectMapper.getFactory().createGenerator(out).useDefaultPrettyPrinter();
+    }
+
+    /** Mapper base, usado apenas para ler/criar nós genéricos (ex: cabeçalho dos registros do diário). */
+    public ObjectMapper mapper() { return objectMapper; }
+
+    /**
+     * Aquece os (de)serializadores de todos os tipos registrados, para que o
+     * primeiro salvamento/carregamento não pague o custo de introspecção.
+     * Usa apenas os construtores de desserialização, sem afetar os contadores de ID.
+     */
+    public void warmUp() {
+        for (Class<?> type : codecs.keySet()) {
+            try {
+                Object sample = entityReader(type).readValue("{}");
+                entityWriter(type).writeValueAsString(sample);
+                snapshotWriter(type).writeValueAsString(List.of(sample));
+                listReader(type).readValue("[{}]");
+            } catch (IOException e) {
+                System.err.println("Falha ao aquecer o codec de " + type.getSimpleName() + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.diariocultural.persistence;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Manifesto de um catálogo dividido em shards por faixa de ID (ex: data/books/manifest.json).
+ * O shard de uma entidade é {@code id / shardSize}; cada shard é um arquivo JSON
+ * próprio (ex: shard-000003.json) no mesmo formato de array dos antigos data/*.json.
+ * <p>
+ * Percorrer os shards em ordem crescente mantém a ordem do catálogo, já que os IDs
+ * são atribuídos em ordem crescente. O manifesto é sempre regravado depois dos
+ * shards, de forma atômica.
+ */
+public final class ShardManifest {
+
+    private static final int VERSION = 1;
+    static final String FILE_NAME = "manifest.json";
+
+    private final int shardSize;
+    /** Quantidade de entidades por shard, em ordem de shard. */
+    private final NavigableMap<Integer, Integer> counts = new TreeMap<>();
+
+    public ShardManifest(int shardSize) {
+        if (shardSize <= 0) {
+            throw new IllegalArgumentException("Tamanho de shard inválido: " + shardSize);
+        }
+        this.shardSize = shardSize;
+    }
+
+    /** @return shard de uma entidade com o ID informado */
+    public int shardOf(int id) {
+        return Math.floorDiv(id, shardSize);
+    }
+
+    /** @return nome do arquivo JSON de um shard (a cópia binária troca .json por .bin) */
+    public static String fileName(int shard, String extension) {
+        return String.format("shard-%06d.%s", shard, extension);
+    }
+
+    public int getShardSize() {
+        return shardSize;
+    }
+
+    /** @return shards existentes e quantas entidades cada um tem (somente leitura) */
+    public NavigableMap<Integer, Integer> getCounts() {
+        return Collections.unmodifiableNavigableMap(counts);
+    }
+
+    /** Registra a quantidade de entidades de um shard; zero remove o shard do manifesto. */
+    public void setCount(int shard, int count) {
+        if (count > 0) {
+            counts.put(shard, count);
+        } else {
+            counts.remove(shard);
+        }
+    }
+
+    /** @return total de entidades no catálogo */
+    public int totalCount() {
+        int total = 0;
+        for (int count : counts.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Lê um manifesto.
+     * @return o manifesto, ou null se o arquivo não existir
+     */
+    public static ShardManifest read(Path path, ObjectMapper mapper) throws IOException {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        JsonNode root = mapper.readTree(path.toFile());
+        if (root.path("version").asInt() != VERSION) {
+            throw new IOException("Versão de manifesto não suportada em " + path + ": " + root.path("version"));
+        }
+        ShardManifest manifest = new ShardManifest(root.path("shardSize").asInt());
+        for (JsonNode shard : root.path("shards")) {
+            manifest.setCount(shard.path("shard").asInt(), shard.path("count").asInt());
+        }
+        return manifest;
+    }
+
+    /** Grava o manifesto num arquivo temporário e o move atomicamente para o lugar do antigo. */
+    public void write(Path path, ObjectMapper mapper) throws IOException {
+        ObjectNode root = mapper.createObjectNode();
+        root.put("version", VERSION);
+        root.put("shardSize", shardSize);
+        ArrayNode shards = root.putArray("shards");
+        counts.forEach((shard, count) -> shards.addObject()
+                .put("shard", shard)
+                .put("file", fileName(shard, "json"))
+                .put("count", count));
+        Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+        mapper.writerWithDefaultPrettyPrinter().writeValue(tempPath.toFile(), root);
+        Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,184 @@
+package org.diariocultural.persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Persistência "write-behind" para um catálogo: as mutações apenas marcam o
+ * catálogo como sujo e ficam pendentes em memória; uma thread de fundo grava
+ * tudo de uma vez no {@link MediaRepository} no máximo {@code maxDelayMillis}
+ * depois da primeira alteração pendente.
+ * <p>
+ * Rajadas de alterações na mesma entidade são fundidas num único registro
+ * (ex: ADD seguido de UPDATE grava só um ADD com o estado final; ADD seguido
+ * de REMOVE não grava nada). Cada alteração serializa a entidade na hora em que
+ * é registrada, então mudanças posteriores (ainda não registradas) não chegam
+ * pela metade à thread de fundo, que só grava o JSON pronto. Se a gravação
+ * falhar, o lote volta para as pendentes (sob as alterações mais novas) e é
+ * gravado de novo no próximo flush.
+ *
+ * @param <T> tipo da entidade persistida
+ */
+public class WriteBehindPersister<T> {
+
+    /** Atraso padrão entre a primeira alteração pendente e a gravação. */
+    public static final long DEFAULT_MAX_DELAY_MILLIS = 500;
+
+    private final MediaRepository<T> repository;
+    private final ToIntFunction<T> idOf;
+    private final long maxDelayMillis;
+    private final ScheduledExecutorService scheduler;
+
+    /** Alterações pendentes por ID, na ordem da primeira alteração de cada entidade. */
+    private final Map<Integer, MutationJournal.EncodedEntry> pending = new LinkedHashMap<>();
+    /** Indica que há alterações pendentes e um flush já foi agendado. */
+    private boolean dirty;
+    /** Garante que flushes (agendados ou explícitos) gravem os lotes na ordem. */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * @param repository repositório onde os lotes são gravados
+     * @param name nome usado na thread de fundo (ex: "books")
+     * @param maxDelayMillis atraso máximo entre uma alteração e sua gravação
+     */
+    public WriteBehindPersister(MediaRepository<T> repository, String name, long maxDelayMillis) {
+        this.repository = repository;
+        this.idOf = repository.getIdFunction();
+        this.maxDelayMillis = maxDelayMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "write-behind-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Lê o atraso máximo da propriedade de sistema diario.writeBehind.maxDelayMillis. */
+    public static long maxDelayFromSystemProperties() {
+        return Long.getLong("diario.writeBehind.maxDelayMillis", DEFAULT_MAX_DELAY_MILLIS);
+    }
+
+    public void recordAdd(T entity)    { enqueue(MutationJournal.Operation.ADD, entity); }
+    public void recordUpdate(T entity) { enqueue(MutationJournal.Operation.UPDATE, entity); }
+    public void recordRemove(T entity) { enqueue(MutationJournal.Operation.REMOVE, entity); }
+
+    private void enqueue(MutationJournal.Operation operation, T entity) {
+        boolean scheduled = true;
+        synchronized (this) {
+            MutationJournal.EncodedEntry entry;
+            try {
+                entry = repository.encode(operation, entity);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Erro ao serializar a entidade " + idOf.applyAsInt(entity), e);
+            }
+            pendNewer(entry);
+            if (!pending.isEmpty() && (!dirty || scheduler.isShutdown())) {
+                scheduled = scheduleFlush();
+            }
+        }
+        if (!scheduled) {
+            flush(); // Depois do shutdown as alterações são gravadas de forma síncrona
+        }
+    }
+
+    /** Funde uma alteração mais nova com a pendente da mesma entidade. */
+    private void pendNewer(MutationJournal.EncodedEntry entry) {
+        MutationJournal.EncodedEntry previous = pending.get(entry.id());
+        MutationJournal.Operation merged = merge(previous == null ? null : previous.operation(), entry.operation());
+        if (merged == null) {
+            pending.remove(entry.id());
+        } else {
+            pending.put(entry.id(), entry.withOperation(merged));
+        }
+    }
+
+    /** @return false se a thread de fundo já foi encerrada */
+    private boolean scheduleFlush() {
+        dirty = true;
+        try {
+            scheduler.schedule(this::flush, maxDelayMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Funde a operação pendente com a nova.
+     * @return operação resultante, ou null se as duas se anulam
+     */
+    private static MutationJournal.Operation merge(MutationJournal.Operation previous, MutationJournal.Operation next) {
+        if (previous == MutationJournal.Operation.ADD) {
+            // A entidade ainda não chegou ao disco: continua sendo uma adição, ou some de vez
+            return next == MutationJournal.Operation.REMOVE ? null : MutationJournal.Operation.ADD;
+        }
+        return next;
+    }
+
+    /**
+     * Grava imediatamente todas as alterações pendentes, na thread de quem chamou.
+     * Pode ser chamado a qualquer momento (ex: ao fechar a aplicação).
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<MutationJournal.EncodedEntry> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    dirty = false;
+                    return;
+                }
+                batch = new ArrayList<>(pending.values());
+                pending.clear();
+                dirty = false;
+            }
+            try {
+                repository.appendEncoded(batch);
+            } catch (IOException e) {
+                System.err.println("Erro ao gravar alterações em " + repository.getJournalPath() + ": " + e.getMessage());
+                e.printStackTrace();
+                restore(batch);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Devolve um lote que não foi gravado às pendentes, antes das alterações que
+     * chegaram durante a tentativa, e agenda outra gravação.
+     */
+    private synchronized void restore(List<MutationJournal.EncodedEntry> batch) {
+        List<MutationJournal.EncodedEntry> newer = new ArrayList<>(pending.values());
+        pending.clear();
+        for (MutationJournal.EncodedEntry entry : batch) {
+            pending.put(entry.id(), entry);
+        }
+        for (MutationJournal.EncodedEntry entry : newer) {
+            pendNewer(entry);
+        }
+        if (!pending.isEmpty() && !dirty) {
+            scheduleFlush();
+        }
+    }
+
+    /** @return true se há alterações ainda não gravadas */
+    public synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    /** Grava o que estiver pendente e encerra a thread de fundo. */
+    public void shutdown() {
+        scheduler.shutdown();
+        flush();
+    }
+}
@@ -0,0 +1,21 @@
+package org.diariocultural.persistence.codec;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Codificação binária compacta de um tipo do modelo, usada nos registros do
+ * snapshot binário. Inteiros são big-endian (como {@link DataOutput}), strings
+ * são gravadas como tamanho em bytes UTF-8 seguido dos bytes (-1 para null).
+ *
+ * @param <T> tipo codificado
+ */
+public interface BinaryCodec<T> {
+
+    /** Grava o valor (não nulo) na saída. */
+    void write(DataOutput out, T value) throws IOException;
+
+    /** Lê um valor a partir da posição atual do buffer, avançando-o. */
+    T read(ByteBuffer in);
+}
@@ -0,0 +1,235 @@
+package org.diariocultural.persistence.codec;
+
+import org.diariocultural.Book;
+import org.diariocultural.Movie;
+import org.diariocultural.Review;
+import org.diariocultural.ReviewInfo;
+import org.diariocultural.Season;
+import org.diariocultural.Series;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Codecs binários de {@link Book}, {@link Movie} e {@link Series} (com as
+ * temporadas e avaliações aninhadas). Gravam os mesmos campos dos codecs de
+ * streaming JSON, na ordem fixa em que aparecem aqui, sem nomes de campo.
+ */
+public final class BinaryModelCodecs {
+
+    public static final BinaryCodec<Book> BOOK = new BinaryCodec<>() {
+        @Override
+        public void write(DataOutput out, Book book) throws IOException {
+            writeString(out, book.getTitle());
+            writeStringList(out, book.getGenre());
+            out.writeInt(book.getReleaseYear());
+            out.writeInt(book.getBookId());
+            writeString(out, book.getOriginalTitle());
+            writeString(out, book.getAuthor());
+            writeString(out, book.getPublisher());
+            writeString(out, book.getISBN());
+            out.writeBoolean(book.hasCopy());
+            out.writeBoolean(book.isReadStatus());
+            writeDate(out, book.getReadDate());
+            writeReviewInfo(out, book.getReviewInfo());
+        }
+
+        @Override
+        public Book read(ByteBuffer in) {
+            return new Book(readString(in), readStringList(in), in.getInt(), in.getInt(), readString(in),
+                    readString(in), readString(in), readString(in), readBoolean(in), readBoolean(in),
+                    readDate(in), readReviewInfo(in));
+        }
+    };
+
+    public static final BinaryCodec<Movie> MOVIE = new BinaryCodec<>() {
+        @Override
+        public void write(DataOutput out, Movie movie) throws IOException {
+            writeString(out, movie.getTitle());
+            writeStringList(out, movie.getGenre());
+            out.writeInt(movie.getReleaseYear());
+            out.writeInt(movie.getMovieId());
+            writeString(out, movie.getOriginalTitle());
+            out.writeInt(movie.getDuration());
+            writeString(out, movie.getDirector());
+            writeString(out, movie.getSynopsis());
+            writeStringList(out, movie.getCast());
+            writeStringList(out, movie.getWhereToWatch());
+            out.writeBoolean(movie.isWatchedStatus());
+            writeDate(out, movie.getWatchDate());
+            writeReviewInfo(out, movie.getReviewInfo());
+        }
+
+        @Override
+        public Movie read(ByteBuffer in) {
+            return new Movie(readString(in), readStringList(in), in.getInt(), in.getInt(), readString(in),
+                    in.getInt(), readString(in), readString(in), readStringList(in), readStringList(in),
+                    readBoolean(in), readDate(in), readReviewInfo(in));
+        }
+    };
+
+    public static final BinaryCodec<Series> SERIES = new BinaryCodec<>() {
+        @Override
+        public void write(DataOutput out, Series series) throws IOException {
+            writeString(out, series.getTitle());
+            writeStringList(out, series.getGenre());
+            out.writeInt(series.getReleaseYear());
+            out.writeInt(series.getSeriesId());
+            writeString(out, series.getOriginalTitle());
+            writeString(out, series.getCreator());
+            out.writeInt(series.getEndYear());
+            writeStringList(out, series.getWhereToWatch());
+            writeStringList(out, series.getCast());
+            List<Season> seasons = series.getSeasons();
+            out.writeInt(seasons == null ? -1 : seasons.size());
+            if (seasons != null) {
+                for (Season season : seasons) {
+                    writeSeason(out, season);
+                }
+            }
+            out.writeBoolean(series.isWatchedStatus());
+        }
+
+        @Override
+        public Series read(ByteBuffer in) {
+            String title = readString(in);
+            List<String> genre = readStringList(in);
+            int releaseYear = in.getInt();
+            int seriesId = in.getInt();
+            String originalTitle = readString(in);
+            String creator = readString(in);
+            int endYear = in.getInt();
+            List<String> whereToWatch = readStringList(in);
+            List<String> cast = readStringList(in);
+            int seasonCount = in.getInt();
+            List<Season> seasons = null;
+            if (seasonCount >= 0) {
+                seasons = new ArrayList<>(seasonCount);
+                for (int i = 0; i < seasonCount; i++) {
+                    seasons.add(readSeason(in));
+                }
+            }
+            return new Series(title, genre, releaseYear, seriesId, originalTitle, creator, endYear,
+                    whereToWatch, cast, seasons, readBoolean(in));
+        }
+    };
+
+    private BinaryModelCodecs() { }
+
+    /**
+     * @return codec binário do tipo, ou null se o tipo não tiver formato binário
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BinaryCodec<T> forType(Class<T> type) {
+        if (type == Book.class) return (BinaryCodec<T>) BOOK;
+        if (type == Movie.class) return (BinaryCodec<T>) MOVIE;
+        if (type == Series.class) return (BinaryCodec<T>) SERIES;
+        return null;
+    }
+
+    private static void writeSeason(DataOutput out, Season season) throws IOException {
+        out.writeInt(season.getSeasonNumber());
+        out.writeInt(season.getEpisodes());
+        out.writeInt(season.getReleaseYear());
+        writeStringList(out, season.getCast());
+        writeReviewInfo(out, season.getReviewInfo());
+    }
+
+    private static Season readSeason(ByteBuffer in) {
+        return new Season(in.getInt(), in.getInt(), in.getInt(), readStringList(in), readReviewInfo(in));
+    }
+
+    /** Assim como no JSON, só a lista de avaliações é gravada; os totais são recalculados. */
+    private static void writeReviewInfo(DataOutput out, ReviewInfo reviewInfo) throws IOException {
+        List<Review> reviews = reviewInfo == null ? null : reviewInfo.getReviews();
+        out.writeInt(reviewInfo == null ? -1 : reviews == null ? 0 : reviews.size());
+        if (reviews != null) {
+            for (Review review : reviews) {
+                out.writeInt(review.rating());
+                writeString(out, review.comment());
+                writeDate(out, review.reviewDate());
+            }
+        }
+    }
+
+    private static ReviewInfo readReviewInfo(ByteBuffer in) {
+        int count = in.getInt();
+        if (count < 0) {
+            return null;
+        }
+        List<Review> reviews = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            reviews.add(new Review(in.getInt(), readString(in), readDate(in)));
+        }
+        ReviewInfo reviewInfo = new ReviewInfo();
+        reviewInfo.setReviews(reviews);
+        return reviewInfo;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value;
+        if (in.hasArray()) {
+            value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+        } else {
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    private static void writeStringList(DataOutput out, List<String> values) throws IOException {
+        out.writeInt(values == null ? -1 : values.size());
+        if (values != null) {
+            for (String value : values) {
+                writeString(out, value);
+            }
+        }
+    }
+
+    private static List<String> readStringList(ByteBuffer in) {
+        int count = in.getInt();
+        if (count < 0) {
+            return null;
+        }
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    /** Datas como timestamp em ms; Long.MIN_VALUE representa null. */
+    private static void writeDate(DataOutput out, Date date) throws IOException {
+        out.writeLong(date == null ? Long.MIN_VALUE : date.getTime());
+    }
+
+    private static Date readDate(ByteBuffer in) {
+        long time = in.getLong();
+        return time == Long.MIN_VALUE ? null : new Date(time);
+    }
+
+    private static boolean readBoolean(ByteBuffer in) {
+        return in.get() != 0;
+    }
+}
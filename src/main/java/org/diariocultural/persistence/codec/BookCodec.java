@@ -0,0 +1,74 @@
+package org.diariocultural.persistence.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import org.diariocultural.Book;
+import org.diariocultural.ReviewInfo;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+
+import static org.diariocultural.persistence.codec.CodecSupport.*;
+
+/**
+ * Codec de {@link Book}. Usa os mesmos nomes de campo de data/books.json
+ * (incluindo "isbn" e "bookId") e passa a gravar "hasCopy", que o databind
+ * não enxergava por causa do nome do getter.
+ */
+public final class BookCodec implements StreamingCodec<Book> {
+
+    public static final BookCodec INSTANCE = new BookCodec();
+
+    private BookCodec() { }
+
+    @Override
+    public void write(JsonGenerator generator, Book book) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("title", book.getTitle());
+        writeStringList(generator, "genre", book.getGenre());
+        generator.writeNumberField("releaseYear", book.getReleaseYear());
+        generator.writeNumberField("bookId", book.getBookId());
+        generator.writeStringField("originalTitle", book.getOriginalTitle());
+        generator.writeStringField("author", book.getAuthor());
+        generator.writeStringField("publisher", book.getPublisher());
+        generator.writeStringField("isbn", book.getISBN());
+        generator.writeBooleanField("hasCopy", book.hasCopy());
+        generator.writeBooleanField("readStatus", book.isReadStatus());
+        writeDate(generator, "readDate", book.getReadDate());
+        generator.writeFieldName("reviewInfo");
+        ReviewInfoCodec.INSTANCE.write(generator, book.getReviewInfo());
+        generator.writeEndObject();
+    }
+
+    @Override
+    public Book read(JsonParser parser) throws IOException {
+        if (!enterObject(parser)) return null;
+        String title = null, originalTitle = null, author = null, publisher = null, isbn = null;
+        List<String> genre = null;
+        int releaseYear = 0, bookId = 0;
+        boolean hasCopy = false, readStatus = false;
+        Date readDate = null;
+        ReviewInfo reviewInfo = null;
+        String field;
+        while ((field = nextField(parser)) != null) {
+            switch (field) {
+                case "title" -> title = readString(parser);
+                case "genre" -> genre = readStringList(parser);
+                case "releaseYear" -> releaseYear = readInt(parser);
+                case "bookId" -> bookId = readInt(parser);
+                case "originalTitle" -> originalTitle = readString(parser);
+                case "author" -> author = readString(parser);
+                case "publisher" -> publisher = readString(parser);
+                case "isbn" -> isbn = readString(parser);
+                case "hasCopy" -> hasCopy = readBoolean(parser);
+                case "readStatus" -> readStatus = readBoolean(parser);
+                case "readDate" -> readDate = readDate(parser);
+                case "reviewInfo" -> reviewInfo = ReviewInfoCodec.INSTANCE.read(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return new Book(title, genre, releaseYear, bookId, originalTitle, author, publisher, isbn,
+                hasCopy, readStatus, readDate, reviewInfo);
+    }
+}
@@ -0,0 +1,135 @@
+package org.diariocultural.persistence.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.StdDateFormat;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Funções auxiliares compartilhadas pelos codecs de streaming.
+ */
+final class CodecSupport {
+
+    private CodecSupport() { }
+
+    /**
+     * Posiciona o parser no início do objeto.
+     * @return false se o valor atual for null
+     */
+    static boolean enterObject(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == null) {
+            token = parser.nextToken();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return false;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new IOException("Esperado início de objeto JSON, encontrado " + token + " em " + parser.currentLocation());
+        }
+        return true;
+    }
+
+    /** Avança para o próximo campo do objeto atual; retorna null ao chegar no END_OBJECT. */
+    static String nextField(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.FIELD_NAME) {
+            return null;
+        }
+        String name = parser.currentName();
+        parser.nextToken(); // Posiciona no valor
+        return name;
+    }
+
+    static String readString(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+    }
+
+    static int readInt(JsonParser parser) throws IOException {
+        return parser.getValueAsInt(0);
+    }
+
+    static boolean readBoolean(JsonParser parser) throws IOException {
+        return parser.getValueAsBoolean(false);
+    }
+
+    /** Datas são gravadas como timestamp (ms), igual ao padrão do databind; strings ISO também são aceitas. */
+    static Date readDate(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT:
+                return new Date(parser.getLongValue());
+            case VALUE_STRING:
+                try {
+                    return new StdDateFormat().parse(parser.getText());
+                } catch (ParseException e) {
+                    throw new IOException("Data inválida: " + parser.getText(), e);
+                }
+            default:
+                return null;
+        }
+    }
+
+    static List<String> readStringList(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            values.add(readString(parser));
+        }
+        return values;
+    }
+
+    static <T> List<T> readList(JsonParser parser, StreamingCodec<T> elementCodec) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        List<T> values = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            values.add(elementCodec.read(parser));
+        }
+        return values;
+    }
+
+    static void writeDate(JsonGenerator generator, String name, Date date) throws IOException {
+        if (date == null) {
+            generator.writeNullField(name);
+        } else {
+            generator.writeNumberField(name, date.getTime());
+        }
+    }
+
+    static void writeStringList(JsonGenerator generator, String name, List<String> values) throws IOException {
+        generator.writeFieldName(name);
+        if (values == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartArray();
+        for (String value : values) {
+            generator.writeString(value);
+        }
+        generator.writeEndArray();
+    }
+
+    static <T> void writeList(JsonGenerator generator, String name, List<T> values, StreamingCodec<T> elementCodec) throws IOException {
+        generator.writeFieldName(name);
+        if (values == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartArray();
+        for (T value : values) {
+            if (value == null) generator.writeNull();
+            else elementCodec.write(generator, value);
+        }
+        generator.writeEndArray();
+    }
+}
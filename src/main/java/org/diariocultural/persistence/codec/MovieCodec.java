@@ -0,0 +1,72 @@
+package org.diariocultural.persistence.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import org.diariocultural.Movie;
+import org.diariocultural.ReviewInfo;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+
+import static org.diariocultural.persistence.codec.CodecSupport.*;
+
+/** Codec de {@link Movie}, com os mesmos nomes de campo de data/movies.json. */
+public final class MovieCodec implements StreamingCodec<Movie> {
+
+    public static final MovieCodec INSTANCE = new MovieCodec();
+
+    private MovieCodec() { }
+
+    @Override
+    public void write(JsonGenerator generator, Movie movie) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("title", movie.getTitle());
+        writeStringList(generator, "genre", movie.getGenre());
+        generator.writeNumberField("releaseYear", movie.getReleaseYear());
+        generator.writeNumberField("movieId", movie.getMovieId());
+        generator.writeStringField("originalTitle", movie.getOriginalTitle());
+        generator.writeNumberField("duration", movie.getDuration());
+        generator.writeStringField("director", movie.getDirector());
+        generator.writeStringField("synopsis", movie.getSynopsis());
+        writeStringList(generator, "cast", movie.getCast());
+        writeStringList(generator, "whereToWatch", movie.getWhereToWatch());
+        generator.writeBooleanField("watchedStatus", movie.isWatchedStatus());
+        writeDate(generator, "watchDate", movie.getWatchDate());
+        generator.writeFieldName("reviewInfo");
+        ReviewInfoCodec.INSTANCE.write(generator, movie.getReviewInfo());
+        generator.writeEndObject();
+    }
+
+    @Override
+    public Movie read(JsonParser parser) throws IOException {
+        if (!enterObject(parser)) return null;
+        String title = null, originalTitle = null, director = null, synopsis = null;
+        List<String> genre = null, cast = null, whereToWatch = null;
+        int releaseYear = 0, movieId = 0, duration = 0;
+        boolean watchedStatus = false;
+        Date watchDate = null;
+        ReviewInfo reviewInfo = null;
+        String field;
+        while ((field = nextField(parser)) != null) {
+            switch (field) {
+                case "title" -> title = readString(parser);
+                case "genre" -> genre = readStringList(parser);
+                case "releaseYear" -> releaseYear = readInt(parser);
+                case "movieId" -> movieId = readInt(parser);
+                case "originalTitle" -> originalTitle = readString(parser);
+                case "duration" -> duration = readInt(parser);
+                case "director" -> director = readString(parser);
+                case "synopsis" -> synopsis = readString(parser);
+                case "cast" -> cast = readStringList(parser);
+                case "whereToWatch" -> whereToWatch = readStringList(parser);
+                case "watchedStatus" -> watchedStatus = readBoolean(parser);
+                case "watchDate" -> watchDate = readDate(parser);
+                case "reviewInfo" -> reviewInfo = ReviewInfoCodec.INSTANCE.read(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return new Movie(title, genre, releaseYear, movieId, originalTitle, duration, director, synopsis,
+                cast, whereToWatch, watchedStatus, watchDate, reviewInfo);
+    }
+}
@@ -0,0 +1,45 @@
+package org.diariocultural.persistence.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import org.diariocultural.Review;
+
+import java.io.IOException;
+import java.util.Date;
+
+import static org.diariocultural.persistence.codec.CodecSupport.*;
+
+/** Codec de {@link Review}: rating, comment e reviewDate. */
+public final class ReviewCodec implements StreamingCodec<Review> {
+
+    public static final ReviewCodec INSTANCE = new ReviewCodec();
+
+    private ReviewCodec() { }
+
+    @Override
+    public void write(JsonGenerator generator, Review review) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("rating", review.rating());
+        generator.writeStringField("comment", review.comment());
+        writeDate(generator, "reviewDate", review.reviewDate());
+        generator.writeEndObject();
+    }
+
+    @Override
+    public Review read(JsonParser parser) throws IOException {
+        if (!enterObject(parser)) return null;
+        int rating = 0;
+        String comment = null;
+        Date reviewDate = null;
+        String field;
+        while ((field = nextField(parser)) != null) {
+            switch (field) {
+                case "rating" -> rating = readInt(parser);
+                case "comment" -> comment = readString(parser);
+                case "reviewDate" -> reviewDate = readDate(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return new Review(rating, comment, reviewDate);
+    }
+}
@@ -0,0 +1,45 @@
+package org.diariocultural.persistence.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import org.diariocultural.Review;
+import org.diariocultural.ReviewInfo;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.diariocultural.persistence.codec.CodecSupport.*;
+
+/**
+ * Codec de {@link ReviewInfo}. Grava apenas a lista de avaliações;
+ * reviewCount, averageRating e lastRating são derivados e ignorados na leitura.
+ */
+public final class ReviewInfoCodec implements StreamingCodec<ReviewInfo> {
+
+    public static final ReviewInfoCodec INSTANCE = new ReviewInfoCodec();
+
+    private ReviewInfoCodec() { }
+
+    @Override
+    public void write(JsonGenerator generator, ReviewInfo reviewInfo) throws IOException {
+        generator.writeStartObject();
+        writeList(generator, "reviews", reviewInfo.getReviews(), ReviewCodec.INSTANCE);
+        generator.writeEndObject();
+    }
+
+    @Override
+    public ReviewInfo read(JsonParser parser) throws IOException {
+        if (!enterObject(parser)) return null;
+        ReviewInfo reviewInfo = new ReviewInfo();
+        String field;
+        while ((field = nextField(parser)) != null) {
+            if (field.equals("reviews")) {
+                List<Review> reviews = readList(parser, ReviewCodec.INSTANCE);
+                reviewInfo.setReviews(reviews);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return reviewInfo;
+    }
+}
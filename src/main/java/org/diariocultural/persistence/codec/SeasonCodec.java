@@ -0,0 +1,51 @@
+package org.diariocultural.persistence.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import org.diariocultural.ReviewInfo;
+import org.diariocultural.Season;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.diariocultural.persistence.codec.CodecSupport.*;
+
+/** Codec de {@link Season}. */
+public final class SeasonCodec implements StreamingCodec<Season> {
+
+    public static final SeasonCodec INSTANCE = new SeasonCodec();
+
+    private SeasonCodec() { }
+
+    @Override
+    public void write(JsonGenerator generator, Season season) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("seasonNumber", season.getSeasonNumber());
+        generator.writeNumberField("episodes", season.getEpisodes());
+        generator.writeNumberField("releaseYear", season.getReleaseYear());
+        writeStringList(generator, "cast", season.getCast());
+        generator.writeFieldName("reviewInfo");
+        ReviewInfoCodec.INSTANCE.write(generator, season.getReviewInfo());
+        generator.writeEndObject();
+    }
+
+    @Override
+    public Season read(JsonParser parser) throws IOException {
+        if (!enterObject(parser)) return null;
+        int seasonNumber = 0, episodes = 0, releaseYear = 0;
+        List<String> cast = null;
+        ReviewInfo reviewInfo = null;
+        String field;
+        while ((field = nextField(parser)) != null) {
+            switch (field) {
+                case "seasonNumber" -> seasonNumber = readInt(parser);
+                case "episodes" -> episodes = readInt(parser);
+                case "releaseYear" -> releaseYear = readInt(parser);
+                case "cast" -> cast = readStringList(parser);
+                case "reviewInfo" -> reviewInfo = ReviewInfoCodec.INSTANCE.read(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return new Season(seasonNumber, episodes, releaseYear, cast, reviewInfo);
+    }
+}
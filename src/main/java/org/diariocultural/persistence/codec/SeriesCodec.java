@@ -0,0 +1,68 @@
+package org.diariocultural.persistence.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import org.diariocultural.Season;
+import org.diariocultural.Series;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.diariocultural.persistence.codec.CodecSupport.*;
+
+/**
+ * Codec de {@link Series}. Não grava os derivados averageRating e
+ * ratedSeasonsCount, que continuam sendo aceitos (e ignorados) na leitura.
+ */
+public final class SeriesCodec implements StreamingCodec<Series> {
+
+    public static final SeriesCodec INSTANCE = new SeriesCodec();
+
+    private SeriesCodec() { }
+
+    @Override
+    public void write(JsonGenerator generator, Series series) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("title", series.getTitle());
+        writeStringList(generator, "genre", series.getGenre());
+        generator.writeNumberField("releaseYear", series.getReleaseYear());
+        generator.writeNumberField("seriesId", series.getSeriesId());
+        generator.writeStringField("originalTitle", series.getOriginalTitle());
+        generator.writeStringField("creator", series.getCreator());
+        generator.writeNumberField("endYear", series.getEndYear());
+        writeStringList(generator, "whereToWatch", series.getWhereToWatch());
+        writeStringList(generator, "cast", series.getCast());
+        writeList(generator, "seasons", series.getSeasons(), SeasonCodec.INSTANCE);
+        generator.writeBooleanField("watchedStatus", series.isWatchedStatus());
+        generator.writeEndObject();
+    }
+
+    @Override
+    public Series read(JsonParser parser) throws IOException {
+        if (!enterObject(parser)) return null;
+        String title = null, originalTitle = null, creator = null;
+        List<String> genre = null, whereToWatch = null, cast = null;
+        List<Season> seasons = null;
+        int releaseYear = 0, seriesId = 0, endYear = 0;
+        boolean watchedStatus = false;
+        String field;
+        while ((field = nextField(parser)) != null) {
+            switch (field) {
+                case "title" -> title = readString(parser);
+                case "genre" -> genre = readStringList(parser);
+                case "releaseYear" -> releaseYear = readInt(parser);
+                case "seriesId" -> seriesId = readInt(parser);
+                case "originalTitle" -> originalTitle = readString(parser);
+                case "creator" -> creator = readString(parser);
+                case "endYear" -> endYear = readInt(parser);
+                case "whereToWatch" -> whereToWatch = readStringList(parser);
+                case "cast" -> cast = readStringList(parser);
+                case "seasons" -> seasons = readList(parser, SeasonCodec.INSTANCE);
+                case "watchedStatus" -> watchedStatus = readBoolean(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return new Series(title, genre, releaseYear, seriesId, originalTitle, creator, endYear,
+                whereToWatch, cast, seasons, watchedStatus);
+    }
+}
@@ -0,0 +1,27 @@
+package org.diariocultural.persistence.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * Codec JSON escrito à mão para uma classe do modelo, usando diretamente a API
+ * de streaming do Jackson ({@link JsonGenerator}/{@link JsonParser}), sem reflexão.
+ * Grava apenas o estado real do objeto (nada de getters derivados como médias
+ * e contagens) e lê os arquivos antigos, ignorando campos desconhecidos.
+ *
+ * @param <T> tipo codificado
+ */
+public interface StreamingCodec<T> {
+
+    /** Escreve o objeto completo (START_OBJECT ... END_OBJECT). */
+    void write(JsonGenerator generator, T value) throws IOException;
+
+    /**
+     * Lê um objeto a partir do token atual (START_OBJECT), deixando o parser
+     * posicionado no END_OBJECT correspondente.
+     * @return o objeto lido, ou null se o token atual for VALUE_NULL
+     */
+    T read(JsonParser parser) throws IOException;
+}
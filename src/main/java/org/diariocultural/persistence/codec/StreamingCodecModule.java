@@ -0,0 +1,107 @@
+package org.diariocultural.persistence.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.diariocultural.Book;
+import org.diariocultural.Movie;
+import org.diariocultural.Review;
+import org.diariocultural.ReviewInfo;
+import org.diariocultural.Season;
+import org.diariocultural.Series;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Módulo Jackson que liga os {@link StreamingCodec}s ao ObjectMapper, para que
+ * os ObjectReader/ObjectWriter do catálogo usem os codecs escritos à mão em
+ * vez da introspecção por reflexão do databind.
+ */
+public class StreamingCodecModule extends SimpleModule {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Um codec e o tipo que ele trata */
+    private record Registration<T>(Class<T> type, StreamingCodec<T> codec) {
+        CodecSerializer<T> serializer() {
+            return new CodecSerializer<>(type, codec);
+        }
+
+        CodecDeserializer<T> deserializer() {
+            return new CodecDeserializer<>(type, codec);
+        }
+    }
+
+    private static final List<Registration<?>> CODECS = List.of(
+            new Registration<>(Book.class, BookCodec.INSTANCE),
+            new Registration<>(Movie.class, MovieCodec.INSTANCE),
+            new Registration<>(Series.class, SeriesCodec.INSTANCE),
+            new Registration<>(Season.class, SeasonCodec.INSTANCE),
+            new Registration<>(ReviewInfo.class, ReviewInfoCodec.INSTANCE),
+            new Registration<>(Review.class, ReviewCodec.INSTANCE));
+
+    // Serializadores e desserializadores passados ao construtor da superclasse, sem
+    // chamar métodos sobrescrevíveis (addSerializer) num objeto ainda em construção
+    public StreamingCodecModule() {
+        super("StreamingCodecModule", Version.unknownVersion(), deserializers(), serializers());
+    }
+
+    private static Map<Class<?>, JsonDeserializer<?>> deserializers() {
+        Map<Class<?>, JsonDeserializer<?>> deserializers = new HashMap<>();
+        for (Registration<?> registration : CODECS) {
+            deserializers.put(registration.type(), registration.deserializer());
+        }
+        return deserializers;
+    }
+
+    private static List<JsonSerializer<?>> serializers() {
+        List<JsonSerializer<?>> serializers = new ArrayList<>();
+        for (Registration<?> registration : CODECS) {
+            serializers.add(registration.serializer());
+        }
+        return serializers;
+    }
+
+    private static final class CodecSerializer<T> extends StdSerializer<T> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient StreamingCodec<T> codec;
+
+        CodecSerializer(Class<T> type, StreamingCodec<T> codec) {
+            super(type);
+            this.codec = codec;
+        }
+
+        @Override
+        public void serialize(T value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            codec.write(generator, value);
+        }
+    }
+
+    private static final class CodecDeserializer<T> extends StdDeserializer<T> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient StreamingCodec<T> codec;
+
+        CodecDeserializer(Class<T> type, StreamingCodec<T> codec) {
+            super(type);
+            this.codec = codec;
+        }
+
+        @Override
+        public T deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            return codec.read(parser);
+        }
+    }
+}
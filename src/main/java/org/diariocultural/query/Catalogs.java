@@ -0,0 +1,15 @@
+package org.diariocultural.query;
+
+/**
+ * Nomes dos catálogos do acervo, usados nas consultas ({@code type:filme}) e nos
+ * resultados. Ficam aqui, e não na camada de interface, para que a linguagem de
+ * consulta não dependa dela.
+ */
+public final class Catalogs {
+
+    public static final String BOOKS = "livros";
+    public static final String MOVIES = "filmes";
+    public static final String SERIES = "séries";
+
+    private Catalogs() { }
+}
@@ -0,0 +1,86 @@
+package org.diariocultural.query;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Um critério de uma consulta estruturada. Todos os critérios de uma
+ * {@link Query} precisam ser atendidos ao mesmo tempo; dentro de um critério com
+ * vários valores separados por vírgula (ex: {@code genre:drama,comédia}) basta um.
+ */
+public sealed interface Clause {
+
+    /** Texto livre: alguma chave de busca contém o texto (como a busca simples). */
+    record Text(String text) implements Clause {
+        @Override
+        public String toString() {
+            return "texto \"" + text + "\"";
+        }
+    }
+
+    /**
+     * Catálogos incluídos ({@code type:movie}).
+     * @param catalogs nomes dos catálogos, como em {@link Catalogs#BOOKS}
+     */
+    record Type(Set<String> catalogs) implements Clause {
+        @Override
+        public String toString() {
+            return "tipo " + String.join(" ou ", catalogs);
+        }
+    }
+
+    /** Algum gênero contém algum dos trechos ({@code genre:drama}). */
+    record Genre(List<String> fragments) implements Clause {
+        @Override
+        public String toString() {
+            return "gênero " + String.join(" ou ", fragments);
+        }
+    }
+
+    /**
+     * Ano de lançamento entre {@code from} e {@code to}, inclusive ({@code year:2000..2010}).
+     * @param from primeiro ano (0 = sem limite)
+     * @param to último ano (0 = sem limite)
+     */
+    record YearRange(int from, int to) implements Clause {
+        @Override
+        public String toString() {
+            return "ano " + (from == 0 ? "" : from) + ".." + (to == 0 ? "" : to);
+        }
+    }
+
+    /** Nota média dentro dos limites ({@code rating>=4}). */
+    record RatingRange(double min, boolean minInclusive, double max, boolean maxInclusive) implements Clause {
+
+        public boolean accepts(double rating) {
+            return (minInclusive ? rating >= min : rating > min) && (maxInclusive ? rating <= max : rating < max);
+        }
+
+        @Override
+        public String toString() {
+            return "nota " + (minInclusive ? "[" : "(") + min + ", " + max + (maxInclusive ? "]" : ")");
+        }
+    }
+
+    /**
+     * Algum valor do campo contém o texto ({@code cast:"joão"}).
+     * @param field nome do campo, como em {@link org.diariocultural.Media#fieldValues}
+     */
+    record Field(String field, String text) implements Clause {
+        @Override
+        public String toString() {
+            return field + " contém \"" + text + "\"";
+        }
+    }
+
+    /**
+     * Situação exigida ({@code is:watched}).
+     * @param flag nome da situação, como em {@link org.diariocultural.Media#statusFlags()}
+     */
+    record Flag(String flag) implements Clause {
+        @Override
+        public String toString() {
+            return "situação " + flag;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.diariocultural.query;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Consulta estruturada já interpretada por {@link QueryParser}: a conjunção dos critérios.
+ *
+ * @param clauses critérios, na ordem em que foram escritos
+ */
+public record Query(List<Clause> clauses) {
+
+    public Query {
+        clauses = List.copyOf(clauses);
+    }
+
+    /** @return true se a consulta só tem texto livre (sem nenhum campo) */
+    public boolean isPlainText() {
+        return clauses.stream().allMatch(clause -> clause instanceof Clause.Text);
+    }
+
+    /** @return os critérios de um tipo, na ordem em que foram escritos */
+    public <C extends Clause> List<C> clausesOf(Class<C> type) {
+        return clauses.stream().filter(type::isInstance).map(type::cast).toList();
+    }
+
+    @Override
+    public String toString() {
+        return clauses.stream().map(Clause::toString).collect(Collectors.joining(" E "));
+    }
+}
@@ -0,0 +1,20 @@
+package org.diariocultural.query;
+
+/**
+ * Erro de sintaxe numa consulta estruturada, com a posição (a partir de 0) em que foi encontrado.
+ */
+public class QueryParseException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int position;
+
+    public QueryParseException(String message, int position) {
+        super(message + " (posição " + (position + 1) + ")");
+        this.position = position;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+}
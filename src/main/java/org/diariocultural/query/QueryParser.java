@@ -0,0 +1,240 @@
+package org.diariocultural.query;
+
+import org.diariocultural.Media;
+import org.diariocultural.index.TextNormalizer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Interpreta a linguagem de consulta do campo de busca do acervo, por exemplo
+ * {@code type:movie genre:drama year:2000..2010 rating>=4 cast:"joão"}.
+ * <ul>
+ *   <li>{@code campo:valor} filtra por um campo; valores com espaços vão entre aspas
+ *       e vírgulas separam alternativas ({@code genre:drama,comédia}).</li>
+ *   <li>{@code year} e {@code rating} aceitam intervalos ({@code 2000..2010},
+ *       {@code 2000..}, {@code ..2010}) e comparações ({@code >=}, {@code >},
+ *       {@code <=}, {@code <}, {@code =}).</li>
+ *   <li>{@code is:} exige uma situação: {@code read}, {@code watched} ou {@code copy}.</li>
+ *   <li>Palavras soltas e trechos entre aspas são texto livre.</li>
+ * </ul>
+ * Os nomes de campo e de valor também têm versões em português ({@code tipo:filme},
+ * {@code gênero:drama}, {@code ano:2000}, {@code nota>=4}, {@code elenco:"joão"}).
+ * Uma palavra com dois-pontos cujo prefixo não é campo conhecido (ex: "Matrix:")
+ * continua sendo texto livre.
+ */
+public final class QueryParser {
+
+    private static final String TYPE = "type";
+    private static final String GENRE = "genre";
+    private static final String YEAR = "year";
+    private static final String RATING = "rating";
+    private static final String IS = "is";
+
+    /** Nomes aceitos (já sem acentos) para cada campo. */
+    private static final Map<String, String> FIELDS = Map.ofEntries(
+            Map.entry("type", TYPE), Map.entry("tipo", TYPE),
+            Map.entry("genre", GENRE), Map.entry("genero", GENRE),
+            Map.entry("year", YEAR), Map.entry("ano", YEAR),
+            Map.entry("rating", RATING), Map.entry("nota", RATING),
+            Map.entry("is", IS), Map.entry("status", IS),
+            Map.entry("title", Media.TITLE), Map.entry("titulo", Media.TITLE),
+            Map.entry("author", Media.AUTHOR), Map.entry("autor", Media.AUTHOR),
+            Map.entry("director", Media.DIRECTOR), Map.entry("diretor", Media.DIRECTOR),
+            Map.entry("creator", Media.CREATOR), Map.entry("criador", Media.CREATOR),
+            Map.entry("cast", Media.CAST), Map.entry("elenco", Media.CAST));
+
+    private static final Map<String, String> TYPES = Map.of(
+            "book", Catalogs.BOOKS, "books", Catalogs.BOOKS,
+            "livro", Catalogs.BOOKS, "livros", Catalogs.BOOKS,
+            "movie", Catalogs.MOVIES, "movies", Catalogs.MOVIES,
+            "filme", Catalogs.MOVIES, "filmes", Catalogs.MOVIES,
+            "series", Catalogs.SERIES, "serie", Catalogs.SERIES);
+
+    private static final Map<String, String> FLAGS = Map.of(
+            "read", Media.READ_STATUS, "lido", Media.READ_STATUS,
+            "watched", Media.WATCHED_STATUS, "assistido", Media.WATCHED_STATUS,
+            "copy", Media.HAS_COPY, "copia", Media.HAS_COPY);
+
+    private final String input;
+    private int position;
+
+    private QueryParser(String input) {
+        this.input = input;
+    }
+
+    /**
+     * @return a consulta interpretada (sem critérios para texto vazio)
+     * @throws QueryParseException se um campo conhecido tiver valor ou operador inválido
+     */
+    public static Query parse(String input) {
+        return new QueryParser(input == null ? "" : input).parseQuery();
+    }
+
+    private Query parseQuery() {
+        List<Clause> clauses = new ArrayList<>();
+        while (true) {
+            skipWhitespace();
+            if (position >= input.length()) {
+                return new Query(clauses);
+            }
+            if (input.charAt(position) == '"') {
+                String phrase = readQuoted();
+                if (!phrase.isBlank()) {
+                    clauses.add(new Clause.Text(phrase.trim()));
+                }
+                continue;
+            }
+            Clause field = tryParseField();
+            if (field != null) {
+                clauses.add(field);
+            } else {
+                clauses.add(new Clause.Text(readWord()));
+            }
+        }
+    }
+
+    /** @return o critério de campo na posição atual, ou null (sem avançar) se não houver um */
+    private Clause tryParseField() {
+        int start = position;
+        int end = start;
+        while (end < input.length() && Character.isLetter(input.charAt(end))) {
+            end++;
+        }
+        String field = FIELDS.get(TextNormalizer.fold(input.substring(start, end)));
+        String operator = operatorAt(end);
+        if (field == null || operator == null) {
+            return null;
+        }
+        position = end + operator.length();
+        int valueStart = position;
+        String value = position < input.length() && input.charAt(position) == '"' ? readQuoted() : readWord();
+        if (value.isBlank()) {
+            throw new QueryParseException("Valor ausente para o campo '" + input.substring(start, end) + "'", valueStart);
+        }
+        if (!operator.equals(":") && !field.equals(YEAR) && !field.equals(RATING)) {
+            throw new QueryParseException("O operador '" + operator + "' só vale para ano e nota", end);
+        }
+        return switch (field) {
+            case TYPE -> new Clause.Type(lookupAll(value, TYPES, "Tipo de mídia desconhecido", valueStart));
+            case GENRE -> new Clause.Genre(List.of(splitAlternatives(value)));
+            case YEAR -> parseYear(operator, value, valueStart);
+            case RATING -> parseRating(operator, value, valueStart);
+            case IS -> flags(value, valueStart);
+            default -> new Clause.Field(field, value.trim());
+        };
+    }
+
+    private String operatorAt(int index) {
+        for (String operator : new String[]{">=", "<=", ":", ">", "<", "="}) {
+            if (input.startsWith(operator, index)) {
+                return operator;
+            }
+        }
+        return null;
+    }
+
+    private Clause flags(String value, int valueStart) {
+        Set<String> flags = lookupAll(value, FLAGS, "Situação desconhecida", valueStart);
+        if (flags.size() > 1) {
+            throw new QueryParseException("Use um 'is:' para cada situação exigida", valueStart);
+        }
+        return new Clause.Flag(flags.iterator().next());
+    }
+
+    private Clause parseYear(String operator, String value, int valueStart) {
+        if (operator.equals(":") && value.contains("..")) {
+            int separator = value.indexOf("..");
+            String from = value.substring(0, separator);
+            String to = value.substring(separator + 2);
+            return new Clause.YearRange(from.isEmpty() ? 0 : parseInt(from, valueStart),
+                    to.isEmpty() ? 0 : parseInt(to, valueStart + separator + 2));
+        }
+        int year = parseInt(value, valueStart);
+        return switch (operator) {
+            case ">=" -> new Clause.YearRange(year, 0);
+            case ">" -> new Clause.YearRange(year + 1, 0);
+            case "<=" -> new Clause.YearRange(0, year);
+            case "<" -> new Clause.YearRange(0, year - 1);
+            default -> new Clause.YearRange(year, year);
+        };
+    }
+
+    private Clause parseRating(String operator, String value, int valueStart) {
+        if (operator.equals(":") && value.contains("..")) {
+            int separator = value.indexOf("..");
+            String from = value.substring(0, separator);
+            String to = value.substring(separator + 2);
+            return new Clause.RatingRange(
+                    from.isEmpty() ? Double.NEGATIVE_INFINITY : parseDouble(from, valueStart), true,
+                    to.isEmpty() ? Double.POSITIVE_INFINITY : parseDouble(to, valueStart + separator + 2), true);
+        }
+        double rating = parseDouble(value, valueStart);
+        return switch (operator) {
+            case ">=" -> new Clause.RatingRange(rating, true, Double.POSITIVE_INFINITY, true);
+            case ">" -> new Clause.RatingRange(rating, false, Double.POSITIVE_INFINITY, true);
+            case "<=" -> new Clause.RatingRange(Double.NEGATIVE_INFINITY, true, rating, true);
+            case "<" -> new Clause.RatingRange(Double.NEGATIVE_INFINITY, true, rating, false);
+            default -> new Clause.RatingRange(rating, true, rating, true);
+        };
+    }
+
+    private static int parseInt(String value, int at) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new QueryParseException("Ano inválido: '" + value + "'", at);
+        }
+    }
+
+    private static double parseDouble(String value, int at) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new QueryParseException("Nota inválida: '" + value + "'", at);
+        }
+    }
+
+    private static Set<String> lookupAll(String value, Map<String, String> names, String error, int at) {
+        Set<String> found = new LinkedHashSet<>();
+        for (String alternative : splitAlternatives(value)) {
+            String name = names.get(TextNormalizer.normalize(alternative));
+            if (name == null) {
+                throw new QueryParseException(error + ": '" + alternative + "'", at);
+            }
+            found.add(name);
+        }
+        return found;
+    }
+
+    private static String[] splitAlternatives(String value) {
+        return value.trim().split("\\s*,\\s*");
+    }
+
+    private String readQuoted() {
+        int start = position;
+        int close = input.indexOf('"', start + 1);
+        if (close < 0) {
+            throw new QueryParseException("Aspas sem fechamento", start);
+        }
+        position = close + 1;
+        return input.substring(start + 1, close);
+    }
+
+    private String readWord() {
+        int start = position;
+        while (position < input.length() && !Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+        return input.substring(start, position);
+    }
+
+    private void skipWhitespace() {
+        while (position < input.length() && Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package org.diariocultural.query;
+
+import org.diariocultural.Media;
+import org.diariocultural.index.MediaFilter;
+import org.diariocultural.index.MediaSearchIndex;
+import org.diariocultural.index.RoaringBitmap;
+import org.diariocultural.index.TextNormalizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Executa uma {@link Query} sobre os índices de um catálogo.
+ * <p>
+ * Gênero, ano e situação viram um único conjunto de IDs pelos índices de bitmap
+ * (com contagem exata); cada texto livre ou campo de texto tem uma estimativa
+ * pelo índice de trigramas (para um campo, somadas as entidades em que o valor dele
+ * não está nas chaves de busca, como o título original de filmes e séries). O critério com o menor número de candidatos conduz a
+ * consulta; os bitmaps, se não forem o condutor, filtram os candidatos por
+ * pertinência, e o que sobra (nota, campos de texto, outros textos) é conferido
+ * entidade a entidade. Sem nenhum critério indexável, a consulta varre o catálogo.
+ * <p>
+ * A conferência final repete a semântica de cada critério, então o plano escolhido
+ * muda o custo, nunca o resultado.
+ */
+public final class QueryPlanner {
+
+    private QueryPlanner() { }
+
+    /**
+     * @param index índices do catálogo
+     * @param query consulta (os critérios de tipo já foram tratados por quem chama)
+     * @param trace registro dos passos, já na visão do catálogo
+     * @return entidades aceitas, em ordem de ID
+     */
+    public static <T extends Media> List<T> execute(MediaSearchIndex<T> index, Query query, QueryTrace trace) {
+        List<Clause> residual = new ArrayList<>();
+        for (Clause clause : query.clauses()) {
+            if (clause instanceof Clause.Text || clause instanceof Clause.Field || clause instanceof Clause.RatingRange) {
+                residual.add(clause);
+            }
+        }
+
+        // Bitmaps: contagem exata dos critérios de gênero, ano e situação
+        RoaringBitmap facets = null;
+        if (hasFacetClauses(query)) {
+            long start = trace.start();
+            facets = selectFacets(index, query);
+            trace.step("bitmaps: " + describeFacets(query), facets.cardinality(), start);
+        }
+
+        // Estimativas dos critérios de texto pelo índice de trigramas
+        Clause driver = null;
+        int driverEstimate = facets == null ? Integer.MAX_VALUE : facets.cardinality();
+        long estimateStart = trace.start();
+        List<String> estimates = new ArrayList<>();
+        for (Clause clause : residual) {
+            String text = textOf(clause);
+            if (text != null) {
+                int estimate = index.trigrams().estimate(text) + outsideKeys(index, clause).cardinality();
+                estimates.add(clause + " ~" + estimate);
+                if (estimate < driverEstimate) {
+                    driver = clause;
+                    driverEstimate = estimate;
+                }
+            }
+        }
+        if (!estimates.isEmpty()) {
+            trace.step("estimativas por trigramas: " + String.join(", ", estimates), driverEstimate, estimateStart);
+        }
+
+        int[] ids;
+        long start = trace.start();
+        if (driver != null) {
+            ids = index.trigrams().search(textOf(driver));
+            RoaringBitmap outside = outsideKeys(index, driver);
+            if (!outside.isEmpty()) {
+                // Quem tem o campo fora das chaves de busca é conferido pelo valor do campo
+                RoaringBitmap candidates = outside.copy();
+                for (int id : ids) {
+                    candidates.add(id);
+                }
+                ids = candidates.toArray();
+            }
+            trace.step("conduzida pelo índice de trigramas: " + driver, ids.length, start);
+            if (driver instanceof Clause.Text) {
+                // A busca por trigramas já confere o texto livre
+                residual.remove(driver);
+            }
+            if (facets != null) {
+                start = trace.start();
+                ids = retain(ids, facets);
+                trace.step("interseção com os bitmaps", ids.length, start);
+            }
+        } else if (facets != null) {
+            ids = facets.toArray();
+            trace.step("conduzida pelos bitmaps", ids.length, start);
+        } else {
+            ids = index.facets().all().toArray();
+            trace.step("varredura completa do catálogo", ids.length, start);
+        }
+
+        start = trace.start();
+        List<Matcher> matchers = residual.stream().map(QueryPlanner::matcherOf).toList();
+        List<T> results = new ArrayList<>(Math.min(ids.length, 1024));
+        for (int id : ids) {
+            T entity = index.entity(id);
+            if (entity != null && matchesAll(entity, matchers)) {
+                results.add(entity);
+            }
+        }
+        trace.step(residual.isEmpty() ? "busca das entidades"
+                : "conferência: " + residual.stream().map(Clause::toString).collect(Collectors.joining(", ")),
+                results.size(), start);
+        return results;
+    }
+
+    private static boolean hasFacetClauses(Query query) {
+        return query.clauses().stream().anyMatch(clause -> clause instanceof Clause.Genre
+                || clause instanceof Clause.YearRange || clause instanceof Clause.Flag);
+    }
+
+    /** Anos e situações vão num único filtro; cada critério de gênero é um E a mais. */
+    private static RoaringBitmap selectFacets(MediaSearchIndex<?> index, Query query) {
+        int from = 0;
+        int to = 0;
+        for (Clause.YearRange range : query.clausesOf(Clause.YearRange.class)) {
+            if (range.from() != 0) from = from == 0 ? range.from() : Math.max(from, range.from());
+            if (range.to() != 0) to = to == 0 ? range.to() : Math.min(to, range.to());
+        }
+        MediaFilter filter = MediaFilter.ALL.withYears(from, to)
+                .withFlags(query.clausesOf(Clause.Flag.class).stream().map(Clause.Flag::flag).toArray(String[]::new));
+        List<Clause.Genre> genres = query.clausesOf(Clause.Genre.class);
+        if (!genres.isEmpty()) {
+            filter = filter.withGenres(genres.get(0).fragments().toArray(String[]::new));
+        }
+        RoaringBitmap result = index.facets().select(filter);
+        for (int i = 1; i < genres.size() && !result.isEmpty(); i++) {
+            MediaFilter genre = MediaFilter.ALL.withGenres(genres.get(i).fragments().toArray(String[]::new));
+            result = RoaringBitmap.intersect(result, index.facets().select(genre));
+        }
+        return result;
+    }
+
+    private static String describeFacets(Query query) {
+        return query.clauses().stream()
+                .filter(clause -> clause instanceof Clause.Genre || clause instanceof Clause.YearRange
+                        || clause instanceof Clause.Flag)
+                .map(Clause::toString)
+                .collect(Collectors.joining(", "));
+    }
+
+    /** @return o texto que o índice de trigramas pode usar para o critério, ou null */
+    private static String textOf(Clause clause) {
+        if (clause instanceof Clause.Text text) {
+            return text.text();
+        }
+        if (clause instanceof Clause.Field field) {
+            // O valor do campo costuma estar nas chaves de busca; as exceções vêm de outsideKeys
+            return field.text();
+        }
+        return null;
+    }
+
+    /** @return entidades que o índice de trigramas não encontra pelo critério de campo */
+    private static RoaringBitmap outsideKeys(MediaSearchIndex<?> index, Clause clause) {
+        return clause instanceof Clause.Field field ? index.outsideSearchKeys(field.field()) : new RoaringBitmap();
+    }
+
+    private static int[] retain(int[] ids, RoaringBitmap bitmap) {
+        int[] kept = new int[ids.length];
+        int count = 0;
+        for (int id : ids) {
+            if (bitmap.contains(id)) {
+                kept[count++] = id;
+            }
+        }
+        return Arrays.copyOf(kept, count);
+    }
+
+    @FunctionalInterface
+    private interface Matcher {
+        boolean matches(Media media);
+    }
+
+    private static boolean matchesAll(Media media, List<Matcher> matchers) {
+        for (Matcher matcher : matchers) {
+            if (!matcher.matches(media)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Matcher matcherOf(Clause clause) {
+        if (clause instanceof Clause.Text text) {
+            String needle = TextNormalizer.normalize(text.text());
+            return media -> containsInAny(media.searchKeys(), needle);
+        }
+        if (clause instanceof Clause.Field field) {
+            String needle = TextNormalizer.normalize(field.text());
+            return media -> {
+                for (String value : media.fieldValues(field.field())) {
+                    if (TextNormalizer.fold(value).contains(needle)) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        }
+        if (clause instanceof Clause.RatingRange rating) {
+            return media -> rating.accepts(media.getAverageRating());
+        }
+        throw new IllegalArgumentException("Critério sem conferência por entidade: " + clause);
+    }
+
+    private static boolean containsInAny(String[] keys, String needle) {
+        for (String key : keys) {
+            if (key.contains(needle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
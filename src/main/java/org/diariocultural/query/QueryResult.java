@@ -0,0 +1,26 @@
+package org.diariocultural.query;
+
+import org.diariocultural.Media;
+
+import java.util.List;
+
+/**
+ * Resultado de uma consulta estruturada, com o plano executado.
+ *
+ * @param query a consulta interpretada
+ * @param results mídias encontradas: livros, depois filmes, depois séries, cada um em ordem de cadastro
+ * @param steps passos do plano, na ordem de execução
+ * @param nanos tempo total da consulta
+ */
+public record QueryResult(Query query, List<Media> results, List<QueryTrace.Step> steps, long nanos) {
+
+    /** @return o plano escolhido e o tempo de cada passo, um por linha */
+    public String explain() {
+        StringBuilder text = new StringBuilder("Consulta: ").append(query).append('\n');
+        for (QueryTrace.Step step : steps) {
+            text.append(step).append('\n');
+        }
+        return text.append(String.format("Total: %d resultado(s) em %.3f ms", results.size(), nanos / 1_000_000.0))
+                .toString();
+    }
+}
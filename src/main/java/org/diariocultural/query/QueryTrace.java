@@ -0,0 +1,62 @@
+package org.diariocultural.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Registro dos passos executados por uma consulta, com a quantidade de linhas que
+ * cada um produziu e o tempo gasto, para o modo {@code explain}. Cada catálogo
+ * registra através da sua própria visão ({@link #catalog}); todas compartilham a
+ * mesma lista de passos.
+ */
+public final class QueryTrace {
+
+    /**
+     * Um passo do plano.
+     * @param catalog catálogo em que o passo rodou
+     * @param description o que foi feito (índice usado, critérios conferidos...)
+     * @param rows quantidade de IDs ou entidades produzidos
+     * @param nanos tempo gasto
+     */
+    public record Step(String catalog, String description, int rows, long nanos) {
+        @Override
+        public String toString() {
+            return String.format("[%s] %s -> %d (%.3f ms)", catalog, description, rows, nanos / 1_000_000.0);
+        }
+    }
+
+    private final String catalog;
+    private final List<Step> steps;
+
+    public QueryTrace() {
+        this("", Collections.synchronizedList(new ArrayList<>()));
+    }
+
+    private QueryTrace(String catalog, List<Step> steps) {
+        this.catalog = catalog;
+        this.steps = steps;
+    }
+
+    /** @return visão que registra os passos em nome do catálogo informado */
+    public QueryTrace catalog(String name) {
+        return new QueryTrace(name, steps);
+    }
+
+    /** @return instante de início de um passo, para {@link #step} */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /** Registra um passo iniciado em {@code start}. */
+    public void step(String description, int rows, long start) {
+        steps.add(new Step(catalog, description, rows, System.nanoTime() - start));
+    }
+
+    /** @return cópia dos passos registrados até agora */
+    public List<Step> steps() {
+        synchronized (steps) {
+            return List.copyOf(steps);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+import org.diariocultural.Season;
+import org.diariocultural.Series;
+import org.diariocultural.SeriesController;
+import org.diariocultural.persistence.MediaRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compara "quais séries estavam no ar" por varredura (período de exibição e ano de
+ * cada temporada de todas as séries) com a árvore de intervalos do {@link SeriesController}.
+ */
+public class AiringBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Path dataDir = Files.createTempDirectory("airing-benchmark");
+        new MediaRepository<>(dataDir, "series", Series.class, Series::getSeriesId)
+                .writeSnapshot(BenchmarkSupport.series(size, 7));
+        SeriesController controller = new SeriesController(dataDir);
+        List<Series> catalog = controller.getAllSeries();
+        System.out.printf("Catálogo: %d séries%n", catalog.size());
+
+        for (int[] range : new int[][]{{1985, 1985}, {1995, 1995}, {2008, 2008}, {2030, 2030}, {2000, 2004}}) {
+            int from = range[0];
+            int to = range[1];
+            String label = from == to ? String.valueOf(from) : from + ".." + to;
+            int matches = controller.findSeriesAiring(from, to).size();
+            BenchmarkSupport.time("varredura " + label + " (" + matches + ")", 3, 20, () -> scan(catalog, from, to));
+            BenchmarkSupport.time("árvore    " + label + " (" + matches + ")", 3, 200,
+                    () -> controller.findSeriesAiring(from, to));
+        }
+        controller.shutdown();
+    }
+
+    private static List<Series> scan(List<Series> catalog, int from, int to) {
+        List<Series> airing = new ArrayList<>();
+        for (Series series : catalog) {
+            int end = series.getEndYear() == 0 ? Integer.MAX_VALUE : series.getEndYear();
+            boolean found = series.getReleaseYear() > 0 && series.getReleaseYear() <= to && end >= from;
+            for (Season season : series.getSeasons()) {
+                found |= season.getReleaseYear() >= from && season.getReleaseYear() <= to;
+            }
+            if (found) {
+                airing.add(series);
+            }
+        }
+        return airing;
+    }
+}
@@ -0,0 +1,98 @@
+import org.diariocultural.Book;
+import org.diariocultural.Movie;
+import org.diariocultural.ReviewInfo;
+import org.diariocultural.Season;
+import org.diariocultural.Series;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Utilitários para os benchmarks (classes *Benchmark com método main).
+ * Não são executados pelo surefire; rodar com, por exemplo:
+ * {@code java -cp target/classes:target/test-classes:<deps> PersistenceCodecBenchmark}
+ */
+final class BenchmarkSupport {
+
+    private static final String[] WORDS = {
+            "amor", "guerra", "noite", "cidade", "sombra", "ação", "coração", "mar", "estrela", "tempo",
+            "dragão", "sertão", "família", "segredo", "caminho", "fogo", "vento", "memória", "ilha", "rei"};
+    private static final String[] GENRES = {
+            "Drama", "Comédia", "Ação", "Ficção Científica", "Fantasia", "Suspense", "Romance", "Terror", "Documentário"};
+    private static final String[] PEOPLE = {
+            "João Silva", "Maria Souza", "José Santos", "Ana Oliveira", "Pedro Lima", "Jason Sudeikis",
+            "Fernanda Montenegro", "Wagner Moura", "Christopher Nolan", "Greta Gerwig"};
+
+    private BenchmarkSupport() { }
+
+    /** Executa a tarefa algumas vezes para aquecer o JIT e imprime o tempo médio por iteração. */
+    static double time(String name, int warmups, int iterations, Runnable task) {
+        for (int i = 0; i < warmups; i++) task.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) task.run();
+        double micros = (System.nanoTime() - start) / 1_000.0 / iterations;
+        System.out.printf("%-45s %12.1f µs/op%n", name, micros);
+        return micros;
+    }
+
+    private static String title(Random random) {
+        return WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + random.nextInt(1000);
+    }
+
+    private static List<String> pick(Random random, String[] source, int count) {
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < count; i++) values.add(source[random.nextInt(source.length)]);
+        return values;
+    }
+
+    private static ReviewInfo reviews(Random random) {
+        ReviewInfo info = new ReviewInfo();
+        int count = random.nextInt(3);
+        for (int i = 0; i < count; i++) info.evaluate(random.nextInt(6), "comentário " + i);
+        return info;
+    }
+
+    static List<Book> books(int count, long seed) {
+        Random random = new Random(seed);
+        List<Book> books = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            String title = title(random);
+            books.add(new Book(title, pick(random, GENRES, 2), 1900 + random.nextInt(125), id, title,
+                    PEOPLE[random.nextInt(PEOPLE.length)], "Editora", "978" + id, random.nextBoolean(),
+                    random.nextBoolean(), new Date(), reviews(random)));
+        }
+        return books;
+    }
+
+    static List<Movie> movies(int count, long seed) {
+        Random random = new Random(seed);
+        List<Movie> movies = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            String title = title(random);
+            movies.add(new Movie(title, pick(random, GENRES, 2), 1950 + random.nextInt(75), id, title,
+                    90 + random.nextInt(90), PEOPLE[random.nextInt(PEOPLE.length)], "Sinopse do filme " + id,
+                    pick(random, PEOPLE, 3), List.of("Netflix"), random.nextBoolean(), new Date(), reviews(random)));
+        }
+        return movies;
+    }
+
+    static List<Series> series(int count, long seed) {
+        Random random = new Random(seed);
+        List<Series> series = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            String title = title(random);
+            int start = 1990 + random.nextInt(30);
+            List<Season> seasons = new ArrayList<>();
+            int seasonCount = 1 + random.nextInt(4);
+            for (int n = 1; n <= seasonCount; n++) {
+                seasons.add(new Season(n, 8 + random.nextInt(15), start + n - 1, pick(random, PEOPLE, 1), reviews(random)));
+            }
+            series.add(new Series(title, pick(random, GENRES, 2), start, id, title, PEOPLE[random.nextInt(PEOPLE.length)],
+                    random.nextBoolean() ? 0 : start + seasonCount, List.of("HBO Max"), pick(random, PEOPLE, 3),
+                    seasons, random.nextBoolean()));
+        }
+        return series;
+    }
+}
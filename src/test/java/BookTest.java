@@ -118,14 +118,14 @@ class BookTest {
         // Adiciona uma primeira avaliação
         book.addReview(4, "Clássico do mistério, final surpreendente.");
         assertEquals(1, book.getReviewInfo().getReviewCount());
-        assertEquals(0.0, book.getAverageRating(), 0.001); // Média com 1 review é a própria nota
+        assertEquals(4.0, book.getAverageRating(), 0.001); // Média com 1 review é a própria nota
         assertEquals(4, book.getReviewInfo().getLastRating());
 
         // Adiciona uma segunda avaliação (simula um tempo depois)
         try { Thread.sleep(10); } catch (InterruptedException e) { /* Ignora */ }
         book.addReview(5, "Muito bem construído, prende do início ao fim.");
         assertEquals(2, book.getReviewInfo().getReviewCount());
-        assertEquals(0, book.getAverageRating(), 0.001); // Média de 4 e 5
+        assertEquals(4.5, book.getAverageRating(), 0.001); // Média de 4 e 5
         assertEquals(5, book.getReviewInfo().getLastRating()); // Última nota foi 5
     }
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+import org.diariocultural.Book;
+import org.diariocultural.BookController;
+import org.diariocultural.Media;
+import org.diariocultural.ReviewInfo;
+import org.diariocultural.index.MediaFilter;
+import org.diariocultural.index.RoaringBitmap;
+import org.diariocultural.index.TextNormalizer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FacetIndexTest {
+
+    @TempDir
+    Path dataDir;
+
+    private static BitSet toBitSet(RoaringBitmap bitmap) {
+        BitSet bits = new BitSet();
+        bitmap.forEach(bits::set);
+        return bits;
+    }
+
+    @Test
+    void testRoaringBitmapBehavesLikeABitSetAcrossContainerKinds() {
+        Random random = new Random(7);
+        RoaringBitmap a = new RoaringBitmap();
+        RoaringBitmap b = new RoaringBitmap();
+        BitSet refA = new BitSet();
+        BitSet refB = new BitSet();
+        // Faixa densa (vira mapa de bits) seguida de faixa esparsa (continua array)
+        for (int step = 0; step < 60_000; step++) {
+            int id = random.nextBoolean() ? random.nextInt(20_000) : 65_536 + random.nextInt(1_000_000);
+            boolean remove = random.nextInt(5) == 0;
+            RoaringBitmap target = random.nextBoolean() ? a : b;
+            BitSet reference = target == a ? refA : refB;
+            if (remove) {
+                assertEquals(reference.get(id), target.remove(id));
+                reference.clear(id);
+            } else {
+                assertEquals(!reference.get(id), target.add(id));
+                reference.set(id);
+            }
+        }
+        assertEquals(refA, toBitSet(a));
+        assertEquals(refA.cardinality(), a.cardinality());
+        assertArrayEquals(refA.stream().toArray(), a.toArray());
+
+        BitSet and = (BitSet) refA.clone();
+        and.and(refB);
+        BitSet or = (BitSet) refA.clone();
+        or.or(refB);
+        assertEquals(and, toBitSet(RoaringBitmap.intersect(a, b)));
+        assertEquals(and.cardinality(), RoaringBitmap.intersectCount(a, b));
+        assertEquals(or, toBitSet(RoaringBitmap.union(a, b)));
+        assertEquals(or.cardinality(), RoaringBitmap.union(a, b).cardinality());
+
+        // Esvaziar um contêiner denso volta a array e depois o remove do conjunto
+        for (int id = 0; id < 20_000; id++) {
+            a.remove(id);
+            refA.clear(id);
+        }
+        assertEquals(refA, toBitSet(a));
+        assertFalse(a.contains(5));
+    }
+
+    @Test
+    void testFilterMatchesTheStreamFilterAndFollowsSetters() {
+        BookController controller = new BookController(dataDir);
+        Random random = new Random(3);
+        String[] genres = {"Drama", "Comédia", "Ficção Científica", "Romance", "Drama Histórico"};
+        for (int i = 0; i < 500; i++) {
+            controller.addBookViaObject(new Book("Livro " + i, "", List.of(genres[random.nextInt(genres.length)]),
+                    1990 + random.nextInt(20), "Autor", "Editora", "isbn" + i, random.nextBoolean(),
+                    random.nextBoolean(), null, new ReviewInfo()));
+        }
+
+        MediaFilter filter = MediaFilter.ALL.withGenres("drama", "comedia").withYears(1995, 2000).withFlags(Media.READ_STATUS);
+        List<Book> expected = controller.getAllBooks().stream()
+                .filter(book -> book.getGenre().stream().anyMatch(g -> g.startsWith("Drama") || g.equals("Comédia")))
+                .filter(book -> book.getReleaseYear() >= 1995 && book.getReleaseYear() <= 2000)
+                .filter(Book::isReadStatus)
+                .toList();
+        assertEquals(expected, controller.filterBooks(filter));
+        assertEquals(expected.size(), controller.countBooks(filter));
+        assertEquals(controller.getAllBooks(), controller.filterBooks(MediaFilter.ALL));
+
+        // Setters reindexam sem passar por updateBook
+        Book book = controller.getAllBooks().get(0);
+        book.setGenre(List.of("Terror"));
+        book.setReleaseYear(1950);
+        book.setReadStatus(true);
+        assertEquals(List.of(book), controller.filterBooks(MediaFilter.ALL.withGenres("terror").withFlags(Media.READ_STATUS)));
+        assertEquals(List.of(book), controller.filterBooks(MediaFilter.ALL.withYears(0, 1960)));
+        book.setReadStatus(false);
+        assertEquals(0, controller.countBooks(MediaFilter.ALL.withGenres("terror").withFlags(Media.READ_STATUS)));
+
+        controller.removeBook(book);
+        assertEquals(0, controller.countBooks(MediaFilter.ALL.withGenres("terror")));
+
+        // Contagens por gênero dentro de um filtro
+        MediaFilter nineties = MediaFilter.ALL.withYears(1990, 1999);
+        Map<String, Integer> counts = controller.countBooksByGenre(nineties);
+        for (String genre : genres) {
+            int reference = (int) controller.getAllBooks().stream()
+                    .filter(b -> b.getReleaseYear() <= 1999 && b.getGenre().contains(genre))
+                    .count();
+            assertEquals(reference, counts.getOrDefault(TextNormalizer.normalize(genre), 0));
+        }
+    }
+
+    @Test
+    void testFilterAfterASearchKeepsOnlyTheSearchResults() {
+        BookController controller = new BookController(dataDir);
+        controller.addBookViaObject(new Book("Noite de Verão", "", List.of("Drama"), 2001, "Autor", "Editora",
+                "isbn1", false, false, null, new ReviewInfo()));
+        controller.addBookViaObject(new Book("Manhã de Inverno", "", List.of("Drama"), 2001, "Autor", "Editora",
+                "isbn2", false, false, null, new ReviewInfo()));
+        controller.addBookViaObject(new Book("Noite Fria", "", List.of("Comédia"), 2001, "Autor", "Editora",
+                "isbn3", false, false, null, new ReviewInfo()));
+
+        List<Book> searched = controller.searchBooks("noite");
+        List<Book> dramas = controller.filterBooks(searched, MediaFilter.ALL.withGenres("drama"));
+
+        assertEquals(List.of("Noite de Verão"), dramas.stream().map(Book::getTitle).toList());
+        assertEquals(2, controller.filterBooks(MediaFilter.ALL.withGenres("drama")).size());
+    }
+}
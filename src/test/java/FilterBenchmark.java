@@ -0,0 +1,72 @@
+import org.diariocultural.Book;
+import org.diariocultural.BookController;
+import org.diariocultural.Media;
+import org.diariocultural.index.MediaFilter;
+import org.diariocultural.persistence.MediaRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Compara os filtros encadeados com streams (gênero por trecho e depois ano, como
+ * o {@code applyBookFilters} fazia) com os índices de bitmap do {@link BookController},
+ * tanto montando a lista quanto só contando.
+ */
+public class FilterBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Path dataDir = Files.createTempDirectory("filter-benchmark");
+        new MediaRepository<>(dataDir, "books", Book.class, Book::getBookId)
+                .writeSnapshot(BenchmarkSupport.books(size, 5));
+        BookController controller = new BookController(dataDir);
+        List<Book> catalog = controller.getAllBooks();
+        System.out.printf("Catálogo: %d livros%n", catalog.size());
+
+        String[][] cases = {{"drama", "0"}, {"drama", "1990"}, {"ficção", "2010"}, {"a", "0"}};
+        for (String[] test : cases) {
+            String genre = test[0];
+            int year = Integer.parseInt(test[1]);
+            MediaFilter filter = MediaFilter.ALL.withGenres(genre);
+            if (year > 0) {
+                filter = filter.withYears(year, year);
+            }
+            MediaFilter indexed = filter;
+            String name = "'" + genre + "'" + (year > 0 ? " + " + year : "") + " (" + controller.countBooks(filter) + ")";
+            BenchmarkSupport.time("streams " + name, 3, 20, () -> streamFilter(catalog, genre, year));
+            BenchmarkSupport.time("bitmaps " + name, 3, 20, () -> controller.filterBooks(indexed).forEach(book -> { }));
+            BenchmarkSupport.time("contagem " + name, 3, 20, () -> controller.countBooks(indexed));
+        }
+
+        MediaFilter readDramas = MediaFilter.ALL.withGenres("drama").withFlags(Media.READ_STATUS, Media.HAS_COPY);
+        BenchmarkSupport.time("streams drama + lido + cópia", 3, 20, () -> catalog.stream()
+                .filter(book -> book.getGenre().stream().anyMatch(g -> g.toLowerCase().contains("drama")))
+                .filter(book -> book.isReadStatus() && book.hasCopy())
+                .collect(Collectors.toList()));
+        BenchmarkSupport.time("bitmaps drama + lido + cópia", 3, 20,
+                () -> controller.filterBooks(readDramas).forEach(book -> { }));
+        BenchmarkSupport.time("contagens por gênero (1990-1999)", 3, 20,
+                () -> controller.countBooksByGenre(MediaFilter.ALL.withYears(1990, 1999)));
+        controller.shutdown();
+    }
+
+    /** O filtro original: cópia da lista, gênero por trecho e depois ano. */
+    private static List<Book> streamFilter(List<Book> books, String genre, int year) {
+        List<Book> filtered = new ArrayList<>(books);
+        String lowerGenre = genre.toLowerCase().trim();
+        filtered = filtered.stream()
+                .filter(book -> book.getGenre() != null && book.getGenre().stream()
+                        .anyMatch(g -> g.toLowerCase().contains(lowerGenre)))
+                .collect(Collectors.toList());
+        if (year > 0) {
+            filtered = filtered.stream()
+                    .filter(book -> book.getReleaseYear() == year)
+                    .collect(Collectors.toList());
+        }
+        return filtered;
+    }
+}
@@ -0,0 +1,67 @@
+import org.diariocultural.index.IdIndexedStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdIndexedStoreTest {
+
+    @Test
+    void testBehavesLikeAnInsertionOrderedMap() {
+        IdIndexedStore<String> store = new IdIndexedStore<>();
+        Map<Integer, String> reference = new LinkedHashMap<>();
+        Random random = new Random(42);
+        for (int step = 0; step < 200_000; step++) {
+            // IDs num intervalo pequeno para provocar colisões, substituições e remoções
+            int id = random.nextInt(5_000) - 100;
+            int operation = random.nextInt(10);
+            if (operation < 5) {
+                String value = "v" + step;
+                assertEquals(reference.containsKey(id) ? reference.get(id) : null, store.put(id, value));
+                // LinkedHashMap também mantém a posição original ao substituir
+                reference.put(id, value);
+            } else if (operation < 8) {
+                assertEquals(reference.remove(id), store.remove(id));
+            } else {
+                assertEquals(reference.get(id), store.get(id));
+                assertEquals(reference.containsKey(id), store.containsId(id));
+            }
+            assertEquals(reference.size(), store.size());
+            if (step % 10_000 == 0) {
+                assertEquals(new ArrayList<>(reference.values()), store.toList());
+            }
+        }
+        assertEquals(new ArrayList<>(reference.values()), store.toList());
+        store.clear();
+        assertTrue(store.isEmpty());
+        assertNull(store.get(reference.keySet().iterator().next()));
+    }
+
+    @Test
+    void testValuesViewFollowsTheStoreAndDetectsConcurrentChanges() {
+        IdIndexedStore<String> store = new IdIndexedStore<>(2);
+        for (int id = 1; id <= 100; id++) {
+            store.put(id, "item " + id);
+        }
+        for (int id = 1; id <= 90; id++) {
+            store.remove(id);
+        }
+        store.put(5, "de volta");
+        List<String> expected = new ArrayList<>();
+        for (int id = 91; id <= 100; id++) expected.add("item " + id);
+        expected.add("de volta");
+        assertEquals(expected, new ArrayList<>(store.values()));
+
+        Iterator<String> iterator = store.values().iterator();
+        iterator.next();
+        store.put(200, "nova");
+        assertThrows(ConcurrentModificationException.class, iterator::next);
+    }
+}
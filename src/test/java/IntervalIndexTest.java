@@ -0,0 +1,101 @@
+import org.diariocultural.BookController;
+import org.diariocultural.MovieController;
+import org.diariocultural.Season;
+import org.diariocultural.Series;
+import org.diariocultural.SeriesController;
+import org.diariocultural.fx.LibraryService;
+import org.diariocultural.index.IntervalIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalIndexTest {
+
+    @TempDir
+    Path dataDir;
+
+    private static Series series(String title, int releaseYear, int endYear) {
+        return new Series(title, "", "Criador", List.of("Drama"), releaseYear, endYear, List.of(), List.of(), false);
+    }
+
+    private static List<String> titles(List<Series> series) {
+        return series.stream().map(Series::getTitle).toList();
+    }
+
+    @Test
+    void testOverlapMatchesABruteForceScanAcrossUpdatesAndRemovals() {
+        Random random = new Random(8);
+        IntervalIndex index = new IntervalIndex();
+        Map<Integer, List<IntervalIndex.Interval>> expected = new HashMap<>();
+        for (int step = 0; step < 5_000; step++) {
+            int id = random.nextInt(800);
+            if (random.nextInt(5) == 0) {
+                index.remove(id);
+                expected.remove(id);
+                continue;
+            }
+            List<IntervalIndex.Interval> intervals = new ArrayList<>();
+            for (int i = random.nextInt(4); i > 0; i--) {
+                int start = 1950 + random.nextInt(70);
+                int end = random.nextInt(10) == 0 ? Integer.MAX_VALUE : start + random.nextInt(12);
+                intervals.add(new IntervalIndex.Interval(start, end));
+            }
+            // Repetidos contam uma vez
+            if (!intervals.isEmpty()) intervals.add(intervals.get(0));
+            index.put(id, intervals);
+            if (intervals.isEmpty()) expected.remove(id); else expected.put(id, intervals);
+        }
+        assertEquals(expected.values().stream().mapToLong(list -> list.stream().distinct().count()).sum(), index.size());
+
+        for (int query = 0; query < 300; query++) {
+            int from = 1940 + random.nextInt(90);
+            int to = from + random.nextInt(5);
+            List<Integer> scan = expected.entrySet().stream()
+                    .filter(entry -> entry.getValue().stream().anyMatch(i -> i.start() <= to && i.end() >= from))
+                    .map(Map.Entry::getKey).sorted().toList();
+            assertEquals(scan, Arrays.stream(index.overlapping(from, to).toArray()).boxed().toList());
+        }
+        assertTrue(index.overlapping(2000, 1990).isEmpty());
+    }
+
+    @Test
+    void testSeriesAiringFollowsSeasonsAndEndYear() {
+        SeriesController controller = new SeriesController(dataDir);
+        LibraryService service = new LibraryService(new BookController(dataDir), new MovieController(dataDir), controller);
+        controller.addSeriesViaObject(series("Lost", 2004, 2010));
+        controller.addSeriesViaObject(series("Em Exibição", 2015, 0));
+        controller.addSeriesViaObject(series("Antiga", 1990, 1995));
+        controller.addSeriesViaObject(series("Sem Ano", 0, 0));
+
+        assertEquals(List.of("Lost"), titles(controller.findSeriesAiring(2008)));
+        assertEquals(List.of("Em Exibição"), titles(service.seriesAiring(2030)));
+        assertEquals(List.of("Lost", "Antiga"), titles(service.seriesAiring(1994, 2004)));
+        assertEquals(List.of(), titles(service.seriesAiring(1980)));
+
+        // Temporadas fora do período cadastrado também contam
+        Series antiga = controller.findSeriesByTitle("Antiga").orElseThrow();
+        antiga.addSeason(new Season(2, 10, 2008, List.of()));
+        assertEquals(List.of("Lost", "Antiga"), titles(controller.findSeriesAiring(2008)));
+        antiga.setSeasons(List.of(new Season(1, 10, 1991, List.of())));
+        assertEquals(List.of("Lost"), titles(controller.findSeriesAiring(2008)));
+
+        // Ano final e de lançamento
+        Series lost = controller.findSeriesByTitle("Lost").orElseThrow();
+        lost.setEndYear(2006);
+        assertEquals(List.of(), titles(controller.findSeriesAiring(2008)));
+        lost.setReleaseYear(2009);
+        assertEquals(List.of("Lost"), titles(controller.findSeriesAiring(2009)));
+        controller.removeSeries(lost);
+        assertEquals(List.of(), titles(controller.findSeriesAiring(2009)));
+        service.shutdown();
+    }
+}
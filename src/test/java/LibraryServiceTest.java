@@ -0,0 +1,41 @@
+import org.diariocultural.Movie;
+import org.diariocultural.ReviewInfo;
+import org.diariocultural.fx.LibraryService;
+import org.diariocultural.persistence.MediaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LibraryServiceTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void testAsyncLoadReportsEachStoreAndAnswersQueriesWhenReady() throws Exception {
+        new MediaRepository<>(dataDir, "movies", Movie.class, Movie::getMovieId).writeSnapshot(List.of(
+                new Movie("Um", Arrays.asList("Drama"), 2000, 1, "Um", 120, "Diretor",
+                        "Sinopse", Arrays.asList("Ator"), Arrays.asList("Netflix"), false, null, new ReviewInfo())));
+
+        LibraryService service = LibraryService.loadAsync(dataDir);
+        Map<String, Integer> loaded = new ConcurrentHashMap<>();
+        CompletableFuture<Void> notified = service.whenStoreLoaded(loaded::put);
+
+        // As consultas aguardam o carregamento em vez de ver catálogos vazios
+        assertEquals(1, service.searchAllMedia("um").size());
+        service.whenReady().get(10, TimeUnit.SECONDS);
+        notified.get(10, TimeUnit.SECONDS);
+        assertTrue(service.isReady());
+        assertEquals(Map.of(LibraryService.BOOKS, 0, LibraryService.MOVIES, 1, LibraryService.SERIES, 0), loaded);
+        service.shutdown();
+    }
+}
@@ -0,0 +1,237 @@
+import org.diariocultural.Movie;
+import org.diariocultural.ReviewInfo;
+import org.diariocultural.persistence.BinarySnapshot;
+import org.diariocultural.persistence.MediaRepository;
+import org.diariocultural.persistence.ParallelCatalogReader;
+import org.diariocultural.persistence.PersistenceCodec;
+import org.diariocultural.persistence.codec.BinaryModelCodecs;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediaRepositoryTest {
+
+    @TempDir
+    Path dataDir;
+
+    private MediaRepository<Movie> repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new MediaRepository<>(dataDir, "movies", Movie.class, Movie::getMovieId);
+    }
+
+    private Movie movie(int id, String title) {
+        return new Movie(title, Arrays.asList("Drama"), 2000, id, title, 120, "Diretor",
+                "Sinopse", Arrays.asList("Ator"), Arrays.asList("Netflix"), false, null, new ReviewInfo());
+    }
+
+    @Test
+    void testJournalReplayOverSnapshot() throws Exception {
+        repository.writeSnapshot(List.of(movie(1, "Um"), movie(2, "Dois")));
+
+        repository.recordAdd(movie(3, "Três"));
+        repository.recordUpdate(movie(1, "Um (editado)"));
+        repository.recordRemove(movie(2, "Dois"));
+
+        // O snapshot não é reescrito pelas alterações, só o diário cresce
+        assertTrue(Files.exists(repository.getJournalPath()));
+        assertEquals(3, Files.readAllLines(repository.getJournalPath()).size());
+
+        List<Movie> loaded = repository.load();
+        assertEquals(2, loaded.size());
+        assertEquals("Um (editado)", loaded.get(0).getTitle()); // Atualização preserva a posição
+        assertEquals(3, loaded.get(1).getMovieId());
+    }
+
+    @Test
+    void testSnapshotClearsJournal() throws Exception {
+        repository.recordAdd(movie(1, "Um"));
+        repository.writeSnapshot(repository.load());
+
+        assertFalse(Files.exists(repository.getJournalPath()));
+        assertEquals(1, repository.load().size());
+    }
+
+    @Test
+    void testTruncatedLastRecordIsIgnored() throws Exception {
+        repository.recordAdd(movie(1, "Um"));
+        Files.writeString(repository.getJournalPath(), "{\"op\":\"ADD\",\"id\":2,\"ent",
+                java.nio.file.StandardOpenOption.APPEND);
+
+        List<Movie> loaded = repository.load();
+        assertEquals(1, loaded.size());
+        assertEquals("Um", loaded.get(0).getTitle());
+    }
+
+    @Test
+    void testCompactionFoldsJournalIntoSnapshot() throws Exception {
+        repository.writeSnapshot(List.of(movie(1, "Um")));
+        repository.recordAdd(movie(2, "Dois"));
+        repository.recordUpdate(movie(1, "Um (editado)"));
+
+        assertTrue(repository.compact());
+        assertFalse(Files.exists(repository.getJournalPath()));
+        assertTrue(repository.getJournal().sealedSegments().isEmpty());
+        assertEquals(0, repository.getJournal().getEntryCount());
+
+        // Alterações posteriores à compactação continuam indo para o diário
+        repository.recordRemove(movie(2, "Dois"));
+        List<Movie> loaded = repository.load();
+        assertEquals(1, loaded.size());
+        assertEquals("Um (editado)", loaded.get(0).getTitle());
+        assertTrue(repository.compact());
+        assertEquals(1, repository.load().size());
+    }
+
+    @Test
+    void testSealedSegmentIsReplayedAfterInterruptedCompaction() throws Exception {
+        repository.recordAdd(movie(1, "Um"));
+        repository.getJournal().rotate(); // Simula queda logo após selar o segmento
+        repository.recordAdd(movie(2, "Dois"));
+
+        List<Movie> loaded = repository.load();
+        assertEquals(2, loaded.size());
+        assertEquals(1, repository.getJournal().sealedSegments().size());
+    }
+
+    @Test
+    void testBinarySnapshotIsUsedWhileFreshAndRebuiltWhenStale() throws Exception {
+        repository.writeSnapshot(List.of(movie(1, "Um"), movie(2, "Dois")));
+        Path shard = repository.getShardPath(0);
+        Path binary = repository.getBinaryShardPath(0);
+        BinarySnapshot<Movie> snapshot = BinarySnapshot.openIfFresh(binary, shard, BinaryModelCodecs.MOVIE);
+        assertNotNull(snapshot);
+        assertEquals(2, snapshot.size());
+        assertEquals("Dois", snapshot.asList().get(1).getTitle());
+
+        // O JSON é o formato de intercâmbio: editado por fora, a cópia binária vence
+        String json = Files.readString(shard).replace("\"Dois\"", "\"Dois (editado)\"");
+        Files.writeString(shard, json);
+        assertNull(BinarySnapshot.openIfFresh(binary, shard, BinaryModelCodecs.MOVIE));
+
+        assertEquals("Dois (editado)", repository.load().get(1).getTitle());
+        snapshot = BinarySnapshot.openIfFresh(binary, shard, BinaryModelCodecs.MOVIE);
+        assertNotNull(snapshot); // Refeita durante a leitura
+        assertEquals("Dois (editado)", snapshot.get(1).getTitle());
+    }
+
+    @Test
+    void testSameSizeEditWithinTheSameModificationTimeMakesTheBinarySnapshotStale() throws Exception {
+        repository.writeSnapshot(List.of(movie(1, "Um"), movie(2, "Dois")));
+        Path shard = repository.getShardPath(0);
+        Path binary = repository.getBinaryShardPath(0);
+        assertNotNull(BinarySnapshot.openIfFresh(binary, shard, BinaryModelCodecs.MOVIE));
+
+        FileTime modified = Files.getLastModifiedTime(shard);
+        Files.writeString(shard, Files.readString(shard).replace("\"Dois\"", "\"Dez!\""));
+        Files.setLastModifiedTime(shard, modified);
+
+        assertNull(BinarySnapshot.openIfFresh(binary, shard, BinaryModelCodecs.MOVIE));
+        assertEquals("Dez!", repository.load().get(1).getTitle());
+    }
+
+    @Test
+    void testCompactionRewritesOnlyTheShardOfTheChangedEntity() throws Exception {
+        MediaRepository<Movie> sharded = new MediaRepository<>(dataDir, "sharded", Movie.class, Movie::getMovieId, 10);
+        List<Movie> movies = new ArrayList<>();
+        for (int id = 1; id <= 35; id++) {
+            movies.add(movie(id, "Filme " + id));
+        }
+        sharded.writeSnapshot(movies);
+        assertEquals(35, sharded.load().size());
+        assertTrue(Files.exists(sharded.getShardPath(3)));
+        String untouched = Files.readString(sharded.getShardPath(0));
+        String touched = Files.readString(sharded.getShardPath(1));
+
+        sharded.recordUpdate(movie(15, "Filme 15 (editado)"));
+        sharded.recordAdd(movie(41, "Filme 41")); // Cria um shard novo
+        assertTrue(sharded.compact());
+
+        assertEquals(untouched, Files.readString(sharded.getShardPath(0)));
+        assertNotEquals(touched, Files.readString(sharded.getShardPath(1)));
+        assertTrue(Files.exists(sharded.getShardPath(4)));
+        assertTrue(Files.readString(sharded.getManifestPath()).contains("shard-000004.json"));
+
+        List<Movie> loaded = new MediaRepository<>(dataDir, "sharded", Movie.class, Movie::getMovieId, 10).load();
+        assertEquals(36, loaded.size());
+        assertEquals("Filme 15 (editado)", loaded.get(14).getTitle()); // Atualização preserva a posição
+        assertEquals(41, loaded.get(35).getMovieId());
+    }
+
+    @Test
+    void testLegacySingleFileCatalogIsMigratedToShards() throws Exception {
+        Files.writeString(dataDir.resolve("movies.json"), PersistenceCodec.shared().snapshotWriter(Movie.class)
+                .writeValueAsString(List.of(movie(1, "Um"), movie(2, "Dois"))));
+        Files.writeString(dataDir.resolve("movies.journal"), PersistenceCodec.shared().mapper()
+                .writeValueAsString(java.util.Map.of("op", "REMOVE", "id", 1)) + "\n");
+
+        List<Movie> loaded = repository.load();
+
+        assertEquals(1, loaded.size());
+        assertEquals("Dois", loaded.get(0).getTitle());
+        assertTrue(Files.exists(repository.getManifestPath()));
+        assertFalse(Files.exists(dataDir.resolve("movies.json")));
+        assertFalse(Files.exists(dataDir.resolve("movies.journal")));
+        assertEquals(1, repository.load().size());
+    }
+
+    @Test
+    void testParallelReaderKeepsOrderAndIgnoresDelimitersInStrings() throws Exception {
+        List<Movie> movies = new ArrayList<>();
+        for (int id = 1; id <= 500; id++) {
+            movies.add(movie(id, "Filme " + id + ", \"parte\" [" + id + "] {}"));
+        }
+        Path legacySnapshot = dataDir.resolve("movies.json");
+        Files.writeString(legacySnapshot, PersistenceCodec.shared().snapshotWriter(Movie.class).writeValueAsString(movies));
+
+        List<Movie> loaded = new ArrayList<>();
+        int count = ParallelCatalogReader.<Movie>read(legacySnapshot,
+                PersistenceCodec.shared().entityReader(Movie.class), loaded::add);
+
+        assertEquals(500, count);
+        for (int i = 0; i < movies.size(); i++) {
+            assertEquals(movies.get(i).getMovieId(), loaded.get(i).getMovieId());
+            assertEquals(movies.get(i).getTitle(), loaded.get(i).getTitle());
+        }
+    }
+
+    @Test
+    void testLargeLegacyCatalogIsMigratedWithTheParallelReader() throws Exception {
+        List<Movie> movies = new ArrayList<>();
+        for (int id = 1; id <= 300; id++) {
+            movies.add(movie(id, "Filme " + id));
+        }
+        Files.writeString(dataDir.resolve("movies.json"), PersistenceCodec.shared().snapshotWriter(Movie.class)
+                .writeValueAsString(movies));
+        Files.writeString(dataDir.resolve("movies.journal"), PersistenceCodec.shared().mapper()
+                .writeValueAsString(java.util.Map.of("op", "REMOVE", "id", 7)) + "\n");
+
+        String previous = System.getProperty("diario.load.parallelThresholdBytes");
+        System.setProperty("diario.load.parallelThresholdBytes", "1");
+        List<Movie> loaded;
+        try {
+            loaded = repository.load();
+        } finally {
+            if (previous == null) {
+                System.clearProperty("diario.load.parallelThresholdBytes");
+            } else {
+                System.setProperty("diario.load.parallelThresholdBytes", previous);
+            }
+        }
+
+        assertEquals(299, loaded.size());
+        assertEquals(6, loaded.get(5).getMovieId());
+        assertEquals(8, loaded.get(6).getMovieId()); // Ordem do arquivo preservada, sem o removido
+        assertEquals(299, repository.load().size());
+    }
+}
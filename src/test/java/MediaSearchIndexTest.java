@@ -0,0 +1,331 @@
+import org.diariocultural.Book;
+import org.diariocultural.BookController;
+import org.diariocultural.Movie;
+import org.diariocultural.MovieController;
+import org.diariocultural.ReviewInfo;
+import org.diariocultural.SeriesController;
+import org.diariocultural.fx.LibraryService;
+import org.diariocultural.index.BkTree;
+import org.diariocultural.index.FuzzyMatch;
+import org.diariocultural.index.InvertedIndex;
+import org.diariocultural.index.PrefixIndex;
+import org.diariocultural.index.TextNormalizer;
+import org.diariocultural.index.TrigramIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MediaSearchIndexTest {
+
+    @TempDir
+    Path dataDir;
+
+    private static Movie movie(String title, String director, String... cast) {
+        return new Movie(title, "", Arrays.asList("Drama"), 120, 2010, director,
+                "Sinopse", Arrays.asList(cast), Arrays.asList("Netflix"), false, null, new ReviewInfo());
+    }
+
+    @Test
+    void testInvertedIndexMatchesTokenPrefixesAndRequiresEveryToken() {
+        InvertedIndex index = new InvertedIndex();
+        index.index(1, List.of("O Senhor dos Anéis", "Fantasia"));
+        index.index(2, List.of("Senhora do Destino", "Novela"));
+        index.index(3, List.of("Cidade de Deus", "Drama"));
+
+        assertArrayEquals(new int[]{1, 2}, index.search("senhor"));
+        assertArrayEquals(new int[]{1}, index.search("SENHOR fanta"));
+        assertArrayEquals(new int[0], index.search("senhor drama"));
+        assertArrayEquals(new int[0], index.search("  ,. "));
+
+        // Reindexar substitui os tokens antigos
+        index.index(1, List.of("Duna", "Ficção"));
+        assertArrayEquals(new int[]{2}, index.search("senhor"));
+        index.remove(2);
+        assertArrayEquals(new int[0], index.search("senhor"));
+        assertEquals(0, index.documentFrequency("senhora"));
+    }
+
+    @Test
+    void testControllerKeepsIndexInSyncWithAddUpdateAndRemove() {
+        MovieController controller = new MovieController(dataDir);
+        Movie origem = movie("A Origem", "Christopher Nolan", "Leonardo DiCaprio");
+        Movie tropa = movie("Tropa de Elite", "José Padilha", "Wagner Moura");
+        controller.addMovieViaObject(origem);
+        controller.addMovieViaObject(tropa);
+
+        assertEquals(List.of(origem), controller.searchMovies("nolan"));
+        assertEquals(List.of(tropa), controller.searchMovies("wagner moura"));
+        assertEquals(List.of(origem, tropa), controller.searchMovies("2010"));
+
+        // Os formulários alteram a entidade no lugar e depois chamam updateMovie
+        origem.setDirector("Denis Villeneuve");
+        controller.updateMovie(origem);
+        assertTrue(controller.searchMovies("nolan").isEmpty());
+        assertEquals(List.of(origem), controller.searchMovies("villeneuve"));
+
+        controller.removeMovie(tropa);
+        assertTrue(controller.searchMovies("tropa").isEmpty());
+        controller.shutdown();
+    }
+
+    @Test
+    void testTrigramIndexKeepsSubstringSemantics() {
+        TrigramIndex index = new TrigramIndex();
+        index.index(1, new String[]{"a origem", "christopher nolan"});
+        index.index(2, new String[]{"abc xyz bca"});
+        index.index(3, new String[]{"tv", "acao"});
+
+        assertArrayEquals(new int[]{1}, index.search("RIGE"));
+        assertArrayEquals(new int[]{1}, index.search("  pher nol "));
+        // "abca" tem todos os trigramas no ID 2 ("abc", "bca"), mas não é substring
+        assertArrayEquals(new int[0], index.search("abca"));
+        // Consultas curtas, inclusive contra valores curtos
+        assertArrayEquals(new int[]{3}, index.search("v"));
+        assertArrayEquals(new int[]{1, 3}, index.search("o"));
+        assertArrayEquals(new int[]{2, 3}, index.search("çã"));
+
+        index.remove(3);
+        assertArrayEquals(new int[0], index.search("tv"));
+    }
+
+    @Test
+    void testControllerSearchMatchesLinearContainsScan() {
+        MovieController controller = new MovieController(dataDir);
+        BenchmarkSupport.movies(500, 3).forEach(controller::addMovieViaObject);
+        List<Movie> catalog = controller.getAllMovies();
+        for (String query : List.of("nolan", "ção", "a", "20", "ficção cient", "na mo", "xyz", "Rei 1")) {
+            String criteria = TextNormalizer.normalize(query);
+            List<Movie> expected = catalog.stream()
+                    .filter(movie -> TextNormalizer.fold(movie.getTitle()).contains(criteria) ||
+                            TextNormalizer.fold(movie.getDirector()).contains(criteria) ||
+                            String.valueOf(movie.getReleaseYear()).contains(criteria) ||
+                            movie.getGenre().stream().anyMatch(g -> TextNormalizer.fold(g).contains(criteria)) ||
+                            movie.getCast().stream().anyMatch(a -> TextNormalizer.fold(a).contains(criteria)))
+                    .collect(Collectors.toList());
+            assertEquals(expected, controller.searchMovies(query), query);
+        }
+        controller.shutdown();
+    }
+
+    @Test
+    void testSearchKeysIgnoreAccentsAndFollowSetters() {
+        assertEquals("acao e coracao", TextNormalizer.fold("AÇÃO e Coração"));
+        assertEquals("sertao", TextNormalizer.normalize("  Sertão "));
+
+        MovieController controller = new MovieController(dataDir);
+        Movie movie = movie("Ação no Sertão", "Glauber Rocha", "Othon Bastos");
+        controller.addMovieViaObject(movie);
+        assertEquals(List.of(movie), controller.searchMovies("acao"));
+        assertEquals(List.of(movie), controller.searchMovies("SERTÃO"));
+        assertEquals(List.of(movie), controller.searchMovies("glauber"));
+
+        String[] keys = movie.searchKeys();
+        assertSame(keys, movie.searchKeys(), "as chaves ficam em cache entre buscas");
+        movie.setTitle("Deus e o Diabo na Terra do Sol");
+        assertNotSame(keys, movie.searchKeys(), "o setter descarta as chaves antigas");
+        controller.updateMovie(movie);
+        assertTrue(controller.searchMovies("acao").isEmpty());
+        assertEquals(List.of(movie), controller.searchMovies("diabo"));
+        controller.shutdown();
+    }
+
+    @Test
+    void testPrefixIndexCompletesWordStartsRankedByRating() {
+        PrefixIndex index = new PrefixIndex();
+        index.index(1, List.of("Interestelar", "Christopher Nolan", "Matthew McConaughey"), 5.0);
+        index.index(2, List.of("A Origem", "Christopher Nolan", "Leonardo DiCaprio"), 4.0);
+        index.index(3, List.of("O Lobo de Wall Street", "Martin Scorsese", "Leonardo DiCaprio"), 3.0);
+        index.index(4, List.of("Cidade de Deus", "Fernando Meirelles"), 4.8);
+
+        List<PrefixIndex.Completion> nolan = index.complete("NOL", 5);
+        assertEquals(List.of(new PrefixIndex.Completion("Christopher Nolan", 4.5, 2)), nolan);
+
+        // "de" começa palavras em três textos; sai pela nota
+        assertEquals(List.of("Cidade de Deus", "O Lobo de Wall Street"),
+                index.complete("de", 5).stream().map(PrefixIndex.Completion::text).toList());
+        assertEquals(List.of("Cidade de Deus", "Christopher Nolan"),
+                index.complete("c", 2).stream().map(PrefixIndex.Completion::text).toList());
+        assertEquals(List.of("Martin Scorsese", "Matthew McConaughey"),
+                index.complete("ma", 5).stream().map(PrefixIndex.Completion::text).sorted().toList());
+
+        index.remove(1);
+        assertEquals(List.of(new PrefixIndex.Completion("Christopher Nolan", 4.0, 1)), index.complete("chris", 5));
+        assertTrue(index.complete("interes", 5).isEmpty());
+        assertTrue(index.complete("   ", 5).isEmpty());
+    }
+
+    @Test
+    void testPrefixIndexMatchesABruteForceScanAcrossEditsAndRatingChanges() {
+        Random random = new Random(11);
+        String[] words = {"amor", "amora", "noite", "nolan", "mar", "maria", "casa", "cidade", "deus", "de"};
+        PrefixIndex index = new PrefixIndex();
+        Map<Integer, List<String>> textsById = new HashMap<>();
+        Map<Integer, Double> ratingById = new HashMap<>();
+        for (int step = 0; step < 6_000; step++) {
+            int id = random.nextInt(300);
+            int operation = random.nextInt(10);
+            if (operation == 0) {
+                index.remove(id);
+                textsById.remove(id);
+                ratingById.remove(id);
+            } else if (operation < 4 && textsById.containsKey(id)) {
+                double rating = random.nextInt(6);
+                index.updateRating(id, rating);
+                ratingById.put(id, rating);
+            } else {
+                List<String> texts = new ArrayList<>();
+                for (int t = 1 + random.nextInt(2); t > 0; t--) {
+                    texts.add(words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]
+                            + " " + random.nextInt(step / 10 + 1));
+                }
+                double rating = random.nextInt(6);
+                index.index(id, texts, rating);
+                textsById.put(id, texts);
+                ratingById.put(id, rating);
+            }
+            if (step % 7 == 0) {
+                String prefix = random.nextBoolean() ? words[random.nextInt(words.length)].substring(0, 2)
+                        : String.valueOf(random.nextInt(60));
+                assertEquals(bruteForceRanks(textsById, ratingById, prefix, 6),
+                        index.complete(prefix, 6).stream().map(c -> c.averageRating() + "/" + c.count()).toList(),
+                        "prefixo " + prefix + " no passo " + step);
+            }
+        }
+    }
+
+    /** Nota e quantidade das k melhores sugestões, calculadas percorrendo todos os textos. */
+    private static List<String> bruteForceRanks(Map<Integer, List<String>> textsById, Map<Integer, Double> ratingById,
+                                                String prefix, int k) {
+        Map<String, double[]> totals = new HashMap<>();
+        textsById.forEach((id, texts) -> texts.stream().map(TextNormalizer::normalize).distinct().forEach(phrase -> {
+            double[] total = totals.computeIfAbsent(phrase, p -> new double[2]);
+            total[0] += ratingById.get(id);
+            total[1]++;
+        }));
+        return totals.entrySet().stream()
+                .filter(entry -> Arrays.stream(entry.getKey().split(" ")).anyMatch(word -> word.startsWith(prefix)))
+                .map(Map.Entry::getValue)
+                .sorted(Comparator.comparingDouble((double[] total) -> total[0] / total[1])
+                        .thenComparingDouble(total -> total[1]).reversed())
+                .limit(k)
+                .map(total -> total[0] / total[1] + "/" + (int) total[1])
+                .toList();
+    }
+
+    @Test
+    void testBkTreeFindsTheSameTermsAsABruteForceScan() {
+        Random random = new Random(5);
+        BkTree tree = new BkTree();
+        List<String> terms = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            StringBuilder term = new StringBuilder();
+            int length = 3 + random.nextInt(6);
+            for (int j = 0; j < length; j++) term.append((char) ('a' + random.nextInt(6)));
+            if (tree.add(term.toString())) terms.add(term.toString());
+        }
+        assertFalse(tree.add(terms.get(0)));
+        assertEquals(terms.size(), tree.size());
+        assertEquals(1, BkTree.distance("sudekis", "sudeikis"));
+        assertEquals(3, BkTree.distance("kitten", "sitting"));
+
+        for (String query : List.of("abcab", "ffff", "aabbccdd", "e")) {
+            for (int k = 0; k <= 2; k++) {
+                int max = k;
+                List<String> expected = terms.stream().filter(t -> BkTree.distance(query, t) <= max).sorted().toList();
+                List<String> actual = tree.search(query, k).stream().map(BkTree.Match::term).sorted().toList();
+                assertEquals(expected, actual, query + " k=" + k);
+            }
+        }
+    }
+
+    @Test
+    void testFuzzySearchToleratesTyposAndRanksExactMatchesFirst() {
+        MovieController controller = new MovieController(dataDir);
+        Movie interestelar = movie("Interestelar", "Christopher Nolan", "Matthew McConaughey");
+        Movie tedLasso = movie("Ted Lasso", "Bill Lawrence", "Jason Sudeikis");
+        Movie origem = movie("A Origem", "Christopher Nolan", "Leonardo DiCaprio");
+        controller.addMovieViaObject(interestelar);
+        controller.addMovieViaObject(tedLasso);
+        controller.addMovieViaObject(origem);
+
+        assertTrue(controller.searchMovies("interstelar").isEmpty());
+        assertEquals(List.of(new FuzzyMatch<>(interestelar, 1)), controller.searchMoviesFuzzy("Interstelar"));
+        assertEquals(List.of(new FuzzyMatch<>(tedLasso, 1)), controller.searchMoviesFuzzy("sudekis"));
+        assertEquals(List.of(interestelar, origem),
+                controller.searchMoviesFuzzy("nolan").stream().map(FuzzyMatch::entity).toList());
+        // Todos os tokens precisam casar, e a distância é somada
+        assertEquals(List.of(new FuzzyMatch<>(interestelar, 2)), controller.searchMoviesFuzzy("cristopher nola interestelar"));
+
+        LibraryService service = new LibraryService(new BookController(dataDir), controller, new SeriesController(dataDir));
+        Movie nolam = movie("Nolam", "Outro Diretor");
+        controller.addMovieViaObject(nolam);
+        // Exatos primeiro (substring em "Nolam"), depois os aproximados
+        assertEquals(List.of(nolam, interestelar, origem), service.searchAllMedia("nolam"));
+        service.shutdown();
+    }
+
+    @Test
+    void testRenamedEntityIsFoundByEveryTextSearchWithoutUpdate() {
+        MovieController movies = new MovieController(dataDir);
+        Movie movie = movie("Ação no Sertão", "Glauber Rocha", "Othon Bastos");
+        movies.addMovieViaObject(movie);
+
+        // Só os setters, sem updateMovie
+        movie.setTitle("Terra em Transe");
+        movie.setCast(List.of("Jardel Filho"));
+        assertEquals(List.of(movie), movies.searchMovies("transe"));
+        assertTrue(movies.searchMovies("sertao").isEmpty());
+        assertEquals(List.of(movie), movies.searchMovies("jardel"));
+        assertTrue(movies.searchMovies("othon").isEmpty());
+        assertEquals(List.of(movie), movies.searchMoviesFuzzy("trranse").stream().map(FuzzyMatch::entity).toList());
+        assertEquals(List.of("Terra em Transe"),
+                movies.completeMovies("terra", 5).stream().map(PrefixIndex.Completion::text).toList());
+        assertTrue(movies.completeMovies("acao", 5).isEmpty());
+        assertEquals(List.of("Jardel Filho"),
+                movies.completeMovies("jard", 5).stream().map(PrefixIndex.Completion::text).toList());
+        movie.setReleaseYear(1967);
+        assertEquals(List.of(movie), movies.searchMovies("1967"));
+        movies.shutdown();
+    }
+
+    @Test
+    void testTitleIndexFollowsSettersAndIgnoresCaseAndAccents() {
+        BookController books = new BookController(dataDir);
+        Book book = new Book("O Cortiço", "", List.of("Romance"), 1890, "Aluísio Azevedo", "Garnier", "123", false, false, null, new ReviewInfo());
+        books.addBookViaObject(book);
+        assertSame(book, books.findBookByTitle("  o CORTICO ").orElseThrow());
+
+        // O setter basta para reindexar, sem passar por updateBook
+        book.setTitle("Casa de Pensão");
+        assertTrue(books.findBookByTitle("O Cortiço").isEmpty());
+        assertSame(book, books.findBookByTitle("casa de pensao").orElseThrow());
+        book.setOriginalTitle("The Slum");
+        assertSame(book, books.findBookByTitle("the slum").orElseThrow());
+
+        books.removeBook(book);
+        assertTrue(books.findBookByTitle("Casa de Pensão").isEmpty());
+        // Entidade removida não é mais acompanhada
+        book.setTitle("Outro");
+        assertTrue(books.findBookByTitle("Outro").isEmpty());
+
+        MovieController movies = new MovieController(dataDir);
+        Movie first = movie("Solaris", "Andrei Tarkovsky");
+        Movie remake = movie("Solaris", "Steven Soderbergh");
+        movies.addMovieViaObject(first);
+        movies.addMovieViaObject(remake);
+        assertSame(first, movies.findMovieByTitle("SOLARIS").orElseThrow());
+        first.setTitle("Solyaris");
+        assertSame(remake, movies.findMovieByTitle("solaris").orElseThrow());
+    }
+}
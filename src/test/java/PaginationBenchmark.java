@@ -0,0 +1,47 @@
+import org.diariocultural.Book;
+import org.diariocultural.BookController;
+import org.diariocultural.Media;
+import org.diariocultural.Movie;
+import org.diariocultural.MovieController;
+import org.diariocultural.Series;
+import org.diariocultural.SeriesController;
+import org.diariocultural.fx.LibraryService;
+import org.diariocultural.index.MediaSort;
+import org.diariocultural.persistence.MediaRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Compara a listagem original (copiar os três catálogos com {@code getAllMedia} e
+ * ordenar na tabela) com a listagem paginada do {@link LibraryService}: a primeira
+ * página e uma página no meio da ordem por título.
+ */
+public class PaginationBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Path dataDir = Files.createTempDirectory("pagination-benchmark");
+        new MediaRepository<>(dataDir, "books", Book.class, Book::getBookId).writeSnapshot(BenchmarkSupport.books(size, 1));
+        new MediaRepository<>(dataDir, "movies", Movie.class, Movie::getMovieId).writeSnapshot(BenchmarkSupport.movies(size, 2));
+        new MediaRepository<>(dataDir, "series", Series.class, Series::getSeriesId).writeSnapshot(BenchmarkSupport.series(size, 3));
+        LibraryService service = new LibraryService(new BookController(dataDir), new MovieController(dataDir),
+                new SeriesController(dataDir));
+        System.out.printf("Acervo: %d mídias%n", service.getAllMedia().size());
+
+        BenchmarkSupport.time("getAllMedia", 3, 20, service::getAllMedia);
+        BenchmarkSupport.time("getAllMedia + ordenação por título", 3, 20, () -> {
+            List<Media> all = service.getAllMedia();
+            all.sort(Comparator.comparing(Media::getTitle, String.CASE_INSENSITIVE_ORDER));
+        });
+        for (MediaSort sort : List.of(MediaSort.CATALOG, MediaSort.TITLE, MediaSort.YEAR.reversed())) {
+            BenchmarkSupport.time("primeira página " + sort.key() + (sort.descending() ? " (decrescente)" : ""), 3, 200, () -> service.page(null, 100, sort));
+        }
+        LibraryService.Cursor middle = service.page(null, size, MediaSort.TITLE).next();
+        BenchmarkSupport.time("página no meio por título", 3, 200, () -> service.page(middle, 100, MediaSort.TITLE));
+        service.shutdown();
+    }
+}
@@ -0,0 +1,147 @@
+import org.diariocultural.Book;
+import org.diariocultural.BookController;
+import org.diariocultural.Media;
+import org.diariocultural.Movie;
+import org.diariocultural.MovieController;
+import org.diariocultural.Series;
+import org.diariocultural.SeriesController;
+import org.diariocultural.fx.LibraryService;
+import org.diariocultural.index.MediaSort;
+import org.diariocultural.index.RoaringBitmap;
+import org.diariocultural.index.TextNormalizer;
+import org.diariocultural.persistence.MediaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaginationTest {
+
+    @TempDir
+    Path dataDir;
+
+    private LibraryService newService(int count) {
+        new MediaRepository<>(dataDir, "books", Book.class, Book::getBookId).writeSnapshot(BenchmarkSupport.books(count, 1));
+        new MediaRepository<>(dataDir, "movies", Movie.class, Movie::getMovieId).writeSnapshot(BenchmarkSupport.movies(count, 2));
+        new MediaRepository<>(dataDir, "series", Series.class, Series::getSeriesId).writeSnapshot(BenchmarkSupport.series(count, 3));
+        return new LibraryService(new BookController(dataDir), new MovieController(dataDir), new SeriesController(dataDir));
+    }
+
+    private static int catalogOf(Media media) {
+        return media instanceof Book ? 0 : media instanceof Movie ? 1 : 2;
+    }
+
+    private static int idOf(Media media) {
+        if (media instanceof Book book) return book.getBookId();
+        if (media instanceof Movie movie) return movie.getMovieId();
+        return ((Series) media).getSeriesId();
+    }
+
+    /** A ordem que a listagem paginada precisa reproduzir, montada ordenando o acervo inteiro. */
+    private static Comparator<Media> fullOrder(MediaSort sort) {
+        Comparator<Media> tieBreak = Comparator.comparingInt(PaginationTest::catalogOf).thenComparingInt(PaginationTest::idOf);
+        Comparator<Media> order = switch (sort.key()) {
+            case CATALOG -> tieBreak;
+            case TITLE -> Comparator.comparing((Media media) -> TextNormalizer.normalize(media.getTitle())).thenComparing(tieBreak);
+            case YEAR -> Comparator.comparingInt(Media::getReleaseYear).thenComparing(tieBreak);
+        };
+        return sort.descending() ? order.reversed() : order;
+    }
+
+    private static List<Media> readAllPages(LibraryService service, MediaSort sort, int pageSize) {
+        List<Media> listed = new ArrayList<>();
+        LibraryService.Cursor cursor = null;
+        do {
+            LibraryService.Page page = service.page(cursor, pageSize, sort);
+            assertTrue(page.items().size() <= pageSize);
+            listed.addAll(page.items());
+            cursor = page.next();
+        } while (cursor != null);
+        return listed;
+    }
+
+    @Test
+    void testPagingThroughTheLibraryMatchesTheFullSortInEveryOrder() {
+        LibraryService service = newService(300);
+        List<Media> all = service.getAllMedia();
+        for (MediaSort sort : List.of(MediaSort.CATALOG, MediaSort.TITLE, MediaSort.YEAR)) {
+            for (MediaSort direction : List.of(sort, sort.reversed())) {
+                List<Media> expected = all.stream().sorted(fullOrder(direction)).toList();
+                assertEquals(expected, readAllPages(service, direction, 37), direction.toString());
+            }
+        }
+        // Página exata: a última não deixa cursor para uma página vazia
+        assertNull(service.page(null, all.size(), MediaSort.YEAR).next());
+        assertThrows(IllegalArgumentException.class, () -> service.page(
+                service.page(null, 10, MediaSort.TITLE).next(), 10, MediaSort.YEAR));
+        service.shutdown();
+    }
+
+    @Test
+    void testCursorStaysValidWhenItemsChangeBetweenPages() {
+        LibraryService service = newService(100);
+        LibraryService.Page first = service.page(null, 50, MediaSort.TITLE);
+        Media last = first.items().get(first.items().size() - 1);
+
+        // Remover o último item entregue e inserir antes e depois da posição não repete nem pula itens
+        service.getBookController().addBookViaObject(new Book("AAA primeiro", "", List.of("x"), 2000, "", "", "", false, false, null, null));
+        service.getMovieController().addMovieViaObject(new Movie("zzz último", "", List.of("x"), 100, 2000, "", "", List.of(), List.of(), false, null, null));
+        if (last instanceof Book book) service.getBookController().removeBook(book);
+        else if (last instanceof Movie movie) service.getMovieController().removeMovie(movie);
+        else service.getSeriesController().removeSeries((Series) last);
+
+        List<Media> rest = new ArrayList<>();
+        LibraryService.Cursor cursor = first.next();
+        while (cursor != null) {
+            LibraryService.Page page = service.page(cursor, 50, MediaSort.TITLE);
+            rest.addAll(page.items());
+            cursor = page.next();
+        }
+        String lastKey = TextNormalizer.normalize(last.getTitle());
+        List<Media> expected = service.getAllMedia().stream()
+                .filter(media -> TextNormalizer.normalize(media.getTitle()).compareTo(lastKey) >= 0)
+                .filter(media -> !first.items().contains(media))
+                .sorted(fullOrder(MediaSort.TITLE))
+                .toList();
+        assertEquals(expected, rest);
+        assertEquals("zzz último", rest.get(rest.size() - 1).getTitle());
+        assertTrue(rest.stream().noneMatch(media -> media.getTitle().equals("AAA primeiro")));
+        service.shutdown();
+    }
+
+    @Test
+    void testBitmapWindowsMatchABitSetWalk() {
+        Random random = new Random(11);
+        RoaringBitmap bitmap = new RoaringBitmap();
+        BitSet reference = new BitSet();
+        for (int i = 0; i < 30_000; i++) {
+            int id = random.nextBoolean() ? random.nextInt(10_000) : 65_536 * (1 + random.nextInt(4)) + random.nextInt(70_000);
+            bitmap.add(id);
+            reference.set(id);
+        }
+        for (int trial = 0; trial < 200; trial++) {
+            int from = random.nextInt(400_000) - 1;
+            int limit = 1 + random.nextInt(5_000);
+            List<Integer> after = new ArrayList<>();
+            for (int id = reference.nextSetBit(from + 1); id >= 0 && after.size() < limit; id = reference.nextSetBit(id + 1)) {
+                after.add(id);
+            }
+            assertArrayEquals(after.stream().mapToInt(Integer::intValue).toArray(), bitmap.after(from, limit));
+
+            List<Integer> before = new ArrayList<>();
+            for (int id = reference.previousSetBit(from); id >= 0 && before.size() < limit; id = reference.previousSetBit(id - 1)) {
+                before.add(id);
+            }
+            assertArrayEquals(before.stream().mapToInt(Integer::intValue).toArray(), bitmap.before(from + 1, limit));
+        }
+        assertArrayEquals(reference.stream().limit(10).toArray(), bitmap.after(-1, 10));
+        assertEquals(reference.length() - 1, bitmap.before(Integer.MAX_VALUE, 1)[0]);
+    }
+}
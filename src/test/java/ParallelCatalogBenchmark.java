@@ -0,0 +1,69 @@
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.diariocultural.Movie;
+import org.diariocultural.persistence.CatalogStreamReader;
+import org.diariocultural.persistence.MediaRepository;
+import org.diariocultural.persistence.ParallelCatalogReader;
+import org.diariocultural.persistence.PersistenceCodec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Compara a leitura sequencial em streaming com a leitura paralela em blocos do
+ * snapshot monolítico do formato antigo (o ganho depende do número de núcleos
+ * disponíveis), e mede a migração completa desse arquivo para shards.
+ */
+public class ParallelCatalogBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Path dataDir = Files.createTempDirectory("parallel-benchmark");
+        List<Movie> catalog = BenchmarkSupport.movies(size, 7);
+        Path legacySnapshot = dataDir.resolve("legacy.json");
+        PersistenceCodec.shared().snapshotWriter(Movie.class).writeValue(legacySnapshot.toFile(), catalog);
+        ObjectReader reader = PersistenceCodec.shared().entityReader(Movie.class);
+        System.out.printf("Snapshot antigo: %d filmes, %d bytes, paralelismo %d%n",
+                size, Files.size(legacySnapshot), ForkJoinPool.getCommonPoolParallelism());
+
+        BenchmarkSupport.time("leitura sequencial", 3, 10, () -> {
+            try {
+                CatalogStreamReader.read(legacySnapshot, reader, movie -> { });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        BenchmarkSupport.time("leitura paralela", 3, 10, () -> {
+            try {
+                ParallelCatalogReader.read(legacySnapshot, reader, movie -> { });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        int[] run = {0};
+        Runnable migrate = () -> {
+            try {
+                Path target = Files.createDirectories(dataDir.resolve("migration-" + run[0]++));
+                Files.copy(legacySnapshot, target.resolve("movies.json"));
+                new MediaRepository<>(target, "movies", Movie.class, Movie::getMovieId).load(movie -> { });
+                try (Stream<Path> files = Files.walk(target)) {
+                    for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                        Files.delete(file);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        System.setProperty("diario.load.parallelThresholdBytes", String.valueOf(Long.MAX_VALUE));
+        BenchmarkSupport.time("migração para shards (sequencial)", 1, 5, migrate);
+        System.setProperty("diario.load.parallelThresholdBytes", "0");
+        BenchmarkSupport.time("migração para shards (paralela)", 1, 5, migrate);
+    }
+}
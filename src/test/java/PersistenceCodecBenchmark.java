@@ -0,0 +1,49 @@
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.diariocultural.Book;
+import org.diariocultural.persistence.PersistenceCodec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Compara o custo de um salvamento com um ObjectMapper novo a cada vez
+ * (comportamento antigo dos controladores) com o writer pré-construído do {@link PersistenceCodec}.
+ */
+public class PersistenceCodecBenchmark {
+
+    public static void main(String[] args) {
+        PersistenceCodec codec = PersistenceCodec.shared();
+        codec.warmUp();
+        Book single = BenchmarkSupport.books(1, 1).get(0);
+        List<Book> catalog = BenchmarkSupport.books(1_000, 2);
+        ObjectWriter sharedEntityWriter = codec.entityWriter(Book.class);
+        ObjectWriter sharedSnapshotWriter = codec.snapshotWriter(Book.class);
+
+        BenchmarkSupport.time("1 livro, ObjectMapper novo por salvamento", 200, 2_000,
+                () -> write(freshMapper().writer(), single));
+        BenchmarkSupport.time("1 livro, writer compartilhado", 200, 2_000,
+                () -> write(sharedEntityWriter, single));
+        BenchmarkSupport.time("1000 livros, ObjectMapper novo por salvamento", 20, 100,
+                () -> write(freshMapper().writer(SerializationFeature.INDENT_OUTPUT), catalog));
+        BenchmarkSupport.time("1000 livros, writer compartilhado", 20, 100,
+                () -> write(sharedSnapshotWriter, catalog));
+    }
+
+    private static ObjectMapper freshMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        return objectMapper;
+    }
+
+    private static void write(ObjectWriter writer, Object value) {
+        try {
+            writer.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+import org.diariocultural.Book;
+import org.diariocultural.BookController;
+import org.diariocultural.Media;
+import org.diariocultural.Movie;
+import org.diariocultural.MovieController;
+import org.diariocultural.SeriesController;
+import org.diariocultural.fx.LibraryService;
+import org.diariocultural.fx.QueryCache;
+import org.diariocultural.index.MediaFilter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCacheTest {
+
+    @TempDir
+    Path dataDir;
+
+    private static Book book(String title) {
+        return new Book(title, "", List.of("Romance"), 2000, "Autor", "Editora", "", false, false, null, null);
+    }
+
+    private static Movie movie(String title) {
+        return new Movie(title, "", List.of("Drama"), 100, 2000, "Diretor", "", List.of(), List.of(), false, null, null);
+    }
+
+    @Test
+    void testRepeatedSearchesHitAndMutationsInvalidateOnlyTheirCatalog() {
+        BookController books = new BookController(dataDir);
+        MovieController movies = new MovieController(dataDir);
+        LibraryService service = new LibraryService(books, movies, new SeriesController(dataDir));
+        books.addBookViaObject(book("Noite Clara"));
+        movies.addMovieViaObject(movie("Noite Escura"));
+
+        List<Media> first = service.searchAllMedia("noite");
+        // Maiúsculas, acentos e espaços nas pontas dão a mesma chave
+        assertSame(first, service.searchAllMedia("  NOITE "));
+        assertThrows(UnsupportedOperationException.class, () -> first.add(book("x")));
+        QueryCache.Stats stats = service.queryCacheStats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+
+        // Só os livros são filtrados: um filme novo não invalida
+        MediaFilter romance = MediaFilter.ALL.withGenres("romance");
+        List<Media> onlyBooks = service.filterAllMedia(romance, Set.of(LibraryService.BOOKS));
+        movies.addMovieViaObject(movie("Noite Fria"));
+        assertSame(onlyBooks, service.filterAllMedia(romance, Set.of(LibraryService.BOOKS)));
+        // A busca nos três catálogos é recalculada e já vê o filme
+        assertEquals(3, service.searchAllMedia("noite").size());
+        assertEquals(1, service.queryCacheStats().invalidations());
+
+        // Cadastro, alteração e remoção invalidam
+        books.addBookViaObject(book("Noite Longa"));
+        assertEquals(2, service.filterAllMedia(romance, Set.of(LibraryService.BOOKS)).size());
+        Book clara = books.findBookByTitle("Noite Clara").orElseThrow();
+        clara.setTitle("Manhã Clara");
+        books.updateBook(clara);
+        assertEquals(3, service.searchAllMedia("noite").size());
+        // Um setter sozinho também invalida (o índice avisa o contador)
+        clara.setGenre(List.of("Drama"));
+        assertEquals(1, service.filterAllMedia(romance, Set.of(LibraryService.BOOKS)).size());
+        books.removeBook(books.findBookByTitle("Noite Longa").orElseThrow());
+        assertEquals(2, service.searchAllMedia("noite").size());
+        assertEquals(0, service.filterAllMedia(romance, Set.of(LibraryService.BOOKS)).size());
+
+        // Consultas estruturadas também passam pelo cache
+        List<Media> typed = service.searchAllMedia("type:movie noite");
+        assertSame(typed, service.searchAllMedia("type:movie   noite"));
+        assertEquals(2, typed.size());
+        service.shutdown();
+    }
+
+    @Test
+    void testLeastRecentlyUsedResultIsEvicted() {
+        System.setProperty("diario.queryCache.size", "2");
+        LibraryService service;
+        try {
+            service = new LibraryService(new BookController(dataDir), new MovieController(dataDir),
+                    new SeriesController(dataDir));
+        } finally {
+            System.clearProperty("diario.queryCache.size");
+        }
+        service.getBookController().addBookViaObject(book("Sol"));
+
+        List<Media> sol = service.searchAllMedia("sol");
+        service.searchAllMedia("lua");
+        assertSame(sol, service.searchAllMedia("sol"));
+        // "lua" é a menos usada e sai
+        service.searchAllMedia("mar");
+        assertSame(sol, service.searchAllMedia("sol"));
+        QueryCache.Stats stats = service.queryCacheStats();
+        assertEquals(1, stats.evictions());
+        assertEquals(2, stats.size());
+        service.searchAllMedia("lua");
+        assertEquals(4, service.queryCacheStats().misses());
+        assertEquals(2.0 / 6, service.queryCacheStats().hitRate(), 1e-9);
+        service.shutdown();
+    }
+}
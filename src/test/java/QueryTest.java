@@ -0,0 +1,174 @@
+import org.diariocultural.Book;
+import org.diariocultural.BookController;
+import org.diariocultural.Media;
+import org.diariocultural.Movie;
+import org.diariocultural.MovieController;
+import org.diariocultural.Series;
+import org.diariocultural.SeriesController;
+import org.diariocultural.fx.LibraryService;
+import org.diariocultural.index.TextNormalizer;
+import org.diariocultural.persistence.MediaRepository;
+import org.diariocultural.query.Clause;
+import org.diariocultural.query.Query;
+import org.diariocultural.query.QueryParseException;
+import org.diariocultural.query.QueryParser;
+import org.diariocultural.query.QueryResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryTest {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void testParserBuildsClausesFromFieldsRangesAndQuotedText() {
+        Query query = QueryParser.parse("type:movie genre:drama,comédia year:2000..2010 rating>=4 cast:\"joão silva\" \"o mar\" noite");
+        assertEquals(List.of(
+                new Clause.Type(Set.of(LibraryService.MOVIES)),
+                new Clause.Genre(List.of("drama", "comédia")),
+                new Clause.YearRange(2000, 2010),
+                new Clause.RatingRange(4, true, Double.POSITIVE_INFINITY, true),
+                new Clause.Field(Media.CAST, "joão silva"),
+                new Clause.Text("o mar"),
+                new Clause.Text("noite")), query.clauses());
+        assertFalse(query.isPlainText());
+
+        assertEquals(List.of(new Clause.YearRange(2001, 0), new Clause.Flag(Media.WATCHED_STATUS),
+                        new Clause.Type(Set.of(LibraryService.SERIES))),
+                QueryParser.parse("ano>2000 is:assistido tipo:séries").clauses());
+        // Dois-pontos depois de algo que não é campo continua sendo texto
+        Query plain = QueryParser.parse("Matrix: Reloaded");
+        assertTrue(plain.isPlainText());
+        assertEquals(List.of(new Clause.Text("Matrix:"), new Clause.Text("Reloaded")), plain.clauses());
+
+        assertThrows(QueryParseException.class, () -> QueryParser.parse("year:abc"));
+        assertThrows(QueryParseException.class, () -> QueryParser.parse("type:disco"));
+        assertThrows(QueryParseException.class, () -> QueryParser.parse("cast>=joão"));
+        assertThrows(QueryParseException.class, () -> QueryParser.parse("title:\"sem fim"));
+        assertThrows(QueryParseException.class, () -> QueryParser.parse("genre: drama"));
+    }
+
+    @Test
+    void testPlannerReturnsTheSameAsAFullScanWhateverIndexDrivesIt() {
+        new MediaRepository<>(dataDir, "books", Book.class, Book::getBookId).writeSnapshot(BenchmarkSupport.books(400, 1));
+        new MediaRepository<>(dataDir, "movies", Movie.class, Movie::getMovieId).writeSnapshot(BenchmarkSupport.movies(400, 2));
+        new MediaRepository<>(dataDir, "series", Series.class, Series::getSeriesId).writeSnapshot(BenchmarkSupport.series(400, 3));
+        LibraryService service = new LibraryService(new BookController(dataDir), new MovieController(dataDir),
+                new SeriesController(dataDir));
+        List<Media> all = service.getAllMedia();
+
+        assertQuery(service, all, "type:movie genre:drama year:1990..2010 rating>=2",
+                media -> media instanceof Movie && hasGenre(media, "drama")
+                        && media.getReleaseYear() >= 1990 && media.getReleaseYear() <= 2010 && media.getAverageRating() >= 2);
+        assertQuery(service, all, "cast:\"fernanda\" is:watched",
+                media -> fieldContains(media, Media.CAST, "fernanda")
+                        && media.statusFlags().contains(Media.WATCHED_STATUS));
+        assertQuery(service, all, "creator:nolan coracao",
+                media -> fieldContains(media, Media.CREATOR, "nolan") && keysContain(media, "coracao"));
+        assertQuery(service, all, "genre:ficcao genre:drama ano<1960",
+                media -> hasGenre(media, "ficcao") && hasGenre(media, "drama") && media.getReleaseYear() < 1960);
+        assertQuery(service, all, "rating:1..2 type:livro,série",
+                media -> !(media instanceof Movie) && media.getAverageRating() >= 1 && media.getAverageRating() <= 2);
+        assertQuery(service, all, "year:2000..1990", media -> false);
+
+        // Texto simples continua na busca original (com a busca aproximada no fim)
+        assertEquals(service.searchAllMedia("\"amor\""), service.searchAllMedia("amor"));
+        service.shutdown();
+    }
+
+    @Test
+    void testTextTheLanguageRejectsIsSearchedAsPlainText() {
+        BookController books = new BookController(dataDir);
+        LibraryService service = new LibraryService(books, new MovieController(dataDir), new SeriesController(dataDir));
+        books.addBookViaObject(new Book("O'Neil \"Duna", "", List.of("Drama"), 1990, "Autor", "Editora", "",
+                false, false, null, null));
+        books.addBookViaObject(new Book("Nota> de rodapé", "", List.of("Drama"), 1990, "Autor", "Editora", "",
+                false, false, null, null));
+
+        // Aspas sem fechamento e campos sem valor não viram erro nem filtro
+        assertEquals(List.of("O'Neil \"Duna"), titles(service.searchAllMedia("O'Neil \"Duna")));
+        assertEquals(List.of("Nota> de rodapé"), titles(service.searchAllMedia("nota>")));
+        assertTrue(service.searchAllMedia("is:").isEmpty());
+        // Um critério com campo válido continua estruturado
+        assertEquals(2, service.searchAllMedia("ano:1990").size());
+        // O modo de explicação aponta o erro
+        assertThrows(QueryParseException.class, () -> service.query("O'Neil \"Duna"));
+        service.shutdown();
+    }
+
+    @Test
+    void testFieldsOutsideThePlainSearchKeysAreStillFoundByTheirClauses() {
+        MovieController movies = new MovieController(dataDir);
+        SeriesController series = new SeriesController(dataDir);
+        LibraryService service = new LibraryService(new BookController(dataDir), movies, series);
+        movies.addMovieViaObject(new Movie("A Origem", "Inception", List.of("Ficção"), 148, 2010, "Christopher Nolan",
+                "", List.of(), List.of(), false, null, null));
+        series.addSeriesViaObject(new Series("Dark", "", "Baran bo Odar", List.of("Drama"), 2017, 2020,
+                List.of(), List.of(), false));
+
+        // A busca simples cobre os mesmos campos de antes
+        assertTrue(service.searchAllMedia("inception").isEmpty());
+        assertTrue(service.searchAllMedia("baran").isEmpty());
+        // Os critérios de campo encontram pelo valor, mesmo conduzindo pelos trigramas
+        assertEquals(List.of("A Origem"), titles(service.searchAllMedia("title:inception")));
+        assertEquals(List.of("Dark"), titles(service.searchAllMedia("creator:baran")));
+        assertEquals(List.of("Dark"), titles(service.searchAllMedia("creator:baran ano:2017")));
+        assertEquals(List.of("A Origem"), titles(service.searchAllMedia("director:nolan title:origem")));
+        movies.getAllMovies().get(0).setOriginalTitle("");
+        assertTrue(service.searchAllMedia("title:inception").isEmpty());
+        service.shutdown();
+    }
+
+    private static List<String> titles(List<Media> media) {
+        return media.stream().map(Media::getTitle).toList();
+    }
+
+    @Test
+    void testExplainShowsTheChosenIndexAndEachStep() {
+        MovieController movies = new MovieController(dataDir);
+        for (Movie movie : BenchmarkSupport.movies(200, 4)) {
+            movies.addMovieViaObject(movie);
+        }
+        LibraryService service = new LibraryService(new BookController(dataDir), movies, new SeriesController(dataDir));
+        String title = movies.getAllMovies().get(0).getTitle();
+
+        // Um título inteiro tem menos candidatos nos trigramas que um gênero nos bitmaps
+        QueryResult selectiveText = service.query("type:filme genre:a \"" + title + "\"");
+        String plan = selectiveText.explain();
+        assertTrue(plan.contains("[livros] ignorado pelo critério de tipo"), plan);
+        assertTrue(plan.contains("[filmes] conduzida pelo índice de trigramas: texto \"" + title + "\""), plan);
+        assertTrue(plan.contains("[filmes] interseção com os bitmaps"), plan);
+
+        QueryResult onlyFacets = service.query("type:filme year:1960");
+        assertTrue(onlyFacets.explain().contains("[filmes] conduzida pelos bitmaps"), onlyFacets.explain());
+        QueryResult scan = service.query("type:filme rating>=4");
+        assertTrue(scan.explain().contains("[filmes] varredura completa do catálogo"), scan.explain());
+        assertTrue(scan.steps().stream().allMatch(step -> step.nanos() >= 0));
+        service.shutdown();
+    }
+
+    private static void assertQuery(LibraryService service, List<Media> all, String text, Predicate<Media> expected) {
+        QueryResult result = service.query(text);
+        assertEquals(all.stream().filter(expected).toList(), result.results(), result.explain());
+    }
+
+    private static boolean hasGenre(Media media, String fragment) {
+        return media.getGenre().stream().anyMatch(genre -> TextNormalizer.fold(genre).contains(fragment));
+    }
+
+    private static boolean fieldContains(Media media, String field, String fragment) {
+        return media.fieldValues(field).stream().anyMatch(value -> TextNormalizer.fold(value).contains(fragment));
+    }
+
+    private static boolean keysContain(Media media, String fragment) {
+        return List.of(media.searchKeys()).stream().anyMatch(key -> key.contains(fragment));
+    }
+}
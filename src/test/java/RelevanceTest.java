@@ -0,0 +1,101 @@
+import org.diariocultural.Book;
+import org.diariocultural.BookController;
+import org.diariocultural.Media;
+import org.diariocultural.Movie;
+import org.diariocultural.MovieController;
+import org.diariocultural.Series;
+import org.diariocultural.SeriesController;
+import org.diariocultural.fx.LibraryService;
+import org.diariocultural.index.Bm25;
+import org.diariocultural.index.TextNormalizer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RelevanceTest {
+
+    @TempDir
+    Path dataDir;
+
+    private static Book book(String title, String originalTitle, String author) {
+        return new Book(title, originalTitle, List.of("Romance"), 2000, author, "Editora", "", false, false, null, null);
+    }
+
+    private static Movie movie(String title, List<String> genre, List<String> cast) {
+        return new Movie(title, "", genre, 100, 2000, "Diretor", "", cast, List.of(), false, null, null);
+    }
+
+    private static List<String> titles(List<Media> media) {
+        return media.stream().map(Media::getTitle).toList();
+    }
+
+    @Test
+    void testResultsAreRankedByFieldAcrossMediaTypes() {
+        BookController books = new BookController(dataDir);
+        MovieController movies = new MovieController(dataDir);
+        SeriesController series = new SeriesController(dataDir);
+        LibraryService service = new LibraryService(books, movies, series);
+
+        // Cadastro na ordem inversa da relevância esperada
+        movies.addMovieViaObject(movie("Festa", List.of("Noturno"), List.of("Ana")));
+        movies.addMovieViaObject(movie("Jantar", List.of("Drama"), List.of("Carla Noturno")));
+        books.addBookViaObject(book("Diário", "", "Pedro Noturno"));
+        books.addBookViaObject(book("Dark", "Noturno Escuro", "Autor"));
+        series.addSeriesViaObject(new Series("Noturno Azul", "", "Criador", List.of("Drama"), 2010, 0,
+                List.of(), List.of(), false));
+        movies.addMovieViaObject(movie("Noturno", List.of("Drama"), List.of("Ana")));
+
+        // Título (o mais curto primeiro) > título original > autor > elenco > gênero
+        assertEquals(List.of("Noturno", "Noturno Azul", "Dark", "Diário", "Jantar", "Festa"),
+                titles(service.searchAllMedia("noturno")));
+
+        // Os avisos dos setters mantêm os campos ranqueados atualizados
+        Movie festa = movies.getAllMovies().get(0);
+        festa.setTitle("Noturno");
+        assertEquals(List.of("Noturno", "Noturno", "Noturno Azul"),
+                titles(service.searchAllMedia("noturno")).subList(0, 3));
+        service.shutdown();
+    }
+
+    @Test
+    void testRareTokensWeighMoreAndStatisticsAddUpAcrossCatalogs() {
+        BookController books = new BookController(dataDir);
+        MovieController movies = new MovieController(dataDir);
+        SeriesController series = new SeriesController(dataDir);
+        LibraryService service = new LibraryService(books, movies, series);
+        for (Book book : BenchmarkSupport.books(300, 1)) books.addBookViaObject(book);
+        for (Movie movie : BenchmarkSupport.movies(300, 2)) movies.addMovieViaObject(movie);
+
+        List<String> tokens = TextNormalizer.tokenize("amor zzqx");
+        Bm25.Statistics bookStats = books.bookRelevanceStatistics(tokens);
+        Bm25.Statistics movieStats = movies.movieRelevanceStatistics(tokens);
+        assertEquals(300, bookStats.documents());
+        assertTrue(bookStats.documentFrequencies()[0] > 0);
+        assertEquals(0, bookStats.documentFrequencies()[1]);
+
+        // Um token raro no título vale mais que um comum
+        books.addBookViaObject(book("zzqx", "", "Autor"));
+        books.addBookViaObject(book("amor", "", "Autor"));
+        int rareId = books.findBookByTitle("zzqx").orElseThrow().getBookId();
+        int commonId = books.findBookByTitle("amor").orElseThrow().getBookId();
+        tokens = TextNormalizer.tokenize("amor zzqx");
+        Bm25 scorer = Bm25.of(tokens, List.of(books.bookRelevanceStatistics(tokens), movieStats,
+                series.seriesRelevanceStatistics(tokens)));
+        double rare = books.searchBooksRanked("zzqx", scorer).get(0).score();
+        double common = books.searchBooksRanked("amor", scorer).stream()
+                .filter(match -> match.entity().getBookId() == commonId).findFirst().orElseThrow().score();
+        assertTrue(rare > common, rare + " <= " + common);
+        assertTrue(rareId != commonId);
+
+        // A ordem muda, o conjunto de resultados não
+        List<Media> ranked = service.searchAllMedia("amor");
+        assertEquals(ranked.size(), ranked.stream().distinct().count());
+        assertEquals(books.searchBooks("amor").size() + movies.searchMovies("amor").size(),
+                ranked.stream().filter(media -> !(media instanceof Series)).count());
+        service.shutdown();
+    }
+}
@@ -0,0 +1,157 @@
+import org.diariocultural.Book;
+import org.diariocultural.BookController;
+import org.diariocultural.Media;
+import org.diariocultural.Movie;
+import org.diariocultural.MovieController;
+import org.diariocultural.Series;
+import org.diariocultural.SeriesController;
+import org.diariocultural.fx.LibraryService;
+import org.diariocultural.index.BkTree;
+import org.diariocultural.index.Bm25;
+import org.diariocultural.index.FuzzyMatch;
+import org.diariocultural.index.InvertedIndex;
+import org.diariocultural.index.ScoredMatch;
+import org.diariocultural.index.TextNormalizer;
+import org.diariocultural.persistence.MediaRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Compara a busca linear (toLowerCase + contains em todos os filmes, como era feita
+ * antes dos índices) com a busca do {@link MovieController} num catálogo grande
+ * (também com a pontuação de relevância de cada resultado),
+ * mede o autocompletar e compara a busca tolerante a erros (BK-tree) com o cálculo
+ * da distância de edição contra cada filme. Por fim, com livros e séries também,
+ * compara a busca nos três catálogos um depois do outro com a do {@link LibraryService}
+ * (os três ao mesmo tempo) e mede a mesma busca repetida com e sem o cache de consultas.
+ */
+public class SearchBenchmark {
+
+    private static final String[] QUERIES = {"nolan", "coração", "ficção científica", "2001", "fernanda montenegro", "ela 5", "a"};
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Path dataDir = Files.createTempDirectory("search-benchmark");
+        new MediaRepository<>(dataDir, "movies", Movie.class, Movie::getMovieId)
+                .writeSnapshot(BenchmarkSupport.movies(size, 11));
+        MovieController controller = new MovieController(dataDir);
+        List<Movie> catalog = controller.getAllMovies();
+        System.out.printf("Catálogo: %d filmes%n", catalog.size());
+
+        for (String query : QUERIES) {
+            int matches = controller.searchMovies(query).size();
+            BenchmarkSupport.time("linear   '" + query + "' (" + matches + ")", 3, 10,
+                    () -> linearSearch(catalog, query));
+            BenchmarkSupport.time("índice   '" + query + "' (" + matches + ")", 3, 10,
+                    () -> controller.searchMovies(query));
+            BenchmarkSupport.time("BM25     '" + query + "' (" + matches + ")", 3, 10, () -> {
+                List<String> tokens = TextNormalizer.tokenize(query);
+                Bm25 scorer = Bm25.of(tokens, List.of(controller.movieRelevanceStatistics(tokens)));
+                controller.searchMoviesRanked(query, scorer);
+            });
+        }
+
+        // Autocompletar: a primeira chamada monta o array ordenado; depois de uma edição
+        // (título novo ou avaliação), a consulta seguinte não o refaz
+        BenchmarkSupport.time("autocompletar (montagem)", 0, 1, () -> controller.completeMovies("a", 8));
+        Movie edited = controller.getAllMovies().get(0);
+        int[] edits = {0};
+        BenchmarkSupport.time("só editar título (referência)", 100, 1_000,
+                () -> edited.setTitle("Título Editado " + edits[0]++));
+        BenchmarkSupport.time("autocompletar após editar título", 100, 1_000, () -> {
+            edited.setTitle("Título Editado " + edits[0]++);
+            controller.completeMovies("a", 8);
+        });
+        BenchmarkSupport.time("autocompletar após avaliar", 100, 1_000, () -> {
+            edited.addReview(edits[0]++ % 6, "nota");
+            controller.completeMovies("a", 8);
+        });
+        for (String prefix : new String[]{"a", "chr", "amor c", "fernanda m"}) {
+            BenchmarkSupport.time("autocompletar '" + prefix + "'", 1_000, 10_000,
+                    () -> controller.completeMovies(prefix, 8));
+        }
+
+        // Busca tolerante a erros: BK-tree sobre o vocabulário x distância contra cada entidade
+        for (String query : new String[]{"coracao", "montenegr", "nolam", "fernada montenegro"}) {
+            int matches = controller.searchMoviesFuzzy(query).size();
+            BenchmarkSupport.time("aproximada '" + query + "' (" + matches + ")", 3, 10,
+                    () -> controller.searchMoviesFuzzy(query));
+            BenchmarkSupport.time("ingênua   '" + query + "'", 1, 3, () -> naiveFuzzySearch(catalog, query));
+        }
+
+        // Três catálogos do mesmo tamanho: um depois do outro x ao mesmo tempo (sem cache)
+        new MediaRepository<>(dataDir, "books", Book.class, Book::getBookId).writeSnapshot(BenchmarkSupport.books(size, 12));
+        new MediaRepository<>(dataDir, "series", Series.class, Series::getSeriesId).writeSnapshot(BenchmarkSupport.series(size, 13));
+        BookController books = new BookController(dataDir);
+        SeriesController series = new SeriesController(dataDir);
+        System.setProperty("diario.queryCache.size", "0");
+        LibraryService uncached = new LibraryService(books, controller, series);
+        System.clearProperty("diario.queryCache.size");
+        for (String query : new String[]{"nolan", "coração", "a"}) {
+            BenchmarkSupport.time("sequencial '" + query + "'", 3, 10, () -> {
+                List<String> tokens = TextNormalizer.tokenize(query);
+                Bm25 scorer = Bm25.of(tokens, List.of(books.bookRelevanceStatistics(tokens),
+                        controller.movieRelevanceStatistics(tokens), series.seriesRelevanceStatistics(tokens)));
+                List<ScoredMatch<? extends Media>> ranked = new ArrayList<>(books.searchBooksRanked(query, scorer));
+                List<FuzzyMatch<? extends Media>> fuzzy = new ArrayList<>(books.searchBooksFuzzy(query));
+                ranked.addAll(controller.searchMoviesRanked(query, scorer));
+                fuzzy.addAll(controller.searchMoviesFuzzy(query));
+                ranked.addAll(series.searchSeriesRanked(query, scorer));
+                fuzzy.addAll(series.searchSeriesFuzzy(query));
+                // A mesma junção do serviço: exatos por relevância, depois os aproximados novos
+                ranked.sort(Comparator.comparingDouble((ScoredMatch<? extends Media> match) -> match.score()).reversed());
+                fuzzy.sort(Comparator.comparingInt(FuzzyMatch::distance));
+                Set<Media> found = Collections.newSetFromMap(new IdentityHashMap<>());
+                ranked.forEach(match -> found.add(match.entity()));
+                fuzzy.forEach(match -> found.add(match.entity()));
+            });
+            BenchmarkSupport.time("paralela   '" + query + "'", 3, 10, () -> uncached.searchAllMedia(query));
+        }
+        uncached.searchLatency().forEach((name, latency) -> System.out.printf(
+                "latência %-7s média %.1f ms, p50 <= %.1f ms, p99 <= %.1f ms, máx %.1f ms%n",
+                name, latency.meanMillis(), latency.p50Millis(), latency.p99Millis(), latency.maxMillis()));
+
+        // Cache de consultas: a mesma busca repetida sem alterações no acervo
+        LibraryService cached = new LibraryService(books, controller, series);
+        for (String query : new String[]{"nolan", "coração"}) {
+            BenchmarkSupport.time("sem cache '" + query + "'", 3, 10, () -> uncached.searchAllMedia(query));
+            BenchmarkSupport.time("com cache '" + query + "'", 3, 10_000, () -> cached.searchAllMedia(query));
+        }
+        controller.shutdown();
+    }
+
+    /** Calcula a distância de cada token da consulta contra cada token de cada filme. */
+    private static List<Movie> naiveFuzzySearch(List<Movie> movies, String query) {
+        List<String> queryTokens = TextNormalizer.tokenize(query);
+        return movies.stream()
+                .filter(movie -> queryTokens.stream().allMatch(token -> {
+                    for (String key : movie.searchKeys()) {
+                        for (String word : TextNormalizer.tokenize(key)) {
+                            if (BkTree.distance(token, word) <= InvertedIndex.maxTypos(token)) return true;
+                        }
+                    }
+                    return false;
+                }))
+                .collect(Collectors.toList());
+    }
+
+    private static List<Movie> linearSearch(List<Movie> movies, String criteria) {
+        String lowerCriteria = criteria.toLowerCase().trim();
+        return movies.stream()
+                .filter(movie -> movie.getTitle().toLowerCase().contains(lowerCriteria) ||
+                        movie.getDirector().toLowerCase().contains(lowerCriteria) ||
+                        String.valueOf(movie.getReleaseYear()).contains(lowerCriteria) ||
+                        movie.getGenre().stream().anyMatch(g -> g.toLowerCase().contains(lowerCriteria)) ||
+                        movie.getCast().stream().anyMatch(a -> a.toLowerCase().contains(lowerCriteria)))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,184 @@
+import org.diariocultural.Book;
+import org.diariocultural.BookController;
+import org.diariocultural.Media;
+import org.diariocultural.Movie;
+import org.diariocultural.MovieController;
+import org.diariocultural.SeriesController;
+import org.diariocultural.fx.LatencyMetrics;
+import org.diariocultural.fx.LibraryService;
+import org.diariocultural.index.Bm25;
+import org.diariocultural.index.ScoredMatch;
+import org.diariocultural.query.Query;
+import org.diariocultural.query.QueryTrace;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchFanOutTest {
+
+    @TempDir
+    Path dataDir;
+
+    /** Um catálogo de filmes lento: a busca pontuada espera o sinal do teste. */
+    private static class SlowMovieController extends MovieController {
+        final CountDownLatch release = new CountDownLatch(1);
+
+        SlowMovieController(Path dataDir) {
+            super(dataDir);
+        }
+
+        @Override
+        public List<ScoredMatch<Movie>> searchMoviesRanked(String criteria, Bm25 scorer) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.searchMoviesRanked(criteria, scorer);
+        }
+
+        @Override
+        public List<Movie> queryMovies(Query query, QueryTrace trace) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.queryMovies(query, trace);
+        }
+    }
+
+    private static Book book(String title) {
+        return new Book(title, "", List.of("Romance"), 2000, "Autor", "Editora", "", false, false, null, null);
+    }
+
+    private static Movie movie(String title) {
+        return new Movie(title, "", List.of("Drama"), 100, 2000, "Diretor", "", List.of(), List.of(), false, null, null);
+    }
+
+    @Test
+    void testSlowCatalogYieldsPartialResultsThatAreNotCached() {
+        BookController books = new BookController(dataDir);
+        SlowMovieController movies = new SlowMovieController(dataDir);
+        LibraryService service = new LibraryService(books, movies, new SeriesController(dataDir));
+        books.addBookViaObject(book("Maré Alta"));
+        movies.addMovieViaObject(movie("Maré Baixa"));
+
+        LibraryService.SearchResult partial = service.search("maré", Duration.ofMillis(100));
+        assertTrue(partial.isPartial());
+        assertEquals(Set.of(LibraryService.MOVIES), partial.timedOut());
+        assertEquals(List.of("Maré Alta"), partial.results().stream().map(Media::getTitle).toList());
+        assertEquals(1, service.searchLatency().get(LibraryService.MOVIES).timeouts());
+
+        // O resultado parcial não fica no cache: com o filme liberado, vem completo
+        movies.release.countDown();
+        LibraryService.SearchResult complete = service.search("maré", Duration.ofSeconds(10));
+        assertFalse(complete.isPartial());
+        assertEquals(2, complete.results().size());
+        assertSame(complete.results(), service.searchAllMedia("maré"));
+
+        LatencyMetrics.Snapshot bookLatency = service.searchLatency().get(LibraryService.BOOKS);
+        assertEquals(2, bookLatency.searches());
+        assertEquals(0, bookLatency.timeouts());
+        assertTrue(bookLatency.maxMillis() >= bookLatency.meanMillis());
+        assertTrue(bookLatency.p99Millis() <= bookLatency.maxMillis());
+        service.shutdown();
+    }
+
+    @Test
+    void testAsyncSearchReturnsBeforeTheCatalogsAnswer() throws Exception {
+        System.setProperty("diario.search.deadlineMillis", "200");
+        LibraryService service;
+        SlowMovieController movies = new SlowMovieController(dataDir);
+        try {
+            service = new LibraryService(new BookController(dataDir), movies, new SeriesController(dataDir));
+        } finally {
+            System.clearProperty("diario.search.deadlineMillis");
+        }
+        service.getBookController().addBookViaObject(book("Maré Alta"));
+        movies.addMovieViaObject(movie("Maré Baixa"));
+
+        CompletableFuture<LibraryService.SearchResult> pending = service.searchAsync("maré");
+        assertFalse(pending.isDone()); // Quem chamou não esperou pelo catálogo lento
+        LibraryService.SearchResult partial = pending.get(10, TimeUnit.SECONDS);
+        assertEquals(Set.of(LibraryService.MOVIES), partial.timedOut());
+        assertEquals(List.of("Maré Alta"), partial.results().stream().map(Media::getTitle).toList());
+
+        movies.release.countDown();
+        service.shutdown();
+        service.shutdown(); // A segunda chamada (gancho de encerramento) não tem efeito
+    }
+
+    @Test
+    void testStructuredQueriesShareTheDeadline() {
+        BookController books = new BookController(dataDir);
+        SlowMovieController movies = new SlowMovieController(dataDir);
+        LibraryService service = new LibraryService(books, movies, new SeriesController(dataDir));
+        books.addBookViaObject(book("Maré Alta"));
+        movies.addMovieViaObject(movie("Maré Baixa"));
+
+        LibraryService.SearchResult partial = service.search("year:2000", Duration.ofMillis(100));
+        assertEquals(Set.of(LibraryService.MOVIES), partial.timedOut());
+        assertEquals(List.of("Maré Alta"), partial.results().stream().map(Media::getTitle).toList());
+
+        movies.release.countDown();
+        LibraryService.SearchResult complete = service.search("year:2000", Duration.ofSeconds(10));
+        assertFalse(complete.isPartial());
+        assertEquals(List.of("Maré Alta", "Maré Baixa"), complete.results().stream().map(Media::getTitle).toList());
+        service.shutdown();
+    }
+
+    @Test
+    void testSearchesInOtherThreadsSeeConsistentCatalogsWhileTheyChange() throws Exception {
+        BookController books = new BookController(dataDir);
+        MovieController movies = new MovieController(dataDir);
+        LibraryService service = new LibraryService(books, movies, new SeriesController(dataDir));
+        for (Movie movie : BenchmarkSupport.movies(2_000, 6)) movies.addMovieViaObject(movie);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (String query : new String[]{"amor", "a", "noite"}) {
+            readers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    while (running.get()) {
+                        // Buscas calculadas de novo a cada vez: o catálogo muda sem parar
+                        for (Media media : service.search(query, Duration.ofSeconds(10)).results()) {
+                            assertNotNull(media.getTitle());
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+        for (int i = 0; i < 2_000; i++) {
+            Book book = book("Amor " + i);
+            books.addBookViaObject(book);
+            book.setTitle("Noite " + i);
+            book.setGenre(List.of("Drama", "Romance " + i));
+            if (i % 2 == 0) {
+                books.removeBook(book);
+            }
+        }
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertNull(failure.get());
+        assertEquals(1_000, books.getAllBooks().size());
+        service.shutdown();
+    }
+}
@@ -0,0 +1,55 @@
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.diariocultural.Series;
+import org.diariocultural.persistence.PersistenceCodec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Compara o databind por reflexão (caminho antigo) com os codecs de streaming
+ * escritos à mão, lendo e gravando um catálogo de séries (o tipo mais aninhado).
+ */
+public class StreamingCodecBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        List<Series> catalog = BenchmarkSupport.series(5_000, 3);
+
+        ObjectMapper databind = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        ObjectWriter databindWriter = databind.writerFor(databind.getTypeFactory().constructCollectionType(List.class, Series.class));
+        ObjectReader databindReader = databind.readerFor(databind.getTypeFactory().constructCollectionType(List.class, Series.class));
+
+        PersistenceCodec codec = PersistenceCodec.shared();
+        ObjectWriter streamingWriter = codec.entityWriter(List.class).forType(
+                codec.mapper().getTypeFactory().constructCollectionType(List.class, Series.class));
+        ObjectReader streamingReader = codec.listReader(Series.class);
+
+        byte[] databindJson = databindWriter.writeValueAsBytes(catalog);
+        byte[] streamingJson = streamingWriter.writeValueAsBytes(catalog);
+        System.out.printf("Tamanho: databind %d bytes, streaming %d bytes%n", databindJson.length, streamingJson.length);
+
+        BenchmarkSupport.time("escrita 5000 séries, databind", 10, 50, () -> write(databindWriter, catalog));
+        BenchmarkSupport.time("escrita 5000 séries, streaming", 10, 50, () -> write(streamingWriter, catalog));
+        BenchmarkSupport.time("leitura 5000 séries, databind", 10, 50, () -> read(databindReader, databindJson));
+        BenchmarkSupport.time("leitura 5000 séries, streaming", 10, 50, () -> read(streamingReader, databindJson));
+    }
+
+    private static void write(ObjectWriter writer, Object value) {
+        try {
+            writer.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void read(ObjectReader reader, byte[] json) {
+        try {
+            reader.readValue(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+import org.diariocultural.Book;
+import org.diariocultural.BookController;
+import org.diariocultural.index.MediaFilter;
+import org.diariocultural.persistence.MediaRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Compara o "melhor avaliados" original (cópia da lista e ordenação completa por
+ * {@code getAverageRating}) com o top-K do {@link BookController}, no catálogo
+ * inteiro e dentro de filtros (índice ordenado por média ou heap limitado, pela estimativa de custo).
+ */
+public class TopRatedBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Path dataDir = Files.createTempDirectory("top-rated-benchmark");
+        new MediaRepository<>(dataDir, "books", Book.class, Book::getBookId)
+                .writeSnapshot(BenchmarkSupport.books(size, 5));
+        BookController controller = new BookController(dataDir);
+        List<Book> catalog = controller.getAllBooks();
+        System.out.printf("Catálogo: %d livros%n", catalog.size());
+
+        BenchmarkSupport.time("ordenação completa", 3, 20, () -> {
+            List<Book> sorted = new ArrayList<>(catalog);
+            sorted.sort(Comparator.comparingDouble(
+                    (Book b) -> b.isReadStatus() && b.getReviewInfo() != null ? b.getAverageRating() : -1.0).reversed());
+            sorted.subList(0, 20).forEach(book -> { });
+        });
+        BenchmarkSupport.time("top 20 pelo índice", 3, 200, () -> controller.topRatedBooks(20, true, MediaFilter.ALL));
+        BenchmarkSupport.time("top 20 piores pelo índice", 3, 200, () -> controller.topRatedBooks(20, false, MediaFilter.ALL));
+        MediaFilter decade = MediaFilter.ALL.withYears(1990, 1999);
+        BenchmarkSupport.time("top 20 dos anos 90 (" + controller.countBooks(decade) + ")", 3, 200,
+                () -> controller.topRatedBooks(20, true, decade));
+        MediaFilter oneYear = MediaFilter.ALL.withYears(1995, 1995);
+        BenchmarkSupport.time("top 20 de 1995 (" + controller.countBooks(oneYear) + ")", 3, 200,
+                () -> controller.topRatedBooks(20, true, oneYear));
+        controller.shutdown();
+    }
+}
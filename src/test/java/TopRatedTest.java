@@ -0,0 +1,123 @@
+import org.diariocultural.Book;
+import org.diariocultural.BookController;
+import org.diariocultural.Media;
+import org.diariocultural.Movie;
+import org.diariocultural.MovieController;
+import org.diariocultural.ReviewInfo;
+import org.diariocultural.Series;
+import org.diariocultural.SeriesController;
+import org.diariocultural.fx.LibraryService;
+import org.diariocultural.index.MediaFilter;
+import org.diariocultural.index.TopK;
+import org.diariocultural.persistence.MediaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopRatedTest {
+
+    @TempDir
+    Path dataDir;
+
+    /** A ordem de referência: ordenação estável completa das avaliadas. */
+    private static <T extends Media> List<T> sortedTop(List<T> items, int k, boolean best) {
+        Comparator<T> byRating = Comparator.comparingDouble(Media::getAverageRating);
+        return items.stream().filter(Media::isRated)
+                .sorted(best ? byRating.reversed() : byRating)
+                .limit(k)
+                .toList();
+    }
+
+    @Test
+    void testTopKMatchesAStableFullSort() {
+        Random random = new Random(3);
+        List<Integer> values = IntStream.range(0, 5_000).map(i -> random.nextInt(50)).boxed().toList();
+        for (int k : new int[]{0, 1, 20, 5_000, 6_000}) {
+            List<Integer> expected = values.stream().sorted(Comparator.reverseOrder()).limit(k).toList();
+            assertEquals(expected, TopK.of(values, k, Comparator.<Integer>reverseOrder()));
+        }
+        // Estável: no empate, a ordem de chegada
+        List<String> words = List.of("bb", "a", "cc", "d", "ee");
+        assertEquals(List.of("bb", "cc", "ee"), TopK.of(words, 3, Comparator.comparingInt(String::length).reversed()));
+    }
+
+    @Test
+    void testReviewInfoKeepsTheAverageCurrent() {
+        ReviewInfo info = new ReviewInfo();
+        assertEquals(0.0, info.getAverageRating());
+        info.evaluate(4, "bom");
+        info.evaluate(9, "nota acima do limite vira 5");
+        assertEquals(4.5, info.getAverageRating());
+        ReviewInfo copy = new ReviewInfo();
+        copy.setReviews(info.getReviews());
+        copy.addReview(info.getReviews().get(0));
+        assertEquals(13.0 / 3, copy.getAverageRating(), 1e-9);
+
+        // A média do livro é a das suas próprias avaliações
+        Book book = BenchmarkSupport.books(1, 1).get(0);
+        book.setReviewInfo(info);
+        assertEquals(4.5, book.getAverageRating());
+        assertTrue(book.isRated());
+    }
+
+    @Test
+    void testTopRatedMatchesTheFullSortAndFollowsNewReviews() {
+        new MediaRepository<>(dataDir, "books", Book.class, Book::getBookId).writeSnapshot(BenchmarkSupport.books(2_000, 1));
+        new MediaRepository<>(dataDir, "movies", Movie.class, Movie::getMovieId).writeSnapshot(BenchmarkSupport.movies(500, 2));
+        new MediaRepository<>(dataDir, "series", Series.class, Series::getSeriesId).writeSnapshot(BenchmarkSupport.series(500, 3));
+        LibraryService service = new LibraryService(new BookController(dataDir), new MovieController(dataDir),
+                new SeriesController(dataDir));
+        BookController books = service.getBookController();
+
+        for (boolean best : new boolean[]{true, false}) {
+            assertEquals(sortedTop(books.getAllBooks(), 20, best), books.topRatedBooks(20, best, MediaFilter.ALL));
+            assertEquals(sortedTop(service.getAllMedia(), 30, best), service.topRated(30, best));
+            // Restrição grande (lê o índice ordenado) e pequena (heap sobre os IDs dela)
+            for (MediaFilter filter : List.of(MediaFilter.ALL.withGenres("a"), MediaFilter.ALL.withYears(1950, 1952))) {
+                assertEquals(sortedTop(books.filterBooks(filter), 15, best), books.topRatedBooks(15, best, filter));
+            }
+        }
+
+        // Uma avaliação nova reposiciona o livro pelo aviso de alteração
+        Book worst = books.topRatedBooks(1, false, MediaFilter.ALL).get(0);
+        for (int i = 0; i < 50; i++) {
+            worst.addReview(5, "revisto");
+        }
+        assertEquals(sortedTop(books.getAllBooks(), 500, true), books.topRatedBooks(500, true, MediaFilter.ALL));
+        assertTrue(books.topRatedBooks(500, true, MediaFilter.ALL).contains(worst));
+        Book unrated = books.getAllBooks().stream().filter(book -> !book.isRated()).findFirst().orElseThrow();
+        unrated.addReview(0, "ruim");
+        assertEquals(sortedTop(books.getAllBooks(), 20, false), books.topRatedBooks(20, false, MediaFilter.ALL));
+        service.shutdown();
+    }
+
+    @Test
+    void testBookListingKeepsReadUnratedBooksAtZero() {
+        BookController books = new BookController(dataDir);
+        Random random = new Random(5);
+        for (int i = 0; i < 300; i++) {
+            Book book = new Book("Livro " + i, "", List.of("Romance"), 2000, "Autor", "Editora", "",
+                    random.nextInt(4) > 0, false, null, null);
+            for (int r = random.nextInt(3); r > 0; r--) {
+                book.addReview(random.nextInt(6), "nota");
+            }
+            books.addBookViaObject(book);
+        }
+        // A ordenação original: lidos pela média (0.0 sem avaliações), depois os não lidos
+        List<Book> all = books.getAllBooks();
+        for (boolean best : new boolean[]{true, false}) {
+            Comparator<Book> byScore = Comparator.comparingDouble(
+                    (Book book) -> book.isReadStatus() ? book.getAverageRating() : best ? -1.0 : Double.MAX_VALUE);
+            assertEquals(all.stream().sorted(best ? byScore.reversed() : byScore).toList(),
+                    books.sortBooksByRating(all, best));
+        }
+        books.shutdown();
+    }
+}
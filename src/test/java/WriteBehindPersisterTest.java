@@ -0,0 +1,143 @@
+import org.diariocultural.Movie;
+import org.diariocultural.ReviewInfo;
+import org.diariocultural.Series;
+import org.diariocultural.SeriesController;
+import org.diariocultural.persistence.MediaRepository;
+import org.diariocultural.persistence.WriteBehindPersister;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindPersisterTest {
+
+    @TempDir
+    Path dataDir;
+
+    private MediaRepository<Movie> repository;
+    private WriteBehindPersister<Movie> persister;
+
+    @BeforeEach
+    void setUp() {
+        repository = new MediaRepository<>(dataDir, "movies", Movie.class, Movie::getMovieId);
+        // Atraso longo: só o flush explícito deve gravar durante o teste
+        persister = new WriteBehindPersister<>(repository, "movies", 60_000);
+    }
+
+    private Movie movie(int id, String title) {
+        return new Movie(title, Arrays.asList("Drama"), 2000, id, title, 120, "Diretor",
+                "Sinopse", Arrays.asList("Ator"), Arrays.asList("Netflix"), false, null, new ReviewInfo());
+    }
+
+    @Test
+    void testMutationsStayPendingUntilFlush() {
+        persister.recordAdd(movie(1, "Um"));
+
+        assertTrue(persister.isDirty());
+        assertFalse(Files.exists(repository.getJournalPath()));
+
+        persister.flush();
+        assertFalse(persister.isDirty());
+        assertEquals(1, repository.load().size());
+    }
+
+    @Test
+    void testBurstIsCoalescedIntoOneRecordPerEntity() throws Exception {
+        Movie movie = movie(1, "Um");
+        persister.recordAdd(movie);
+        movie.setDirector("Outro Diretor");
+        persister.recordUpdate(movie);
+        persister.recordUpdate(movie);
+        persister.recordAdd(movie(2, "Dois"));
+        persister.recordRemove(movie(2, "Dois")); // Adição e remoção se anulam
+        persister.flush();
+
+        List<String> lines = Files.readAllLines(repository.getJournalPath());
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("\"op\":\"ADD\""));
+
+        List<Movie> loaded = repository.load();
+        assertEquals(1, loaded.size());
+        assertEquals("Outro Diretor", loaded.get(0).getDirector());
+    }
+
+    @Test
+    void testEntityIsRecordedWithItsStateAtTheTimeOfTheChange() {
+        Movie movie = movie(1, "Um");
+        persister.recordAdd(movie);
+        // Alteração ainda não registrada no controlador: não vai para o diário
+        movie.setDirector("Outro Diretor");
+        movie.setCast(List.of("Ator", "Atriz"));
+        persister.flush();
+
+        Movie loaded = repository.load().get(0);
+        assertEquals("Diretor", loaded.getDirector());
+        assertEquals(List.of("Ator"), loaded.getCast());
+    }
+
+    @Test
+    void testFailedWriteKeepsTheBatchPendingUnderNewerChanges() throws Exception {
+        // Um diretório no lugar do diário faz a gravação falhar
+        Files.createDirectories(repository.getJournalPath());
+        Movie movie = movie(1, "Um");
+        persister.recordAdd(movie);
+        persister.recordAdd(movie(2, "Dois"));
+        persister.flush();
+        assertTrue(persister.isDirty());
+
+        movie.setDirector("Outro Diretor");
+        persister.recordUpdate(movie);
+        persister.recordRemove(movie(2, "Dois"));
+        Files.delete(repository.getJournalPath());
+        persister.flush();
+
+        // ADD + UPDATE continuam sendo um ADD; ADD + REMOVE somem
+        List<String> lines = Files.readAllLines(repository.getJournalPath());
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("\"op\":\"ADD\""));
+        List<Movie> loaded = repository.load();
+        assertEquals(1, loaded.size());
+        assertEquals("Outro Diretor", loaded.get(0).getDirector());
+        assertFalse(persister.isDirty());
+    }
+
+    @Test
+    void testControllerRecordsOnlyChangesToRegisteredEntities() throws Exception {
+        SeriesController controller = new SeriesController(dataDir);
+        Series unknown = new Series("Fora do Catálogo", "", "Criador", List.of("Drama"), 2000, 0,
+                List.of(), List.of(), false);
+        controller.removeSeries(unknown);
+        controller.updateSeries(unknown);
+        controller.flush();
+        assertFalse(Files.exists(controller.getRepository().getJournalPath()));
+
+        Series series = new Series("Dark", "", "Baran bo Odar", List.of("Drama"), 2017, 2020, List.of(), List.of(), false);
+        controller.addSeriesViaObject(series);
+        controller.flush();
+        controller.removeSeries(series);
+        controller.removeSeries(series);
+        controller.flush();
+        List<String> lines = Files.readAllLines(controller.getRepository().getJournalPath());
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).contains("\"op\":\"REMOVE\""));
+        controller.shutdown();
+    }
+
+    @Test
+    void testShutdownFlushesPendingMutations() {
+        persister.recordAdd(movie(1, "Um"));
+        persister.shutdown();
+
+        assertEquals(1, repository.load().size());
+
+        // Após o shutdown as alterações são gravadas na hora
+        persister.recordAdd(movie(2, "Dois"));
+        assertEquals(2, repository.load().size());
+    }
+}